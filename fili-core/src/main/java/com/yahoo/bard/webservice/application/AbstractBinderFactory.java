@@ -5,6 +5,7 @@ package com.yahoo.bard.webservice.application;
 import static com.yahoo.bard.webservice.config.BardFeatureFlag.DRUID_COORDINATOR_METADATA;
 import static com.yahoo.bard.webservice.config.BardFeatureFlag.DRUID_DIMENSIONS_LOADER;
 import static com.yahoo.bard.webservice.config.BardFeatureFlag.DRUID_LOOKUP_METADATA;
+import static com.yahoo.bard.webservice.config.CacheFeatureFlag.LOCAL_SIGNATURE;
 import static com.yahoo.bard.webservice.web.handlers.CacheRequestHandler.CACHE_HITS;
 import static com.yahoo.bard.webservice.web.handlers.CacheRequestHandler.CACHE_REQUESTS;
 import static com.yahoo.bard.webservice.web.handlers.DefaultWebServiceHandlerSelector.QUERY_REQUEST_TOTAL;
@@ -46,6 +47,8 @@ import com.yahoo.bard.webservice.data.cache.MemDataCache;
 import com.yahoo.bard.webservice.data.cache.MemTupleDataCache;
 import com.yahoo.bard.webservice.data.cache.StubDataCache;
 import com.yahoo.bard.webservice.data.cache.StubTupleDataCache;
+import com.yahoo.bard.webservice.data.cache.TieredDataCache;
+import com.yahoo.bard.webservice.data.cache.TieredTupleDataCache;
 import com.yahoo.bard.webservice.data.cache.TupleDataCache;
 import com.yahoo.bard.webservice.data.config.ConfigurationLoader;
 import com.yahoo.bard.webservice.data.config.DefaultConfigurationLoader;
@@ -164,6 +167,7 @@ import org.slf4j.LoggerFactory;
 import rx.subjects.PublishSubject;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.lang.management.ManagementFactory;
 import java.time.Clock;
 import java.time.ZoneId;
@@ -318,7 +322,8 @@ public abstract class AbstractBinderFactory implements BinderFactory {
                 setupHealthChecks(healthCheckRegistry, loader.getDimensionDictionary());
                 setupGauges();
 
-                bind(buildCache()).to(DataCache.class);
+                DataCache<?> dataCache = buildCache();
+                bind(dataCache).to(DataCache.class);
                 bind(QueryWeightUtil.class).to(QueryWeightUtil.class);
 
                 bind(getMappers()).to(ObjectMappersSuite.class);
@@ -355,7 +360,8 @@ public abstract class AbstractBinderFactory implements BinderFactory {
                 bind(querySigningService).to(QuerySigningService.class);
 
 
-                bind(buildQuerySignedCacheService(buildLocalSignatureCache(), querySigningService, getMapper()))
+                DataCache<?> signatureCache = LOCAL_SIGNATURE.isOn() ? dataCache : buildLocalSignatureCache();
+                bind(buildQuerySignedCacheService(signatureCache, querySigningService, getMapper()))
                         .to(CacheService.class);
 
                 bind(buildJobRowBuilder()).to(JobRowBuilder.class);
@@ -1074,7 +1080,7 @@ public abstract class AbstractBinderFactory implements BinderFactory {
         try {
             MemTupleDataCache<Long, String> cache = new MemTupleDataCache<>();
             LOG.info("MemcachedClient Version 2 started {}", cache);
-            return cache;
+            return buildTieredCache(cache);
         } catch (IOException e) {
             LOG.error("MemcachedClient Version 2 failed to start.", e);
             throw new IllegalStateException(e);
@@ -1095,7 +1101,7 @@ public abstract class AbstractBinderFactory implements BinderFactory {
         try {
             DataCache<String> cache = new HashDataCache<>(new MemDataCache<>());
             LOG.info("MemcachedClient started {}", cache);
-            return cache;
+            return BardFeatureFlag.QUERY_RESPONSE_L1_CACHE.isOn() ? new TieredDataCache<>(cache) : cache;
         } catch (IOException e) {
             LOG.error("MemcachedClient failed to start.", e);
             throw new IllegalStateException(e);
@@ -1111,13 +1117,28 @@ public abstract class AbstractBinderFactory implements BinderFactory {
         try {
             MemTupleDataCache<String, String> cache = new MemTupleDataCache<>();
             LOG.info("MemcachedClient Version 2 started {}", cache);
-            return cache;
+            return buildTieredCache(cache);
         } catch (IOException e) {
             LOG.error("MemcachedClient Version 2 failed to start.", e);
             throw new IllegalStateException(e);
         }
     }
 
+    /**
+     * Puts an in process cache in front of a tuple data cache, if the L1 cache is enabled.
+     *
+     * @param cache  The underlying cache
+     * @param <M>  The metadata type of the cache
+     * @param <V>  The raw data type of the cache
+     *
+     * @return the tiered cache, or the underlying cache if the L1 cache is disabled
+     */
+    protected <M extends Serializable, V extends Serializable> TupleDataCache<String, M, V> buildTieredCache(
+            TupleDataCache<String, M, V> cache
+    ) {
+        return BardFeatureFlag.QUERY_RESPONSE_L1_CACHE.isOn() ? new TieredTupleDataCache<>(cache) : cache;
+    }
+
     /**
      * Asks for the valid feature flags that are expected to be defined in the system.
      * This method is also provided as an extension point for classes that need to add their own feature flags.
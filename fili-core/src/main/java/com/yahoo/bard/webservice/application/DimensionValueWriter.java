@@ -0,0 +1,276 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.application;
+
+import com.yahoo.bard.webservice.data.dimension.Dimension;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the values found by a {@link DimensionValueLoader} into their dimensions, a batch at a time.
+ * <p>
+ * A value is added as an empty row, and only if its dimension doesn't have a row for it yet. Each batch is checked
+ * against the dimension with a single lookup, and its new rows are added together, so the store and search index of
+ * the dimension are updated once a batch rather than once a row.
+ * <p>
+ * The writer remembers a hash of every value it has found in a dimension, for as long as the dimension only changes
+ * through the writer, including the changes made through {@link #update} once a load completes. Periodic loads mostly
+ * see the same values again, and skip them without a lookup. The hashes are held in a primitive hash table, and only
+ * up to a maximum number a dimension. Values beyond the maximum are looked up in the dimension every time.
+ */
+public class DimensionValueWriter {
+    private static final HashFunction VALUE_HASH = Hashing.murmur3_128();
+
+    /**
+     * The default maximum number of values remembered for each dimension, which take up to about 20MB.
+     */
+    public static final int DEFAULT_MAX_KNOWN_VALUES = 1000000;
+
+    private final int batchSize;
+    private final int maxKnownValues;
+
+    /**
+     * The hashes of the values known to be in each dimension, with the row version of the dimension they hold for.
+     */
+    private final Map<Dimension, Pair<String, KnownValues>> knownValues = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param batchSize  The number of values checked against a dimension and added to it at a time
+     */
+    public DimensionValueWriter(int batchSize) {
+        this(batchSize, DEFAULT_MAX_KNOWN_VALUES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param batchSize  The number of values checked against a dimension and added to it at a time
+     * @param maxKnownValues  The maximum number of values remembered for each dimension
+     */
+    public DimensionValueWriter(int batchSize, int maxKnownValues) {
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxKnownValues = Math.max(maxKnownValues, 0);
+    }
+
+    /**
+     * Add a row for each of some values of a dimension that the dimension doesn't have yet.
+     *
+     * @param dimension  The dimension to add rows to
+     * @param values  The values found for the dimension
+     *
+     * @return the number of rows added
+     */
+    public int write(Dimension dimension, Iterable<String> values) {
+        Optional<String> rowVersion = dimension.getRowVersion();
+        Pair<String, KnownValues> known = knownValues.get(dimension);
+        KnownValues hashes = known != null && rowVersion.isPresent() && rowVersion.get().equals(known.getLeft())
+                ? known.getRight()
+                : new KnownValues(maxKnownValues);
+
+        int added = 0;
+        Map<String, Long> batch = new LinkedHashMap<>();
+        for (String value : values) {
+            long hash = VALUE_HASH.hashString(value, StandardCharsets.UTF_8).asLong();
+            if (!hashes.contains(hash)) {
+                batch.put(value, hash);
+                if (batch.size() >= batchSize) {
+                    added += writeBatch(dimension, batch, hashes);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            added += writeBatch(dimension, batch, hashes);
+        }
+
+        // Adding rows moves the dimension to a new row version, which the remembered values still hold for
+        dimension.getRowVersion().ifPresent(
+                version -> knownValues.put(dimension, new ImmutablePair<>(version, hashes))
+        );
+        return added;
+    }
+
+    /**
+     * Apply a change to a dimension that leaves its rows as they are, such as marking it as loaded, and keep the values
+     * known to be in it.
+     * <p>
+     * The change moves the dimension to a new row version, which the values remembered for the version before the
+     * change are carried over to. Values remembered for any other version are left to be looked up again.
+     *
+     * @param dimension  The dimension to change
+     * @param change  The change, which must not change the dimension's rows
+     */
+    public void update(Dimension dimension, Runnable change) {
+        Optional<String> before = dimension.getRowVersion();
+        change.run();
+        Optional<String> after = dimension.getRowVersion();
+        if (!before.isPresent() || !after.isPresent()) {
+            return;
+        }
+        knownValues.computeIfPresent(
+                dimension,
+                (ignored, known) -> before.get().equals(known.getLeft())
+                        ? new ImmutablePair<>(after.get(), known.getRight())
+                        : known
+        );
+    }
+
+    /**
+     * Add rows for the values of a batch that the dimension doesn't have yet.
+     *
+     * @param dimension  The dimension to add rows to
+     * @param batch  The hash of each value of the batch, by value
+     * @param hashes  The hashes of the values known to be in the dimension, which the values of the batch are added to
+     *
+     * @return the number of rows added
+     */
+    private int writeBatch(Dimension dimension, Map<String, Long> batch, KnownValues hashes) {
+        Map<String, DimensionRow> existingRows = dimension.findDimensionRowsByKeyValues(batch.keySet());
+
+        Set<DimensionRow> newRows = new LinkedHashSet<>();
+        for (String value : batch.keySet()) {
+            if (!existingRows.containsKey(value)) {
+                Map<String, String> fieldValues = new HashMap<>();
+                fieldValues.put(dimension.getKey().getName(), value);
+                newRows.add(dimension.parseDimensionRow(fieldValues));
+            }
+        }
+        if (!newRows.isEmpty()) {
+            dimension.addAllDimensionRows(newRows);
+        }
+
+        hashes.addAll(batch.values());
+        return newRows.size();
+    }
+
+    /**
+     * Forget the values known to be in every dimension, so the next load looks all of them up.
+     */
+    public void clear() {
+        knownValues.clear();
+    }
+
+    /**
+     * The hashes of the values known to be in a dimension, in an open addressing hash table of longs.
+     * <p>
+     * Hashes are added until there are as many as the maximum, and further hashes are dropped.
+     */
+    private static final class KnownValues {
+        private static final int MIN_CAPACITY = 16;
+
+        private final int maxSize;
+        private long[] slots = new long[MIN_CAPACITY];
+        // Empty slots hold 0, so a hash of 0 is tracked on its own
+        private boolean hasZero;
+        private int size;
+
+        /**
+         * Constructor.
+         *
+         * @param maxSize  The maximum number of hashes held
+         */
+        KnownValues(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Check whether a hash is held.
+         *
+         * @param hash  The hash
+         *
+         * @return true if the hash is held
+         */
+        synchronized boolean contains(long hash) {
+            if (hash == 0) {
+                return hasZero;
+            }
+            int mask = slots.length - 1;
+            for (int i = (int) hash & mask; slots[i] != 0; i = (i + 1) & mask) {
+                if (slots[i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Add hashes, for as long as there is room for them.
+         *
+         * @param hashes  The hashes to add
+         */
+        synchronized void addAll(Collection<Long> hashes) {
+            for (long hash : hashes) {
+                if (size >= maxSize) {
+                    return;
+                }
+                if (hash == 0) {
+                    if (!hasZero) {
+                        hasZero = true;
+                        size++;
+                    }
+                    continue;
+                }
+                // Keep the table at most three quarters full, so probe runs stay short
+                if ((size + 1) * 4L > slots.length * 3L) {
+                    resize(slots.length * 2);
+                }
+                if (insert(slots, hash)) {
+                    size++;
+                }
+            }
+        }
+
+        /**
+         * Move the hashes to a table of a new capacity.
+         *
+         * @param capacity  The new capacity, a power of two
+         */
+        private void resize(int capacity) {
+            long[] resized = new long[capacity];
+            for (long hash : slots) {
+                if (hash != 0) {
+                    insert(resized, hash);
+                }
+            }
+            slots = resized;
+        }
+
+        /**
+         * Put a non zero hash in a table, if the table doesn't hold it yet.
+         *
+         * @param table  The table, with a power of two capacity and at least one empty slot
+         * @param hash  The hash
+         *
+         * @return true if the hash was added
+         */
+        private static boolean insert(long[] table, long hash) {
+            int mask = table.length - 1;
+            int i = (int) hash & mask;
+            while (table[i] != 0) {
+                if (table[i] == hash) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = hash;
+            return true;
+        }
+    }
+}
@@ -6,7 +6,6 @@ import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.dimension.Dimension;
 import com.yahoo.bard.webservice.data.dimension.DimensionDictionary;
-import com.yahoo.bard.webservice.data.dimension.DimensionRow;
 import com.yahoo.bard.webservice.data.time.AllGranularity;
 import com.yahoo.bard.webservice.druid.client.DruidWebService;
 import com.yahoo.bard.webservice.druid.client.FailureCallback;
@@ -29,7 +28,12 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * The DruidDimensionRowProvider sends requests to the druid search query interface to get a list of dimension
@@ -46,6 +50,17 @@ public class DruidDimensionValueLoader implements DimensionValueLoader {
     public static final String DRUID_DIM_LOADER_LOOKBACK_PERIOD =
             SYSTEM_CONFIG.getPackageVariableName("druid_dim_loader_lookback_period");
 
+    public static final String DRUID_DIM_LOADER_PARALLELISM =
+            SYSTEM_CONFIG.getPackageVariableName("druid_dim_loader_parallelism");
+    public static final String DRUID_DIM_LOADER_BATCH_SIZE =
+            SYSTEM_CONFIG.getPackageVariableName("druid_dim_loader_batch_size");
+    public static final String DRUID_DIM_LOADER_MAX_KNOWN_VALUES =
+            SYSTEM_CONFIG.getPackageVariableName("druid_dim_loader_max_known_values");
+    public static final String DRUID_DIM_LOADER_INCREMENTAL =
+            SYSTEM_CONFIG.getPackageVariableName("druid_dim_loader_incremental");
+    public static final String DRUID_DIM_LOADER_INCREMENTAL_OVERLAP =
+            SYSTEM_CONFIG.getPackageVariableName("druid_dim_loader_incremental_overlap");
+
     private static final Integer ROW_LIMIT = SYSTEM_CONFIG.getIntProperty(DRUID_DIM_LOADER_ROW_LIMIT, 1000);
 
     private static final Period LOOKBACK = new Period(SYSTEM_CONFIG.getStringProperty(
@@ -53,6 +68,36 @@ public class DruidDimensionValueLoader implements DimensionValueLoader {
             "P10Y"
     ));
 
+    private static final int PARALLELISM = SYSTEM_CONFIG.getIntProperty(DRUID_DIM_LOADER_PARALLELISM, 4);
+    private static final int BATCH_SIZE = SYSTEM_CONFIG.getIntProperty(DRUID_DIM_LOADER_BATCH_SIZE, 10000);
+    private static final int MAX_KNOWN_VALUES = SYSTEM_CONFIG.getIntProperty(
+            DRUID_DIM_LOADER_MAX_KNOWN_VALUES,
+            DimensionValueWriter.DEFAULT_MAX_KNOWN_VALUES
+    );
+    private static final boolean INCREMENTAL = SYSTEM_CONFIG.getBooleanProperty(DRUID_DIM_LOADER_INCREMENTAL, false);
+
+    private static final Period INCREMENTAL_OVERLAP = new Period(SYSTEM_CONFIG.getStringProperty(
+            DRUID_DIM_LOADER_INCREMENTAL_OVERLAP,
+            "P1D"
+    ));
+
+    /**
+     * Threads writing the values found by queries into their dimensions, shared by all loaders.
+     */
+    private static final ExecutorService LOADER_POOL = Executors.newFixedThreadPool(
+            Math.max(PARALLELISM, 1),
+            new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "dimension-value-loader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+    );
+
     private static final String ANY_MATCH_PATTERN = ".*";
     private static final SearchQuerySpec SEARCH_QUERY_SPEC = new RegexSearchQuerySpec(ANY_MATCH_PATTERN);
 
@@ -60,6 +105,11 @@ public class DruidDimensionValueLoader implements DimensionValueLoader {
     private final LinkedHashSet<Dimension> dimensions;
     private final LinkedHashSet<DataSource> dataSources;
 
+    private final DimensionValueWriter dimensionValueWriter = new DimensionValueWriter(
+            BATCH_SIZE,
+            MAX_KNOWN_VALUES
+    );
+
     private HttpErrorCallback errorCallback;
     private FailureCallback failureCallback;
 
@@ -134,10 +184,20 @@ public class DruidDimensionValueLoader implements DimensionValueLoader {
 
     @Override
     public void query(Dimension dimension, DataSource dataSource) {
-        // Success callback will update the dimension cache
-        SuccessCallback success = buildDruidDimensionsSuccessCallback(dimension);
+        // Success callback will update the dimension cache, off the thread handling the response
+        SuccessCallback updateDimension = buildDruidDimensionsSuccessCallback(dimension);
+        SuccessCallback success = rootNode -> LOADER_POOL.execute(() -> {
+            try {
+                updateDimension.invoke(rootNode);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to load values for dimension: {}", dimension, e);
+                if (failureCallback != null) {
+                    failureCallback.invoke(e);
+                }
+            }
+        });
 
-        Interval interval = new Interval(LOOKBACK, DateTime.now());
+        Interval interval = getLoadInterval(dimension);
 
         DruidSearchQuery druidSearchQuery = new DruidSearchQuery(
                 dataSource,
@@ -160,8 +220,32 @@ public class DruidDimensionValueLoader implements DimensionValueLoader {
         );
     }
 
+    /**
+     * Get the interval to look for values of a dimension in.
+     * <p>
+     * Full loads look back {@code druid_dim_loader_lookback_period}. Incremental loads, when
+     * {@code druid_dim_loader_incremental} is set, only look at data since the dimension was last updated, less
+     * {@code druid_dim_loader_incremental_overlap} to catch data that arrived late.
+     *
+     * @param dimension  The dimension to load
+     *
+     * @return the interval to query
+     */
+    private Interval getLoadInterval(Dimension dimension) {
+        DateTime now = DateTime.now();
+        DateTime start = now.minus(LOOKBACK);
+        DateTime lastUpdated = INCREMENTAL ? dimension.getLastUpdated() : null;
+        if (lastUpdated != null && lastUpdated.minus(INCREMENTAL_OVERLAP).isAfter(start)) {
+            start = lastUpdated.minus(INCREMENTAL_OVERLAP);
+        }
+        return new Interval(start, now);
+    }
+
     /**
      * Build the callback to handle the successful druid query response.
+     * <p>
+     * Values are streamed out of the response into the dimension a batch at a time by a
+     * {@link DimensionValueWriter}, which skips values already known to be loaded.
      *
      * @param dimension  Dimension for which we are getting values
      *
@@ -169,17 +253,15 @@ public class DruidDimensionValueLoader implements DimensionValueLoader {
      */
     private SuccessCallback buildDruidDimensionsSuccessCallback(Dimension dimension) {
         return rootNode -> {
-            rootNode.forEach(intervalNode -> {
-                intervalNode.get("result").forEach(dim -> {
-                    String value = dim.get("value").asText();
-                    if (dimension.findDimensionRowByKeyValue(value) == null) {
-                        DimensionRow dimRow = dimension.createEmptyDimensionRow(value);
-                        updateDimensionWithValue(dimension, dimRow);
-                    }
-                });
-            });
-
-            updateDimension(dimension);
+            Iterable<String> values = () -> StreamSupport.stream(rootNode.spliterator(), false)
+                    .flatMap(intervalNode -> StreamSupport.stream(intervalNode.get("result").spliterator(), false))
+                    .map(dim -> dim.get("value").asText())
+                    .iterator();
+            int added = dimensionValueWriter.write(dimension, values);
+            LOG.debug("Loaded {} new values of dimension: {}", added, dimension);
+
+            // Marking the dimension as loaded moves its row version on, but leaves the values loaded into it known
+            dimensionValueWriter.update(dimension, () -> updateDimension(dimension));
         };
     }
 }
@@ -37,7 +37,23 @@ public enum BardFeatureFlag implements FeatureFlag {
     DEFAULT_IN_FILTER("default_in_filter_enabled"),
     REQUIRE_METRICS_QUERY("require_metrics_in_query"),
     POJO_DARI_REQUIRE_ALL_STAGES_CALLED("require_all_data_request_building_stages_called"),
-    METRIC_TYPE_IN_META_BLOCK("metric_type_in_meta_block")
+    METRIC_TYPE_IN_META_BLOCK("metric_type_in_meta_block"),
+    /** If true, parse druid data responses straight into result sets when no processor needs the JSON tree. */
+    DRUID_RESPONSE_STREAMING("druid_response_streaming_enabled"),
+    /** If true, identical druid queries in flight at the same time share a single request to druid. */
+    QUERY_COALESCING("druid_query_coalescing_enabled"),
+    /** If true, queries to each druid service are held to an adaptive concurrency limit, waiting in lanes over it. */
+    DRUID_CONCURRENCY_LIMIT("druid_concurrency_limit_enabled"),
+    /** If true, recently used query response cache entries are also kept in process, in front of memcached. */
+    QUERY_RESPONSE_L1_CACHE("query_response_l1_cache_enabled"),
+    /** If true, the LocalSignature cache stores and reads responses one time grain bucket at a time. */
+    BUCKETED_QUERY_CACHE("query_response_bucketed_cache_enabled"),
+    /** If true, druid responses are parsed into result sets held column by column rather than row by row. */
+    COLUMNAR_RESULT_SET("columnar_result_set_enabled"),
+    /** If true, the physical table resolved for a constraint is reused until table availability changes. */
+    PHYSICAL_TABLE_RESOLUTION_CACHE("physical_table_resolution_cache_enabled"),
+    /** If true, startswith filters on a dimension key matching many rows are sent to druid as regular expressions. */
+    DRUID_PREFIX_REGEX_FILTER("druid_prefix_regex_filter_enabled")
     ;
 
     static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
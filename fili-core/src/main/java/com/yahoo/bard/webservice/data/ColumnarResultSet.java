@@ -0,0 +1,860 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data;
+
+import com.yahoo.bard.webservice.data.dimension.DimensionColumn;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+import com.yahoo.bard.webservice.data.metric.MetricColumn;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A result set holding its rows column by column rather than as one {@link Result} object per row.
+ * <p>
+ * Timestamps are held as a long column, dimension values as codes into a dictionary of the distinct dimension rows of
+ * each column, and metric values as long or double columns when every value of the column is a number that converts
+ * back to the same {@link BigDecimal}, else as the values themselves. {@link Result} rows are built on demand when the
+ * result set is read as a list, so a result set read once, or only in part, never holds all its rows as objects.
+ * <p>
+ * The result set cannot be modified. Selecting rows, as mappers that sort, page or truncate a result set do, builds a
+ * new result set sharing the columns of this one, and adding a metric column builds one sharing the other columns.
+ */
+public class ColumnarResultSet extends ResultSet {
+
+    /**
+     * Marks a metric value missing from a row, as opposed to a metric whose value is null.
+     */
+    private static final Object ABSENT = new Object();
+
+    private final Chronology chronology;
+    private final long[] timestamps;
+    private final boolean[] hasTimestamp;
+    private final List<DimensionColumn> dimensionColumns;
+    private final int[][] dimensionCodes;
+    private final List<DimensionRow[]> dimensionDictionaries;
+    private final List<MetricColumn> metricColumns;
+    private final List<MetricValues> metricValues;
+
+    // The position in the columns of each row of this result set
+    private final int[] rows;
+    private final List<Result> results;
+
+    /**
+     * Constructor.
+     *
+     * @param schema  The associated schema
+     * @param columns  The columns of the rows, shared with any other result set selecting rows from them
+     * @param rows  The position in the columns of each row of this result set
+     */
+    private ColumnarResultSet(ResultSetSchema schema, ColumnarResultSet columns, int[] rows) {
+        this(
+                schema,
+                columns.chronology,
+                columns.timestamps,
+                columns.hasTimestamp,
+                columns.dimensionColumns,
+                columns.dimensionCodes,
+                columns.dimensionDictionaries,
+                columns.metricColumns,
+                columns.metricValues,
+                rows
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param schema  The associated schema
+     * @param chronology  The chronology of the timestamps
+     * @param timestamps  The timestamp column, in milliseconds
+     * @param hasTimestamp  Whether each row of the columns has a timestamp
+     * @param dimensionColumns  The dimension columns
+     * @param dimensionCodes  The codes of the dimension rows of each dimension column
+     * @param dimensionDictionaries  The distinct dimension rows of each dimension column, by code
+     * @param metricColumns  The metric columns
+     * @param metricValues  The values of each metric column
+     * @param rows  The position in the columns of each row of this result set, or null for every row in order
+     */
+    private ColumnarResultSet(
+            ResultSetSchema schema,
+            Chronology chronology,
+            long[] timestamps,
+            boolean[] hasTimestamp,
+            List<DimensionColumn> dimensionColumns,
+            int[][] dimensionCodes,
+            List<DimensionRow[]> dimensionDictionaries,
+            List<MetricColumn> metricColumns,
+            List<MetricValues> metricValues,
+            int[] rows
+    ) {
+        super(schema, new ArrayList<>());
+        this.chronology = chronology;
+        this.timestamps = timestamps;
+        this.hasTimestamp = hasTimestamp;
+        this.dimensionColumns = dimensionColumns;
+        this.dimensionCodes = dimensionCodes;
+        this.dimensionDictionaries = dimensionDictionaries;
+        this.metricColumns = metricColumns;
+        this.metricValues = metricValues;
+        this.rows = rows;
+        this.results = buildResultView();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param schema  The associated schema
+     * @param builder  The builder holding the columns
+     */
+    private ColumnarResultSet(ResultSetSchema schema, Builder builder) {
+        super(schema, new ArrayList<>());
+        int size = builder.size;
+        this.chronology = builder.chronology;
+        this.timestamps = Arrays.copyOf(builder.timestamps, size);
+        this.hasTimestamp = Arrays.copyOf(builder.hasTimestamp, size);
+        this.dimensionColumns = new ArrayList<>(builder.dimensionIndexes.keySet());
+        this.dimensionCodes = new int[dimensionColumns.size()][];
+        this.dimensionDictionaries = new ArrayList<>(dimensionColumns.size());
+        for (int i = 0; i < dimensionColumns.size(); i++) {
+            dimensionCodes[i] = Arrays.copyOf(builder.dimensionCodes.get(i), size);
+            dimensionDictionaries.add(builder.dimensionDictionaries.get(i).toArray(new DimensionRow[0]));
+        }
+        this.metricColumns = new ArrayList<>(builder.metricIndexes.keySet());
+        this.metricValues = new ArrayList<>(metricColumns.size());
+        for (MetricValues values : builder.metricValues) {
+            metricValues.add(values.trim(size));
+        }
+        this.rows = null;
+        this.results = buildResultView();
+    }
+
+    /**
+     * Build a result set from results, column by column if the results allow it.
+     * <p>
+     * The results are read once and only their columns are kept, so results built on demand are never all held at
+     * once. Results whose timestamps use different chronologies cannot share a timestamp column, and are kept as a
+     * {@link ResultSet} of the results themselves.
+     *
+     * @param schema  The associated schema
+     * @param results  The results
+     *
+     * @return a columnar result set of the results, or a result set of the results themselves
+     */
+    public static ResultSet of(ResultSetSchema schema, Iterable<Result> results) {
+        Builder builder = new Builder();
+        Iterator<Result> iterator = results.iterator();
+        while (iterator.hasNext()) {
+            Result result = iterator.next();
+            if (!builder.add(result)) {
+                List<Result> rows = new ArrayList<>(builder.build(schema));
+                rows.add(result);
+                iterator.forEachRemaining(rows::add);
+                return new ResultSet(schema, rows);
+            }
+        }
+        return builder.build(schema);
+    }
+
+    /**
+     * Select rows of this result set, in the order given, into a new result set sharing the columns of this one.
+     *
+     * @param selected  The indexes in this result set of the rows to select
+     *
+     * @return the result set of the selected rows
+     */
+    public ColumnarResultSet select(int[] selected) {
+        int[] positions = new int[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            positions[i] = position(selected[i]);
+        }
+        return new ColumnarResultSet(getSchema(), this, positions);
+    }
+
+    /**
+     * Select a range of rows of this result set into a new result set sharing the columns of this one.
+     *
+     * @param from  The index of the first row to select
+     * @param to  The index after the last row to select
+     *
+     * @return the result set of the selected rows
+     */
+    public ColumnarResultSet select(int from, int to) {
+        int[] selected = new int[Math.max(0, to - from)];
+        Arrays.setAll(selected, i -> from + i);
+        return select(selected);
+    }
+
+    /**
+     * Build a result set of the rows of this one with a metric column added, or replaced if it is already a column.
+     * <p>
+     * The columns of this result set are shared if it holds every row of its columns in order. Otherwise the rows it
+     * selects are copied out of them column by column, since the new column holds a value for each of its rows.
+     *
+     * @param schema  The associated schema of the new result set
+     * @param column  The metric column
+     * @param values  The values of the metric for the rows of this result set, by index
+     *
+     * @return the result set with the metric column
+     */
+    public ColumnarResultSet withMetricColumn(ResultSetSchema schema, MetricColumn column, long[] values) {
+        if (values.length != size()) {
+            throw new IllegalArgumentException("Expected " + size() + " metric values but got " + values.length);
+        }
+        long[] selectedTimestamps = timestamps;
+        boolean[] selectedHasTimestamp = hasTimestamp;
+        int[][] selectedCodes = dimensionCodes;
+        List<MetricValues> selectedValues = new ArrayList<>(metricValues);
+        if (rows != null) {
+            selectedTimestamps = new long[rows.length];
+            selectedHasTimestamp = new boolean[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                selectedTimestamps[i] = timestamps[rows[i]];
+                selectedHasTimestamp[i] = hasTimestamp[rows[i]];
+            }
+            selectedCodes = new int[dimensionCodes.length][];
+            for (int i = 0; i < dimensionCodes.length; i++) {
+                selectedCodes[i] = new int[rows.length];
+                for (int j = 0; j < rows.length; j++) {
+                    selectedCodes[i][j] = dimensionCodes[i][rows[j]];
+                }
+            }
+            selectedValues.replaceAll(columnValues -> columnValues.select(rows));
+        }
+
+        List<MetricColumn> columns = new ArrayList<>(metricColumns);
+        MetricValues columnValues = MetricValues.ofLongs(Arrays.copyOf(values, values.length));
+        int index = columns.indexOf(column);
+        if (index < 0) {
+            columns.add(column);
+            selectedValues.add(columnValues);
+        } else {
+            selectedValues.set(index, columnValues);
+        }
+        return new ColumnarResultSet(
+                schema,
+                chronology,
+                selectedTimestamps,
+                selectedHasTimestamp,
+                dimensionColumns,
+                selectedCodes,
+                dimensionDictionaries,
+                columns,
+                selectedValues,
+                null
+        );
+    }
+
+    /**
+     * Check if a row has a timestamp.
+     *
+     * @param index  The index of the row
+     *
+     * @return true if the row has a timestamp
+     */
+    public boolean hasTimestamp(int index) {
+        return hasTimestamp[position(index)];
+    }
+
+    /**
+     * The timestamp of a row, in milliseconds.
+     *
+     * @param index  The index of the row
+     *
+     * @return the timestamp of the row, only meaningful if the row has one
+     */
+    public long getTimestampMillis(int index) {
+        return timestamps[position(index)];
+    }
+
+    /**
+     * An ordering of the rows of this result set by timestamp, with the rows without a timestamp last.
+     *
+     * @param ascending  True to order earlier timestamps first
+     *
+     * @return the ordering of the indexes of rows
+     */
+    public Comparator<Integer> timestampOrder(boolean ascending) {
+        Comparator<Integer> byTime = Comparator.comparingLong(this::getTimestampMillis);
+        Comparator<Integer> timed = Comparator.comparing(index -> !hasTimestamp(index));
+        return timed.thenComparing(ascending ? byTime : byTime.reversed());
+    }
+
+    /**
+     * The position in the columns of a row of this result set.
+     *
+     * @param index  The index of the row
+     *
+     * @return the position of the row in the columns
+     */
+    private int position(int index) {
+        return rows == null ? index : rows[index];
+    }
+
+    /**
+     * Build the result for a row of the columns.
+     *
+     * @param position  The position of the row in the columns
+     *
+     * @return the result for the row
+     */
+    private Result buildResult(int position) {
+        Map<DimensionColumn, DimensionRow> dimensionRows = new LinkedHashMap<>();
+        for (int i = 0; i < dimensionColumns.size(); i++) {
+            int code = dimensionCodes[i][position];
+            if (code >= 0) {
+                dimensionRows.put(dimensionColumns.get(i), dimensionDictionaries.get(i)[code]);
+            }
+        }
+        Map<MetricColumn, Object> metrics = new LinkedHashMap<>();
+        for (int i = 0; i < metricColumns.size(); i++) {
+            Object value = metricValues.get(i).get(position);
+            if (value != ABSENT) {
+                metrics.put(metricColumns.get(i), value);
+            }
+        }
+        DateTime timeStamp = hasTimestamp[position] ? new DateTime(timestamps[position], chronology) : null;
+        return new Result(dimensionRows, metrics, timeStamp);
+    }
+
+    /**
+     * Replace this result set with a result set of its results when serialized.
+     *
+     * @return a result set of the results
+     */
+    private Object writeReplace() {
+        return new ResultSet(getSchema(), new ArrayList<>(results));
+    }
+
+    @Override
+    public int size() {
+        return rows == null ? timestamps.length : rows.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Result get(int index) {
+        return results.get(index);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return results.contains(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return results.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return results.lastIndexOf(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return results.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return results.toArray(a);
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+        return results.iterator();
+    }
+
+    @Override
+    public ListIterator<Result> listIterator() {
+        return results.listIterator();
+    }
+
+    @Override
+    public ListIterator<Result> listIterator(int index) {
+        return results.listIterator(index);
+    }
+
+    @Override
+    public List<Result> subList(int fromIndex, int toIndex) {
+        return results.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Result> action) {
+        results.forEach(action);
+    }
+
+    @Override
+    public Spliterator<Result> spliterator() {
+        return results.spliterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return results.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return results.hashCode();
+    }
+
+    @Override
+    public boolean add(Result result) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(int index, Result element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Result> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Result> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Result set(int index, Result element) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Result remove(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Result> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<Result> operator) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void sort(Comparator<? super Result> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Build a view of the rows of the result set, as results built on demand.
+     *
+     * @return the rows of the result set
+     */
+    private List<Result> buildResultView() {
+        return new AbstractList<Result>() {
+            @Override
+            public Result get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+                }
+                return buildResult(position(index));
+            }
+
+            @Override
+            public int size() {
+                return ColumnarResultSet.this.size();
+            }
+        };
+    }
+
+    /**
+     * Builds a columnar result set one result at a time.
+     */
+    public static class Builder {
+        private int size = 0;
+        private Chronology chronology;
+        private long[] timestamps = new long[16];
+        private boolean[] hasTimestamp = new boolean[16];
+
+        private final Map<DimensionColumn, Integer> dimensionIndexes = new LinkedHashMap<>();
+        private final List<int[]> dimensionCodes = new ArrayList<>();
+        private final List<List<DimensionRow>> dimensionDictionaries = new ArrayList<>();
+        private final List<Map<DimensionRow, Integer>> dimensionLookups = new ArrayList<>();
+
+        private final Map<MetricColumn, Integer> metricIndexes = new LinkedHashMap<>();
+        private final List<MetricValues> metricValues = new ArrayList<>();
+
+        /**
+         * Add a result as the next row.
+         *
+         * @param result  The result to add
+         *
+         * @return false if the result cannot be added, because its timestamp uses a different chronology than the
+         * results already added
+         */
+        public boolean add(Result result) {
+            return add(result.getTimeStamp(), result.getDimensionRows(), result.getMetricValues());
+        }
+
+        /**
+         * Add the values of a row as the next row, without building a result for it.
+         *
+         * @param timeStamp  The timestamp of the row, or null if it has none
+         * @param dimensionRows  The dimension rows of the row, by column
+         * @param metrics  The metric values of the row, by column
+         *
+         * @return false if the row cannot be added, because its timestamp uses a different chronology than the
+         * rows already added
+         */
+        public boolean add(
+                DateTime timeStamp,
+                Map<DimensionColumn, DimensionRow> dimensionRows,
+                Map<MetricColumn, Object> metrics
+        ) {
+            if (timeStamp != null) {
+                if (chronology == null) {
+                    chronology = timeStamp.getChronology();
+                } else if (!chronology.equals(timeStamp.getChronology())) {
+                    return false;
+                }
+            }
+
+            int position = size++;
+            if (position == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, position * 2);
+                hasTimestamp = Arrays.copyOf(hasTimestamp, position * 2);
+                dimensionCodes.replaceAll(codes -> grow(codes, position * 2));
+            }
+            if (timeStamp != null) {
+                timestamps[position] = timeStamp.getMillis();
+                hasTimestamp[position] = true;
+            }
+
+            for (Map.Entry<DimensionColumn, DimensionRow> entry : dimensionRows.entrySet()) {
+                int column = dimensionIndexes.computeIfAbsent(entry.getKey(), this::addDimensionColumn);
+                Map<DimensionRow, Integer> lookup = dimensionLookups.get(column);
+                List<DimensionRow> dictionary = dimensionDictionaries.get(column);
+                Integer code = lookup.get(entry.getValue());
+                if (code == null) {
+                    code = dictionary.size();
+                    dictionary.add(entry.getValue());
+                    lookup.put(entry.getValue(), code);
+                }
+                dimensionCodes.get(column)[position] = code;
+            }
+
+            for (MetricColumn metricColumn : metrics.keySet()) {
+                metricIndexes.computeIfAbsent(metricColumn, this::addMetricColumn);
+            }
+            for (Map.Entry<MetricColumn, Integer> entry : metricIndexes.entrySet()) {
+                Object value = metrics.containsKey(entry.getKey()) ? metrics.get(entry.getKey()) : ABSENT;
+                metricValues.get(entry.getValue()).add(value);
+            }
+            return true;
+        }
+
+        /**
+         * Build the result set of the results added.
+         *
+         * @param schema  The associated schema
+         *
+         * @return the columnar result set
+         */
+        public ColumnarResultSet build(ResultSetSchema schema) {
+            return new ColumnarResultSet(schema, this);
+        }
+
+        /**
+         * Start a dimension column, with no value for the rows added before it.
+         *
+         * @param column  The dimension column
+         *
+         * @return the index of the new column
+         */
+        private int addDimensionColumn(DimensionColumn column) {
+            int[] codes = new int[timestamps.length];
+            Arrays.fill(codes, -1);
+            dimensionCodes.add(codes);
+            dimensionDictionaries.add(new ArrayList<>());
+            dimensionLookups.add(new HashMap<>());
+            return dimensionCodes.size() - 1;
+        }
+
+        /**
+         * Start a metric column, with no value for the rows added before it.
+         *
+         * @param column  The metric column
+         *
+         * @return the index of the new column
+         */
+        private int addMetricColumn(MetricColumn column) {
+            MetricValues values = new MetricValues();
+            for (int i = 0; i < size - 1; i++) {
+                values.add(ABSENT);
+            }
+            metricValues.add(values);
+            return metricValues.size() - 1;
+        }
+
+        /**
+         * Grow an array of dimension codes, with no value in the new positions.
+         *
+         * @param codes  The codes
+         * @param length  The new length
+         *
+         * @return the grown array
+         */
+        private static int[] grow(int[] codes, int length) {
+            int[] grown = Arrays.copyOf(codes, length);
+            Arrays.fill(grown, codes.length, length, -1);
+            return grown;
+        }
+    }
+
+    /**
+     * The values of a metric column, held as longs or doubles for as long as every value converts back exactly, and as
+     * the values themselves from the first value that does not.
+     */
+    private static class MetricValues {
+        private static final int LONGS = 0;
+        private static final int DOUBLES = 1;
+        private static final int OBJECTS = 2;
+
+        private int mode = LONGS;
+        private int size = 0;
+        private long[] longs = new long[16];
+        private double[] doubles;
+        private Object[] objects;
+
+        /**
+         * Build the values of a metric column from long values.
+         *
+         * @param values  The values, which are held rather than copied
+         *
+         * @return the metric values
+         */
+        static MetricValues ofLongs(long[] values) {
+            MetricValues metricValues = new MetricValues();
+            metricValues.longs = values;
+            metricValues.size = values.length;
+            return metricValues;
+        }
+
+        /**
+         * Copy the values at some positions into new metric values, held the same way as these.
+         *
+         * @param positions  The positions of the values to copy, in the order to copy them
+         *
+         * @return the copied values
+         */
+        MetricValues select(int[] positions) {
+            MetricValues selected = new MetricValues();
+            selected.mode = mode;
+            selected.size = positions.length;
+            selected.longs = null;
+            switch (mode) {
+                case LONGS:
+                    selected.longs = new long[positions.length];
+                    for (int i = 0; i < positions.length; i++) {
+                        selected.longs[i] = longs[positions[i]];
+                    }
+                    break;
+                case DOUBLES:
+                    selected.doubles = new double[positions.length];
+                    for (int i = 0; i < positions.length; i++) {
+                        selected.doubles[i] = doubles[positions[i]];
+                    }
+                    break;
+                default:
+                    selected.objects = new Object[positions.length];
+                    for (int i = 0; i < positions.length; i++) {
+                        selected.objects[i] = objects[positions[i]];
+                    }
+            }
+            return selected;
+        }
+
+        /**
+         * Append a value.
+         *
+         * @param value  The value, or ABSENT if the row has no value for the metric
+         */
+        void add(Object value) {
+            if (mode == LONGS && !isLong(value)) {
+                mode = size == 0 && isDouble(value) ? DOUBLES : OBJECTS;
+                toMode();
+            } else if (mode == DOUBLES && !isDouble(value)) {
+                mode = OBJECTS;
+                toMode();
+            }
+            ensureCapacity(size + 1);
+            switch (mode) {
+                case LONGS:
+                    longs[size++] = ((BigDecimal) value).longValueExact();
+                    break;
+                case DOUBLES:
+                    doubles[size++] = ((BigDecimal) value).doubleValue();
+                    break;
+                default:
+                    objects[size++] = value;
+            }
+        }
+
+        /**
+         * The value at a position.
+         *
+         * @param position  The position
+         *
+         * @return the value, or ABSENT if the row has no value for the metric
+         */
+        Object get(int position) {
+            switch (mode) {
+                case LONGS:
+                    return BigDecimal.valueOf(longs[position]);
+                case DOUBLES:
+                    return BigDecimal.valueOf(doubles[position]);
+                default:
+                    return objects[position];
+            }
+        }
+
+        /**
+         * Release the unused capacity.
+         *
+         * @param length  The number of values
+         *
+         * @return this
+         */
+        MetricValues trim(int length) {
+            switch (mode) {
+                case LONGS:
+                    longs = Arrays.copyOf(longs, length);
+                    break;
+                case DOUBLES:
+                    doubles = Arrays.copyOf(doubles, length);
+                    break;
+                default:
+                    objects = Arrays.copyOf(objects, length);
+            }
+            return this;
+        }
+
+        /**
+         * Move the values held so far to the arrays of the current mode.
+         */
+        private void toMode() {
+            int capacity = Math.max(16, size * 2);
+            if (mode == DOUBLES) {
+                doubles = new double[capacity];
+            } else {
+                objects = new Object[capacity];
+                for (int i = 0; i < size; i++) {
+                    objects[i] = longs != null ? BigDecimal.valueOf(longs[i]) : BigDecimal.valueOf(doubles[i]);
+                }
+            }
+            longs = null;
+            if (mode == OBJECTS) {
+                doubles = null;
+            }
+        }
+
+        /**
+         * Make room for a number of values.
+         *
+         * @param capacity  The number of values to make room for
+         */
+        private void ensureCapacity(int capacity) {
+            switch (mode) {
+                case LONGS:
+                    if (capacity > longs.length) {
+                        longs = Arrays.copyOf(longs, capacity * 2);
+                    }
+                    break;
+                case DOUBLES:
+                    if (capacity > doubles.length) {
+                        doubles = Arrays.copyOf(doubles, capacity * 2);
+                    }
+                    break;
+                default:
+                    if (capacity > objects.length) {
+                        objects = Arrays.copyOf(objects, capacity * 2);
+                    }
+            }
+        }
+
+        /**
+         * Check if a value is a number that a long holds exactly.
+         *
+         * @param value  The value
+         *
+         * @return true if the value converts to a long and back to an equal value
+         */
+        private static boolean isLong(Object value) {
+            if (!(value instanceof BigDecimal)) {
+                return false;
+            }
+            BigDecimal number = (BigDecimal) value;
+            return number.scale() == 0 && number.unscaledValue().bitLength() < Long.SIZE;
+        }
+
+        /**
+         * Check if a value is a number that a double holds exactly.
+         *
+         * @param value  The value
+         *
+         * @return true if the value converts to a double and back to an equal value
+         */
+        private static boolean isDouble(Object value) {
+            if (!(value instanceof BigDecimal)) {
+                return false;
+            }
+            BigDecimal number = (BigDecimal) value;
+            double converted = number.doubleValue();
+            return !Double.isInfinite(converted) && Objects.equals(BigDecimal.valueOf(converted), number);
+        }
+    }
+}
@@ -2,8 +2,10 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data;
 
+import static com.yahoo.bard.webservice.config.BardFeatureFlag.COLUMNAR_RESULT_SET;
 import static com.yahoo.bard.webservice.web.ErrorMessageFormat.RESULT_SET_ERROR;
 
+import com.yahoo.bard.webservice.data.dimension.Dimension;
 import com.yahoo.bard.webservice.data.dimension.DimensionColumn;
 import com.yahoo.bard.webservice.data.dimension.DimensionRow;
 import com.yahoo.bard.webservice.data.metric.MetricColumn;
@@ -12,16 +14,26 @@ import com.yahoo.bard.webservice.druid.model.QueryType;
 import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
 import com.yahoo.bard.webservice.table.Column;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -36,6 +48,16 @@ public class DruidResponseParser {
 
     private static final Logger LOG = LoggerFactory.getLogger(DruidResponseParser.class);
 
+    /**
+     * Used to read complex (object or array valued) metrics off of a token stream.
+     */
+    private static final ObjectMapper TREE_MAPPER = new ObjectMapper();
+
+    /**
+     * The number of streamed rows whose dimension values are looked up together.
+     */
+    private static final int STREAMED_ROW_BATCH_SIZE = 1024;
+
     /**
      * Parse Druid GroupBy result into ResultSet.
      *
@@ -66,27 +88,265 @@ public class DruidResponseParser {
         Set<DimensionColumn> dimensionColumns = schema.getColumns(DimensionColumn.class);
         Set<MetricColumn> metricColumns = schema.getColumns(MetricColumn.class);
 
-        List<Result> results = null;
+        ResultCollector results = new ResultCollector(schema);
+        switch (defaultQueryType) {
+            case GROUP_BY:
+                makeGroupByResults(jsonResult, dimensionColumns, metricColumns, dateTimeZone, results);
+                break;
+            case TOP_N:
+                makeTopNResults(jsonResult, dimensionColumns, metricColumns, dateTimeZone, results);
+                break;
+            case TIMESERIES:
+                makeTimeSeriesResults(jsonResult, metricColumns, dateTimeZone, results);
+                break;
+            case LOOKBACK:
+                makeLookbackResults(jsonResult, dimensionColumns, metricColumns, dateTimeZone, results);
+                break;
+            default:
+                // Throw an exception for unsupported query types
+                unsupportedQueryType(queryType);
+        }
+
+        ResultSet resultSet = results.build();
+        LOG.trace("Parsed druid query {} results: {}", queryType, resultSet);
+        return resultSet;
+    }
+
+    /**
+     * Parse a Druid response into a ResultSet directly from a token stream, without building a JsonNode tree.
+     * <p>
+     * Result rows are built as the parser advances through the response, so the complete response never needs to be
+     * held in memory as a tree alongside the result set built from it. The result set produced is the same as the one
+     * produced by {@link #parse(JsonNode, ResultSetSchema, QueryType, DateTimeZone)} for the same response.
+     *
+     * @param parser  Parser positioned before (or on) the start of the Druid response array
+     * @param schema  Schema for results
+     * @param queryType  the type of query, note that this implementation only supports instances of
+     * {@link DefaultQueryType}
+     * @param dateTimeZone the time zone used for format the results
+     *
+     * @return the set of results
+     *
+     * @throws IOException if the response cannot be read or is not a well formed Druid response
+     */
+    public ResultSet parse(
+            JsonParser parser,
+            ResultSetSchema schema,
+            QueryType queryType,
+            DateTimeZone dateTimeZone
+    ) throws IOException {
+
+        LOG.trace("Streaming parse of druid query {} using schema: {}", queryType, schema);
+
+        if (!(queryType instanceof DefaultQueryType)) {
+            // Throw an exception for unsupported query types
+            unsupportedQueryType(queryType);
+        }
+        DefaultQueryType defaultQueryType = (DefaultQueryType) queryType;
+
+        List<DimensionColumn> dimensionColumns = new ArrayList<>(schema.getColumns(DimensionColumn.class));
+        List<MetricColumn> metricColumns = new ArrayList<>(schema.getColumns(MetricColumn.class));
+
+        String rowFieldName = "result";
+        boolean multipleRowsPerRecord = false;
         switch (defaultQueryType) {
             case GROUP_BY:
-                results = makeGroupByResults(jsonResult, dimensionColumns, metricColumns, dateTimeZone);
+                rowFieldName = "event";
                 break;
             case TOP_N:
-                results = makeTopNResults(jsonResult, dimensionColumns, metricColumns, dateTimeZone);
+                multipleRowsPerRecord = true;
                 break;
             case TIMESERIES:
-                results = makeTimeSeriesResults(jsonResult, metricColumns, dateTimeZone);
+                // Timeseries responses carry no dimension values
+                dimensionColumns = Collections.emptyList();
                 break;
             case LOOKBACK:
-                results = makeLookbackResults(jsonResult, dimensionColumns, metricColumns, dateTimeZone);
                 break;
             default:
                 // Throw an exception for unsupported query types
                 unsupportedQueryType(queryType);
         }
 
-        LOG.trace("Parsed druid query {} results: {}", queryType, results);
-        return new ResultSet(schema, results);
+        Map<String, Integer> dimensionIndexes = indexColumnNames(dimensionColumns);
+        Map<String, Integer> metricIndexes = indexColumnNames(metricColumns);
+
+        JsonToken token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+        if (token != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array of Druid result records but found " + token);
+        }
+
+        ResultCollector results = new ResultCollector(schema);
+        DimensionRowResolver resolver = new DimensionRowResolver();
+        List<StreamedRow> pendingRows = new ArrayList<>();
+
+        /* loop over all records */
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String timestamp = null;
+            List<StreamedRow> rows = new ArrayList<>(1);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if ("timestamp".equals(fieldName)) {
+                    timestamp = parser.getText();
+                } else if (rowFieldName.equals(fieldName) && multipleRowsPerRecord) {
+                    /* loop over records per timebucket */
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        rows.add(readRow(parser, dimensionIndexes, metricIndexes));
+                    }
+                } else if (rowFieldName.equals(fieldName)) {
+                    rows.add(readRow(parser, dimensionIndexes, metricIndexes));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (rows.isEmpty()) {
+                continue;
+            }
+            if (timestamp == null) {
+                throw new JsonParseException(parser, "Druid result record is missing a timestamp");
+            }
+
+            // Timestamps are shared by all rows of a record, so they are only parsed once per record
+            DateTime timeStamp = new DateTime(timestamp, dateTimeZone);
+            for (StreamedRow row : rows) {
+                row.timeStamp = timeStamp;
+                pendingRows.add(row);
+            }
+            if (pendingRows.size() >= STREAMED_ROW_BATCH_SIZE) {
+                addStreamedResults(pendingRows, dimensionColumns, metricColumns, resolver, results);
+            }
+        }
+        addStreamedResults(pendingRows, dimensionColumns, metricColumns, resolver, results);
+
+        ResultSet resultSet = results.build();
+        LOG.trace("Streamed druid query {} results: {}", queryType, resultSet);
+        return resultSet;
+    }
+
+    /**
+     * Build the results of streamed rows, looking up the dimension values of the rows together.
+     *
+     * @param pendingRows  The rows to build results for, emptied once their results are built
+     * @param dimensionColumns  The dimension columns, in schema order
+     * @param metricColumns  The metric columns, in schema order
+     * @param resolver  The dimension rows of the response resolved so far
+     * @param results  The results to add to
+     */
+    private static void addStreamedResults(
+            List<StreamedRow> pendingRows,
+            List<DimensionColumn> dimensionColumns,
+            List<MetricColumn> metricColumns,
+            DimensionRowResolver resolver,
+            ResultCollector results
+    ) {
+        for (int i = 0; i < dimensionColumns.size(); i++) {
+            Set<String> values = new HashSet<>();
+            for (StreamedRow row : pendingRows) {
+                values.add(row.getDimensionValue(i));
+            }
+            resolver.prefetch(dimensionColumns.get(i), values);
+        }
+        for (StreamedRow row : pendingRows) {
+            row.addTo(results, dimensionColumns, metricColumns, resolver);
+        }
+        pendingRows.clear();
+    }
+
+    /**
+     * Build a lookup from column name to the position of the column in a list of columns.
+     *
+     * @param columns  The columns to index
+     *
+     * @return map of column names to column positions
+     */
+    private static Map<String, Integer> indexColumnNames(List<? extends Column> columns) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            indexes.put(columns.get(i).getName(), i);
+        }
+        return indexes;
+    }
+
+    /**
+     * Read the values of a single result row from a parser positioned on the start of the row's json object.
+     * <p>
+     * Fields that aren't columns of the result schema are skipped without being materialized.
+     *
+     * @param parser  The parser, positioned on the start of the row object
+     * @param dimensionIndexes  Positions of the dimension columns, by name
+     * @param metricIndexes  Positions of the metric columns, by name
+     *
+     * @return the values read for the row
+     *
+     * @throws IOException if the row cannot be read
+     */
+    private StreamedRow readRow(
+            JsonParser parser,
+            Map<String, Integer> dimensionIndexes,
+            Map<String, Integer> metricIndexes
+    ) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a Druid result row but found " + parser.currentToken());
+        }
+        StreamedRow row = new StreamedRow(dimensionIndexes.size(), metricIndexes.size());
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+
+            Integer dimensionIndex = dimensionIndexes.get(fieldName);
+            if (dimensionIndex != null) {
+                row.dimensionValues[dimensionIndex] = valueToken.isScalarValue() && valueToken != JsonToken.VALUE_NULL
+                        ? parser.getText()
+                        : "";
+            }
+
+            Integer metricIndex = metricIndexes.get(fieldName);
+            if (metricIndex != null) {
+                row.metricValues[metricIndex] = readValue(parser);
+                row.metricPresent[metricIndex] = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Extracts the value the parser is currently positioned on.
+     * <p>
+     * Values are converted the same way {@link #getNodeValue(JsonNode)} converts the nodes of a parsed tree.
+     *
+     * @param parser  The parser positioned on the value to be extracted
+     *
+     * @return the value as a BigDecimal if the value is a number, the value as a String if the value is textual,
+     * the value as a boolean if the value is a boolean, null if the value is null, and a JsonNode otherwise.
+     *
+     * @throws IOException if the value cannot be read
+     */
+    private Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                        ? new BigDecimal(parser.getBigIntegerValue())
+                        : BigDecimal.valueOf(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL
+                        ? parser.getDecimalValue()
+                        : BigDecimal.valueOf(parser.getDoubleValue());
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                return TREE_MAPPER.readTree(parser);
+        }
     }
 
     /**
@@ -107,28 +367,34 @@ public class DruidResponseParser {
      * @param dimensionColumns  set of dimension columns
      * @param metricColumns  set of metric columns
      * @param dateTimeZone  The date time zone to apply to timestamps
-     *
-     * @return list of results
+     * @param results  The results to add to
      */
-    private List<Result> makeGroupByResults(
+    private void makeGroupByResults(
             JsonNode jsonResult,
             Set<DimensionColumn> dimensionColumns,
             Set<MetricColumn> metricColumns,
-            DateTimeZone dateTimeZone
+            DateTimeZone dateTimeZone,
+            ResultCollector results
     ) {
-        List<Result> results = new ArrayList<>();
+        List<JsonNode> events = new ArrayList<>();
+        for (JsonNode record : jsonResult) {
+            events.add(record.get("event"));
+        }
+        DimensionRowResolver resolver = prefetchDimensionRows(dimensionColumns, events);
 
         for (JsonNode record : jsonResult) {
             DateTime timeStamp = new DateTime(record.get("timestamp").asText(), dateTimeZone);
 
             JsonNode event = record.get("event");
-            LinkedHashMap<DimensionColumn, DimensionRow> dimensionRows = extractDimensionRows(dimensionColumns, event);
+            LinkedHashMap<DimensionColumn, DimensionRow> dimensionRows = extractDimensionRows(
+                    dimensionColumns,
+                    event,
+                    resolver
+            );
             LinkedHashMap<MetricColumn, Object> metricValues = extractMetricValues(metricColumns, event);
 
-            results.add(new Result(dimensionRows, metricValues, timeStamp));
+            results.add(timeStamp, dimensionRows, metricValues);
         }
-
-        return results;
     }
 
     /**
@@ -138,16 +404,20 @@ public class DruidResponseParser {
      * @param dimensionColumns  set of dimension columns
      * @param metricColumns  set of metric columns
      * @param dateTimeZone  The date time zone to apply to timestamps
-     *
-     * @return list of results
+     * @param results  The results to add to
      */
-    private List<Result> makeTopNResults(
+    private void makeTopNResults(
             JsonNode jsonResult,
             Set<DimensionColumn> dimensionColumns,
             Set<MetricColumn> metricColumns,
-            DateTimeZone dateTimeZone
+            DateTimeZone dateTimeZone,
+            ResultCollector results
     ) {
-        List<Result> results = new ArrayList<>();
+        List<JsonNode> entries = new ArrayList<>();
+        for (JsonNode record : jsonResult) {
+            record.get("result").forEach(entries::add);
+        }
+        DimensionRowResolver resolver = prefetchDimensionRows(dimensionColumns, entries);
 
         /* loop over all records */
         for (JsonNode record : jsonResult) {
@@ -158,15 +428,14 @@ public class DruidResponseParser {
             for (final JsonNode entry : result) {
                 LinkedHashMap<DimensionColumn, DimensionRow> dimensionRows = extractDimensionRows(
                         dimensionColumns,
-                        entry
+                        entry,
+                        resolver
                 );
                 LinkedHashMap<MetricColumn, Object> metricValues = extractMetricValues(metricColumns, entry);
 
-                results.add(new Result(dimensionRows, metricValues, timeStamp));
+                results.add(timeStamp, dimensionRows, metricValues);
             }
         }
-
-        return results;
     }
 
     /**
@@ -175,16 +444,14 @@ public class DruidResponseParser {
      * @param jsonResult  current record to parse
      * @param metricColumns  set of metric columns
      * @param dateTimeZone  The date time zone to apply to timestamps
-     *
-     * @return list of results
+     * @param results  The results to add to
      */
-    private List<Result> makeTimeSeriesResults(
+    private void makeTimeSeriesResults(
             JsonNode jsonResult,
             Set<MetricColumn> metricColumns,
-            DateTimeZone dateTimeZone
+            DateTimeZone dateTimeZone,
+            ResultCollector results
     ) {
-        List<Result> results = new ArrayList<>();
-
         /* loop over all records */
         for (JsonNode record : jsonResult) {
             DateTime timeStamp = new DateTime(record.get("timestamp").asText(), dateTimeZone);
@@ -192,10 +459,8 @@ public class DruidResponseParser {
             JsonNode result = record.get("result");
             LinkedHashMap<MetricColumn, Object> metricValues = extractMetricValues(metricColumns, result);
 
-            results.add(new Result(new LinkedHashMap<>(), metricValues, timeStamp));
+            results.add(timeStamp, new LinkedHashMap<>(), metricValues);
         }
-
-        return results;
     }
 
     /**
@@ -205,16 +470,23 @@ public class DruidResponseParser {
      * @param dimensionColumns  set of dimension columns
      * @param metricColumns  set of metric columns
      * @param dateTimeZone  The date time zone to apply to timestamps
-     *
-     * @return list of results
+     * @param results  The results to add to
      */
-    private List<Result> makeLookbackResults(
+    private void makeLookbackResults(
             JsonNode jsonResult,
             Set<DimensionColumn> dimensionColumns,
             Set<MetricColumn> metricColumns,
-            DateTimeZone dateTimeZone
+            DateTimeZone dateTimeZone,
+            ResultCollector results
     ) {
-        List<Result> results = new ArrayList<>();
+        DimensionRowResolver resolver = null;
+        if (dimensionColumns != null) {
+            List<JsonNode> entries = new ArrayList<>();
+            for (JsonNode record : jsonResult) {
+                entries.add(record.get("result"));
+            }
+            resolver = prefetchDimensionRows(dimensionColumns, entries);
+        }
 
         for (JsonNode record : jsonResult) {
             DateTime timeStamp = new DateTime(record.get("timestamp").asText(), dateTimeZone);
@@ -227,12 +499,11 @@ public class DruidResponseParser {
 
             dimensionRows = dimensionColumns == null ?
                     new LinkedHashMap<>() :
-                    extractDimensionRows(dimensionColumns, result);
+                    extractDimensionRows(dimensionColumns, result, resolver);
 
 
-            results.add(new Result(dimensionRows, metricValues, timeStamp));
+            results.add(timeStamp, dimensionRows, metricValues);
         }
-        return results;
     }
 
     /**
@@ -241,30 +512,55 @@ public class DruidResponseParser {
      *
      * @param dimensionColumns  the set of dimension columns
      * @param entry  the json object
+     * @param resolver  the dimension rows of the response
      *
      * @return map of dimension columns to dimension rows
      */
     private LinkedHashMap<DimensionColumn, DimensionRow> extractDimensionRows(
             Set<DimensionColumn> dimensionColumns,
-            JsonNode entry
+            JsonNode entry,
+            DimensionRowResolver resolver
     ) {
         LinkedHashMap<DimensionColumn, DimensionRow> dimensionRows = new LinkedHashMap<>();
 
         for (DimensionColumn dc : dimensionColumns) {
-            JsonNode fieldNode = entry.get(dc.getName());
-            String fieldValue = "";
-            if (fieldNode != null) {
-                fieldValue = fieldNode.asText("");
-            }
+            dimensionRows.put(dc, resolver.resolve(dc, getDimensionValue(entry, dc)));
+        }
+
+        return dimensionRows;
+    }
 
-            DimensionRow drow = dc.getDimension().findDimensionRowByKeyValue(fieldValue);
-            if (drow == null) {
-                drow = dc.getDimension().createEmptyDimensionRow(fieldValue);
+    /**
+     * Look up the dimension rows of all the dimension values of a response together.
+     *
+     * @param dimensionColumns  the set of dimension columns
+     * @param entries  the json objects of the response holding dimension values
+     *
+     * @return the dimension rows of the response
+     */
+    private DimensionRowResolver prefetchDimensionRows(Set<DimensionColumn> dimensionColumns, List<JsonNode> entries) {
+        DimensionRowResolver resolver = new DimensionRowResolver();
+        for (DimensionColumn dc : dimensionColumns) {
+            Set<String> values = new HashSet<>();
+            for (JsonNode entry : entries) {
+                values.add(getDimensionValue(entry, dc));
             }
-            dimensionRows.put(dc, drow);
+            resolver.prefetch(dc, values);
         }
+        return resolver;
+    }
 
-        return dimensionRows;
+    /**
+     * Get the value of a dimension column in a json object.
+     *
+     * @param entry  the json object
+     * @param dimensionColumn  the dimension column
+     *
+     * @return the dimension value, or the empty string if the object has no value for the column
+     */
+    private static String getDimensionValue(JsonNode entry, DimensionColumn dimensionColumn) {
+        JsonNode fieldNode = entry.get(dimensionColumn.getName());
+        return fieldNode == null ? "" : fieldNode.asText("");
     }
 
     /**
@@ -320,4 +616,175 @@ public class DruidResponseParser {
         // Pass through to druid query to allow for possible behavior customization on injected DruidResponseParsers.
         return druidQuery.buildSchemaColumns();
     }
+
+    /**
+     * The column values of a single result row read off of a token stream, held until the row's timestamp is known.
+     */
+    private static class StreamedRow {
+        private final String[] dimensionValues;
+        private final Object[] metricValues;
+        private final boolean[] metricPresent;
+        private DateTime timeStamp;
+
+        /**
+         * Constructor.
+         *
+         * @param dimensionCount  The number of dimension columns in the row
+         * @param metricCount  The number of metric columns in the row
+         */
+        StreamedRow(int dimensionCount, int metricCount) {
+            this.dimensionValues = new String[dimensionCount];
+            this.metricValues = new Object[metricCount];
+            this.metricPresent = new boolean[metricCount];
+        }
+
+        /**
+         * Get the value of a dimension column of this row.
+         *
+         * @param index  The position of the dimension column in schema order
+         *
+         * @return the dimension value, or the empty string if the row has no value for the column
+         */
+        String getDimensionValue(int index) {
+            return dimensionValues[index] == null ? "" : dimensionValues[index];
+        }
+
+        /**
+         * Add this row to the results.
+         *
+         * @param results  The results to add to
+         * @param dimensionColumns  The dimension columns, in schema order
+         * @param metricColumns  The metric columns, in schema order
+         * @param resolver  The dimension rows of the response
+         */
+        void addTo(
+                ResultCollector results,
+                List<DimensionColumn> dimensionColumns,
+                List<MetricColumn> metricColumns,
+                DimensionRowResolver resolver
+        ) {
+            LinkedHashMap<DimensionColumn, DimensionRow> dimensionRows = new LinkedHashMap<>();
+            for (int i = 0; i < dimensionValues.length; i++) {
+                DimensionColumn dimensionColumn = dimensionColumns.get(i);
+                dimensionRows.put(dimensionColumn, resolver.resolve(dimensionColumn, getDimensionValue(i)));
+            }
+
+            LinkedHashMap<MetricColumn, Object> metrics = new LinkedHashMap<>();
+            for (int i = 0; i < metricValues.length; i++) {
+                if (metricPresent[i]) {
+                    metrics.put(metricColumns.get(i), metricValues[i]);
+                } else {
+                    LOG.warn("Found null node for metric column {}", metricColumns.get(i).getName());
+                }
+            }
+            results.add(timeStamp, dimensionRows, metrics);
+        }
+    }
+
+    /**
+     * Collects the rows of a response into a result set.
+     * <p>
+     * When columnar result sets are enabled, each row is appended to the columns as it is parsed, so the rows of the
+     * response are never all held as results alongside the columns.
+     */
+    private static class ResultCollector {
+        private final ResultSetSchema schema;
+        private final List<Result> results = new ArrayList<>();
+        private ColumnarResultSet.Builder builder;
+
+        /**
+         * Constructor.
+         *
+         * @param schema  Schema for results
+         */
+        ResultCollector(ResultSetSchema schema) {
+            this.schema = schema;
+            this.builder = COLUMNAR_RESULT_SET.isOn() ? new ColumnarResultSet.Builder() : null;
+        }
+
+        /**
+         * Add a row.
+         *
+         * @param timeStamp  The timestamp of the row
+         * @param dimensionRows  The dimension rows of the row, by column
+         * @param metricValues  The metric values of the row, by column
+         */
+        void add(
+                DateTime timeStamp,
+                LinkedHashMap<DimensionColumn, DimensionRow> dimensionRows,
+                LinkedHashMap<MetricColumn, Object> metricValues
+        ) {
+            if (builder != null) {
+                if (builder.add(timeStamp, dimensionRows, metricValues)) {
+                    return;
+                }
+                // Rows in different chronologies can't share a timestamp column, so keep them all as results
+                results.addAll(builder.build(schema));
+                builder = null;
+            }
+            results.add(new Result(dimensionRows, metricValues, timeStamp));
+        }
+
+        /**
+         * Build the result set of the rows added.
+         *
+         * @return the result set
+         */
+        ResultSet build() {
+            return builder == null ? new ResultSet(schema, results) : builder.build(schema);
+        }
+    }
+
+    /**
+     * The dimension rows of the dimension values of a single response.
+     * <p>
+     * Each distinct value of a dimension column is looked up once per response, with the values of a column looked up
+     * together. Values with no dimension row resolve to an empty row.
+     */
+    private static class DimensionRowResolver {
+        private final Map<DimensionColumn, Map<String, DimensionRow>> dimensionRows = new HashMap<>();
+
+        /**
+         * Look up the dimension rows of values of a dimension column that have not been looked up yet.
+         *
+         * @param dimensionColumn  The column whose dimension holds the rows
+         * @param values  The key values of the rows
+         */
+        void prefetch(DimensionColumn dimensionColumn, Set<String> values) {
+            Map<String, DimensionRow> columnRows = dimensionRows.computeIfAbsent(
+                    dimensionColumn,
+                    ignored -> new HashMap<>()
+            );
+            Set<String> missingValues = new HashSet<>(values);
+            missingValues.removeAll(columnRows.keySet());
+            if (missingValues.isEmpty()) {
+                return;
+            }
+
+            Dimension dimension = dimensionColumn.getDimension();
+            Map<String, DimensionRow> foundRows = dimension.findDimensionRowsByKeyValues(missingValues);
+            for (String value : missingValues) {
+                DimensionRow row = foundRows.get(value);
+                columnRows.put(value, row == null ? dimension.createEmptyDimensionRow(value) : row);
+            }
+        }
+
+        /**
+         * Find the dimension row for a value of a dimension column, or an empty row if the value is unknown.
+         *
+         * @param dimensionColumn  The column whose dimension holds the row
+         * @param value  The key value of the row
+         *
+         * @return the dimension row for the value
+         */
+        DimensionRow resolve(DimensionColumn dimensionColumn, String value) {
+            Map<String, DimensionRow> columnRows = dimensionRows.get(dimensionColumn);
+            DimensionRow row = columnRows == null ? null : columnRows.get(value);
+            if (row == null) {
+                prefetch(dimensionColumn, Collections.singleton(value));
+                row = dimensionRows.get(dimensionColumn).get(value);
+            }
+            return row;
+        }
+    }
 }
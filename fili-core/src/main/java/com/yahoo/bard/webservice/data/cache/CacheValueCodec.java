@@ -0,0 +1,42 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache;
+
+import java.io.IOException;
+
+/**
+ * Turns serialized JSON cache values into a more compact form to store, and back.
+ *
+ * @see CacheValueEncoder
+ */
+public interface CacheValueCodec {
+
+    /**
+     * The name recorded with each value written by this codec, used to pick the codec to read the value back.
+     *
+     * @return the name of the codec
+     */
+    String getName();
+
+    /**
+     * Encode a value.
+     *
+     * @param value  The serialized JSON value
+     *
+     * @return the encoded value
+     *
+     * @throws IOException if the value cannot be encoded
+     */
+    byte[] encode(String value) throws IOException;
+
+    /**
+     * Decode a value.
+     *
+     * @param bytes  The encoded value
+     *
+     * @return the serialized JSON value
+     *
+     * @throws IOException if the bytes are not a value encoded by this codec
+     */
+    String decode(byte[] bytes) throws IOException;
+}
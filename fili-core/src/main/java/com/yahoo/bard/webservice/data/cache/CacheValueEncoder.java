@@ -0,0 +1,150 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache;
+
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Encodes serialized JSON values for storage in a cache, and decodes them when read back.
+ * <p>
+ * An encoded value records the name of the codec that wrote it, so values written with different codecs, or with none,
+ * can be read from the same cache while a codec change rolls out. Values are stored as plain JSON when no codec is
+ * configured, exactly as they were before codecs existed.
+ */
+public class CacheValueEncoder {
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    protected static final @NotNull String CODEC_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("query_response_cache_value_codec");
+
+    /**
+     * The configured codec name for storing plain JSON.
+     */
+    public static final String NO_CODEC = "none";
+
+    /**
+     * Starts every encoded value, and never starts a JSON value.
+     */
+    private static final char MARKER = '\u0000';
+
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getDecoder();
+
+    private final CacheValueCodec writeCodec;
+    private final Map<String, CacheValueCodec> readCodecs = new LinkedHashMap<>();
+
+    /**
+     * Build an encoder writing with the configured codec, and reading any of the default codecs.
+     */
+    public CacheValueEncoder() {
+        this(
+                forName(SYSTEM_CONFIG.getStringProperty(CODEC_KEY, NO_CODEC)),
+                Arrays.asList(DefaultCacheValueCodec.values())
+        );
+    }
+
+    /**
+     * Get the encoder built from configuration, shared by every component reading or writing cache values.
+     *
+     * @return the configured encoder
+     */
+    public static CacheValueEncoder getInstance() {
+        return ConfiguredEncoderHolder.INSTANCE;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param writeCodec  The codec to write values with, or null to write plain JSON
+     * @param readCodecs  The codecs values may have been written with
+     */
+    public CacheValueEncoder(CacheValueCodec writeCodec, Collection<? extends CacheValueCodec> readCodecs) {
+        this.writeCodec = writeCodec;
+        readCodecs.forEach(codec -> this.readCodecs.put(codec.getName(), codec));
+        if (writeCodec != null) {
+            this.readCodecs.put(writeCodec.getName(), writeCodec);
+        }
+    }
+
+    /**
+     * Encode a value to store.
+     *
+     * @param value  The serialized JSON value
+     *
+     * @return the value to store
+     *
+     * @throws IOException if the codec fails to encode the value
+     */
+    public String encode(String value) throws IOException {
+        if (writeCodec == null) {
+            return value;
+        }
+        return MARKER + writeCodec.getName() + MARKER + BASE64_ENCODER.encodeToString(writeCodec.encode(value));
+    }
+
+    /**
+     * Decode a stored value.
+     *
+     * @param stored  The stored value
+     *
+     * @return the serialized JSON value
+     *
+     * @throws IOException if the value was written by an unknown codec, or cannot be decoded
+     */
+    public String decode(String stored) throws IOException {
+        if (stored == null || stored.isEmpty() || stored.charAt(0) != MARKER) {
+            return stored;
+        }
+        int end = stored.indexOf(MARKER, 1);
+        if (end < 0) {
+            throw new IOException("Malformed encoded cache value");
+        }
+        String name = stored.substring(1, end);
+        CacheValueCodec codec = readCodecs.get(name);
+        if (codec == null) {
+            throw new IOException("Unknown cache value codec: " + name);
+        }
+        try {
+            return codec.decode(BASE64_DECODER.decode(stored.substring(end + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed encoded cache value", e);
+        }
+    }
+
+    /**
+     * Find the default codec with the given configuration name.
+     *
+     * @param name  The configured name of the codec, or "none" for plain JSON
+     *
+     * @return the codec, or null for plain JSON
+     *
+     * @throws IllegalArgumentException if there is no codec with that name
+     */
+    public static CacheValueCodec forName(String name) {
+        String trimmed = name.trim();
+        if (NO_CODEC.equalsIgnoreCase(trimmed)) {
+            return null;
+        }
+        return Arrays.stream(DefaultCacheValueCodec.values())
+                .filter(codec -> codec.getName().equalsIgnoreCase(trimmed))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown cache value codec: " + name));
+    }
+
+    /**
+     * Holds the encoder built from configuration, built the first time it is asked for.
+     */
+    private static class ConfiguredEncoderHolder {
+        private static final CacheValueEncoder INSTANCE = new CacheValueEncoder();
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The cache value codecs available out of the box.
+ */
+public enum DefaultCacheValueCodec implements CacheValueCodec {
+    /** Gzip compressed JSON text. */
+    GZIP("gzip") {
+        @Override
+        public byte[] encode(String value) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length() / 4 + 64);
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public String decode(byte[] bytes) throws IOException {
+            return new String(gunzip(bytes), StandardCharsets.UTF_8);
+        }
+    },
+    /** Gzip compressed Smile, the binary JSON encoding, which also drops repeated field names before compressing. */
+    SMILE_GZIP("smile-gzip") {
+        @Override
+        public byte[] encode(String value) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length() / 6 + 64);
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                SMILE_MAPPER.writeValue(out, JSON_MAPPER.readTree(value));
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public String decode(byte[] bytes) throws IOException {
+            JsonNode tree = SMILE_MAPPER.readTree(gunzip(bytes));
+            return JSON_MAPPER.writeValueAsString(tree);
+        }
+    };
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+    private final String name;
+
+    /**
+     * Constructor.
+     *
+     * @param name  The name recorded with values written by the codec
+     */
+    DefaultCacheValueCodec(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Decompress gzip compressed bytes.
+     *
+     * @param bytes  The compressed bytes
+     *
+     * @return the decompressed bytes
+     *
+     * @throws IOException if the bytes are not gzip compressed
+     */
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,106 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch estimating how often keys have been seen recently, as used by TinyLFU admission.
+ * <p>
+ * Counters saturate at 15 and are all halved once enough keys have been counted, so the estimates favor recent
+ * popularity over all time popularity.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+
+    // Guarded by this
+    private int additions = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param width  The number of counters per row, rounded up to a power of two
+     */
+    public FrequencySketch(int width) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.counters = new byte[DEPTH][size];
+        this.mask = size - 1;
+        this.sampleSize = size * 10;
+    }
+
+    /**
+     * Count a sighting of a key.
+     *
+     * @param key  The key seen
+     */
+    public synchronized void increment(String key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (counters[row][index] < MAX_COUNT) {
+                counters[row][index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Estimate how often a key has been seen recently.
+     *
+     * @param key  The key
+     *
+     * @return the estimated count, at most 15
+     */
+    public synchronized int frequency(String key) {
+        int hash = key.hashCode();
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Forget all sightings.
+     */
+    public synchronized void clear() {
+        for (byte[] row : counters) {
+            Arrays.fill(row, (byte) 0);
+        }
+        additions = 0;
+    }
+
+    /**
+     * Halve all counters, aging out sightings that are no longer recent.
+     */
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    /**
+     * The counter a hash maps to in a row.
+     *
+     * @param hash  The hash of the key
+     * @param row  The row of counters
+     *
+     * @return the index of the counter in the row
+     */
+    private int index(int hash, int row) {
+        int mixed = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        return (mixed ^ (mixed >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,319 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache;
+
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A data cache keeping recently used entries in process, in front of another data cache.
+ * <p>
+ * The in process tier (L1) is bounded by the estimated size of its entries in bytes. Entries are only admitted to it
+ * once their key has been asked for often enough recently, so queries seen once do not push out popular ones. Entries
+ * expire from L1 after a configured time, or sooner if they were stored with an earlier expiration, so L1 never
+ * outlives the underlying tier (L2). L1 keeps whole values, including any metadata such as a segment signature, so
+ * callers validating entries against their metadata validate L1 hits the same way.
+ * <p>
+ * Values encoded by a {@link CacheValueEncoder} are kept in L1 decoded, so an L1 hit doesn't pay for decompressing
+ * them. The encoder passes decoded values through unchanged, so callers decode L1 and L2 hits alike.
+ *
+ * @param <T>  The value type being stored
+ */
+public class TieredDataCache<T extends Serializable> implements DataCache<T> {
+    private static final Logger LOG = LoggerFactory.getLogger(TieredDataCache.class);
+    protected static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+
+    public static final Meter L1_HITS = REGISTRY.meter("queries.meter.cache.l1.hits");
+    public static final Meter L1_MISSES = REGISTRY.meter("queries.meter.cache.l1.misses");
+    public static final Meter L1_EVICTIONS = REGISTRY.meter("queries.meter.cache.l1.evictions");
+    public static final Meter L2_HITS = REGISTRY.meter("queries.meter.cache.l2.hits");
+    public static final Meter L2_MISSES = REGISTRY.meter("queries.meter.cache.l2.misses");
+
+    // Property names
+    protected static final @NotNull String MAX_BYTES_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("query_response_l1_cache_max_bytes");
+    protected static final @NotNull String EXPIRATION_SECONDS_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("query_response_l1_cache_expiration_seconds");
+    protected static final @NotNull String ADMISSION_FREQUENCY_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("query_response_l1_cache_admission_frequency");
+
+    // Default values
+    protected static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    protected static final long DEFAULT_EXPIRATION_SECONDS = 300;
+    protected static final int DEFAULT_ADMISSION_FREQUENCY = 2;
+
+    /**
+     * The weight given to values whose size cannot be estimated.
+     */
+    private static final int UNKNOWN_VALUE_WEIGHT = 1024;
+
+    /**
+     * The rough number of bytes an entry takes in L1 beyond its key and value.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final DataCache<T> l2;
+    private final Cache<String, L1Entry<T>> l1;
+    private final FrequencySketch sketch;
+    private final int admissionFrequency;
+    private final CacheValueEncoder valueEncoder;
+
+    /**
+     * Build a tiered cache from configuration.
+     *
+     * @param l2  The underlying cache
+     */
+    public TieredDataCache(DataCache<T> l2) {
+        this(
+                l2,
+                SYSTEM_CONFIG.getLongProperty(MAX_BYTES_KEY, DEFAULT_MAX_BYTES),
+                SYSTEM_CONFIG.getLongProperty(EXPIRATION_SECONDS_KEY, DEFAULT_EXPIRATION_SECONDS),
+                SYSTEM_CONFIG.getIntProperty(ADMISSION_FREQUENCY_KEY, DEFAULT_ADMISSION_FREQUENCY)
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param l2  The underlying cache
+     * @param maxBytes  The estimated size in bytes of the entries L1 may hold
+     * @param expirationSeconds  The time an entry may stay in L1
+     * @param admissionFrequency  The number of recent requests for a key before its entry is admitted to L1
+     */
+    public TieredDataCache(DataCache<T> l2, long maxBytes, long expirationSeconds, int admissionFrequency) {
+        this(l2, maxBytes, expirationSeconds, admissionFrequency, CacheValueEncoder.getInstance());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param l2  The underlying cache
+     * @param maxBytes  The estimated size in bytes of the entries L1 may hold
+     * @param expirationSeconds  The time an entry may stay in L1
+     * @param admissionFrequency  The number of recent requests for a key before its entry is admitted to L1
+     * @param valueEncoder  The encoder of the values stored in L2, which are decoded before being kept in L1
+     */
+    public TieredDataCache(
+            DataCache<T> l2,
+            long maxBytes,
+            long expirationSeconds,
+            int admissionFrequency,
+            CacheValueEncoder valueEncoder
+    ) {
+        this.l2 = l2;
+        this.valueEncoder = valueEncoder;
+        this.admissionFrequency = admissionFrequency;
+        this.l1 = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, L1Entry<T>>weigher((key, entry) -> entry.weight)
+                .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS)
+                .removalListener(removal -> {
+                    if (removal.wasEvicted()) {
+                        L1_EVICTIONS.mark();
+                    }
+                })
+                .build();
+        // Size the sketch to a few counters for each entry L1 could hold at a typical entry size
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(1024, maxBytes / 4096)));
+    }
+
+    public DataCache<T> getL2() {
+        return l2;
+    }
+
+    @Override
+    public T get(String key) {
+        sketch.increment(key);
+        L1Entry<T> entry = l1.getIfPresent(key);
+        if (entry != null && !entry.isExpired()) {
+            L1_HITS.mark();
+            return entry.value;
+        }
+        L1_MISSES.mark();
+
+        T value = l2.get(key);
+        if (value == null) {
+            L2_MISSES.mark();
+            return null;
+        }
+        L2_HITS.mark();
+        admit(key, value, null);
+        return value;
+    }
+
+    @Override
+    public boolean set(String key, T value) throws IllegalStateException {
+        return stored(key, value, l2.set(key, value), null);
+    }
+
+    @Override
+    public boolean set(String key, T value, DateTime expiration) throws IllegalStateException {
+        return stored(key, value, l2.set(key, value, expiration), expiration);
+    }
+
+    @Override
+    public void clear() {
+        l1.invalidateAll();
+        sketch.clear();
+        l2.clear();
+    }
+
+    /**
+     * The number of entries held in L1.
+     *
+     * @return the number of entries in L1
+     */
+    public long getL1Size() {
+        return l1.size();
+    }
+
+    /**
+     * Keep L1 in step with a value that was just written to L2.
+     * <p>
+     * A value L2 failed to store is dropped from L1 too, so L1 never answers with a value L2 does not have.
+     *
+     * @param key  The key of the value
+     * @param value  The value
+     * @param stored  True if L2 stored the value
+     * @param expiration  The time the value expires from L2, or null for the default expiration
+     *
+     * @return whether L2 stored the value
+     */
+    protected boolean stored(String key, T value, boolean stored, DateTime expiration) {
+        if (stored) {
+            admit(key, value, expiration);
+        } else {
+            l1.invalidate(key);
+        }
+        return stored;
+    }
+
+    /**
+     * Put a value in L1 if its key has been asked for often enough recently, else drop any older value for the key.
+     *
+     * @param key  The key of the value
+     * @param value  The value
+     * @param expiration  The time the value expires, or null for the default expiration
+     */
+    protected void admit(String key, T value, DateTime expiration) {
+        if (sketch.frequency(key) < admissionFrequency) {
+            l1.invalidate(key);
+            return;
+        }
+        T decoded;
+        try {
+            decoded = decode(value);
+        } catch (IOException e) {
+            // Readers fail on the value from L2 too, so don't keep it
+            LOG.debug("Cache value for {} cannot be decoded, not keeping it in process", key, e);
+            l1.invalidate(key);
+            return;
+        }
+        long weight = ENTRY_OVERHEAD + 2L * key.length() + weigh(decoded);
+        l1.put(
+                key,
+                new L1Entry<>(
+                        decoded,
+                        (int) Math.min(Integer.MAX_VALUE, weight),
+                        expiration == null ? Long.MAX_VALUE : expiration.getMillis()
+                )
+        );
+    }
+
+    /**
+     * Decode a value as stored in L2 into the value kept in L1.
+     *
+     * @param value  The value as stored in L2
+     *
+     * @return the value with any encoded JSON it holds decoded
+     *
+     * @throws IOException if the value holds JSON encoded by a codec that fails to decode it
+     */
+    @SuppressWarnings("unchecked")
+    protected T decode(T value) throws IOException {
+        return value instanceof String ? (T) getValueEncoder().decode((String) value) : value;
+    }
+
+    public CacheValueEncoder getValueEncoder() {
+        return valueEncoder;
+    }
+
+    /**
+     * Estimate the number of bytes a value takes in memory.
+     *
+     * @param value  The value
+     *
+     * @return the estimated size of the value in bytes
+     */
+    protected long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Number) {
+            return 16;
+        }
+        if (value instanceof TupleDataCache.DataEntry) {
+            TupleDataCache.DataEntry<?, ?, ?> entry = (TupleDataCache.DataEntry<?, ?, ?>) value;
+            return weigh(entry.getKey()) + weigh(entry.getMeta()) + weigh(entry.getValue());
+        }
+        if (value instanceof Map.Entry) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+            return weigh(entry.getKey()) + weigh(entry.getValue());
+        }
+        return UNKNOWN_VALUE_WEIGHT;
+    }
+
+    /**
+     * A value held in L1.
+     *
+     * @param <T>  The value type
+     */
+    private static class L1Entry<T> {
+        private final T value;
+        private final int weight;
+        private final long expiresAt;
+
+        /**
+         * Constructor.
+         *
+         * @param value  The value
+         * @param weight  The estimated size of the entry in bytes
+         * @param expiresAt  The time in milliseconds at which the value expires
+         */
+        L1Entry(T value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Check if the value has outlived its expiration.
+         *
+         * @return true if the value expired
+         */
+        boolean isExpired() {
+            return expiresAt != Long.MAX_VALUE && System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
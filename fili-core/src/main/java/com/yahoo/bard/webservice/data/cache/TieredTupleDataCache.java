@@ -0,0 +1,94 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * A tuple data cache keeping recently used entries in process, in front of another tuple data cache.
+ *
+ * @param <M>  The metadata type of the cache.
+ * @param <V>  The raw data type of the cache.
+ *
+ * @see TieredDataCache
+ */
+public class TieredTupleDataCache<M extends Serializable, V extends Serializable>
+        extends TieredDataCache<TupleDataCache.DataEntry<String, M, V>>
+        implements TupleDataCache<String, M, V> {
+
+    private final TupleDataCache<String, M, V> l2;
+
+    /**
+     * Build a tiered cache from configuration.
+     *
+     * @param l2  The underlying cache
+     */
+    public TieredTupleDataCache(TupleDataCache<String, M, V> l2) {
+        super(l2);
+        this.l2 = l2;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param l2  The underlying cache
+     * @param maxBytes  The estimated size in bytes of the entries L1 may hold
+     * @param expirationSeconds  The time an entry may stay in L1
+     * @param admissionFrequency  The number of recent requests for a key before its entry is admitted to L1
+     */
+    public TieredTupleDataCache(
+            TupleDataCache<String, M, V> l2,
+            long maxBytes,
+            long expirationSeconds,
+            int admissionFrequency
+    ) {
+        super(l2, maxBytes, expirationSeconds, admissionFrequency);
+        this.l2 = l2;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param l2  The underlying cache
+     * @param maxBytes  The estimated size in bytes of the entries L1 may hold
+     * @param expirationSeconds  The time an entry may stay in L1
+     * @param admissionFrequency  The number of recent requests for a key before its entry is admitted to L1
+     * @param valueEncoder  The encoder of the values stored in L2, which are decoded before being kept in L1
+     */
+    public TieredTupleDataCache(
+            TupleDataCache<String, M, V> l2,
+            long maxBytes,
+            long expirationSeconds,
+            int admissionFrequency,
+            CacheValueEncoder valueEncoder
+    ) {
+        super(l2, maxBytes, expirationSeconds, admissionFrequency, valueEncoder);
+        this.l2 = l2;
+    }
+
+    @Override
+    public V getDataValue(String key) {
+        TupleDataCache.DataEntry<String, M, V> entry = get(key);
+        return entry != null && key.equals(entry.getKey()) ? entry.getValue() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected TupleDataCache.DataEntry<String, M, V> decode(TupleDataCache.DataEntry<String, M, V> entry)
+            throws IOException {
+        if (entry == null || !(entry.getValue() instanceof String)) {
+            return entry;
+        }
+        V decoded = (V) getValueEncoder().decode((String) entry.getValue());
+        return decoded == entry.getValue()
+                ? entry
+                : new MemTupleDataCache.DataEntry<>(entry.getKey(), entry.getMeta(), decoded);
+    }
+
+    //(Deprecate this return type to be void)
+    @Override
+    public boolean set(String key, M meta, V value) {
+        return stored(key, new MemTupleDataCache.DataEntry<>(key, meta, value), l2.set(key, meta, value), null);
+    }
+}
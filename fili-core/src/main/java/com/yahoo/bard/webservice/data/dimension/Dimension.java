@@ -9,8 +9,11 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import org.joda.time.DateTime;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -111,6 +114,36 @@ public interface Dimension {
      */
     DimensionRow findDimensionRowByKeyValue(String value);
 
+    /**
+     * Get the dimension rows for several key values.
+     *
+     * @param values  key values
+     *
+     * @return the dimension rows found, by key value. Values with no matching row are left out.
+     */
+    default Map<String, DimensionRow> findDimensionRowsByKeyValues(Collection<String> values) {
+        Map<String, DimensionRow> dimensionRows = new HashMap<>(values.size());
+        for (String value : values) {
+            DimensionRow dimensionRow = findDimensionRowByKeyValue(value);
+            if (dimensionRow != null) {
+                dimensionRows.put(value, dimensionRow);
+            }
+        }
+        return dimensionRows;
+    }
+
+    /**
+     * Get a version of this dimension's rows, which moves on whenever its rows change.
+     * <p>
+     * Results computed from the rows of a dimension, such as the rows matching a filter, can be reused for as long as
+     * its row version stays the same. Dimensions that can't tell when their rows change have no row version.
+     *
+     * @return the row version, or empty if results computed from the rows of this dimension should not be reused
+     */
+    default Optional<String> getRowVersion() {
+        return Optional.empty();
+    }
+
     /**
      * Get primary key field for this dimension.
      *
@@ -0,0 +1,137 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension;
+
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A bounded cache of parsed dimension rows, shared by the dimensions that store their rows serialized.
+ * <p>
+ * Rows are cached under a version chosen by their dimension, so a dimension invalidates all of its cached rows at once
+ * by moving to a new version. Rows of older versions are never read again and age out of the cache as it fills.
+ * <p>
+ * Cached rows are shared by every caller reading them, and must not be modified.
+ */
+public class DimensionRowCache {
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    private static final @NotNull String MAX_ROWS_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("dimension_row_cache_max_rows");
+
+    private static final long DEFAULT_MAX_ROWS = 100000;
+
+    private static final DimensionRowCache INSTANCE = new DimensionRowCache(
+            SYSTEM_CONFIG.getLongProperty(MAX_ROWS_KEY, DEFAULT_MAX_ROWS)
+    );
+
+    private final Cache<VersionedValue, DimensionRow> rows;
+
+    /**
+     * Constructor.
+     *
+     * @param maxRows  The number of rows the cache may hold, or 0 to not cache rows at all
+     */
+    public DimensionRowCache(long maxRows) {
+        this.rows = maxRows <= 0 ? null : CacheBuilder.newBuilder()
+                .maximumSize(maxRows)
+                .<VersionedValue, DimensionRow>build();
+    }
+
+    /**
+     * Get the cache shared by all dimensions, sized from configuration.
+     *
+     * @return the shared dimension row cache
+     */
+    public static DimensionRowCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the cached rows for some key values of a version of a dimension.
+     *
+     * @param version  The version of the dimension the rows were cached under
+     * @param values  The key values of the rows
+     *
+     * @return the rows found in the cache, by key value
+     */
+    public Map<String, DimensionRow> getAll(String version, Collection<String> values) {
+        Map<String, DimensionRow> found = new HashMap<>();
+        if (rows == null) {
+            return found;
+        }
+        for (String value : values) {
+            DimensionRow row = rows.getIfPresent(new VersionedValue(version, value));
+            if (row != null) {
+                found.put(value, row);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Cache rows of a version of a dimension.
+     *
+     * @param version  The version of the dimension the rows were read from
+     * @param dimensionRows  The rows, by key value
+     */
+    public void putAll(String version, Map<String, DimensionRow> dimensionRows) {
+        if (rows == null) {
+            return;
+        }
+        for (Map.Entry<String, DimensionRow> entry : dimensionRows.entrySet()) {
+            rows.put(new VersionedValue(version, entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * Drop every cached row.
+     */
+    public void invalidateAll() {
+        if (rows != null) {
+            rows.invalidateAll();
+        }
+    }
+
+    /**
+     * A key value of a version of a dimension.
+     */
+    private static final class VersionedValue {
+        private final String version;
+        private final String value;
+
+        /**
+         * Constructor.
+         *
+         * @param version  The version of the dimension
+         * @param value  The key value of a row
+         */
+        VersionedValue(String version, String value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) { return true; }
+            if (!(o instanceof VersionedValue)) { return false; }
+            VersionedValue that = (VersionedValue) o;
+            return Objects.equals(version, that.version) && Objects.equals(value, that.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, value);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension;
+
+/**
+ * Encodes dimension rows as the values stored for them in a {@link KeyValueStore}.
+ * <p>
+ * Codecs must recognize the rows they encoded, so a store may hold rows encoded by more than one codec while it is
+ * migrated from one encoding to another.
+ */
+public interface DimensionRowCodec {
+
+    /**
+     * Encode a dimension row.
+     *
+     * @param dimension  The dimension of the row
+     * @param dimensionRow  The row to encode
+     *
+     * @return the encoded row
+     */
+    String encode(Dimension dimension, DimensionRow dimensionRow);
+
+    /**
+     * Decode a dimension row.
+     *
+     * @param dimension  The dimension of the row
+     * @param encodedRow  A row encoded by this codec
+     *
+     * @return the dimension row, or null if the row was encoded for a different layout of the dimension's fields
+     */
+    DimensionRow decode(Dimension dimension, String encodedRow);
+
+    /**
+     * Whether a stored row was encoded by this codec.
+     *
+     * @param encodedRow  The stored row
+     *
+     * @return true if this codec can decode the row
+     */
+    boolean canDecode(String encodedRow);
+
+    /**
+     * Whether a stored row is encoded as this codec would encode it for the dimension now, so it needs no rewriting
+     * when it is loaded again unchanged.
+     *
+     * @param dimension  The dimension of the row
+     * @param encodedRow  The stored row
+     *
+     * @return true if the row is in this codec's current encoding for the dimension
+     */
+    default boolean isCurrent(Dimension dimension, String encodedRow) {
+        return canDecode(encodedRow);
+    }
+}
@@ -0,0 +1,204 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension;
+
+import com.yahoo.bard.webservice.async.jobs.jobrows.DefaultJobStatus;
+import com.yahoo.bard.webservice.async.jobs.jobrows.JobStatus;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loads the rows of a dimension from a file of rows, a batch at a time.
+ * <p>
+ * The file is read incrementally, one row per record, and every batch of rows is added to the dimension with a single
+ * {@link Dimension#addAllDimensionRows(Set)}, replacing any rows already having the same key. The file is deleted once
+ * the job is done with it. A job that fails part way keeps the batches it has already added.
+ */
+public class DimensionRowsLoadJob implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(DimensionRowsLoadJob.class);
+
+    public static final TypeReference<LinkedHashMap<String, String>> ROW_TYPE =
+            new TypeReference<LinkedHashMap<String, String>>() { /* Empty class */ };
+
+    private final String id;
+    private final Dimension dimension;
+    private final Path rowsFile;
+    private final boolean gzipped;
+    private final ObjectReader rowReader;
+    private final int batchSize;
+    private final DateTime created;
+
+    private final AtomicLong rowsLoaded = new AtomicLong();
+    private volatile JobStatus status = DefaultJobStatus.PENDING;
+    private volatile String error;
+    private volatile DateTime finished;
+
+    /**
+     * Constructor.
+     *
+     * @param id  The id of the job
+     * @param dimension  The dimension to load the rows into
+     * @param rowsFile  The file of rows to load, which the job takes ownership of
+     * @param gzipped  Whether the file of rows is gzip compressed
+     * @param rowReader  Reader for the records of the file, each of them a map of field name to value
+     * @param batchSize  The number of rows to add to the dimension at a time
+     */
+    public DimensionRowsLoadJob(
+            String id,
+            Dimension dimension,
+            Path rowsFile,
+            boolean gzipped,
+            ObjectReader rowReader,
+            int batchSize
+    ) {
+        this.id = id;
+        this.dimension = dimension;
+        this.rowsFile = rowsFile;
+        this.gzipped = gzipped;
+        this.rowReader = rowReader;
+        this.batchSize = Math.max(batchSize, 1);
+        this.created = DateTime.now();
+    }
+
+    /**
+     * Save a stream of rows to a file as they arrive, and make a job to load them from it.
+     *
+     * @param id  The id of the job
+     * @param dimension  The dimension to load the rows into
+     * @param rows  The rows to load, as they were received
+     * @param gzipped  Whether the rows are gzip compressed
+     * @param rowReader  Reader for the records of the rows, each of them a map of field name to value
+     * @param batchSize  The number of rows to add to the dimension at a time
+     *
+     * @return a job to load the rows, which hasn't been run yet
+     *
+     * @throws IOException if the rows can't be read or saved
+     */
+    public static DimensionRowsLoadJob receive(
+            String id,
+            Dimension dimension,
+            InputStream rows,
+            boolean gzipped,
+            ObjectReader rowReader,
+            int batchSize
+    ) throws IOException {
+        Path rowsFile = Files.createTempFile("dimension-rows-", ".load");
+        try {
+            Files.copy(rows, rowsFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(rowsFile);
+            throw e;
+        }
+        return new DimensionRowsLoadJob(id, dimension, rowsFile, gzipped, rowReader, batchSize);
+    }
+
+    @Override
+    public void run() {
+        LOG.debug("Loading rows of dimension {} from {}", dimension.getApiName(), rowsFile);
+        try (
+                InputStream input = openRowsFile();
+                MappingIterator<LinkedHashMap<String, String>> records = rowReader.readValues(input)
+        ) {
+            Set<DimensionRow> batch = new LinkedHashSet<>();
+            while (records.hasNextValue()) {
+                batch.add(dimension.parseDimensionRow(records.nextValue()));
+                if (batch.size() >= batchSize) {
+                    addBatch(batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                addBatch(batch);
+            }
+            status = DefaultJobStatus.SUCCESS;
+            LOG.debug("Loaded {} row(s) of dimension {}", rowsLoaded.get(), dimension.getApiName());
+        } catch (IOException | RuntimeException e) {
+            error = e.getMessage();
+            status = DefaultJobStatus.FAILURE;
+            LOG.error("Failed to load rows of dimension {} after {} row(s)", dimension.getApiName(), rowsLoaded, e);
+        } finally {
+            finished = DateTime.now();
+            try {
+                Files.deleteIfExists(rowsFile);
+            } catch (IOException e) {
+                LOG.warn("Unable to delete dimension rows file {}", rowsFile, e);
+            }
+        }
+    }
+
+    /**
+     * Add a batch of rows to the dimension, and empty the batch.
+     *
+     * @param batch  The rows to add
+     */
+    private void addBatch(Set<DimensionRow> batch) {
+        dimension.addAllDimensionRows(batch);
+        rowsLoaded.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * Open the file of rows for reading, decompressing it if needed.
+     *
+     * @return the contents of the file
+     *
+     * @throws IOException if the file can't be opened
+     */
+    private InputStream openRowsFile() throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(rowsFile));
+        return gzipped ? new GZIPInputStream(input) : input;
+    }
+
+    /**
+     * Describe the progress of the job.
+     *
+     * @return the id, dimension, status, number of rows loaded so far, and any error of the job
+     */
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("id", id);
+        progress.put("dimension", dimension.getApiName());
+        progress.put("status", status.getName());
+        progress.put("rowsLoaded", rowsLoaded.get());
+        progress.put("created", created.toString());
+        progress.put("finished", finished == null ? null : finished.toString());
+        if (error != null) {
+            progress.put("error", error);
+        }
+        return progress;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Dimension getDimension() {
+        return dimension;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded.get();
+    }
+}
@@ -5,6 +5,8 @@ package com.yahoo.bard.webservice.data.dimension;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
 import javax.validation.constraints.NotNull;
@@ -49,6 +51,26 @@ public interface KeyValueStore extends Closeable {
      */
     String get(@NotNull String key);
 
+    /**
+     * Get the values for several keys from store.
+     * <p>
+     * Stores that can fetch several keys in a single round trip should override this to do so.
+     *
+     * @param keys  Keys to get the values for
+     *
+     * @return the values of the keys that are set, by key. Keys that are not set are left out.
+     */
+    default Map<String, String> getAll(@NotNull Collection<String> keys) {
+        Map<String, String> values = new HashMap<>(keys.size());
+        for (String key : keys) {
+            String value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * Get the value for a key from store or provide a default.
      *
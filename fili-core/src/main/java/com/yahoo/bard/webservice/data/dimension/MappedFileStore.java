@@ -0,0 +1,975 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension;
+
+import com.yahoo.bard.webservice.util.Utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A KeyValueStore kept in memory mapped files, so its data lives outside the heap and survives restarts.
+ * <p>
+ * The store is a log of records, appended to as keys are set and removed, and a hash index from each key to its latest
+ * record in the log. Both files are mapped into memory in fixed size chunks, and no record spans two chunks.
+ * <p>
+ * The log is the source of truth. Every write ({@link #put}, {@link #remove} or a whole {@link #putAll} batch) is
+ * appended past the committed end of the log and synced to disk, and only then is the committed end, held in the log's
+ * header, moved past it. Records past the committed end are ignored, so a write interrupted by a crash is lost whole.
+ * The index is marked dirty before a write changes it, and saved as the index of the committed log once the write is
+ * indexed, so a store that was not closed, because its process died, is reopened without reading its log unless the
+ * process died part way through a write. A dirty index, or one that doesn't match its log, is rebuilt from the log
+ * when the store is opened.
+ * <p>
+ * Overwritten and removed values stay in the log until it is compacted, which happens once they take more space than
+ * the rest of the log, or when {@link #compact()} is called. The space they take is saved with the index, so it is
+ * still known after the store is reopened. Compaction copies the latest values into a new log while only holding the
+ * read lock, so reads carry on while writes wait, and swaps the new log in under the write lock.
+ */
+public class MappedFileStore implements KeyValueStore {
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileStore.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    static final String LOG_FILE_NAME = "store.log";
+    static final String INDEX_FILE_NAME = "store.index";
+    private static final String COMPACTION_DIRECTORY_NAME = "compacting";
+    private static final String RESIZE_SUFFIX = ".resizing";
+
+    private static final int LOG_MAGIC = 0x4D46534C;
+    private static final int INDEX_MAGIC = 0x4D465349;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // Log header fields
+    private static final int LOG_ID_OFFSET = 8;
+    private static final int COMMITTED_LENGTH_OFFSET = 16;
+    private static final int CHUNK_SIZE_OFFSET = 24;
+
+    // Index header fields
+    private static final int INDEXED_LENGTH_OFFSET = 16;
+    private static final int CAPACITY_OFFSET = 24;
+    private static final int SIZE_OFFSET = 32;
+    private static final int DIRTY_OFFSET = 40;
+    private static final int GARBAGE_BYTES_OFFSET = 48;
+
+    // Records are [int length][byte type][int key length][key bytes][value bytes]
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    // Index slots are [long record position][int key hash], with position 0 marking an empty slot
+    private static final int SLOT_SIZE = 12;
+    private static final int SLOTS_PER_CHUNK = 1 << 20;
+    private static final long INITIAL_CAPACITY = 1 << 10;
+
+    private static final int COMPACTION_BATCH_SIZE = 10000;
+
+    private final Path directory;
+    private final int newChunkSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock compactionLock = new ReentrantLock();
+
+    private boolean open;
+    private int chunkSize;
+
+    private FileChannel logChannel;
+    private final List<MappedByteBuffer> logChunks = new ArrayList<>();
+    private long logId;
+    private long committedLength;
+    private long appendPosition;
+    private long garbageBytes;
+
+    private Index index;
+
+    /**
+     * Constructor.
+     * <p>
+     * Opens the store, creating its files if they don't exist yet.
+     *
+     * @param directory  The directory holding the store's files
+     * @param chunkSize  The size in bytes of the chunks the log of a new store is mapped in, which bounds the size of a
+     * single key and value. Existing stores keep the chunk size they were created with.
+     */
+    public MappedFileStore(Path directory, int chunkSize) {
+        this.directory = directory;
+        this.newChunkSize = chunkSize;
+        open();
+    }
+
+    @Override
+    public void open() {
+        lock.writeLock().lock();
+        try {
+            if (open) {
+                return;
+            }
+            Files.createDirectories(directory);
+            // Leftovers of an interrupted compaction or resize are never read
+            Utils.deleteFiles(directory.resolve(COMPACTION_DIRECTORY_NAME).toString());
+            Files.deleteIfExists(directory.resolve(INDEX_FILE_NAME + RESIZE_SUFFIX));
+
+            openLog();
+            index = Index.open(directory.resolve(INDEX_FILE_NAME), logId, committedLength);
+            if (index == null) {
+                rebuildIndex();
+            } else {
+                garbageBytes = index.garbageBytes;
+            }
+            open = true;
+        } catch (IOException e) {
+            LOG.error("Unable to open mapped file store in {}", directory, e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!open) {
+                return;
+            }
+            open = false;
+            index.save(committedLength, garbageBytes);
+            index.close();
+            logChannel.close();
+            logChunks.clear();
+        } catch (IOException e) {
+            LOG.error("Unable to close mapped file store in {}", directory, e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        lock.readLock().lock();
+        try {
+            return open;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return isOpen();
+    }
+
+    @Override
+    public String get(@NotNull String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot get null key");
+        }
+        lock.readLock().lock();
+        try {
+            requireOpen();
+            return readValue(key.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, String> getAll(@NotNull Collection<String> keys) {
+        Map<String, String> values = new HashMap<>(keys.size());
+        lock.readLock().lock();
+        try {
+            requireOpen();
+            for (String key : keys) {
+                String value = readValue(key.getBytes(StandardCharsets.UTF_8));
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return values;
+    }
+
+    @Override
+    public String remove(@NotNull String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null key");
+        }
+        return put(key, null);
+    }
+
+    @Override
+    public String put(@NotNull String key, String value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot set null key");
+        }
+        Map<String, String> entries = new HashMap<>(1);
+        entries.put(key, value);
+        return putAll(entries).get(key);
+    }
+
+    @Override
+    public Map<String, String> putAll(@NotNull Map<String, String> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("Cannot set null entries");
+        }
+        Map<String, String> oldValues = new HashMap<>(entries.size());
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            requireOpen();
+            index.markDirty();
+
+            // Append the whole batch, and commit it, before any of it is indexed
+            List<byte[]> keys = new ArrayList<>(entries.size());
+            List<Long> positions = new ArrayList<>(entries.size());
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                if (entry.getKey() == null) {
+                    throw new IllegalArgumentException("Cannot set null key");
+                }
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                oldValues.put(entry.getKey(), readValue(key));
+                byte[] value = entry.getValue() == null ? null : entry.getValue().getBytes(StandardCharsets.UTF_8);
+                keys.add(key);
+                positions.add(append(key, value));
+            }
+            commit();
+
+            for (int i = 0; i < keys.size(); i++) {
+                indexRecord(keys.get(i), positions.get(i));
+            }
+            index.save(committedLength, garbageBytes);
+            compact = garbageBytes > Math.max(committedLength / 2, chunkSize);
+        } catch (IOException e) {
+            LOG.error("Unable to write to mapped file store in {}", directory, e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Writes that find the store already being compacted leave it to that compaction
+        if (compact && compactionLock.tryLock()) {
+            try {
+                compactHoldingCompactionLock();
+            } finally {
+                compactionLock.unlock();
+            }
+        }
+        return oldValues;
+    }
+
+    /**
+     * Rewrite the store with only the latest value of each key that is set.
+     */
+    public void compact() {
+        compactionLock.lock();
+        try {
+            compactHoldingCompactionLock();
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of bytes of the log in use.
+     *
+     * @return the committed length of the log
+     */
+    public long getLogLength() {
+        lock.readLock().lock();
+        try {
+            return committedLength;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of bytes of the log taken by overwritten and removed values.
+     *
+     * @return the bytes compaction would free, less padding
+     */
+    public long getGarbageLength() {
+        lock.readLock().lock();
+        try {
+            return garbageBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fail unless the store is open.
+     */
+    private void requireOpen() {
+        if (!open) {
+            throw new IllegalStateException("Mapped file store in " + directory + " is closed");
+        }
+    }
+
+    /**
+     * Rewrite the store with only the latest value of each key that is set, holding the compaction lock.
+     * <p>
+     * The latest values are copied into a new store in the compaction directory under the read lock. Then, under the
+     * write lock, the writes committed since the copy are replayed into the new store, and its log and index replace
+     * those of this store.
+     */
+    private void compactHoldingCompactionLock() {
+        Path compactionDirectory = directory.resolve(COMPACTION_DIRECTORY_NAME);
+        MappedFileStore compacted = null;
+        try {
+            long copiedLength;
+            long copiedLogId;
+            lock.readLock().lock();
+            try {
+                requireOpen();
+                // A compaction that failed part way leaves its directory behind, which must not be appended to
+                Utils.deleteFiles(compactionDirectory.toString());
+                compacted = new MappedFileStore(compactionDirectory, chunkSize);
+                copiedLength = committedLength;
+                copiedLogId = logId;
+                copyRecords(HEADER_SIZE, copiedLength, compacted, true);
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (!open || logId != copiedLogId) {
+                    LOG.info("Abandoning compaction of mapped file store in {}, which was closed", directory);
+                    return;
+                }
+                copyRecords(copiedLength, committedLength, compacted, false);
+                compacted.close();
+
+                // The new log replaces the old one before the new index does, and an index never matches another log
+                close();
+                try {
+                    Files.move(
+                            compactionDirectory.resolve(LOG_FILE_NAME),
+                            directory.resolve(LOG_FILE_NAME),
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE
+                    );
+                    Files.move(
+                            compactionDirectory.resolve(INDEX_FILE_NAME),
+                            directory.resolve(INDEX_FILE_NAME),
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE
+                    );
+                } finally {
+                    open();
+                }
+                LOG.info(
+                        "Compacted mapped file store in {} from {} to {} bytes",
+                        directory,
+                        copiedLength,
+                        committedLength
+                );
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            LOG.error("Unable to compact mapped file store in {}", directory, e);
+            throw new UncheckedIOException(e);
+        } finally {
+            if (compacted != null) {
+                cleanUpCompaction(compacted, compactionDirectory);
+            }
+        }
+    }
+
+    /**
+     * Copy the values written by the records of a stretch of the log into another store.
+     *
+     * @param from  The position of the first record to copy
+     * @param to  The position past the last record to copy
+     * @param target  The store to copy into
+     * @param latestOnly  If true, only copy records the index still points at, which are the latest values, and skip
+     * removals. Otherwise copy every record in log order, so the target ends up as this store did.
+     */
+    private void copyRecords(long from, long to, MappedFileStore target, boolean latestOnly) {
+        Map<String, String> batch = new LinkedHashMap<>();
+        long position = skipPadding(from);
+        for (; position < to; position = skipPadding(position + recordLength(position))) {
+            byte[] key = recordKey(position);
+            boolean removal = recordType(position) == REMOVE;
+            if (latestOnly && (removal || index.position(findSlot(key, hash(key))) != position)) {
+                continue;
+            }
+            batch.put(
+                    new String(key, StandardCharsets.UTF_8),
+                    removal ? null : new String(recordValue(position), StandardCharsets.UTF_8)
+            );
+            if (batch.size() >= COMPACTION_BATCH_SIZE) {
+                target.putAll(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            target.putAll(batch);
+        }
+    }
+
+    /**
+     * Close the new store of a compaction and delete what is left of it, whether or not it replaced this store.
+     *
+     * @param compacted  The new store
+     * @param compactionDirectory  The directory of the new store
+     */
+    private void cleanUpCompaction(MappedFileStore compacted, Path compactionDirectory) {
+        try {
+            compacted.close();
+            Utils.deleteFiles(compactionDirectory.toString());
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to clean up compaction of mapped file store in {}", directory, e);
+        }
+    }
+
+    /**
+     * Open the log, creating it if it doesn't exist.
+     *
+     * @throws IOException if the log cannot be opened
+     */
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(
+                directory.resolve(LOG_FILE_NAME),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        logChunks.clear();
+        if (logChannel.size() < HEADER_SIZE) {
+            chunkSize = newChunkSize;
+            mapLogChunk(0);
+            logId = UUID.randomUUID().getMostSignificantBits();
+            MappedByteBuffer header = logChunks.get(0);
+            header.putInt(0, LOG_MAGIC);
+            header.putInt(4, FORMAT_VERSION);
+            header.putLong(LOG_ID_OFFSET, logId);
+            header.putLong(COMMITTED_LENGTH_OFFSET, HEADER_SIZE);
+            header.putInt(CHUNK_SIZE_OFFSET, chunkSize);
+            header.force();
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            logChannel.read(header, 0);
+            if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Not a mapped file store log: " + directory.resolve(LOG_FILE_NAME));
+            }
+            chunkSize = header.getInt(CHUNK_SIZE_OFFSET);
+            for (int chunk = 0; (long) chunk * chunkSize < logChannel.size(); chunk++) {
+                mapLogChunk(chunk);
+            }
+            logId = header.getLong(LOG_ID_OFFSET);
+        }
+        committedLength = logChunks.get(0).getLong(COMMITTED_LENGTH_OFFSET);
+        appendPosition = committedLength;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Map a chunk of the log, growing the log file to hold it.
+     *
+     * @param chunk  The number of the chunk
+     *
+     * @throws IOException if the chunk cannot be mapped
+     */
+    private void mapLogChunk(int chunk) throws IOException {
+        logChunks.add(logChannel.map(FileChannel.MapMode.READ_WRITE, (long) chunk * chunkSize, chunkSize));
+    }
+
+    /**
+     * Rebuild the index by reading the committed log from the start.
+     *
+     * @throws IOException if the index cannot be written
+     */
+    private void rebuildIndex() throws IOException {
+        LOG.info("Rebuilding the index of mapped file store in {}", directory);
+        index = Index.create(directory.resolve(INDEX_FILE_NAME), logId, INITIAL_CAPACITY);
+        index.markDirty();
+        for (long position = skipPadding(HEADER_SIZE); position < committedLength;) {
+            indexRecord(recordKey(position), position);
+            position = skipPadding(position + recordLength(position));
+        }
+        index.save(committedLength, garbageBytes);
+    }
+
+    /**
+     * Find the first record at or after a position in the committed log, past any padding at the end of a chunk.
+     *
+     * @param position  The position in the log
+     *
+     * @return the position of the record, or a position at or past the committed end if there is none
+     */
+    private long skipPadding(long position) {
+        if (position >= committedLength) {
+            return position;
+        }
+        int offset = (int) (position % chunkSize);
+        if (chunkSize - offset < RECORD_HEADER_SIZE || chunk(position).getInt(offset) == 0) {
+            // The rest of the chunk is padding
+            return position - offset + chunkSize;
+        }
+        return position;
+    }
+
+    /**
+     * Append a record to the log, past its committed end.
+     *
+     * @param key  The key of the record
+     * @param value  The value of the record, or null to remove the key
+     *
+     * @return the position of the record
+     *
+     * @throws IOException if the log cannot be grown
+     */
+    private long append(byte[] key, byte[] value) throws IOException {
+        int length = RECORD_HEADER_SIZE + key.length + (value == null ? 0 : value.length);
+        if (length > chunkSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Key and value take more than the chunk size of " + chunkSize);
+        }
+        long position = appendPosition;
+        int offset = (int) (position % chunkSize);
+        if (chunkSize - offset < length) {
+            // Records don't span chunks, so mark the rest of this chunk as padding and start the next one
+            if (chunkSize - offset >= Integer.BYTES) {
+                chunk(position).putInt(offset, 0);
+            }
+            position = position - offset + chunkSize;
+            offset = 0;
+        }
+        while (logChunks.size() <= position / chunkSize) {
+            mapLogChunk(logChunks.size());
+        }
+
+        ByteBuffer record = chunk(position).duplicate();
+        record.position(offset);
+        record.putInt(length).put(value == null ? REMOVE : PUT).putInt(key.length).put(key);
+        if (value != null) {
+            record.put(value);
+        }
+        appendPosition = position + length;
+        return position;
+    }
+
+    /**
+     * Sync the records appended since the last commit to disk, and then move the committed end of the log past them.
+     */
+    private void commit() {
+        for (long chunk = committedLength / chunkSize; chunk <= (appendPosition - 1) / chunkSize; chunk++) {
+            logChunks.get((int) chunk).force();
+        }
+        MappedByteBuffer header = logChunks.get(0);
+        header.putLong(COMMITTED_LENGTH_OFFSET, appendPosition);
+        header.force();
+        committedLength = appendPosition;
+    }
+
+    /**
+     * Point the index entry for a key at a record, growing the index if it is getting full.
+     *
+     * @param key  The key of the record
+     * @param position  The position of the record
+     *
+     * @throws IOException if the index cannot be grown
+     */
+    private void indexRecord(byte[] key, long position) throws IOException {
+        int hash = hash(key);
+        long slot = findSlot(key, hash);
+        long previous = index.position(slot);
+        if (previous != 0) {
+            garbageBytes += recordLength(previous);
+        }
+        index.set(slot, position, hash);
+        if (index.size * 2 > index.capacity) {
+            Path resized = directory.resolve(INDEX_FILE_NAME + RESIZE_SUFFIX);
+            Index grown = index.grow(resized, index.capacity * 2);
+            index.close();
+            Files.move(resized, directory.resolve(INDEX_FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+            index = grown;
+        }
+    }
+
+    /**
+     * Read the latest value of a key.
+     *
+     * @param key  The key
+     *
+     * @return the value, or null if the key is not set
+     */
+    private String readValue(byte[] key) {
+        long position = index.position(findSlot(key, hash(key)));
+        if (position == 0 || recordType(position) == REMOVE) {
+            return null;
+        }
+        return new String(recordValue(position), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Find the index slot holding a key, or the empty slot it would be added in.
+     *
+     * @param key  The key
+     * @param hash  The hash of the key
+     *
+     * @return the slot
+     */
+    private long findSlot(byte[] key, int hash) {
+        long mask = index.capacity - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long position = index.position(slot);
+            if (position == 0 || (index.hash(slot) == hash && keyEquals(position, key))) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Get the mapped chunk of the log holding a position.
+     *
+     * @param position  The position in the log
+     *
+     * @return the chunk
+     */
+    private MappedByteBuffer chunk(long position) {
+        return logChunks.get((int) (position / chunkSize));
+    }
+
+    /**
+     * Get the length of a record.
+     *
+     * @param position  The position of the record
+     *
+     * @return the number of bytes of the record
+     */
+    private int recordLength(long position) {
+        return chunk(position).getInt((int) (position % chunkSize));
+    }
+
+    /**
+     * Get the type of a record.
+     *
+     * @param position  The position of the record
+     *
+     * @return the type of the record
+     */
+    private byte recordType(long position) {
+        return chunk(position).get((int) (position % chunkSize) + Integer.BYTES);
+    }
+
+    /**
+     * Check whether a record is for a key.
+     *
+     * @param position  The position of the record
+     * @param key  The key
+     *
+     * @return true if the record's key is the key
+     */
+    private boolean keyEquals(long position, byte[] key) {
+        MappedByteBuffer chunk = chunk(position);
+        int offset = (int) (position % chunkSize);
+        if (chunk.getInt(offset + Integer.BYTES + 1) != key.length) {
+            return false;
+        }
+        int keyOffset = offset + RECORD_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(keyOffset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the key of a record.
+     *
+     * @param position  The position of the record
+     *
+     * @return the key
+     */
+    private byte[] recordKey(long position) {
+        MappedByteBuffer chunk = chunk(position);
+        int offset = (int) (position % chunkSize);
+        return readBytes(chunk, offset + RECORD_HEADER_SIZE, chunk.getInt(offset + Integer.BYTES + 1));
+    }
+
+    /**
+     * Read the value of a record.
+     *
+     * @param position  The position of the record
+     *
+     * @return the value
+     */
+    private byte[] recordValue(long position) {
+        MappedByteBuffer chunk = chunk(position);
+        int offset = (int) (position % chunkSize);
+        int keyLength = chunk.getInt(offset + Integer.BYTES + 1);
+        int length = chunk.getInt(offset);
+        return readBytes(chunk, offset + RECORD_HEADER_SIZE + keyLength, length - RECORD_HEADER_SIZE - keyLength);
+    }
+
+    /**
+     * Copy bytes out of a chunk.
+     *
+     * @param chunk  The chunk
+     * @param offset  The offset of the bytes in the chunk
+     * @param length  The number of bytes
+     *
+     * @return the bytes
+     */
+    private static byte[] readBytes(ByteBuffer chunk, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = chunk.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Hash a key, spreading the bits of its hash code so nearby keys land in distant slots.
+     *
+     * @param key  The key
+     *
+     * @return the hash
+     */
+    private static int hash(byte[] key) {
+        int hash = 1;
+        for (byte b : key) {
+            hash = 31 * hash + b;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The hash index of a store, mapping the hash of each key to the position of its latest record in the log.
+     */
+    private static final class Index {
+        private final FileChannel channel;
+        private final MappedByteBuffer header;
+        private final List<MappedByteBuffer> slotChunks = new ArrayList<>();
+        private final long capacity;
+        private long size;
+        private long garbageBytes;
+        private boolean dirty;
+
+        /**
+         * Constructor.
+         *
+         * @param channel  The channel of the index file
+         * @param capacity  The number of slots, a power of 2
+         *
+         * @throws IOException if the index file cannot be mapped
+         */
+        private Index(FileChannel channel, long capacity) throws IOException {
+            this.channel = channel;
+            this.capacity = capacity;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            for (long first = 0; first < capacity; first += SLOTS_PER_CHUNK) {
+                long slots = Math.min(SLOTS_PER_CHUNK, capacity - first);
+                slotChunks.add(channel.map(
+                        FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + first * SLOT_SIZE,
+                        slots * SLOT_SIZE
+                ));
+            }
+        }
+
+        /**
+         * Create an empty index, replacing any existing index file.
+         *
+         * @param path  The path of the index file
+         * @param logId  The id of the log being indexed
+         * @param capacity  The number of slots, a power of 2
+         *
+         * @return the index
+         *
+         * @throws IOException if the index file cannot be created
+         */
+        static Index create(Path path, long logId, long capacity) throws IOException {
+            FileChannel channel = FileChannel.open(
+                    path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+            Index index = new Index(channel, capacity);
+            index.header.putInt(0, INDEX_MAGIC);
+            index.header.putInt(4, FORMAT_VERSION);
+            index.header.putLong(LOG_ID_OFFSET, logId);
+            index.header.putLong(CAPACITY_OFFSET, capacity);
+            return index;
+        }
+
+        /**
+         * Open a saved index, if there is one for the committed log.
+         *
+         * @param path  The path of the index file
+         * @param logId  The id of the log
+         * @param committedLength  The committed length of the log
+         *
+         * @return the index, or null if there is no clean index of the committed log
+         *
+         * @throws IOException if the index file cannot be read
+         */
+        static Index open(Path path, long logId, long committedLength) throws IOException {
+            if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+                return null;
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            long capacity = header.getLong(CAPACITY_OFFSET);
+            boolean usable = header.getInt(0) == INDEX_MAGIC
+                    && header.getInt(4) == FORMAT_VERSION
+                    && header.getLong(LOG_ID_OFFSET) == logId
+                    && header.getLong(INDEXED_LENGTH_OFFSET) == committedLength
+                    && header.get(DIRTY_OFFSET) == 0
+                    && Long.bitCount(capacity) == 1
+                    && channel.size() >= HEADER_SIZE + capacity * SLOT_SIZE;
+            if (!usable) {
+                channel.close();
+                return null;
+            }
+            Index index = new Index(channel, capacity);
+            index.size = header.getLong(SIZE_OFFSET);
+            index.garbageBytes = header.getLong(GARBAGE_BYTES_OFFSET);
+            return index;
+        }
+
+        /**
+         * Build a copy of this index with more slots.
+         *
+         * @param path  The path of the new index file
+         * @param newCapacity  The number of slots of the new index, a power of 2
+         *
+         * @return the new index
+         *
+         * @throws IOException if the new index file cannot be created
+         */
+        Index grow(Path path, long newCapacity) throws IOException {
+            Index grown = create(path, header.getLong(LOG_ID_OFFSET), newCapacity);
+            grown.markDirty();
+            long mask = newCapacity - 1;
+            for (long slot = 0; slot < capacity; slot++) {
+                long position = position(slot);
+                if (position != 0) {
+                    int hash = hash(slot);
+                    long target = hash & mask;
+                    while (grown.position(target) != 0) {
+                        target = (target + 1) & mask;
+                    }
+                    grown.set(target, position, hash);
+                }
+            }
+            return grown;
+        }
+
+        /**
+         * Mark the index as changed since it was saved, before its first change.
+         */
+        void markDirty() {
+            if (!dirty) {
+                dirty = true;
+                header.put(DIRTY_OFFSET, (byte) 1);
+                header.force();
+            }
+        }
+
+        /**
+         * Save the index as the index of the committed log.
+         *
+         * @param indexedLength  The committed length of the log
+         * @param garbageBytes  The number of bytes of the log taken by overwritten and removed values
+         */
+        void save(long indexedLength, long garbageBytes) {
+            slotChunks.forEach(MappedByteBuffer::force);
+            this.garbageBytes = garbageBytes;
+            header.putLong(SIZE_OFFSET, size);
+            header.putLong(GARBAGE_BYTES_OFFSET, garbageBytes);
+            header.putLong(INDEXED_LENGTH_OFFSET, indexedLength);
+            header.put(DIRTY_OFFSET, (byte) 0);
+            header.force();
+            dirty = false;
+        }
+
+        /**
+         * Close the index file.
+         *
+         * @throws IOException if the file cannot be closed
+         */
+        void close() throws IOException {
+            slotChunks.clear();
+            channel.close();
+        }
+
+        /**
+         * Get the log position a slot points at.
+         *
+         * @param slot  The slot
+         *
+         * @return the position, or 0 if the slot is empty
+         */
+        long position(long slot) {
+            return slotChunks.get((int) (slot / SLOTS_PER_CHUNK)).getLong((int) (slot % SLOTS_PER_CHUNK) * SLOT_SIZE);
+        }
+
+        /**
+         * Get the hash of the key of a slot.
+         *
+         * @param slot  The slot
+         *
+         * @return the hash
+         */
+        int hash(long slot) {
+            return slotChunks.get((int) (slot / SLOTS_PER_CHUNK))
+                    .getInt((int) (slot % SLOTS_PER_CHUNK) * SLOT_SIZE + Long.BYTES);
+        }
+
+        /**
+         * Point a slot at a record.
+         *
+         * @param slot  The slot
+         * @param position  The position of the record
+         * @param hash  The hash of the record's key
+         */
+        void set(long slot, long position, int hash) {
+            MappedByteBuffer chunk = slotChunks.get((int) (slot / SLOTS_PER_CHUNK));
+            int offset = (int) (slot % SLOTS_PER_CHUNK) * SLOT_SIZE;
+            if (chunk.getLong(offset) == 0) {
+                size++;
+            }
+            chunk.putLong(offset, position);
+            chunk.putInt(offset + Long.BYTES, hash);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension;
+
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+import com.yahoo.bard.webservice.util.Utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Mapped File Store instance manager.
+ * <p>
+ * Each store keeps its files in a directory named for the store under the configured mapped file store path.
+ */
+public class MappedFileStoreManager {
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    private static final @NotNull String STORE_PATH_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("mapped_file_store_path");
+
+    private static final @NotNull String CHUNK_SIZE_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("mapped_file_store_chunk_bytes");
+
+    // Hold singleton instances by name
+    private static final Map<String, MappedFileStore> STORES = new HashMap<>();
+
+    /**
+     * Factory for singleton instances by name.
+     * <p>
+     * Only a single instance can exist for each name. An instance that was closed is opened again.
+     *
+     * @param storeName Name for the singleton instance
+     *
+     * @return The singleton instance for the given name
+     */
+    public static synchronized MappedFileStore getInstance(String storeName) {
+        MappedFileStore store = STORES.get(storeName);
+
+        if (store == null) {
+            store = new MappedFileStore(
+                    getStorePath(storeName),
+                    SYSTEM_CONFIG.getIntProperty(CHUNK_SIZE_KEY, MappedFileStore.DEFAULT_CHUNK_SIZE)
+            );
+            STORES.put(storeName, store);
+        } else {
+            store.open();
+        }
+
+        return store;
+    }
+
+    /**
+     * Delete the named singleton instance, along with its files.
+     *
+     * @param storeName Name of the singleton instance to delete
+     */
+    public static synchronized void removeInstance(String storeName) {
+        MappedFileStore store = STORES.remove(storeName);
+        if (store != null) {
+            store.close();
+        }
+        Utils.deleteFiles(getStorePath(storeName).toString());
+    }
+
+    /**
+     * Get the directory holding the files of a store.
+     *
+     * @param storeName  Name of the store
+     *
+     * @return the directory of the store
+     */
+    private static Path getStorePath(String storeName) {
+        return Paths.get(SYSTEM_CONFIG.getStringProperty(STORE_PATH_KEY), storeName);
+    }
+}
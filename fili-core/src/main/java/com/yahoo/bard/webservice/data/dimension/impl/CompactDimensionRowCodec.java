@@ -0,0 +1,246 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl;
+
+import com.yahoo.bard.webservice.data.dimension.Dimension;
+import com.yahoo.bard.webservice.data.dimension.DimensionField;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+import com.yahoo.bard.webservice.data.dimension.DimensionRowCodec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Encodes dimension rows compactly, as the values of the dimension's fields indexed by the position of the field.
+ * <p>
+ * An encoded row starts with a marker, a format version and the id of the layout of the dimension's fields the row
+ * was encoded under. Layout ids are handed out by the store of the rows, which keeps the field names of every layout it
+ * has numbered, so two layouts never share an id. Rows encoded without a layout id, through the
+ * {@link DimensionRowCodec} methods, record {@link #UNREGISTERED_LAYOUT_ID} and are read by the dimension's fields as
+ * they are.
+ * <p>
+ * Each field with a value follows as the position of the field, the length of the value and the value. Numbers are
+ * written 14 bits to a character, with a continuation bit, so every character written by the codec itself is below the
+ * surrogate range and the encoded row stays a well formed string for stores that encode their values as UTF-8.
+ * <p>
+ * Rows stored under a different layout of the dimension's fields are decoded by field name, given the names of the
+ * fields of the layout they were stored under. Fields the dimension no longer has are dropped, and fields it has gained
+ * are empty, as they would be for rows stored as JSON. Rows whose layout is unknown decode to null, so they read as
+ * missing until the dimension's rows are loaded again.
+ */
+public class CompactDimensionRowCodec implements DimensionRowCodec {
+    private static final Logger LOG = LoggerFactory.getLogger(CompactDimensionRowCodec.class);
+
+    private static final char MARKER = '\u0000';
+    private static final char FORMAT_VERSION = '\u0001';
+
+    private static final int BITS_PER_CHAR = 14;
+    private static final int PAYLOAD_MASK = (1 << BITS_PER_CHAR) - 1;
+    private static final int CONTINUATION = 1 << BITS_PER_CHAR;
+
+    /**
+     * The layout id of rows encoded without a layout of the dimension's fields known to the store of the rows.
+     */
+    public static final int UNREGISTERED_LAYOUT_ID = 0;
+
+    private static final String MISSING_ROW_KEY_FORMAT = "Dimension row for '%s' doesn't contain expected key '%s'";
+
+    @Override
+    public String encode(Dimension dimension, DimensionRow dimensionRow) {
+        return encode(dimension, dimensionRow, UNREGISTERED_LAYOUT_ID);
+    }
+
+    /**
+     * Encode a dimension row under a layout of the dimension's fields.
+     *
+     * @param dimension  The dimension of the row
+     * @param dimensionRow  The row to encode
+     * @param layoutId  The id the store of the rows gave the current layout of the dimension's fields
+     *
+     * @return the encoded row
+     */
+    public String encode(Dimension dimension, DimensionRow dimensionRow, int layoutId) {
+        Map<String, String> values = new HashMap<>(dimensionRow.size() * 2);
+        int length = 0;
+        for (Map.Entry<DimensionField, String> entry : dimensionRow.entrySet()) {
+            values.put(entry.getKey().getName(), entry.getValue());
+            length += entry.getValue() == null ? 0 : entry.getValue().length() + 2;
+        }
+
+        StringBuilder encoded = new StringBuilder(length + 4);
+        encoded.append(MARKER).append(FORMAT_VERSION);
+        writeNumber(encoded, layoutId);
+        int position = 0;
+        for (DimensionField field : dimension.getDimensionFields()) {
+            String value = values.get(field.getName());
+            if (value != null) {
+                writeNumber(encoded, position);
+                writeNumber(encoded, value.length());
+                encoded.append(value);
+            }
+            position++;
+        }
+        return encoded.toString();
+    }
+
+    @Override
+    public DimensionRow decode(Dimension dimension, String encodedRow) {
+        return decode(dimension, encodedRow, UNREGISTERED_LAYOUT_ID, layoutId -> null);
+    }
+
+    /**
+     * Decode a dimension row, which may have been stored under an earlier layout of the dimension's fields.
+     *
+     * @param dimension  The dimension of the row
+     * @param encodedRow  A row encoded by this codec
+     * @param layoutId  The id the store of the rows gave the current layout of the dimension's fields
+     * @param storedLayouts  The names of the fields, in order, of each layout rows may have been stored under, by
+     * layout id, or null for a layout that isn't known
+     *
+     * @return the dimension row, or null if the row was stored under an unknown layout of the dimension's fields
+     */
+    public DimensionRow decode(
+            Dimension dimension,
+            String encodedRow,
+            int layoutId,
+            IntFunction<List<String>> storedLayouts
+    ) {
+        if (!canDecode(encodedRow)) {
+            throw new IllegalArgumentException("Not a compactly encoded dimension row for " + dimension.getApiName());
+        }
+        Set<DimensionField> fields = dimension.getDimensionFields();
+        int[] cursor = {2};
+        int rowLayoutId = readNumber(encodedRow, cursor);
+
+        // The position in the dimension's fields of the field at each position of the stored layout, if it differs
+        int[] positions = null;
+        if (rowLayoutId != layoutId) {
+            List<String> storedFieldNames = storedLayouts.apply(rowLayoutId);
+            if (storedFieldNames == null) {
+                LOG.warn("Ignoring a row of {} stored with an unknown layout of the dimension's fields", dimension);
+                return null;
+            }
+            positions = mapPositions(fields, storedFieldNames);
+        }
+
+        String[] values = new String[fields.size()];
+        while (cursor[0] < encodedRow.length()) {
+            int position = readNumber(encodedRow, cursor);
+            int length = readNumber(encodedRow, cursor);
+            if (positions != null) {
+                position = position < positions.length ? positions[position] : values.length;
+            }
+            if (position >= values.length || cursor[0] + length > encodedRow.length()) {
+                throw new IllegalArgumentException("Malformed dimension row for " + dimension.getApiName());
+            }
+            if (position >= 0) {
+                values[position] = encodedRow.substring(cursor[0], cursor[0] + length);
+            }
+            cursor[0] += length;
+        }
+
+        LinkedHashMap<DimensionField, String> fieldValues = new LinkedHashMap<>(values.length * 2);
+        int position = 0;
+        for (DimensionField field : fields) {
+            String value = values[position++];
+            if (value == null) {
+                if (field == dimension.getKey()) {
+                    String error = String.format(MISSING_ROW_KEY_FORMAT, dimension.getApiName(), field.getName());
+                    LOG.info(error);
+                    throw new IllegalArgumentException(error);
+                }
+                value = "";
+            }
+            fieldValues.put(field, value);
+        }
+        return new DimensionRow(dimension.getKey(), fieldValues);
+    }
+
+    @Override
+    public boolean canDecode(String encodedRow) {
+        return encodedRow.length() >= 2 && encodedRow.charAt(0) == MARKER && encodedRow.charAt(1) == FORMAT_VERSION;
+    }
+
+    @Override
+    public boolean isCurrent(Dimension dimension, String encodedRow) {
+        return isCurrent(encodedRow, UNREGISTERED_LAYOUT_ID);
+    }
+
+    /**
+     * Whether a stored row was encoded by this codec under a layout of the dimension's fields.
+     *
+     * @param encodedRow  The stored row
+     * @param layoutId  The id the store of the rows gave the current layout of the dimension's fields
+     *
+     * @return true if the row is in this codec's encoding under the layout
+     */
+    public boolean isCurrent(String encodedRow, int layoutId) {
+        return canDecode(encodedRow) && readNumber(encodedRow, new int[] {2}) == layoutId;
+    }
+
+    /**
+     * Find the position in a dimension's fields of each field of a stored layout.
+     *
+     * @param fields  The fields of the dimension
+     * @param storedFieldNames  The names of the fields of the stored layout, in order
+     *
+     * @return the position of each stored field among the dimension's fields, or -1 if the dimension no longer has it
+     */
+    private static int[] mapPositions(Set<DimensionField> fields, List<String> storedFieldNames) {
+        Map<String, Integer> positionsByName = new HashMap<>(fields.size() * 2);
+        int position = 0;
+        for (DimensionField field : fields) {
+            positionsByName.put(field.getName(), position++);
+        }
+        int[] positions = new int[storedFieldNames.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = positionsByName.getOrDefault(storedFieldNames.get(i), -1);
+        }
+        return positions;
+    }
+
+    /**
+     * Write a non-negative number, 14 bits to a character.
+     *
+     * @param encoded  The row being encoded
+     * @param number  The number to write
+     */
+    private static void writeNumber(StringBuilder encoded, int number) {
+        int remaining = number;
+        while (remaining > PAYLOAD_MASK) {
+            encoded.append((char) (CONTINUATION | (remaining & PAYLOAD_MASK)));
+            remaining >>>= BITS_PER_CHAR;
+        }
+        encoded.append((char) remaining);
+    }
+
+    /**
+     * Read a number written by {@link #writeNumber(StringBuilder, int)}.
+     *
+     * @param encodedRow  The encoded row
+     * @param cursor  The position to read from, moved past the number read
+     *
+     * @return the number
+     */
+    private static int readNumber(String encodedRow, int[] cursor) {
+        int number = 0;
+        int shift = 0;
+        char c;
+        do {
+            if (cursor[0] >= encodedRow.length()) {
+                throw new IllegalArgumentException("Truncated dimension row");
+            }
+            c = encodedRow.charAt(cursor[0]++);
+            number |= (c & PAYLOAD_MASK) << shift;
+            shift += BITS_PER_CHAR;
+        } while ((c & CONTINUATION) != 0);
+        return number;
+    }
+}
@@ -0,0 +1,596 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl;
+
+import com.yahoo.bard.webservice.data.cache.HashDataCache.Pair;
+import com.yahoo.bard.webservice.data.dimension.Dimension;
+import com.yahoo.bard.webservice.data.dimension.DimensionField;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+import com.yahoo.bard.webservice.data.dimension.FilterDimensionRows;
+import com.yahoo.bard.webservice.data.dimension.KeyValueStore;
+import com.yahoo.bard.webservice.data.dimension.SearchProvider;
+import com.yahoo.bard.webservice.util.DimensionStoreKeyUtils;
+import com.yahoo.bard.webservice.util.Pagination;
+import com.yahoo.bard.webservice.util.SinglePagePagination;
+import com.yahoo.bard.webservice.web.ApiFilter;
+import com.yahoo.bard.webservice.web.DefaultFilterOperation;
+import com.yahoo.bard.webservice.web.FilterOperation;
+import com.yahoo.bard.webservice.web.util.PaginationParameters;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Maps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Search provider keeping an in memory inverted index of the rows of a dimension.
+ * <p>
+ * Every row gets a row number, and each field of the dimension maps each of its values to the set of row numbers
+ * having that value, in a map sorted by value. The key field has no such map of its own, since the row numbers by key
+ * value already answer it. Filters are answered from the index rather than by scanning rows:
+ * <ul>
+ *     <li>{@code in} and {@code eq} take the union of the row sets of their values</li>
+ *     <li>{@code notin} takes every row but that union</li>
+ *     <li>{@code startswith} takes the union of the row sets of the range of values sorted after each prefix</li>
+ *     <li>{@code contains} takes the union of the row sets of the distinct values containing each value</li>
+ * </ul>
+ * and the filters of a query are intersected. Unlike the {@link ScanSearchProvider}, filter values are matched
+ * literally rather than as regular expressions.
+ * <p>
+ * The rows themselves are kept in the key value store of the dimension, along with the list of their row keys, so the
+ * index is rebuilt from the store the first time it is used. The rows handed out are the indexed rows, and must not be
+ * modified.
+ */
+public class InvertedIndexSearchProvider implements SearchProvider, FilterDimensionRows {
+    private static final Logger LOG = LoggerFactory.getLogger(InvertedIndexSearchProvider.class);
+
+    private final ObjectMapper objectMapper;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private KeyValueStore keyValueStore;
+    private Dimension dimension;
+
+    /**
+     * The indexed rows, by row number.
+     */
+    private final List<DimensionRow> rows = new ArrayList<>();
+
+    /**
+     * The row number of each row, by key value, in key value order.
+     */
+    private final TreeMap<String, Integer> rowNumbers = new TreeMap<>();
+
+    /**
+     * The row numbers of the rows having each value of each field but the key field.
+     */
+    private final Map<DimensionField, NavigableMap<String, RowNumberSet>> postings = new HashMap<>();
+
+    private volatile boolean loaded;
+
+    /**
+     * Constructor.
+     */
+    public InvertedIndexSearchProvider() {
+        this.objectMapper = new ObjectMapper();
+    }
+
+    @Override
+    public void setDimension(Dimension dimension) {
+        lock.writeLock().lock();
+        try {
+            this.dimension = dimension;
+            resetIndex();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void setKeyValueStore(KeyValueStore keyValueStore) {
+        lock.writeLock().lock();
+        try {
+            this.keyValueStore = keyValueStore;
+
+            // Check initialization for the cardinality in a keyValueStore
+            if (keyValueStore.get(DimensionStoreKeyUtils.getCardinalityKey()) == null) {
+                keyValueStore.put(DimensionStoreKeyUtils.getCardinalityKey(), "0");
+            }
+
+            //Check Dimension value keys availability
+            String allValuesKey = DimensionStoreKeyUtils.getAllValuesKey();
+            if (keyValueStore.get(allValuesKey) == null) {
+                keyValueStore.put(allValuesKey, "[]");
+            }
+
+            // The rows of the store may not be the indexed ones, so index them again when next needed
+            resetIndex();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getDimensionCardinality() {
+        readLock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<DimensionRow> findAllDimensionRows() {
+        readLock();
+        try {
+            return rowNumbers.values().stream()
+                    .map(rows::get)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TreeSet<DimensionRow> findAllOrderedDimensionRows() {
+        readLock();
+        try {
+            return new TreeSet<>(rows);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Pagination<DimensionRow> findAllDimensionRowsPaged(PaginationParameters paginationParameters) {
+        readLock();
+        try {
+            int perPage = paginationParameters.getPerPage();
+            int page = paginationParameters.getPage(rows.size());
+            return new SinglePagePagination<>(
+                    rowNumbers.values().stream()
+                            .skip((long) (page - 1) * perPage)
+                            .limit(perPage)
+                            .map(rows::get)
+                            .collect(Collectors.toList()),
+                    paginationParameters,
+                    rows.size()
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Pagination<DimensionRow> findFilteredDimensionRowsPaged(
+            Set<ApiFilter> filters,
+            PaginationParameters paginationParameters
+    ) {
+        readLock();
+        try {
+            BitSet matches = matchAll(filters);
+
+            // Row numbers follow insertion rather than key order, so the matching rows are sorted to be paged
+            List<DimensionRow> matchingRows = matches.stream()
+                    .mapToObj(rows::get)
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            int perPage = paginationParameters.getPerPage();
+            int page = paginationParameters.getPage(matchingRows.size());
+            int from = Math.min((page - 1) * perPage, matchingRows.size());
+            int to = Math.min(from + perPage, matchingRows.size());
+            return new SinglePagePagination<>(
+                    new ArrayList<>(matchingRows.subList(from, to)),
+                    paginationParameters,
+                    matchingRows.size()
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasAnyRows(Set<ApiFilter> filters) {
+        readLock();
+        try {
+            return !matchAll(filters).isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TreeSet<DimensionRow> inFilterOperation(TreeSet<DimensionRow> dimensionRows, ApiFilter filter) {
+        return retainMatching(dimensionRows, filter);
+    }
+
+    @Override
+    public TreeSet<DimensionRow> notinFilterOperation(TreeSet<DimensionRow> dimensionRows, ApiFilter filter) {
+        return retainMatching(dimensionRows, filter);
+    }
+
+    @Override
+    public TreeSet<DimensionRow> startswithFilterOperation(TreeSet<DimensionRow> dimensionRows, ApiFilter filter) {
+        return retainMatching(dimensionRows, filter);
+    }
+
+    @Override
+    public TreeSet<DimensionRow> containsFilterOperation(TreeSet<DimensionRow> dimensionRows, ApiFilter filter) {
+        return retainMatching(dimensionRows, filter);
+    }
+
+    @Override
+    public void refreshIndex(String rowId, DimensionRow dimensionRow, DimensionRow dimensionRowOld) {
+        refreshIndex(Collections.singletonMap(rowId, new Pair<>(dimensionRow, dimensionRowOld)));
+    }
+
+    @Override
+    public void refreshIndex(Map<String, Pair<DimensionRow, DimensionRow>> changedRows) {
+        if (changedRows.isEmpty()) {
+            return;
+        }
+        writeLock();
+        try {
+            for (Pair<DimensionRow, DimensionRow> change : changedRows.values()) {
+                indexRow(change.getKey());
+            }
+            writeRowKeys();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    public void clearDimension() {
+        writeLock();
+        try {
+            //Remove all dimension data from the store.
+            String keyFieldName = dimension.getKey().getName();
+            rowNumbers.keySet().stream()
+                    .map(keyValue -> DimensionStoreKeyUtils.getRowKey(keyFieldName, keyValue))
+                    .forEach(keyValueStore::remove);
+            //Since the indices are being dropped, the dimension field stored via the columnKey is becoming stale.
+            keyValueStore.remove(DimensionStoreKeyUtils.getColumnKey(keyFieldName));
+            //We're resetting the keyValueStore, so we don't want any stale last updated date floating around.
+            keyValueStore.remove(DimensionStoreKeyUtils.getLastUpdatedKey());
+
+            resetIndex();
+            loaded = true;
+            writeRowKeys();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a row to the index, replacing the indexed row having the same key value if there is one.
+     *
+     * @param dimensionRow  The row to index
+     */
+    private void indexRow(DimensionRow dimensionRow) {
+        String keyValue = dimensionRow.getKeyValue();
+        Integer rowNumber = rowNumbers.get(keyValue);
+        if (rowNumber == null) {
+            rowNumber = rows.size();
+            rows.add(dimensionRow);
+            rowNumbers.put(keyValue, rowNumber);
+        } else {
+            unindexFields(rowNumber, rows.get(rowNumber));
+            rows.set(rowNumber, dimensionRow);
+        }
+
+        DimensionField keyField = dimension.getKey();
+        for (DimensionField field : dimension.getDimensionFields()) {
+            if (field.equals(keyField)) {
+                continue;
+            }
+            NavigableMap<String, RowNumberSet> fieldPostings = postings.computeIfAbsent(
+                    field,
+                    ignored -> new TreeMap<>()
+            );
+            String value = valueOf(dimensionRow, field);
+            RowNumberSet valueRows = fieldPostings.get(value);
+            if (valueRows == null) {
+                fieldPostings.put(value, RowNumberSet.of(rowNumber));
+            } else {
+                valueRows.add(rowNumber, rows.size());
+            }
+        }
+    }
+
+    /**
+     * Remove the field values of an indexed row from the index.
+     *
+     * @param rowNumber  The row number of the row
+     * @param dimensionRow  The row
+     */
+    private void unindexFields(int rowNumber, DimensionRow dimensionRow) {
+        for (DimensionField field : dimension.getDimensionFields()) {
+            Map<String, RowNumberSet> fieldPostings = postings.get(field);
+            if (fieldPostings == null) {
+                continue;
+            }
+            String value = valueOf(dimensionRow, field);
+            RowNumberSet valueRows = fieldPostings.get(value);
+            if (valueRows != null) {
+                valueRows.remove(rowNumber);
+                if (valueRows.isEmpty()) {
+                    fieldPostings.remove(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the rows matching every one of a set of filters.
+     *
+     * @param filters  The filters to match
+     *
+     * @return the row numbers of the matching rows
+     */
+    private BitSet matchAll(Set<ApiFilter> filters) {
+        BitSet matches = new BitSet(rows.size());
+        matches.set(0, rows.size());
+        for (ApiFilter filter : filters) {
+            if (matches.isEmpty()) {
+                break;
+            }
+            matches.and(match(filter));
+        }
+        return matches;
+    }
+
+    /**
+     * Find the rows matching a filter.
+     *
+     * @param filter  The filter to match
+     *
+     * @return the row numbers of the matching rows
+     */
+    private BitSet match(ApiFilter filter) {
+        FilterOperation op = filter.getOperation();
+        if (!(op instanceof DefaultFilterOperation)) {
+            LOG.error("Illegal Filter operation : {}, only default filter ops supported", filter.getOperation());
+            throw new IllegalArgumentException(
+                    "Only supports default filter operations: in, notin, startswith, contains, eq"
+            );
+        }
+
+        NavigableMap<String, RowNumberSet> fieldPostings = filter.getDimensionField().equals(dimension.getKey()) ?
+                Maps.transformValues(rowNumbers, RowNumberSet::of) :
+                postings.getOrDefault(filter.getDimensionField(), Collections.emptyNavigableMap());
+        BitSet matches = new BitSet(rows.size());
+        switch ((DefaultFilterOperation) op) {
+            case eq:
+                // fall through on purpose since eq and in have the same functionality
+            case in:
+                unionOfValues(fieldPostings, filter.getValues(), matches);
+                break;
+            case notin:
+                unionOfValues(fieldPostings, filter.getValues(), matches);
+                matches.flip(0, rows.size());
+                break;
+            case startswith:
+                for (String prefix : filter.getValues()) {
+                    for (Map.Entry<String, RowNumberSet> entry : fieldPostings.tailMap(prefix, true).entrySet()) {
+                        if (!entry.getKey().startsWith(prefix)) {
+                            break;
+                        }
+                        entry.getValue().addTo(matches);
+                    }
+                }
+                break;
+            case contains:
+                // Each distinct value is checked once, however many rows have it
+                for (Map.Entry<String, RowNumberSet> entry : fieldPostings.entrySet()) {
+                    if (filter.getValues().stream().anyMatch(entry.getKey()::contains)) {
+                        entry.getValue().addTo(matches);
+                    }
+                }
+                break;
+            default:
+                LOG.error("Illegal Filter operation : {}", filter.getOperation());
+                throw new IllegalArgumentException("Invalid Filter Operation.");
+        }
+        return matches;
+    }
+
+    /**
+     * Add the rows having any of some values of a field to a set of rows.
+     *
+     * @param fieldPostings  The row numbers of the rows having each value of the field
+     * @param values  The values
+     * @param matches  The row numbers to add the rows to
+     */
+    private static void unionOfValues(Map<String, RowNumberSet> fieldPostings, Set<String> values, BitSet matches) {
+        for (String value : values) {
+            RowNumberSet valueRows = fieldPostings.get(value);
+            if (valueRows != null) {
+                valueRows.addTo(matches);
+            }
+        }
+    }
+
+    /**
+     * Keep the rows of a set of rows that match a filter.
+     *
+     * @param dimensionRows  The rows to filter
+     * @param filter  The filter to match
+     *
+     * @return the matching rows
+     */
+    private TreeSet<DimensionRow> retainMatching(TreeSet<DimensionRow> dimensionRows, ApiFilter filter) {
+        readLock();
+        try {
+            BitSet matches = match(filter);
+            return dimensionRows.stream()
+                    .filter(row -> {
+                        Integer rowNumber = rowNumbers.get(row.getKeyValue());
+                        return rowNumber != null && matches.get(rowNumber);
+                    })
+                    .collect(Collectors.toCollection(TreeSet::new));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of bytes taken by the row numbers held for the values of the fields, leaving out object headers.
+     *
+     * @return the size of the index postings in bytes
+     */
+    long getPostingsSizeInBytes() {
+        readLock();
+        try {
+            return postings.values().stream()
+                    .flatMap(fieldPostings -> fieldPostings.values().stream())
+                    .mapToLong(RowNumberSet::getSizeInBytes)
+                    .sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the value of a field of a row, as it is indexed.
+     *
+     * @param dimensionRow  The row
+     * @param field  The field
+     *
+     * @return the value of the field, or the empty string if the row has none
+     */
+    private static String valueOf(DimensionRow dimensionRow, DimensionField field) {
+        String value = dimensionRow.get(field);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Store the list of the row keys of the indexed rows, and their number, in the key value store.
+     */
+    private void writeRowKeys() {
+        String keyFieldName = dimension.getKey().getName();
+        List<String> rowKeys = rowNumbers.keySet().stream()
+                .map(keyValue -> DimensionStoreKeyUtils.getRowKey(keyFieldName, keyValue))
+                .collect(Collectors.toList());
+        try {
+            keyValueStore.put(DimensionStoreKeyUtils.getAllValuesKey(), objectMapper.writeValueAsString(rowKeys));
+        } catch (IOException e) {
+            LOG.error("Exception while writing dimension row keys of {}", dimension.getApiName(), e);
+            throw new UncheckedIOException(e);
+        }
+        keyValueStore.put(DimensionStoreKeyUtils.getCardinalityKey(), Integer.toString(rows.size()));
+    }
+
+    /**
+     * Drop the index, to be rebuilt from the key value store when next needed.
+     */
+    private void resetIndex() {
+        rows.clear();
+        rowNumbers.clear();
+        postings.clear();
+        loaded = false;
+    }
+
+    /**
+     * Build the index from the rows in the key value store, if it hasn't been built since the store was set.
+     */
+    private void loadIndex() {
+        if (loaded || dimension == null || keyValueStore == null) {
+            return;
+        }
+        String storedRowKeys = keyValueStore.get(DimensionStoreKeyUtils.getAllValuesKey());
+        List<String> rowKeys;
+        try {
+            rowKeys = storedRowKeys == null ?
+                    Collections.emptyList() :
+                    objectMapper.readValue(storedRowKeys, new TypeReference<List<String>>() { });
+        } catch (IOException e) {
+            LOG.error("Exception while reading dimension row keys of {}", dimension.getApiName(), e);
+            throw new UncheckedIOException(e);
+        }
+
+        Map<String, String> storedRows = keyValueStore.getAll(rowKeys);
+        for (String rowKey : rowKeys) {
+            String storedRow = storedRows.get(rowKey);
+            DimensionRow dimensionRow = storedRow == null ? null : readDimensionRow(storedRow);
+            if (dimensionRow != null) {
+                indexRow(dimensionRow);
+            }
+        }
+        loaded = true;
+        LOG.debug("Indexed {} rows of dimension {}", rows.size(), dimension.getApiName());
+    }
+
+    /**
+     * Decode a dimension row as it is stored in the key value store.
+     *
+     * @param storedRow  The stored dimension row
+     *
+     * @return the dimension row, or null if the row cannot be read by the dimension
+     */
+    private DimensionRow readDimensionRow(String storedRow) {
+        if (dimension instanceof KeyValueStoreDimension) {
+            return ((KeyValueStoreDimension) dimension).readDimensionRow(storedRow);
+        }
+        try {
+            return dimension.parseDimensionRow(
+                    objectMapper.readValue(storedRow, new TypeReference<Map<String, String>>() { })
+            );
+        } catch (IOException e) {
+            LOG.error("Exception while reading dimension rows", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Take the read lock, building the index first if it hasn't been built.
+     */
+    private void readLock() {
+        lock.readLock().lock();
+        if (!loaded) {
+            lock.readLock().unlock();
+            writeLock();
+            // Keep the index from being dropped before it is read, by taking the read lock before giving up the write
+            lock.readLock().lock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Take the write lock, building the index first if it hasn't been built.
+     */
+    private void writeLock() {
+        lock.writeLock().lock();
+        try {
+            loadIndex();
+        } catch (RuntimeException e) {
+            lock.writeLock().unlock();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index search provider instances factory.
+ */
+public class InvertedIndexSearchProviderManager {
+    private static Map<String, InvertedIndexSearchProvider> invertedIndexProviders = new HashMap<>();
+
+    /**
+     * Get instance pointing to a search provider This method makes sure that there just one instance of search provider
+     * for a given dimension.
+     *
+     * @param providerName name unique identifier for search provider instances
+     *
+     * @return The search provider instance
+     */
+    public static synchronized InvertedIndexSearchProvider getInstance(String providerName) {
+        return invertedIndexProviders.computeIfAbsent(providerName, ignored -> new InvertedIndexSearchProvider());
+    }
+
+    /**
+     * Cleanup the existing instance.
+     *
+     * @param providerName The name of the provider
+     */
+    public static synchronized void removeInstance(String providerName) {
+        invertedIndexProviders.remove(providerName);
+    }
+}
@@ -0,0 +1,70 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl;
+
+import com.yahoo.bard.webservice.data.dimension.Dimension;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+import com.yahoo.bard.webservice.data.dimension.DimensionRowCodec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes dimension rows as JSON objects of field names to field values.
+ * <p>
+ * This is the encoding dimension rows were always stored in before row codecs were introduced.
+ */
+public class JsonDimensionRowCodec implements DimensionRowCodec {
+    private static final Logger LOG = LoggerFactory.getLogger(JsonDimensionRowCodec.class);
+
+    private static final TypeReference<LinkedHashMap<String, String>> ROW_TYPE =
+            new TypeReference<LinkedHashMap<String, String>>() { };
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor.
+     */
+    public JsonDimensionRowCodec() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        this.objectMapper.registerModule(new AfterburnerModule());
+    }
+
+    @Override
+    public String encode(Dimension dimension, DimensionRow dimensionRow) {
+        try {
+            return objectMapper.writeValueAsString(dimensionRow);
+        } catch (JsonProcessingException e) {
+            LOG.error("Exception while serializing dimension row", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public DimensionRow decode(Dimension dimension, String encodedRow) {
+        try {
+            Map<String, String> dimensionRowMap = objectMapper.readValue(encodedRow, ROW_TYPE);
+            return dimension.parseDimensionRow(dimensionRowMap);
+        } catch (IOException e) {
+            LOG.error("Cannot map string to DimensionRow object.", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean canDecode(String encodedRow) {
+        return !encodedRow.isEmpty() && encodedRow.charAt(0) == '{';
+    }
+}
@@ -2,11 +2,15 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.dimension.impl;
 
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.cache.HashDataCache.Pair;
 import com.yahoo.bard.webservice.data.config.dimension.DimensionConfig;
 import com.yahoo.bard.webservice.data.dimension.Dimension;
 import com.yahoo.bard.webservice.data.dimension.DimensionField;
 import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+import com.yahoo.bard.webservice.data.dimension.DimensionRowCache;
+import com.yahoo.bard.webservice.data.dimension.DimensionRowCodec;
 import com.yahoo.bard.webservice.data.dimension.KeyValueStore;
 import com.yahoo.bard.webservice.data.dimension.SearchProvider;
 import com.yahoo.bard.webservice.data.dimension.metadata.StorageStrategy;
@@ -23,14 +27,20 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.validation.constraints.NotNull;
@@ -48,6 +58,15 @@ public class KeyValueStoreDimension implements Dimension {
     private static final String FIELD_UNDEFINED_FORMAT = "Unknown dimensionField: '%s' on dimension: '%s'.";
 
     private static final Logger LOG = LoggerFactory.getLogger(KeyValueStoreDimension.class);
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    private static final AtomicLong INSTANCE_IDS = new AtomicLong();
+
+    private static final DimensionRowCodec JSON_ROW_CODEC = new JsonDimensionRowCodec();
+    private static final CompactDimensionRowCodec COMPACT_ROW_CODEC = new CompactDimensionRowCodec();
+    private static final DimensionRowCodec DEFAULT_ROW_CODEC = "compact".equalsIgnoreCase(
+            SYSTEM_CONFIG.getStringProperty(SYSTEM_CONFIG.getPackageVariableName("dimension_row_codec"), "compact")
+    ) ? COMPACT_ROW_CODEC : JSON_ROW_CODEC;
 
     private final String apiName;
     private final String longName;
@@ -64,11 +83,28 @@ public class KeyValueStoreDimension implements Dimension {
 
     private final String lastUpdatedKey;
 
+    // The field names of the layouts compact rows were stored under, by layout id, as read from the store
+    private final Map<Integer, List<String>> storedRowLayouts = new ConcurrentHashMap<>();
+
+    // The id the store gave the layout of this dimension's fields, once it has been looked up or stored
+    private volatile int rowLayoutId = CompactDimensionRowCodec.UNREGISTERED_LAYOUT_ID;
+
     private final DimensionField key;
 
     private final boolean isAggregatable;
     private final StorageStrategy storageStrategy;
 
+    /**
+     * Identifies this dimension's rows in the shared dimension row cache.
+     */
+    private final long instanceId = INSTANCE_IDS.incrementAndGet();
+
+    /**
+     * Moved on whenever this dimension changes its rows, so rows cached before the change are no longer read.
+     */
+    private final AtomicLong rowGeneration = new AtomicLong();
+    private final DimensionRowCache dimensionRowCache = DimensionRowCache.getInstance();
+
     /**
      * Constructor.
      *
@@ -362,6 +398,7 @@ public class KeyValueStoreDimension implements Dimension {
         } else {
             keyValueStore.put(lastUpdatedKey, lastUpdated.toString());
         }
+        rowGeneration.incrementAndGet();
     }
 
     @Override
@@ -439,50 +476,50 @@ public class KeyValueStoreDimension implements Dimension {
 
     @Override
     public void addAllDimensionRows(Set<DimensionRow> dimensionRows) {
-        Map<String, String> storeRows = new LinkedHashMap<>(dimensionRows.size());
-        Map<String, Pair<DimensionRow, DimensionRow>> indexRows = new LinkedHashMap<>(dimensionRows.size());
-
+        Map<String, DimensionRow> rowsById = new LinkedHashMap<>(dimensionRows.size());
         for (DimensionRow dimensionRow : dimensionRows) {
-            try {
-                if (dimensionRow.isEmpty()) {
-                    LOG.warn("Ignoring attempt to add a dimension row with no data {}", dimensionRow);
-                    continue;
-                } else if (dimensionRow.get(getKey()) == null) {
-                    LOG.warn("Attempting to add a dimension row with a null key {}", dimensionRow);
-                    throw new IllegalArgumentException("Cannot add dimension with null key.");
-                }
+            if (dimensionRow.isEmpty()) {
+                LOG.warn("Ignoring attempt to add a dimension row with no data {}", dimensionRow);
+                continue;
+            } else if (dimensionRow.get(getKey()) == null) {
+                LOG.warn("Attempting to add a dimension row with a null key {}", dimensionRow);
+                throw new IllegalArgumentException("Cannot add dimension with null key.");
+            }
 
-                // rowId  - key to associate a dimension row to its id
-                String rowIdKey = DimensionStoreKeyUtils.getRowKey(getKey().getName(), dimensionRow.get(getKey()));
-
-                // check if the dimension row already exists in store
-                DimensionRow dimensionRowOld = null;
-                String row = keyValueStore.get(rowIdKey);
-                if (row != null) {
-                    LinkedHashMap<String, String> fieldNameValueMap = objectMapper.readValue(
-                            row,
-                            new TypeReference<LinkedHashMap<String, String>>() { }
-                    );
-                    dimensionRowOld = parseDimensionRow(fieldNameValueMap);
-                    if (dimensionRow.equals(dimensionRowOld)) {
-                        continue;
-                    }
-                }
+            // rowId  - key to associate a dimension row to its id
+            String rowIdKey = DimensionStoreKeyUtils.getRowKey(getKey().getName(), dimensionRow.get(getKey()));
+            rowsById.put(rowIdKey, dimensionRow);
+        }
 
-                String dimRowSerialized = objectMapper.writeValueAsString(dimensionRow);
-                storeRows.put(rowIdKey, dimRowSerialized);
+        // check which of the dimension rows already exist in store
+        Map<String, String> oldRows = keyValueStore.getAll(rowsById.keySet());
+
+        Map<String, String> storeRows = new LinkedHashMap<>(rowsById.size());
+        Map<String, Pair<DimensionRow, DimensionRow>> indexRows = new LinkedHashMap<>(rowsById.size());
+        DimensionRowCodec rowCodec = getRowCodec();
+        for (Map.Entry<String, DimensionRow> entry : rowsById.entrySet()) {
+            String rowIdKey = entry.getKey();
+            DimensionRow dimensionRow = entry.getValue();
+
+            String row = oldRows.get(rowIdKey);
+            DimensionRow dimensionRowOld = row == null ? null : readDimensionRow(row);
+            boolean unchanged = dimensionRow.equals(dimensionRowOld);
+            // Unchanged rows stored in another encoding are rewritten, migrating them as they are loaded again
+            if (unchanged && isCurrentRow(rowCodec, row)) {
+                continue;
+            }
 
-                //update indexes
-                indexRows.put(rowIdKey, new Pair<>(dimensionRow, dimensionRowOld));
+            storeRows.put(rowIdKey, encodeDimensionRow(rowCodec, dimensionRow));
 
-            } catch (IOException e) {
-                LOG.error("Exception while adding dimension row", e);
-                throw new UncheckedIOException(e);
+            //update indexes
+            if (!unchanged) {
+                indexRows.put(rowIdKey, new Pair<>(dimensionRow, dimensionRowOld));
             }
         }
 
         keyValueStore.putAll(storeRows);
         searchProvider.refreshIndex(indexRows);
+        rowGeneration.incrementAndGet();
     }
 
     @Override
@@ -511,23 +548,266 @@ public class KeyValueStoreDimension implements Dimension {
          * rowKey would be id_12345_row_key
          */
         String rowKey = DimensionStoreKeyUtils.getRowKey(getKey().getName(), value);
-        DimensionRow drByKey = null;
-        try {
-            String dimRowJson = keyValueStore.get(rowKey);
-            if (dimRowJson != null) {
-                Map<String, String> dimensionRowMap = objectMapper.readValue(
-                        dimRowJson,
-                        new TypeReference<LinkedHashMap<String, String>>() { }
-                );
-                drByKey = parseDimensionRow(dimensionRowMap);
+        String dimRowJson = keyValueStore.get(rowKey);
+        return dimRowJson == null ? null : readDimensionRow(dimRowJson);
+    }
+
+    /**
+     * Get the dimension rows for several key values.
+     * <p>
+     * Rows are read from the shared {@link DimensionRowCache} where possible, and the rest are fetched from the key
+     * value store together. Cached rows are versioned by this dimension's last updated date, and by a generation moved
+     * on whenever this dimension changes its rows, so a cached row is never read once its dimension has been updated.
+     * The rows returned may be shared with other callers, and must not be modified.
+     *
+     * @param values  key values
+     *
+     * @return the dimension rows found, by key value. Values with no matching row are left out.
+     */
+    @Override
+    public Map<String, DimensionRow> findDimensionRowsByKeyValues(Collection<String> values) {
+        String version = getRowVersion().get();
+        Map<String, DimensionRow> dimensionRows = dimensionRowCache.getAll(version, values);
+
+        Map<String, String> missingValues = new HashMap<>();
+        for (String value : values) {
+            if (!dimensionRows.containsKey(value)) {
+                missingValues.put(DimensionStoreKeyUtils.getRowKey(getKey().getName(), value), value);
             }
+        }
+        if (missingValues.isEmpty()) {
+            return dimensionRows;
+        }
+
+        Map<String, DimensionRow> fetchedRows = new HashMap<>();
+        for (Map.Entry<String, String> row : keyValueStore.getAll(missingValues.keySet()).entrySet()) {
+            fetchedRows.put(missingValues.get(row.getKey()), readDimensionRow(row.getValue()));
+        }
+        dimensionRowCache.putAll(version, fetchedRows);
+        dimensionRows.putAll(fetchedRows);
+        return dimensionRows;
+    }
+
+    /**
+     * Get a version of this dimension's rows.
+     * <p>
+     * The version is made of this dimension's last updated date and a generation moved on whenever this dimension
+     * changes its rows, and is unique to this dimension instance.
+     *
+     * @return the row version
+     */
+    @Override
+    public Optional<String> getRowVersion() {
+        return Optional.of(instanceId + ":" + rowGeneration.get() + ":" + keyValueStore.get(lastUpdatedKey));
+    }
+
+    /**
+     * Decode a dimension row as it is stored in the key value store.
+     * <p>
+     * Rows are decoded by this dimension's row codec if they were encoded by it, and otherwise by whichever of the
+     * built in codecs encoded them, so rows stored before a change of encoding can still be read.
+     *
+     * @param storedRow  The stored dimension row
+     *
+     * @return the dimension row, or null if the row was stored for an unknown layout of this dimension's fields
+     */
+    public DimensionRow readDimensionRow(String storedRow) {
+        DimensionRowCodec rowCodec = getRowCodec();
+        if (rowCodec.canDecode(storedRow)) {
+            return rowCodec instanceof CompactDimensionRowCodec
+                    ? decodeCompactRow((CompactDimensionRowCodec) rowCodec, storedRow)
+                    : rowCodec.decode(this, storedRow);
+        }
+        return COMPACT_ROW_CODEC.canDecode(storedRow)
+                ? decodeCompactRow(COMPACT_ROW_CODEC, storedRow)
+                : JSON_ROW_CODEC.decode(this, storedRow);
+    }
+
+    /**
+     * Encode a dimension row as this dimension stores it in the key value store.
+     *
+     * @param dimensionRow  The dimension row
+     *
+     * @return the stored dimension row
+     */
+    public String encodeDimensionRow(DimensionRow dimensionRow) {
+        return encodeDimensionRow(getRowCodec(), dimensionRow);
+    }
+
+    /**
+     * Encode a dimension row with a codec, under the stored layout of this dimension's fields for compact rows.
+     *
+     * @param rowCodec  The codec to encode the row with
+     * @param dimensionRow  The dimension row
+     *
+     * @return the stored dimension row
+     */
+    private String encodeDimensionRow(DimensionRowCodec rowCodec, DimensionRow dimensionRow) {
+        return rowCodec instanceof CompactDimensionRowCodec
+                ? ((CompactDimensionRowCodec) rowCodec).encode(this, dimensionRow, getRowLayoutId())
+                : rowCodec.encode(this, dimensionRow);
+    }
+
+    /**
+     * Whether a stored row is encoded as a codec would encode it for this dimension now.
+     *
+     * @param rowCodec  The codec
+     * @param storedRow  The stored dimension row
+     *
+     * @return true if the row needs no rewriting when it is loaded again unchanged
+     */
+    private boolean isCurrentRow(DimensionRowCodec rowCodec, String storedRow) {
+        return rowCodec instanceof CompactDimensionRowCodec
+                ? ((CompactDimensionRowCodec) rowCodec).isCurrent(storedRow, getRowLayoutId())
+                : rowCodec.isCurrent(this, storedRow);
+    }
+
+    /**
+     * Decode a compactly encoded row, which may have been stored under an earlier layout of this dimension's fields.
+     *
+     * @param rowCodec  The compact codec
+     * @param storedRow  The stored dimension row
+     *
+     * @return the dimension row, or null if the row was stored under a layout that isn't stored
+     */
+    private DimensionRow decodeCompactRow(CompactDimensionRowCodec rowCodec, String storedRow) {
+        return rowCodec.decode(this, storedRow, getRowLayoutId(), this::readRowLayout);
+    }
+
+    /**
+     * Get the id of the layout of this dimension's fields compact rows are encoded under.
+     * <p>
+     * The store keeps the field names of every layout compact rows have been stored under, numbered in the order they
+     * were first stored, so a layout keeps its id and no two layouts share one. A layout the store hasn't seen is
+     * stored before any row is encoded under it, so every stored compact row can be read by field name once the
+     * dimension's fields change.
+     *
+     * @return the layout id
+     */
+    private int getRowLayoutId() {
+        int layoutId = rowLayoutId;
+        if (layoutId != CompactDimensionRowCodec.UNREGISTERED_LAYOUT_ID) {
+            return layoutId;
+        }
+        synchronized (storedRowLayouts) {
+            if (rowLayoutId != CompactDimensionRowCodec.UNREGISTERED_LAYOUT_ID) {
+                return rowLayoutId;
+            }
+            List<String> fieldNames = dimensionFields.stream()
+                    .map(DimensionField::getName)
+                    .collect(Collectors.toList());
+            List<List<String>> layouts = readRowLayouts();
+            int position = layouts.indexOf(fieldNames);
+            if (position < 0) {
+                layouts.add(fieldNames);
+                position = layouts.size() - 1;
+                String storedLayouts;
+                try {
+                    storedLayouts = objectMapper.writeValueAsString(layouts);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                keyValueStore.put(DimensionStoreKeyUtils.getRowLayoutsKey(), storedLayouts);
+            }
+            rowLayoutId = position + 1;
+            storedRowLayouts.put(rowLayoutId, fieldNames);
+            return rowLayoutId;
+        }
+    }
+
+    /**
+     * Read the names of the fields of a layout compact rows were stored under.
+     *
+     * @param layoutId  The id of the layout
+     *
+     * @return the field names in order, or null if the layout isn't stored
+     */
+    private List<String> readRowLayout(int layoutId) {
+        List<String> fieldNames = storedRowLayouts.get(layoutId);
+        if (fieldNames != null || layoutId < 1) {
+            return fieldNames;
+        }
+        List<List<String>> layouts;
+        try {
+            layouts = readRowLayouts();
+        } catch (UncheckedIOException e) {
+            LOG.warn("Unable to read the stored layouts of the fields of dimension {}", apiName, e);
+            return null;
+        }
+        if (layoutId > layouts.size()) {
+            return null;
+        }
+        fieldNames = layouts.get(layoutId - 1);
+        storedRowLayouts.put(layoutId, fieldNames);
+        return fieldNames;
+    }
+
+    /**
+     * Read the names of the fields of every layout compact rows have been stored under, in the order of their ids.
+     *
+     * @return the field names of each layout
+     */
+    private List<List<String>> readRowLayouts() {
+        String storedLayouts = keyValueStore.get(DimensionStoreKeyUtils.getRowLayoutsKey());
+        if (storedLayouts == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(
+                    storedLayouts,
+                    new TypeReference<ArrayList<List<String>>>() { /* Empty class */ }
+            );
         } catch (IOException e) {
-            LOG.error("Cannot map string to DimensionRow object.", e);
             throw new UncheckedIOException(e);
         }
-        return drByKey;
     }
 
+    /**
+     * Get the codec encoding the rows this dimension stores.
+     * <p>
+     * The codec is chosen by the {@code dimension_row_codec} setting, {@code compact}, the default, or {@code json}.
+     * Dimensions storing rows in an encoding of their own can override this.
+     *
+     * @return the row codec
+     */
+    protected DimensionRowCodec getRowCodec() {
+        return DEFAULT_ROW_CODEC;
+    }
+
+    /**
+     * Rewrite the stored rows of this dimension that are not encoded by its row codec as it would encode them now.
+     * <p>
+     * Rows can be read in any of the built in encodings, so a store can be migrated while it serves requests. Rows are
+     * also migrated one at a time as they are loaded again.
+     *
+     * @return the number of rows rewritten
+     */
+    public int migrateDimensionRows() {
+        Set<String> rowKeys = new LinkedHashSet<>();
+        for (DimensionRow dimensionRow : searchProvider.findAllDimensionRows()) {
+            rowKeys.add(DimensionStoreKeyUtils.getRowKey(getKey().getName(), dimensionRow.getKeyValue()));
+        }
+
+        DimensionRowCodec rowCodec = getRowCodec();
+        Map<String, String> migratedRows = new LinkedHashMap<>();
+        for (Map.Entry<String, String> row : keyValueStore.getAll(rowKeys).entrySet()) {
+            if (!isCurrentRow(rowCodec, row.getValue())) {
+                DimensionRow dimensionRow = readDimensionRow(row.getValue());
+                if (dimensionRow != null) {
+                    migratedRows.put(row.getKey(), encodeDimensionRow(rowCodec, dimensionRow));
+                }
+            }
+        }
+        int migratedCount = migratedRows.size();
+        keyValueStore.putAll(migratedRows);
+        LOG.info(
+                "Migrated {} stored rows of dimension {} to {}",
+                migratedCount,
+                apiName,
+                rowCodec.getClass().getSimpleName()
+        );
+        return migratedCount;
+    }
 
     /**
      * Internal method for cleaning the dimension rows.
@@ -554,6 +834,7 @@ public class KeyValueStoreDimension implements Dimension {
             // Reset list to empty
             String allValuesKey = DimensionStoreKeyUtils.getAllValuesKey();
             keyValueStore.put(allValuesKey, "[]");
+            rowGeneration.incrementAndGet();
 
         } catch (IOException e) {
             LOG.error("Exception while reading dimension rows", e);
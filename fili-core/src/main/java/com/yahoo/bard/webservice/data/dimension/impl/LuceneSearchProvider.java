@@ -2,6 +2,7 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.dimension.impl;
 
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
 import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.cache.HashDataCache.Pair;
@@ -25,6 +26,11 @@ import com.yahoo.bard.webservice.web.PageNotFoundException;
 import com.yahoo.bard.webservice.web.RowLimitReachedException;
 import com.yahoo.bard.webservice.web.util.PaginationParameters;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 
 import org.apache.commons.io.FileUtils;
@@ -33,9 +39,10 @@ import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -44,31 +51,47 @@ import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TimeLimitingCollector;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.WildcardQuery;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.Bits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
@@ -85,6 +108,10 @@ public class LuceneSearchProvider implements SearchProvider {
     protected static final Analyzer STANDARD_LUCENE_ANALYZER = new StandardAnalyzer();
     private static final double BUFFER_SIZE = 48;
 
+    // The number of hits passed over by each search when finding a page without a cursor
+    private static final int SKIP_BLOCK_SIZE = 10000;
+    private static final int CURSOR_BYTES = Long.BYTES + 5 * Integer.BYTES;
+
     public static final int LUCENE_SEARCH_TIMEOUT_MS = SYSTEM_CONFIG.getIntProperty(
             SYSTEM_CONFIG.getPackageVariableName("lucene_search_timeout_ms"),
             600000
@@ -96,6 +123,38 @@ public class LuceneSearchProvider implements SearchProvider {
             1.2f
     );
 
+    // Refreshes changing at least this many rows, and at least half of the dimension, rebuild the whole index
+    public static final int BULK_REBUILD_MIN_ROWS = SYSTEM_CONFIG.getIntProperty(
+            SYSTEM_CONFIG.getPackageVariableName("lucene_bulk_rebuild_min_rows"),
+            100000
+    );
+
+    public static final int BULK_REBUILD_THREADS = SYSTEM_CONFIG.getIntProperty(
+            SYSTEM_CONFIG.getPackageVariableName("lucene_bulk_rebuild_threads"),
+            Runtime.getRuntime().availableProcessors()
+    );
+
+    public static final int BULK_REBUILD_RAM_BUFFER_MB = SYSTEM_CONFIG.getIntProperty(
+            SYSTEM_CONFIG.getPackageVariableName("lucene_bulk_rebuild_ram_buffer_mb"),
+            512
+    );
+
+    // The number of rows indexed by each task of a rebuild
+    private static final int BULK_REBUILD_BATCH_SIZE = 10000;
+
+    /**
+     * Threads indexing the rows of rebuilt indexes, shared by all providers.
+     * <p>
+     * The queue is bounded, and a thread submitting a batch indexes it itself when the queue is full, so only a few
+     * batches of rows are held in memory at once. Idle threads stop between rebuilds.
+     */
+    private static final ThreadPoolExecutor BULK_REBUILD_POOL = buildBulkRebuildPool();
+
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+    public static final Meter BULK_REBUILD_ROWS = REGISTRY.meter("dimensions.meter.lucene.rebuild.rows");
+    public static final Timer BULK_REBUILD_TIMER = REGISTRY.timer("dimensions.timer.lucene.rebuild");
+    public static final Timer BULK_REBUILD_MERGE_TIMER = REGISTRY.timer("dimensions.timer.lucene.rebuild.merge");
+
     protected Analyzer analyzer;
 
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
@@ -112,9 +171,20 @@ public class LuceneSearchProvider implements SearchProvider {
     private KeyValueStore keyValueStore;
     private Dimension dimension;
     private boolean luceneIndexIsHealthy;
-    protected IndexSearcher luceneIndexSearcher;
+    private volatile SearcherManager searcherManager;
     private int searchTimeout;
 
+    // Each reader gets a random id, since document ids, and so cursors, only hold for a single reader. Ids are random
+    // rather than counted so that cursors don't match the readers of other instances or of this one after a restart.
+    private final Cache<IndexReader, Long> readerIds = CacheBuilder.newBuilder().weakKeys().build();
+    private final SearcherFactory searcherFactory = new SearcherFactory() {
+        @Override
+        public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+            readerIds.put(reader, ThreadLocalRandom.current().nextLong());
+            return new IndexSearcher(reader);
+        }
+    };
+
     /**
      * Constructor.
      *
@@ -222,7 +292,7 @@ public class LuceneSearchProvider implements SearchProvider {
     }
 
     /**
-     * Initializes the `luceneIndexSearcher` if it has not been initialized already.
+     * Opens the searcher manager if it has not been opened already.
      * <p>
      * Note that the index searcher cannot be built at construction time, because it needs the dimension and
      * associated key-value store. However, because of a circular dependency between the `SearchProvider` and the
@@ -230,29 +300,80 @@ public class LuceneSearchProvider implements SearchProvider {
      * construction time.
      */
     protected void initializeIndexSearcher() {
-        if (luceneIndexSearcher == null) {
-            reopenIndexSearcher(true);
+        if (searcherManager == null) {
+            writeLock();
+            try {
+                if (searcherManager == null) {
+                    searcherManager = openSearcherManager(true);
+                }
+            } finally {
+                writeUnlock();
+            }
         }
     }
 
     /**
-     * Re-open the Index Searcher, opening it for the first time if it's never been opened.
+     * Acquire the current index searcher, which must be released with {@link #releaseIndexSearcher(IndexSearcher)}.
      * <p>
-     * This method will attempt to acquire and release a write lock.
+     * Searchers are never locked. A searcher acquired before the index is refreshed or replaced keeps searching the
+     * index as it was until it is released.
      *
-     * @param firstTimeThrough  If true, will write an empty index and will then re-open the searcher
+     * @return the current index searcher
      */
-    private void reopenIndexSearcher(boolean firstTimeThrough) {
-        writeLock();
-        try {
-            // Close the current reader if open
-            if (luceneIndexSearcher != null) {
-                luceneIndexSearcher.getIndexReader().close();
+    protected IndexSearcher acquireIndexSearcher() {
+        initializeIndexSearcher();
+        while (true) {
+            SearcherManager manager = searcherManager;
+            try {
+                return manager.acquire();
+            } catch (AlreadyClosedException e) {
+                // The index was replaced, and the manager closed, since we looked it up
+                if (manager == searcherManager) {
+                    throw e;
+                }
+            } catch (IOException e) {
+                String message = String.format("Unable to acquire index searcher for %s:", luceneIndexPath);
+                LOG.error(message, e);
+                throw new UncheckedIOException(e);
             }
+        }
+    }
 
-            // Open a new IndexSearcher on a new DirectoryReader
-            luceneIndexSearcher = new IndexSearcher(DirectoryReader.open(luceneDirectory));
-        } catch (IOException reopenException) {
+    /**
+     * Release an index searcher acquired with {@link #acquireIndexSearcher()}.
+     *
+     * @param indexSearcher  The index searcher to release
+     */
+    protected void releaseIndexSearcher(IndexSearcher indexSearcher) {
+        try {
+            indexSearcher.getIndexReader().decRef();
+        } catch (IOException e) {
+            LOG.warn("Unable to release index searcher for {}", luceneIndexPath, e);
+        }
+    }
+
+    /**
+     * Get the id of the reader of an index searcher.
+     *
+     * @param indexSearcher  The index searcher
+     *
+     * @return the id of its reader, or null if it has none
+     */
+    private Long getReaderId(IndexSearcher indexSearcher) {
+        return readerIds.getIfPresent(indexSearcher.getIndexReader());
+    }
+
+    /**
+     * Open a searcher manager on the index.
+     *
+     * @param firstTimeThrough  If true, will write an empty index if there is none and will then open the manager
+     *
+     * @return the searcher manager
+     */
+    private SearcherManager openSearcherManager(boolean firstTimeThrough) {
+        try {
+            return new SearcherManager(luceneDirectory, searcherFactory);
+        } catch (IOException openException) {
             // If there is no index file, this is expected. On the 1st time through, write an empty index and try again
             if (firstTimeThrough) {
                 IndexWriterConfig indexWriterConfig = new IndexWriterConfig(analyzer);
@@ -265,19 +386,58 @@ public class LuceneSearchProvider implements SearchProvider {
                     LOG.error(message, emptyIndexWriteException);
                     throw new UncheckedIOException(emptyIndexWriteException);
                 }
-                reopenIndexSearcher(false);
+                return openSearcherManager(false);
+            }
+            // We've been here before, so puke
+            luceneIndexIsHealthy = false;
+            String message = String.format("Unable to open index searcher for %s:", luceneIndexPath);
+            LOG.error(message, openException);
+            throw new UncheckedIOException(openException);
+        }
+    }
+
+    /**
+     * Refresh the index searcher after changes were committed to the index, opening it if it's never been opened.
+     * <p>
+     * This method will attempt to acquire and release a write lock. Searches running on the previous searcher carry on
+     * undisturbed.
+     */
+    private void refreshIndexSearcher() {
+        writeLock();
+        try {
+            if (searcherManager == null) {
+                searcherManager = openSearcherManager(true);
             } else {
-                // We've been here before, so puke
-                luceneIndexIsHealthy = false;
-                String message = String.format("Unable to open index searcher for %s:", luceneIndexPath);
-                LOG.error(message, reopenException);
-                throw new UncheckedIOException(reopenException);
+                searcherManager.maybeRefreshBlocking();
             }
+        } catch (IOException e) {
+            luceneIndexIsHealthy = false;
+            String message = String.format("Unable to refresh index searcher for %s:", luceneIndexPath);
+            LOG.error(message, e);
+            throw new UncheckedIOException(e);
         } finally {
             writeUnlock();
         }
     }
 
+    /**
+     * Swap in a searcher manager on an index that replaced the previous one in the index directory.
+     * <p>
+     * A new manager is opened rather than the old one refreshed, since the new index shares no history with the old.
+     * Searches running on the previous index carry on undisturbed, and its files are released once they are done.
+     */
+    private void replaceIndexSearcher() {
+        SearcherManager replaced = searcherManager;
+        searcherManager = openSearcherManager(false);
+        if (replaced != null) {
+            try {
+                replaced.close();
+            } catch (IOException e) {
+                LOG.warn("Unable to close replaced index searcher for {}", luceneIndexPath, e);
+            }
+        }
+    }
+
     /**
      * Getter for the search provider's dimension.
      *
@@ -351,26 +511,26 @@ public class LuceneSearchProvider implements SearchProvider {
         refreshIndex(Collections.singletonMap(rowId, new Pair<>(dimensionRow, dimensionRowOld)));
     }
 
+    /**
+     * Add / update indexes.
+     * <p>
+     * Refreshes that change most of a large dimension, such as a full reload, rebuild the whole index instead of
+     * updating it a document at a time. See {@link #rebuildIndex(Map)}.
+     *
+     * @param changedRows  Collection of newRow / oldRow pairs keyed by rowId to update the index with
+     */
     @Override
     public void refreshIndex(Map<String, Pair<DimensionRow, DimensionRow>> changedRows) {
+        if (changedRows.size() >= BULK_REBUILD_MIN_ROWS && changedRows.size() * 2 >= getDimensionCardinality()) {
+            rebuildIndex(changedRows);
+            return;
+        }
+
         // Make a single Document instance to hold field data being updated to Lucene
         // Creating documents is costly and so Document will be reused for each record being processed due to
         // performance best practices.
         Document doc = new Document();
-        Map<DimensionField, Field> dimFieldToLuceneField = new HashMap<>(dimension.getDimensionFields().size());
-
-        // Create the document fields for this dimension and add them to the document
-        for (DimensionField dimensionField : dimension.getDimensionFields()) {
-            Field luceneField = new StringField(
-                    DimensionStoreKeyUtils.getColumnKey(dimensionField.getName()),
-                    "",
-                    dimensionField.equals(dimension.getKey()) ? Field.Store.YES : Field.Store.NO
-            );
-
-            // Store the lucene field in the doc and in our lookup map
-            dimFieldToLuceneField.put(dimensionField, luceneField);
-            doc.add(luceneField);
-        }
+        Map<DimensionField, Field> dimFieldToLuceneField = addDimensionFields(doc);
 
         // Write the rows to the document
         IndexWriterConfig indexWriterConfig = new IndexWriterConfig(analyzer).setRAMBufferSizeMB(BUFFER_SIZE);
@@ -394,7 +554,7 @@ public class LuceneSearchProvider implements SearchProvider {
             }
             //This must be outside the try-resources block because it may _also_ need to open an IndexWriter, and
             //opening an IndexWriter involves taking a write lock on lucene, of which there can only be one at a time.
-            reopenIndexSearcher(true);
+            refreshIndexSearcher();
             refreshCardinality();
         } finally {
             writeUnlock();
@@ -417,20 +577,282 @@ public class LuceneSearchProvider implements SearchProvider {
             IndexWriter writer,
             DimensionRow newRow
     ) throws IOException {
+        setFieldValues(fieldMap, newRow);
+
+        // Build the term to delete the old document by the key value (which should be unique)
+        Term keyTerm = new Term(fieldMap.get(dimension.getKey()).name(), newRow.getOrDefault(dimension.getKey(), ""));
+
+        // Update the document by the key term
+        writer.updateDocument(keyTerm, luceneDimensionRowDoc);
+    }
+
+    /**
+     * Create the Lucene fields for the fields of this dimension and add them to a document.
+     *
+     * @param doc  Document to add the fields to
+     *
+     * @return the Lucene field of each dimension field
+     */
+    private Map<DimensionField, Field> addDimensionFields(Document doc) {
+        Map<DimensionField, Field> dimFieldToLuceneField = new HashMap<>(dimension.getDimensionFields().size());
+
+        // Create the document fields for this dimension and add them to the document
+        for (DimensionField dimensionField : dimension.getDimensionFields()) {
+            Field luceneField = new StringField(
+                    DimensionStoreKeyUtils.getColumnKey(dimensionField.getName()),
+                    "",
+                    dimensionField.equals(dimension.getKey()) ? Field.Store.YES : Field.Store.NO
+            );
+
+            // Store the lucene field in the doc and in our lookup map
+            dimFieldToLuceneField.put(dimensionField, luceneField);
+            doc.add(luceneField);
+        }
+        return dimFieldToLuceneField;
+    }
+
+    /**
+     * Set the document fields to the values of a dimension row.
+     *
+     * @param fieldMap  Mapping of DimensionFields to the Document's fields
+     * @param row  Row to take the values from
+     */
+    private void setFieldValues(Map<DimensionField, Field> fieldMap, DimensionRow row) {
         // Update the document fields with each field from the new dimension row
         for (DimensionField field : dimension.getDimensionFields()) {
             // Get the field to update from the lookup map
             Field fieldToUpdate = fieldMap.get(field);
 
             // Set field value to updated value
-            fieldToUpdate.setStringValue(newRow.getOrDefault(field, ""));
+            fieldToUpdate.setStringValue(row.getOrDefault(field, ""));
         }
+    }
 
-        // Build the term to delete the old document by the key value (which should be unique)
-        Term keyTerm = new Term(fieldMap.get(dimension.getKey()).name(), newRow.getOrDefault(dimension.getKey(), ""));
+    /**
+     * Rebuild the whole index with the changed rows applied, and swap it in for the current index.
+     * <p>
+     * The new index is written to a side directory by several threads sharing a large RAM buffer. Since every row is
+     * written exactly once, documents are added without the deletes an update needs. Rows of the current index that
+     * did not change are read back from the key value store, which the dimension updates before its index. The new
+     * index is force merged to a single segment and then replaces the current one through
+     * {@link #replaceIndex(String)}. Searches keep running against the current index until it is replaced.
+     * <p>
+     * Progress and throughput are reported through the {@link #BULK_REBUILD_ROWS} meter, and the time taken by the
+     * {@link #BULK_REBUILD_TIMER} and {@link #BULK_REBUILD_MERGE_TIMER} timers.
+     *
+     * @param changedRows  Collection of newRow / oldRow pairs keyed by rowId to update the index with
+     */
+    public void rebuildIndex(Map<String, Pair<DimensionRow, DimensionRow>> changedRows) {
+        Path indexPath = Paths.get(luceneIndexPath);
+        String rebuildPath = indexPath.resolveSibling(indexPath.getFileName() + "_rebuild").toString();
+        IndexWriterConfig indexWriterConfig = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                .setRAMBufferSizeMB(BULK_REBUILD_RAM_BUFFER_MB);
+
+        LOG.info("Rebuilding Lucene index of dimension {} in {}", dimension.getApiName(), rebuildPath);
+        Timer.Context timer = BULK_REBUILD_TIMER.time();
+        writeLock();
+        try {
+            deleteDir(rebuildPath);
+            int rowCount;
+            try (
+                    Directory rebuildDirectory = new MMapDirectory(Files.createDirectories(Paths.get(rebuildPath)));
+                    IndexWriter writer = new IndexWriter(rebuildDirectory, indexWriterConfig)
+            ) {
+                rowCount = addAllRows(writer, changedRows);
+                try (Timer.Context mergeTimer = BULK_REBUILD_MERGE_TIMER.time()) {
+                    writer.forceMerge(1);
+                }
+                writer.commit();
+            } catch (IOException e) {
+                LOG.error("Failed to rebuild index for dimension rows", e);
+                deleteDir(rebuildPath);
+                throw new UncheckedIOException(e);
+            }
 
-        // Update the document by the key term
-        writer.updateDocument(keyTerm, luceneDimensionRowDoc);
+            replaceIndex(rebuildPath);
+            refreshCardinality();
+
+            double seconds = timer.stop() / 1e9;
+            LOG.info(
+                    "Rebuilt Lucene index of dimension {} with {} rows in {} s ({} rows/s)",
+                    dimension.getApiName(),
+                    rowCount,
+                    String.format("%.1f", seconds),
+                    String.format("%.0f", rowCount / Math.max(seconds, 1e-3))
+            );
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    /**
+     * Add a document for each row of the rebuilt index, in batches spread over the rebuild threads.
+     *
+     * @param writer  Writer of the rebuilt index
+     * @param changedRows  Collection of newRow / oldRow pairs keyed by rowId to update the index with
+     *
+     * @return the number of documents added
+     *
+     * @throws IOException if a document could not be added
+     */
+    private int addAllRows(IndexWriter writer, Map<String, Pair<DimensionRow, DimensionRow>> changedRows)
+            throws IOException {
+        List<Future<?>> batches = new ArrayList<>();
+        AtomicInteger rowCount = new AtomicInteger();
+        try {
+            Set<String> changedKeys = new HashSet<>(changedRows.size());
+            List<DimensionRow> batch = new ArrayList<>(BULK_REBUILD_BATCH_SIZE);
+            for (Pair<DimensionRow, DimensionRow> changedRow : changedRows.values()) {
+                changedKeys.add(changedRow.getKey().getKeyValue());
+                batch.add(changedRow.getKey());
+                if (batch.size() == BULK_REBUILD_BATCH_SIZE) {
+                    batches.add(BULK_REBUILD_POOL.submit(addRowsTask(writer, batch, rowCount)));
+                    batch = new ArrayList<>(BULK_REBUILD_BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(BULK_REBUILD_POOL.submit(addRowsTask(writer, batch, rowCount)));
+            }
+
+            // Carry over the rows of the current index that did not change
+            String idKey = DimensionStoreKeyUtils.getColumnKey(dimension.getKey().getName());
+            Set<String> idFields = Collections.singleton(idKey);
+            List<String> unchangedKeys = new ArrayList<>(BULK_REBUILD_BATCH_SIZE);
+            IndexSearcher indexSearcher = acquireIndexSearcher();
+            try {
+                IndexReader reader = indexSearcher.getIndexReader();
+                Bits liveDocs = MultiFields.getLiveDocs(reader);
+                for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    String key = reader.document(doc, idFields).get(idKey);
+                    if (changedKeys.contains(key)) {
+                        continue;
+                    }
+                    unchangedKeys.add(key);
+                    if (unchangedKeys.size() == BULK_REBUILD_BATCH_SIZE) {
+                        List<DimensionRow> rows = readUnchangedRows(unchangedKeys);
+                        batches.add(BULK_REBUILD_POOL.submit(addRowsTask(writer, rows, rowCount)));
+                        unchangedKeys.clear();
+                    }
+                }
+            } finally {
+                releaseIndexSearcher(indexSearcher);
+            }
+            if (!unchangedKeys.isEmpty()) {
+                List<DimensionRow> rows = readUnchangedRows(unchangedKeys);
+                batches.add(BULK_REBUILD_POOL.submit(addRowsTask(writer, rows, rowCount)));
+            }
+
+            for (Future<?> added : batches) {
+                added.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rebuilding the index of dimension " + dimension.getApiName(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // The pool is shared, so only the batches of this rebuild still waiting are dropped if it fails
+            batches.forEach(batch -> batch.cancel(true));
+        }
+        return rowCount.get();
+    }
+
+    /**
+     * Read the rows of some key values of the dimension for a rebuild.
+     * <p>
+     * Rows of a {@link KeyValueStoreDimension} are read straight from the key value store rather than through the
+     * dimension, so that reading every row of a large dimension doesn't evict the cached rows requests are using.
+     *
+     * @param keyValues  The key values of the rows
+     *
+     * @return the rows found
+     */
+    private List<DimensionRow> readUnchangedRows(List<String> keyValues) {
+        if (!(dimension instanceof KeyValueStoreDimension)) {
+            return new ArrayList<>(dimension.findDimensionRowsByKeyValues(keyValues).values());
+        }
+        KeyValueStoreDimension keyValueStoreDimension = (KeyValueStoreDimension) dimension;
+        String keyFieldName = dimension.getKey().getName();
+        List<String> rowKeys = new ArrayList<>(keyValues.size());
+        for (String keyValue : keyValues) {
+            rowKeys.add(DimensionStoreKeyUtils.getRowKey(keyFieldName, keyValue));
+        }
+        List<DimensionRow> rows = new ArrayList<>(keyValues.size());
+        for (String storedRow : keyValueStore.getAll(rowKeys).values()) {
+            DimensionRow row = keyValueStoreDimension.readDimensionRow(storedRow);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Build the pool of threads indexing the rows of rebuilt indexes.
+     *
+     * @return the thread pool
+     */
+    private static ThreadPoolExecutor buildBulkRebuildPool() {
+        int threads = Math.max(BULK_REBUILD_THREADS, 1);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads),
+                new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "lucene-rebuild-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Make a task that adds a document for each of a batch of rows.
+     * <p>
+     * Each task fills its own document, since documents are reused from row to row.
+     *
+     * @param writer  Writer of the rebuilt index
+     * @param rows  Rows to add
+     * @param rowCount  Count of the rows added so far, for progress reporting
+     *
+     * @return the task
+     */
+    private Runnable addRowsTask(IndexWriter writer, List<DimensionRow> rows, AtomicInteger rowCount) {
+        return () -> {
+            Document doc = new Document();
+            Map<DimensionField, Field> fieldMap = addDimensionFields(doc);
+            try {
+                for (DimensionRow row : rows) {
+                    setFieldValues(fieldMap, row);
+                    writer.addDocument(doc);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            BULK_REBUILD_ROWS.mark(rows.size());
+            LOG.debug(
+                    "Rebuilding Lucene index of dimension {}: {} rows added",
+                    dimension.getApiName(),
+                    rowCount.addAndGet(rows.size())
+            );
+        };
     }
 
     @Override
@@ -462,7 +884,7 @@ public class LuceneSearchProvider implements SearchProvider {
             LOG.trace("Deleting old Lucene indexes in {} ...", tempDir);
             deleteDir(tempDir);
 
-            reopenIndexSearcher(false);
+            replaceIndexSearcher();
         } finally {
             writeUnlock();
         }
@@ -570,7 +992,7 @@ public class LuceneSearchProvider implements SearchProvider {
 
             //This must be outside the try-resources block because it may _also_ need to open an IndexWriter, and
             //opening an IndexWriter involves taking a write lock on lucene, of which there can only be one at a time.
-            reopenIndexSearcher(true);
+            refreshIndexSearcher();
             refreshCardinality();
         } finally {
             writeUnlock();
@@ -579,17 +1001,14 @@ public class LuceneSearchProvider implements SearchProvider {
 
     /**
      * Update the cardinality count.
-     * <p>
-     * Note that this method acquires a read lock to query the lucene index for the number of documents.
      */
     private void refreshCardinality() {
         int numDocs;
-        initializeIndexSearcher();
-        readLock();
+        IndexSearcher indexSearcher = acquireIndexSearcher();
         try {
-            numDocs = luceneIndexSearcher.getIndexReader().numDocs();
+            numDocs = indexSearcher.getIndexReader().numDocs();
         } finally {
-            readUnlock();
+            releaseIndexSearcher(indexSearcher);
         }
         keyValueStore.put(
                 DimensionStoreKeyUtils.getCardinalityKey(),
@@ -771,13 +1190,16 @@ public class LuceneSearchProvider implements SearchProvider {
 
     /**
      * Returns the desired page of dimension rows found by the specified query with the relevant metadata.
+     * <p>
+     * A page requested with the cursor handed out with the previous page is found with a single search resuming after
+     * the last hit of the previous page. Otherwise the hits before the page are passed over in large blocks.
      *
      * @param query  The Lucene query used to locate the desired DimensionRows
      * @param paginationParameters  The parameters defining the pagination (i.e. the number of rows per page, and the
      * desired page)
      * <p>
      * Note that this method _may_ need to acquire and release a write lock if the index searcher needs to be
-     * initialized, and it later acquires and released a read lock when querying for dimension data from Lucene.
+     * initialized. Querying for dimension data from Lucene takes no locks.
      *
      * @return The desired page of dimension rows that satisfy the given query
      *
@@ -790,16 +1212,23 @@ public class LuceneSearchProvider implements SearchProvider {
 
         TreeSet<DimensionRow> filteredDimRows;
         int documentCount;
-        initializeIndexSearcher();
+        String nextCursor;
         LOG.trace("Lucene Query {}", query);
 
-        readLock();
+        IndexSearcher indexSearcher = acquireIndexSearcher();
         try {
             ScoreDoc[] hits;
+            int requestedPageNumber;
             try (TimedPhase timer = RequestLog.startTiming("QueryingLucene")) {
+                // The last page is requested as page -1, which resolves to page 1 before any results are counted, and
+                // so never matches a cursor
+                int cursorPage = paginationParameters.getPage(0);
+                ScoreDoc previousPageEnd = paginationParameters.getCursor()
+                        .map(cursor -> readCursor(indexSearcher, cursor, query, perPage, cursorPage))
+                        .orElse(null);
                 TopDocs hitDocs = getPageOfData(
-                        luceneIndexSearcher,
-                        null,
+                        indexSearcher,
+                        previousPageEnd,
                         query,
                         perPage
                 );
@@ -815,22 +1244,25 @@ public class LuceneSearchProvider implements SearchProvider {
                 }
                 documentCount = (int) hitDocs.totalHits;
 
-                int requestedPageNumber = paginationParameters.getPage(documentCount);
-                if (hits.length == 0) {
+                requestedPageNumber = paginationParameters.getPage(documentCount);
+                if (hits.length == 0 && previousPageEnd == null) {
                     if (requestedPageNumber == 1) {
                         return new SinglePagePagination<>(Collections.emptyList(), paginationParameters, 0);
                     }
                     throw new PageNotFoundException(requestedPageNumber, perPage, 0);
                 }
-                for (int currentPage = 1; currentPage < requestedPageNumber; currentPage++) {
-                    ScoreDoc lastEntry = hits[hits.length - 1];
-                    hits = getPageOfData(luceneIndexSearcher, lastEntry, query, perPage).scoreDocs;
-                    if (hits.length == 0) {
-                        throw new PageNotFoundException(requestedPageNumber, perPage, 0);
-                    }
+                if (previousPageEnd == null && requestedPageNumber > 1) {
+                    hits = skipToPage(indexSearcher, query, requestedPageNumber, perPage);
+                }
+                if (hits.length == 0) {
+                    throw new PageNotFoundException(requestedPageNumber, perPage, 0);
                 }
             }
 
+            nextCursor = hits.length == perPage ?
+                    writeCursor(indexSearcher, query, perPage, requestedPageNumber + 1, hits[hits.length - 1]) :
+                    null;
+
             // convert hits to dimension rows
             try (TimedPhase timer = RequestLog.startTiming("LuceneHydratingDimensionRows")) {
                 String idKey = DimensionStoreKeyUtils.getColumnKey(dimension.getKey().getName());
@@ -838,7 +1270,7 @@ public class LuceneSearchProvider implements SearchProvider {
                         .map(
                                 hit -> {
                                     try {
-                                        return luceneIndexSearcher.doc(hit.doc);
+                                        return indexSearcher.doc(hit.doc);
                                     } catch (IOException e) {
                                         LOG.error("Unable to convert hit " + hit);
                                         throw new UncheckedIOException(e);
@@ -851,15 +1283,103 @@ public class LuceneSearchProvider implements SearchProvider {
                         .collect(Collectors.toCollection(TreeSet::new));
             }
         } finally {
-            readUnlock();
+            releaseIndexSearcher(indexSearcher);
         }
         return new SinglePagePagination<>(
                 ImmutableList.copyOf(filteredDimRows),
                 paginationParameters,
-                documentCount
+                documentCount,
+                nextCursor
         );
     }
 
+    /**
+     * Find the hits of a page by passing over the hits of the pages before it.
+     * <p>
+     * Hits are passed over in blocks much larger than a page, so deep pages take a handful of searches rather than a
+     * search per page.
+     *
+     * @param indexSearcher  The index searcher to search with
+     * @param query  The Lucene query used to locate the desired dimension metadata
+     * @param page  The page to find
+     * @param perPage  The number of entries per page
+     *
+     * @return The hits of the page, empty if the page is past the last page of results
+     */
+    private ScoreDoc[] skipToPage(IndexSearcher indexSearcher, Query query, int page, int perPage) {
+        ScoreDoc lastEntry = null;
+        long remaining = (long) (page - 1) * perPage;
+        while (remaining > 0) {
+            int blockSize = (int) Math.min(remaining, SKIP_BLOCK_SIZE);
+            ScoreDoc[] skipped = getPageOfData(indexSearcher, lastEntry, query, blockSize).scoreDocs;
+            if (skipped.length < blockSize) {
+                return new ScoreDoc[0];
+            }
+            lastEntry = skipped[skipped.length - 1];
+            remaining -= blockSize;
+        }
+        return getPageOfData(indexSearcher, lastEntry, query, perPage).scoreDocs;
+    }
+
+    /**
+     * Build the cursor of a page, recording the last hit of the page before it.
+     * <p>
+     * Document ids only hold for the reader that found them, so the cursor records the id of the reader, as well as the
+     * query and page it is for.
+     *
+     * @param indexSearcher  The index searcher the page was found with
+     * @param query  The query of the page
+     * @param perPage  The number of entries per page
+     * @param page  The page the cursor is for
+     * @param lastEntry  The last hit of the page before
+     *
+     * @return the cursor
+     */
+    private String writeCursor(IndexSearcher indexSearcher, Query query, int perPage, int page, ScoreDoc lastEntry) {
+        Long readerId = getReaderId(indexSearcher);
+        ByteBuffer cursor = ByteBuffer.allocate(CURSOR_BYTES)
+                .putLong(readerId == null ? 0 : readerId)
+                .putInt(query.hashCode())
+                .putInt(perPage)
+                .putInt(page)
+                .putInt(lastEntry.doc)
+                .putInt(Float.floatToIntBits(lastEntry.score));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.array());
+    }
+
+    /**
+     * Read the last hit of the page before the requested one from a cursor.
+     *
+     * @param indexSearcher  The index searcher the requested page is found with
+     * @param cursor  The cursor
+     * @param query  The query of the requested page
+     * @param perPage  The number of entries per page
+     * @param page  The requested page
+     *
+     * @return the last hit of the page before, or null if the cursor is not for the requested page of the searcher
+     */
+    private ScoreDoc readCursor(IndexSearcher indexSearcher, String cursor, Query query, int perPage, int page) {
+        ByteBuffer decoded;
+        try {
+            decoded = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+        } catch (IllegalArgumentException e) {
+            LOG.debug("Ignoring malformed cursor {}", cursor);
+            return null;
+        }
+        Long readerId = getReaderId(indexSearcher);
+        if (decoded.remaining() != CURSOR_BYTES
+                || readerId == null
+                || decoded.getLong() != readerId
+                || decoded.getInt() != query.hashCode()
+                || decoded.getInt() != perPage
+                || decoded.getInt() != page) {
+            LOG.debug("Ignoring cursor {} of another page, query or index reader", cursor);
+            return null;
+        }
+        int doc = decoded.getInt();
+        return new ScoreDoc(doc, Float.intBitsToFloat(decoded.getInt()));
+    }
+
     /**
      * Check if perPage exceeds limit of max number of rows to be returned.
      *
@@ -877,8 +1397,6 @@ public class LuceneSearchProvider implements SearchProvider {
 
     /**
      * Returns the requested page of dimension metadata from Lucene.
-     * <p>
-     * Note that this method acquires and releases a read lock when querying Lucene for data.
      *
      * @param indexSearcher  The service to find the desired dimension metadata in the Lucene index
      * @param lastEntry  The last entry from the previous page of dimension metadata, the indexSearcher will begin its
@@ -895,7 +1413,6 @@ public class LuceneSearchProvider implements SearchProvider {
             int perPage
     ) {
         TimeLimitingCollectorManager manager = new TimeLimitingCollectorManager(searchTimeout, lastEntry, perPage);
-        readLock();
         try {
             return indexSearcher.search(query, manager);
         } catch (IOException e) {
@@ -905,8 +1422,6 @@ public class LuceneSearchProvider implements SearchProvider {
         } catch (TimeLimitingCollector.TimeExceededException e) {
             LOG.warn("Lucene query timeout: {}. {}", query, e.getMessage());
             throw new TimeoutException(e.getMessage(), e);
-        } finally {
-            readUnlock();
         }
     }
 }
@@ -85,25 +85,24 @@ public class NormalizedLuceneSearchProvider extends LuceneSearchProvider impleme
             String searchQueryString,
             PaginationParameters paginationParameters
     ) {
-       initializeIndexSearcher();
-       readLock();
-       try {
-           validateSearchColumn();
-
-           return getResultsPage(getSearchQuery(searchQueryString), paginationParameters);
-       } finally {
-           readUnlock();
-       }
+       validateSearchColumn();
+
+       return getResultsPage(getSearchQuery(searchQueryString), paginationParameters);
     }
 
     /**
      * If the search provider has changed, recheck that the search column is available and error if not.
      */
     private void validateSearchColumn() {
-         if (lastIndexSearcher != luceneIndexSearcher) {
-             lastIndexSearcher = luceneIndexSearcher;
-             searchColumnExists = validateSearchColumn(SEARCH_COLUMN_NAME);
-         }
+        IndexSearcher indexSearcher = acquireIndexSearcher();
+        try {
+            if (lastIndexSearcher != indexSearcher) {
+                lastIndexSearcher = indexSearcher;
+                searchColumnExists = validateSearchColumn(SEARCH_COLUMN_NAME);
+            }
+        } finally {
+            releaseIndexSearcher(indexSearcher);
+        }
         if (!searchColumnExists) {
             throw new UnsupportedOperationException(
                     String.format(
@@ -169,10 +168,9 @@ public class NormalizedLuceneSearchProvider extends LuceneSearchProvider impleme
      * @return whether or not that field exists in the lucene index.
      */
     protected boolean validateSearchColumn(String searchColumnName) {
-        initializeIndexSearcher();
-        readLock();
+        IndexSearcher indexSearcher = acquireIndexSearcher();
         try {
-            return luceneIndexSearcher.getIndexReader().getDocCount(searchColumnName) > 0;
+            return indexSearcher.getIndexReader().getDocCount(searchColumnName) > 0;
         } catch (IOException e) {
             LOG.debug(
                     String.format(
@@ -184,7 +182,7 @@ public class NormalizedLuceneSearchProvider extends LuceneSearchProvider impleme
             // No need to directly fail the query on this. Just return that search is not supported on the index
             return false;
         } finally {
-            readUnlock();
+            releaseIndexSearcher(indexSearcher);
         }
     }
 }
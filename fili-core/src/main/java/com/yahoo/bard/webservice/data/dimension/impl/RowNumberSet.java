@@ -0,0 +1,137 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The row numbers of the rows of a dimension having one value of a field.
+ * <p>
+ * Most values of a field with many distinct values are held by a few rows, and a bit set spans every row number up to
+ * the highest one it holds. Row numbers are therefore kept in a sorted array, and only moved to a bit set once the
+ * array would take more room than a bit set over every row of the dimension.
+ */
+final class RowNumberSet {
+
+    /**
+     * The sorted row numbers, in the first {@code size} slots, while the set is sparse.
+     */
+    private int[] rowNumbers;
+    private int size;
+
+    /**
+     * The row numbers, once the set is dense.
+     */
+    private BitSet bits;
+
+    /**
+     * Constructor.
+     *
+     * @param rowNumber  The first row number of the set
+     */
+    private RowNumberSet(int rowNumber) {
+        this.rowNumbers = new int[] {rowNumber};
+        this.size = 1;
+    }
+
+    /**
+     * Build a set holding a single row number.
+     *
+     * @param rowNumber  The row number
+     *
+     * @return the set
+     */
+    static RowNumberSet of(int rowNumber) {
+        return new RowNumberSet(rowNumber);
+    }
+
+    /**
+     * Add a row number to the set.
+     *
+     * @param rowNumber  The row number to add
+     * @param rowCount  The number of rows of the dimension, used to decide when the set has become dense
+     */
+    void add(int rowNumber, int rowCount) {
+        if (bits != null) {
+            bits.set(rowNumber);
+            return;
+        }
+        // Rows are numbered in the order they are added, so new row numbers usually go at the end
+        int position = size == 0 || rowNumbers[size - 1] < rowNumber ?
+                size :
+                Arrays.binarySearch(rowNumbers, 0, size, rowNumber);
+        if (position >= 0 && position < size) {
+            return;
+        }
+        int insertAt = position < 0 ? -position - 1 : position;
+
+        if (size == rowNumbers.length) {
+            // An array of 32 bit row numbers takes more room than a bit set once it holds over 1/32 of the rows
+            if ((long) size * Integer.SIZE >= rowCount) {
+                bits = new BitSet(rowCount);
+                for (int i = 0; i < size; i++) {
+                    bits.set(rowNumbers[i]);
+                }
+                bits.set(rowNumber);
+                rowNumbers = null;
+                size = 0;
+                return;
+            }
+            rowNumbers = Arrays.copyOf(rowNumbers, Math.max(1, size * 2));
+        }
+        System.arraycopy(rowNumbers, insertAt, rowNumbers, insertAt + 1, size - insertAt);
+        rowNumbers[insertAt] = rowNumber;
+        size++;
+    }
+
+    /**
+     * Remove a row number from the set.
+     *
+     * @param rowNumber  The row number to remove
+     */
+    void remove(int rowNumber) {
+        if (bits != null) {
+            bits.clear(rowNumber);
+            return;
+        }
+        int position = Arrays.binarySearch(rowNumbers, 0, size, rowNumber);
+        if (position >= 0) {
+            System.arraycopy(rowNumbers, position + 1, rowNumbers, position, size - position - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Check whether the set holds no row numbers.
+     *
+     * @return true if the set is empty
+     */
+    boolean isEmpty() {
+        return bits == null ? size == 0 : bits.isEmpty();
+    }
+
+    /**
+     * Add the row numbers of the set to a bit set of row numbers.
+     *
+     * @param matches  The bit set to add the row numbers to
+     */
+    void addTo(BitSet matches) {
+        if (bits != null) {
+            matches.or(bits);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            matches.set(rowNumbers[i]);
+        }
+    }
+
+    /**
+     * Get the number of bytes taken by the row numbers of the set, leaving out object headers.
+     *
+     * @return the size of the row numbers in bytes
+     */
+    long getSizeInBytes() {
+        return bits == null ? (long) rowNumbers.length * Integer.BYTES : bits.size() / Byte.SIZE;
+    }
+}
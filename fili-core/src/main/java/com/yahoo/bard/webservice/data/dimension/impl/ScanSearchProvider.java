@@ -381,11 +381,25 @@ public class ScanSearchProvider implements SearchProvider, FilterDimensionRows {
         return getDimRowIndexes().stream()
                 .map(keyValueStore::get)
                 .filter(Objects::nonNull)
-                .map(dimRowJson -> readValue(new TypeReference<Map<String, String>>() { }, dimRowJson))
-                .map(dimension::parseDimensionRow)
+                .map(this::readDimensionRow)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toCollection(TreeSet::new));
     }
 
+    /**
+     * Decode a dimension row as it is stored in the key value store.
+     *
+     * @param storedRow  The stored dimension row
+     *
+     * @return the dimension row, or null if the row cannot be read by the dimension
+     */
+    private DimensionRow readDimensionRow(String storedRow) {
+        if (dimension instanceof KeyValueStoreDimension) {
+            return ((KeyValueStoreDimension) dimension).readDimensionRow(storedRow);
+        }
+        return dimension.parseDimensionRow(readValue(new TypeReference<Map<String, String>>() { }, storedRow));
+    }
+
     /**
      * Paginate dimension rows based on the requested page number and the number of results per page.
      *
@@ -2,6 +2,7 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.metric.mappers;
 
+import com.yahoo.bard.webservice.data.ColumnarResultSet;
 import com.yahoo.bard.webservice.data.Result;
 import com.yahoo.bard.webservice.data.ResultSet;
 import com.yahoo.bard.webservice.data.ResultSetSchema;
@@ -17,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  *  Mapper to sort the result set based on dateTime column sort direction.
@@ -48,6 +50,18 @@ public class DateTimeSortMapper extends ResultSetMapper {
 
         RequestLog.startTiming("sortResultSet");
         try {
+            if (resultSet instanceof ColumnarResultSet) {
+                // Sort the row indexes on the timestamp column and share the columns, the sort is stable like buckets
+                ColumnarResultSet columnar = (ColumnarResultSet) resultSet;
+                return columnar.select(
+                        IntStream.range(0, columnar.size())
+                                .boxed()
+                                .sorted(columnar.timestampOrder(direction == SortDirection.ASC))
+                                .mapToInt(Integer::intValue)
+                                .toArray()
+                );
+            }
+
             for (Result result : resultSet) {
                 bucketizedResultsMap.computeIfAbsent(
                         Optional.ofNullable(result.getTimeStamp()), ignored -> new ArrayList<>()
@@ -2,6 +2,7 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.metric.mappers;
 
+import com.yahoo.bard.webservice.data.ColumnarResultSet;
 import com.yahoo.bard.webservice.data.Result;
 import com.yahoo.bard.webservice.data.ResultSet;
 import com.yahoo.bard.webservice.data.ResultSetSchema;
@@ -57,6 +58,11 @@ public class PaginationMapper extends ResultSetMapper {
             AbstractResponse.addLinks(pages, uriBuilder, responseProcessor);
         }
         //uses map for additional flexibility and robustness, even though it is currently a no-op.
+        if (resultSet instanceof ColumnarResultSet) {
+            // Share the columns rather than copying the rows of the page
+            int from = (pages.getPage() - 1) * pages.getPerPage();
+            return ((ColumnarResultSet) resultSet).select(from, from + pages.getPageOfData().size());
+        }
         return new ResultSet(map(resultSet.getSchema()), pages.getPageOfData());
     }
 
@@ -2,6 +2,7 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.metric.mappers;
 
+import com.yahoo.bard.webservice.data.ColumnarResultSet;
 import com.yahoo.bard.webservice.data.Result;
 import com.yahoo.bard.webservice.data.ResultSet;
 import com.yahoo.bard.webservice.data.ResultSetSchema;
@@ -11,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * ResultSetMapper is an abstract class for walking a result set.
@@ -28,6 +30,20 @@ abstract public class ResultSetMapper {
      */
     public ResultSet map(ResultSet resultSet) {
 
+        ResultSetSchema newSchema = map(resultSet.getSchema());
+        if (resultSet instanceof ColumnarResultSet) {
+            // Append each mapped row straight to the new columns rather than holding every mapped row at once
+            ResultSet newResultSet = ColumnarResultSet.of(
+                    newSchema,
+                    () -> resultSet.stream()
+                            .map(r -> map(r, resultSet.getSchema()))
+                            .filter(Objects::nonNull)
+                            .iterator()
+            );
+            LOG.trace("Mapped resultSet: {} to new resultSet {}", resultSet, newResultSet);
+            return newResultSet;
+        }
+
         List<Result> newResults = new ArrayList<>();
         Result newResult;
 
@@ -38,7 +54,6 @@ abstract public class ResultSetMapper {
             }
         }
 
-        ResultSetSchema newSchema = map(resultSet.getSchema());
         ResultSet newResultSet = new ResultSet(newSchema, newResults);
         LOG.trace("Mapped resultSet: {} to new resultSet {}", resultSet, newResultSet);
 
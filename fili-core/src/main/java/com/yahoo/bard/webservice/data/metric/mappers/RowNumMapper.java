@@ -2,6 +2,7 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.metric.mappers;
 
+import com.yahoo.bard.webservice.data.ColumnarResultSet;
 import com.yahoo.bard.webservice.data.Result;
 import com.yahoo.bard.webservice.data.ResultSet;
 import com.yahoo.bard.webservice.data.ResultSetSchema;
@@ -12,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,15 @@ public class RowNumMapper extends ResultSetMapper {
         MetricColumn column = schema.getColumn(ROW_NUM_COLUMN_NAME, MetricColumn.class).get();
 
         int resultSetSize = resultSet.size();
+        if (resultSet instanceof ColumnarResultSet) {
+            // Add the row numbers as a column, sharing the other columns rather than building the rows
+            long[] rowNums = new long[resultSetSize];
+            Arrays.setAll(rowNums, i -> i);
+            ResultSet newResultSet = ((ColumnarResultSet) resultSet).withMetricColumn(schema, column, rowNums);
+            LOG.trace("Mapped resultSet: {} to new resultSet {}", resultSet, newResultSet);
+            return newResultSet;
+        }
+
         List<Result> newResults = new ArrayList<>(resultSetSize);
         for (int i = 0; i < resultSetSize; i++) {
             newResults.add(rowNumMap(resultSet.get(i), column, i));
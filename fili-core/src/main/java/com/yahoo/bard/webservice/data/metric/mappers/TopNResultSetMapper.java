@@ -2,6 +2,7 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.metric.mappers;
 
+import com.yahoo.bard.webservice.data.ColumnarResultSet;
 import com.yahoo.bard.webservice.data.Result;
 import com.yahoo.bard.webservice.data.ResultSet;
 import com.yahoo.bard.webservice.data.ResultSetSchema;
@@ -9,6 +10,7 @@ import com.yahoo.bard.webservice.data.ResultSetSchema;
 import org.joda.time.DateTime;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -29,12 +31,51 @@ public class TopNResultSetMapper extends ResultSetMapper {
 
     @Override
     public ResultSet map(ResultSet resultSet) {
+        if (resultSet instanceof ColumnarResultSet) {
+            return map((ColumnarResultSet) resultSet);
+        }
         // TODO: Use only native stream operations in RxJava: GroupByTime -> Sort -> Take N -> Concat streams by time
         TopNAccumulator acc = new TopNAccumulator();
         resultSet.stream().forEachOrdered(acc);
         return new ResultSet(resultSet.getSchema(), acc.data);
     }
 
+    /**
+     * Truncate a columnar result set by selecting the rows to keep, without building the rows.
+     *
+     * @param resultSet  The result set to truncate
+     *
+     * @return a result set sharing the columns of the result set
+     */
+    private ResultSet map(ColumnarResultSet resultSet) {
+        int[] kept = new int[resultSet.size()];
+        int count = 0;
+        int filledBuckets = 0;
+        for (int i = 0; i < resultSet.size(); i++) {
+            if (i == 0 || !sameTimestamp(resultSet, i - 1, i)) {
+                filledBuckets = 0;
+            }
+            if (filledBuckets++ < topN) {
+                kept[count++] = i;
+            }
+        }
+        return resultSet.select(Arrays.copyOf(kept, count));
+    }
+
+    /**
+     * Check if two rows of a columnar result set are in the same time bucket.
+     *
+     * @param resultSet  The result set
+     * @param first  The index of a row
+     * @param second  The index of another row
+     *
+     * @return true if both rows have the same timestamp
+     */
+    private static boolean sameTimestamp(ColumnarResultSet resultSet, int first, int second) {
+        return resultSet.hasTimestamp(first) == resultSet.hasTimestamp(second)
+                && resultSet.getTimestampMillis(first) == resultSet.getTimestampMillis(second);
+    }
+
     @Override
     protected Result map(Result result, ResultSetSchema schema) {
         return result;
@@ -11,6 +11,11 @@ import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -33,6 +38,12 @@ public class DruidClientConfigHelper {
     public static final String DRUID_BROKER_URL_KEY =
             SYSTEM_CONFIG.getPackageVariableName("druid_broker");
 
+    /**
+     * Further urls of brokers serving the same queries as the broker vip.
+     */
+    public static final String DRUID_BROKER_ENDPOINTS_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_broker_endpoints");
+
     /**
      * The url for the coordinator vip which serves low latency queries.
      */
@@ -44,6 +55,18 @@ public class DruidClientConfigHelper {
     private static final String DRUID_REQUEST_TIMEOUT_KEY =
             SYSTEM_CONFIG.getPackageVariableName("druid_request_timeout");
 
+    /**
+     * The encoding used to talk to the broker, JSON or SMILE.
+     */
+    private static final String DRUID_BROKER_TRANSPORT_ENCODING_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_broker_transport_encoding");
+
+    /**
+     * The encoding used to talk to the coordinator, JSON or SMILE.
+     */
+    private static final String DRUID_COORD_TRANSPORT_ENCODING_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_coord_transport_encoding");
+
     /**
      * The default timeout for queries.
      */
@@ -70,6 +93,28 @@ public class DruidClientConfigHelper {
         return url;
     }
 
+    /**
+     * Fetches the URLs of all the druid brokers: the broker URL, followed by any further broker endpoints.
+     *
+     * @return druid broker URLs
+     */
+    public static List<String> getDruidUrls() {
+        Set<String> urls = new LinkedHashSet<>();
+        String url = getDruidUrl();
+        if (url != null) {
+            urls.add(url);
+        }
+        List<String> endpoints = SYSTEM_CONFIG.getListProperty(DRUID_BROKER_ENDPOINTS_KEY, Collections.emptyList());
+        for (String endpoint : endpoints) {
+            if (endpoint.trim().isEmpty()) {
+                continue;
+            }
+            validateUrl(endpoint.trim());
+            urls.add(endpoint.trim());
+        }
+        return new ArrayList<>(urls);
+    }
+
     /**
      * Fetches the URL of the druid coordinator.
      *
@@ -89,13 +134,37 @@ public class DruidClientConfigHelper {
         return time;
     }
 
+    /**
+     * Fetches the encoding used to talk to the druid broker.
+     *
+     * @return druid broker transport encoding
+     */
+    public static DruidTransportEncoding getDruidTransportEncoding() {
+        return fetchTransportEncoding(DRUID_BROKER_TRANSPORT_ENCODING_KEY);
+    }
+
+    /**
+     * Fetches the encoding used to talk to the druid coordinator.
+     *
+     * @return druid coordinator transport encoding
+     */
+    public static DruidTransportEncoding getDruidCoordTransportEncoding() {
+        return fetchTransportEncoding(DRUID_COORD_TRANSPORT_ENCODING_KEY);
+    }
+
     /**
      * Create a druid service configuration object.
      *
      * @return a druid service configuration object with all configuration parameters set
      */
     public static DruidServiceConfig getServiceConfig() {
-        return new DruidServiceConfig("Broker", getDruidUrl(), getDruidTimeout(), getDruidPriority());
+        return new DruidServiceConfig(
+                "Broker",
+                getDruidUrls(),
+                getDruidTimeout(),
+                getDruidPriority(),
+                getDruidTransportEncoding()
+        );
     }
 
     /**
@@ -108,7 +177,8 @@ public class DruidClientConfigHelper {
                 "Coordinator",
                 getDruidCoordUrl(),
                 getDruidTimeout(),
-                getDruidPriority()
+                getDruidPriority(),
+                getDruidCoordTransportEncoding()
         );
     }
 
@@ -128,6 +198,24 @@ public class DruidClientConfigHelper {
         }
     }
 
+    /**
+     * Get the transport encoding for the given system property.
+     *
+     * @param encodingSysProp  The system property to read the encoding name from
+     *
+     * @return the encoding, JSON if none is configured
+     */
+    private static DruidTransportEncoding fetchTransportEncoding(String encodingSysProp) {
+        String name = SYSTEM_CONFIG.getStringProperty(encodingSysProp, DruidTransportEncoding.JSON.name());
+        try {
+            return DruidTransportEncoding.forName(name);
+        } catch (IllegalArgumentException e) {
+            String message = String.format("Invalid druid transport encoding provided: %s", name);
+            LOG.error(message);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
     /**
      * Validate the format of url to see if it is a pontential validate url.
      *
@@ -0,0 +1,509 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client;
+
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Limits the number of queries in flight to a druid service, adapting the limit to how the service is coping.
+ * <p>
+ * The limit follows an additive increase, multiplicative decrease scheme. Every response that arrives within the
+ * latency threshold raises the limit by one query per limit's worth of responses. A response slower than the
+ * threshold, an overloaded status or a failed request cuts the limit by the backoff ratio, at most once per round trip.
+ * <p>
+ * Queries over the limit wait in a bounded queue per {@link DruidQueryLane}, and are admitted in lane priority order as
+ * queries complete. Queries are rejected when their lane's queue is full, or when they have waited longer than the
+ * queue timeout, which is checked on a timer so that queries are rejected on time even while no query completes.
+ */
+public class DruidConcurrencyLimiter {
+    private static final Logger LOG = LoggerFactory.getLogger(DruidConcurrencyLimiter.class);
+    protected static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+    protected static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+
+    // Property names
+    protected static final @NotNull String INITIAL_LIMIT_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_limit_initial");
+    protected static final @NotNull String MIN_LIMIT_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_limit_min");
+    protected static final @NotNull String MAX_LIMIT_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_limit_max");
+    protected static final @NotNull String LATENCY_THRESHOLD_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_latency_threshold");
+    protected static final @NotNull String BACKOFF_RATIO_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_backoff_ratio");
+    protected static final @NotNull String QUEUE_TIMEOUT_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_queue_timeout");
+    protected static final @NotNull String QUEUE_SIZE_KEY_PREFIX = "druid_concurrency_queue_size_";
+
+    // Default values
+    protected static final int DEFAULT_INITIAL_LIMIT = 20;
+    protected static final int DEFAULT_MIN_LIMIT = 2;
+    protected static final int DEFAULT_MAX_LIMIT = 200;
+    protected static final long DEFAULT_LATENCY_THRESHOLD = TimeUnit.SECONDS.toMillis(10);
+    protected static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    protected static final long DEFAULT_QUEUE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    // A query has only timed out once it has waited longer than the timeout, so check a little after it
+    private static final long EXPIRY_MARGIN_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * A permit that does not count against any limit, for queries sent without a limiter.
+     */
+    public static final Permit UNLIMITED = new Permit(null, 0);
+
+    /**
+     * Timer thread for queue timeouts, shared by all limiters. Expiring a query only rejects it, so one thread is
+     * plenty.
+     */
+    private static final ScheduledExecutorService EXPIRY_SCHEDULER = buildExpiryScheduler();
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long queueTimeoutNanos;
+    private final Map<DruidQueryLane, Integer> queueSizes;
+    private final LongSupplier nanoClock;
+    private final ScheduledExecutorService expiryScheduler;
+
+    private final Map<DruidQueryLane, Deque<Waiter>> queues = new EnumMap<>(DruidQueryLane.class);
+
+    // Guarded by this
+    private double limit;
+    private int inFlight = 0;
+    private int queued = 0;
+    private long lastDecrease;
+
+    private final Meter rejectMeter;
+    private final Meter timeoutMeter;
+    private final Meter queueMeter;
+
+    /**
+     * Build a limiter for a druid service from configuration.
+     *
+     * @param name  The name of the druid service, used in metric names
+     */
+    public DruidConcurrencyLimiter(String name) {
+        this(
+                name,
+                SYSTEM_CONFIG.getIntProperty(INITIAL_LIMIT_KEY, DEFAULT_INITIAL_LIMIT),
+                SYSTEM_CONFIG.getIntProperty(MIN_LIMIT_KEY, DEFAULT_MIN_LIMIT),
+                SYSTEM_CONFIG.getIntProperty(MAX_LIMIT_KEY, DEFAULT_MAX_LIMIT),
+                SYSTEM_CONFIG.getLongProperty(LATENCY_THRESHOLD_KEY, DEFAULT_LATENCY_THRESHOLD),
+                SYSTEM_CONFIG.getDoubleProperty(BACKOFF_RATIO_KEY, DEFAULT_BACKOFF_RATIO),
+                SYSTEM_CONFIG.getLongProperty(QUEUE_TIMEOUT_KEY, DEFAULT_QUEUE_TIMEOUT),
+                configuredQueueSizes(),
+                System::nanoTime
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name  The name of the druid service, used in metric names
+     * @param initialLimit  The number of queries allowed in flight to begin with
+     * @param minLimit  The fewest queries that will ever be allowed in flight
+     * @param maxLimit  The most queries that will ever be allowed in flight
+     * @param latencyThreshold  The response time in milliseconds above which the service is taken to be overloaded
+     * @param backoffRatio  The ratio the limit is multiplied by when the service is overloaded
+     * @param queueTimeout  The time in milliseconds a query may wait for admission before being rejected
+     * @param queueSizes  The number of queries that may wait in each lane
+     * @param nanoClock  The source of the current time in nanoseconds
+     */
+    public DruidConcurrencyLimiter(
+            String name,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            long latencyThreshold,
+            double backoffRatio,
+            long queueTimeout,
+            Map<DruidQueryLane, Integer> queueSizes,
+            LongSupplier nanoClock
+    ) {
+        this(
+                name,
+                initialLimit,
+                minLimit,
+                maxLimit,
+                latencyThreshold,
+                backoffRatio,
+                queueTimeout,
+                queueSizes,
+                nanoClock,
+                EXPIRY_SCHEDULER
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name  The name of the druid service, used in metric names
+     * @param initialLimit  The number of queries allowed in flight to begin with
+     * @param minLimit  The fewest queries that will ever be allowed in flight
+     * @param maxLimit  The most queries that will ever be allowed in flight
+     * @param latencyThreshold  The response time in milliseconds above which the service is taken to be overloaded
+     * @param backoffRatio  The ratio the limit is multiplied by when the service is overloaded
+     * @param queueTimeout  The time in milliseconds a query may wait for admission before being rejected
+     * @param queueSizes  The number of queries that may wait in each lane
+     * @param nanoClock  The source of the current time in nanoseconds
+     * @param expiryScheduler  The scheduler that checks for queries that have waited longer than the queue timeout
+     */
+    public DruidConcurrencyLimiter(
+            String name,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            long latencyThreshold,
+            double backoffRatio,
+            long queueTimeout,
+            Map<DruidQueryLane, Integer> queueSizes,
+            LongSupplier nanoClock,
+            ScheduledExecutorService expiryScheduler
+    ) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+        this.backoffRatio = backoffRatio;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeout);
+        this.queueSizes = new EnumMap<>(DruidQueryLane.class);
+        this.queueSizes.putAll(queueSizes);
+        this.nanoClock = nanoClock;
+        this.expiryScheduler = expiryScheduler;
+        this.lastDecrease = nanoClock.getAsLong();
+
+        for (DruidQueryLane lane : DruidQueryLane.values()) {
+            queues.put(lane, new ArrayDeque<>());
+        }
+
+        String prefix = MetricRegistry.name("druid.concurrency", name);
+        registerGauge(MetricRegistry.name(prefix, "limit"), this::getLimit);
+        registerGauge(MetricRegistry.name(prefix, "inflight"), this::getInFlight);
+        registerGauge(MetricRegistry.name(prefix, "queued"), this::getQueued);
+        this.rejectMeter = REGISTRY.meter(MetricRegistry.name(prefix, "rejected"));
+        this.timeoutMeter = REGISTRY.meter(MetricRegistry.name(prefix, "timeouts"));
+        this.queueMeter = REGISTRY.meter(MetricRegistry.name(prefix, "waits"));
+    }
+
+    /**
+     * Read the configured queue size of each lane.
+     *
+     * @return the queue size of each lane
+     */
+    private static Map<DruidQueryLane, Integer> configuredQueueSizes() {
+        Map<DruidQueryLane, Integer> sizes = new EnumMap<>(DruidQueryLane.class);
+        for (DruidQueryLane lane : DruidQueryLane.values()) {
+            sizes.put(
+                    lane,
+                    SYSTEM_CONFIG.getIntProperty(
+                            SYSTEM_CONFIG.getPackageVariableName(QUEUE_SIZE_KEY_PREFIX + lane.getName()),
+                            lane.getDefaultQueueSize()
+                    )
+            );
+        }
+        return sizes;
+    }
+
+    /**
+     * Build the timer thread for queue timeouts. Timeouts of queries admitted in time are cancelled, so they are
+     * removed from the timer rather than left to pile up.
+     *
+     * @return the scheduler
+     */
+    private static ScheduledExecutorService buildExpiryScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+                1,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "druid-concurrency-expiry");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * Register a gauge, replacing any gauge of the same name left by an earlier limiter for the same service.
+     *
+     * @param name  The name of the gauge
+     * @param gauge  The gauge
+     */
+    private static void registerGauge(String name, Gauge<Integer> gauge) {
+        REGISTRY.remove(name);
+        REGISTRY.register(name, gauge);
+    }
+
+    /**
+     * Take a permit to send a query right away, if the limit allows it and no queries are waiting.
+     *
+     * @return a permit, or empty if the query must wait
+     */
+    public synchronized Optional<Permit> tryAcquire() {
+        if (queued > 0 || inFlight >= (int) limit) {
+            return Optional.empty();
+        }
+        inFlight++;
+        return Optional.of(new Permit(this, nanoClock.getAsLong()));
+    }
+
+    /**
+     * Wait for a permit to send a query.
+     * <p>
+     * Exactly one of the callbacks is called, either on the calling thread or on the thread releasing a permit. The
+     * query is rejected right away if its lane is full.
+     *
+     * @param lane  The lane to wait in
+     * @param whenAdmitted  Called with a permit once the query may be sent
+     * @param whenRejected  Called if the query will not be sent
+     */
+    public void enqueue(
+            DruidQueryLane lane,
+            Consumer<Permit> whenAdmitted,
+            Consumer<RejectedExecutionException> whenRejected
+    ) {
+        Waiter waiter = new Waiter(whenAdmitted, whenRejected, nanoClock.getAsLong());
+        boolean accepted;
+        synchronized (this) {
+            Deque<Waiter> queue = queues.get(lane);
+            accepted = queue.size() < queueSizes.getOrDefault(lane, lane.getDefaultQueueSize());
+            if (accepted) {
+                queue.addLast(waiter);
+                queued++;
+            }
+        }
+        if (!accepted) {
+            rejectMeter.mark();
+            whenRejected.accept(new RejectedExecutionException(String.format("The %s queue is full", lane.getName())));
+            return;
+        }
+        queueMeter.mark();
+        // Check again just after the timeout, in case no query completes before then
+        waiter.setExpiry(expiryScheduler.schedule(
+                this::dispatch,
+                queueTimeoutNanos + EXPIRY_MARGIN_NANOS,
+                TimeUnit.NANOSECONDS
+        ));
+        dispatch();
+    }
+
+    /**
+     * Admit waiting queries while the limit allows, and reject those that have waited too long.
+     */
+    private void dispatch() {
+        List<Waiter> expired = new ArrayList<>();
+        List<Runnable> admitted = new ArrayList<>();
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            for (DruidQueryLane lane : DruidQueryLane.values()) {
+                Deque<Waiter> queue = queues.get(lane);
+                while (!queue.isEmpty() && (inFlight < (int) limit || isExpired(queue.peekFirst(), now))) {
+                    Waiter waiter = queue.pollFirst();
+                    queued--;
+                    waiter.cancelExpiry();
+                    if (isExpired(waiter, now)) {
+                        expired.add(waiter);
+                    } else {
+                        inFlight++;
+                        Permit permit = new Permit(this, now);
+                        admitted.add(() -> waiter.whenAdmitted.accept(permit));
+                    }
+                }
+            }
+        }
+        for (Waiter waiter : expired) {
+            timeoutMeter.mark();
+            waiter.whenRejected.accept(new RejectedExecutionException("Timed out waiting to be sent"));
+        }
+        admitted.forEach(Runnable::run);
+    }
+
+    /**
+     * Check if a query has waited for longer than the queue timeout.
+     *
+     * @param waiter  The waiting query
+     * @param now  The current time in nanoseconds
+     *
+     * @return true if the query should no longer be sent
+     */
+    private boolean isExpired(Waiter waiter, long now) {
+        return now - waiter.since > queueTimeoutNanos;
+    }
+
+    /**
+     * Return a permit, adjusting the limit by how the query it was taken for went.
+     *
+     * @param permit  The permit being returned
+     * @param overloaded  True if the service reported or showed signs of overload, null to leave the limit as is
+     */
+    private void release(Permit permit, Boolean overloaded) {
+        synchronized (this) {
+            inFlight--;
+            if (overloaded != null) {
+                long now = nanoClock.getAsLong();
+                if (overloaded || now - permit.start > latencyThresholdNanos) {
+                    // Only back off once for all the queries that were in flight when the service became overloaded
+                    if (permit.start >= lastDecrease) {
+                        limit = Math.max(minLimit, limit * backoffRatio);
+                        lastDecrease = now;
+                        LOG.debug("Druid concurrency limit lowered to {}", (int) limit);
+                    }
+                } else {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * The number of queries currently allowed in flight.
+     *
+     * @return the current limit
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * The number of queries currently in flight.
+     *
+     * @return the queries in flight
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * The number of queries currently waiting to be sent.
+     *
+     * @return the queries waiting
+     */
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    /**
+     * A query waiting for admission.
+     */
+    private static class Waiter {
+        private final Consumer<Permit> whenAdmitted;
+        private final Consumer<RejectedExecutionException> whenRejected;
+        private final long since;
+        private final AtomicReference<Future<?>> expiry = new AtomicReference<>();
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        /**
+         * Constructor.
+         *
+         * @param whenAdmitted  Called with a permit once the query may be sent
+         * @param whenRejected  Called if the query will not be sent
+         * @param since  The time in nanoseconds the query started waiting
+         */
+        Waiter(Consumer<Permit> whenAdmitted, Consumer<RejectedExecutionException> whenRejected, long since) {
+            this.whenAdmitted = whenAdmitted;
+            this.whenRejected = whenRejected;
+            this.since = since;
+        }
+
+        /**
+         * Set the timer that expires the query, cancelling it right away if the query already left the queue.
+         *
+         * @param timer  The timer
+         */
+        void setExpiry(Future<?> timer) {
+            expiry.set(timer);
+            if (done.get()) {
+                timer.cancel(false);
+            }
+        }
+
+        /**
+         * Cancel the timer that expires the query, now that the query has left the queue.
+         */
+        void cancelExpiry() {
+            done.set(true);
+            Future<?> timer = expiry.get();
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Permission to have one query in flight. A permit is returned by the first call to one of its release methods,
+     * later calls have no effect.
+     */
+    public static class Permit {
+        private final DruidConcurrencyLimiter limiter;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        /**
+         * Constructor.
+         *
+         * @param limiter  The limiter issuing the permit, null if the permit is not limited
+         * @param start  The time in nanoseconds the query was admitted
+         */
+        private Permit(DruidConcurrencyLimiter limiter, long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        /**
+         * Return the permit once the response for the query arrived.
+         *
+         * @param overloaded  True if the response shows the service to be overloaded
+         */
+        public void release(boolean overloaded) {
+            returnPermit(overloaded);
+        }
+
+        /**
+         * Return the permit without letting the query affect the limit, for example because it was never sent.
+         */
+        public void cancel() {
+            returnPermit(null);
+        }
+
+        /**
+         * Return the permit to its limiter.
+         *
+         * @param overloaded  True if the service is overloaded, null if the query says nothing about the service
+         */
+        private void returnPermit(Boolean overloaded) {
+            if (limiter != null && released.compareAndSet(false, true)) {
+                limiter.release(this, overloaded);
+            }
+        }
+    }
+}
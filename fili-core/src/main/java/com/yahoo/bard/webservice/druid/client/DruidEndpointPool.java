@@ -0,0 +1,278 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client;
+
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * The endpoints serving one druid service, with the health and latency of each.
+ * <p>
+ * Endpoints are picked by the power of two choices: of two healthy endpoints chosen at random, the one with the lower
+ * smoothed latency wins. An endpoint that fails several times in a row is left out for a cool down period. The latency
+ * of recent responses across all endpoints is kept to decide how long to wait before hedging a request.
+ */
+public class DruidEndpointPool {
+    private static final Logger LOG = LoggerFactory.getLogger(DruidEndpointPool.class);
+    protected static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    // Property names
+    protected static final @NotNull String FAILURE_THRESHOLD_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_endpoint_failure_threshold");
+    protected static final @NotNull String FAILURE_COOLDOWN_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_endpoint_failure_cooldown");
+
+    // Default values
+    protected static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    protected static final long DEFAULT_FAILURE_COOLDOWN = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The weight of the newest latency in the smoothed latency of an endpoint.
+     */
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    /**
+     * The number of recent latencies kept to compute latency percentiles.
+     */
+    private static final int LATENCY_WINDOW = 1024;
+
+    /**
+     * The fewest latencies needed before percentiles are trusted.
+     */
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final List<Endpoint> endpoints;
+    private final int failureThreshold;
+    private final long failureCooldownNanos;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount = 0;
+    private int latencyNext = 0;
+
+    /**
+     * Build a pool of endpoints from configuration.
+     *
+     * @param urls  The URLs of the endpoints
+     */
+    public DruidEndpointPool(List<String> urls) {
+        this(
+                urls,
+                SYSTEM_CONFIG.getIntProperty(FAILURE_THRESHOLD_KEY, DEFAULT_FAILURE_THRESHOLD),
+                SYSTEM_CONFIG.getLongProperty(FAILURE_COOLDOWN_KEY, DEFAULT_FAILURE_COOLDOWN),
+                System::nanoTime
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param urls  The URLs of the endpoints
+     * @param failureThreshold  The number of failures in a row after which an endpoint is left out
+     * @param failureCooldown  The time in milliseconds a failing endpoint is left out for
+     * @param nanoClock  The source of the current time in nanoseconds
+     */
+    public DruidEndpointPool(List<String> urls, int failureThreshold, long failureCooldown, LongSupplier nanoClock) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("A druid endpoint pool needs at least one endpoint");
+        }
+        this.endpoints = Collections.unmodifiableList(
+                urls.stream().map(Endpoint::new).collect(Collectors.toList())
+        );
+        this.failureThreshold = failureThreshold;
+        this.failureCooldownNanos = TimeUnit.MILLISECONDS.toNanos(failureCooldown);
+        this.nanoClock = nanoClock;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * The number of endpoints in the pool.
+     *
+     * @return the number of endpoints
+     */
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Pick an endpoint to send a request to.
+     * <p>
+     * Endpoints already tried for the request are avoided while others are available, and unhealthy endpoints are
+     * avoided while healthy ones are. If every endpoint is unhealthy, the one whose cool down ends first is picked.
+     *
+     * @param tried  The endpoints already tried for the request
+     *
+     * @return the endpoint to use
+     */
+    public Endpoint select(Collection<Endpoint> tried) {
+        List<Endpoint> untried = endpoints.stream()
+                .filter(endpoint -> !tried.contains(endpoint))
+                .collect(Collectors.toList());
+        List<Endpoint> candidates = untried.isEmpty() ? endpoints : untried;
+
+        long now = nanoClock.getAsLong();
+        List<Endpoint> healthy = candidates.stream()
+                .filter(endpoint -> endpoint.isHealthy(now))
+                .collect(Collectors.toList());
+        if (healthy.isEmpty()) {
+            return candidates.stream()
+                    .min(Comparator.comparingLong(Endpoint::getUnhealthyUntil))
+                    .get();
+        }
+        if (healthy.size() == 1) {
+            return healthy.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(healthy.size());
+        int second = random.nextInt(healthy.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = healthy.get(first);
+        Endpoint b = healthy.get(second);
+        return a.getSmoothedLatency() <= b.getSmoothedLatency() ? a : b;
+    }
+
+    /**
+     * Record a response from an endpoint that shows it to be working.
+     *
+     * @param endpoint  The endpoint that responded
+     * @param latencyNanos  The time the response took, in nanoseconds
+     */
+    public void recordSuccess(Endpoint endpoint, long latencyNanos) {
+        endpoint.recordSuccess(latencyNanos);
+        synchronized (this) {
+            latencies[latencyNext] = latencyNanos;
+            latencyNext = (latencyNext + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        }
+    }
+
+    /**
+     * Record a failure to get a usable response from an endpoint.
+     *
+     * @param endpoint  The endpoint that failed
+     */
+    public void recordFailure(Endpoint endpoint) {
+        endpoint.recordFailure(nanoClock.getAsLong());
+    }
+
+    /**
+     * A percentile of the latency of recent responses across all endpoints.
+     *
+     * @param percentile  The percentile, between 0 and 100
+     *
+     * @return the latency in nanoseconds, or -1 if there have not yet been enough responses to tell
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] window;
+        synchronized (this) {
+            if (latencyCount < MIN_LATENCY_SAMPLES) {
+                return -1;
+            }
+            window = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(window);
+        int index = (int) Math.ceil(percentile / 100 * window.length) - 1;
+        return window[Math.max(0, Math.min(window.length - 1, index))];
+    }
+
+    /**
+     * One endpoint of a druid service.
+     */
+    public class Endpoint {
+        private final String url;
+
+        // Guarded by this
+        private double smoothedLatency = 0;
+        private int consecutiveFailures = 0;
+        private long unhealthyUntil = Long.MIN_VALUE;
+
+        /**
+         * Constructor.
+         *
+         * @param url  The URL of the endpoint
+         */
+        Endpoint(String url) {
+            this.url = url;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * The smoothed latency of the endpoint, 0 until it has responded.
+         *
+         * @return the latency in nanoseconds
+         */
+        public synchronized double getSmoothedLatency() {
+            return smoothedLatency;
+        }
+
+        /**
+         * The time the endpoint's cool down after failing ends.
+         *
+         * @return the time in nanoseconds
+         */
+        private synchronized long getUnhealthyUntil() {
+            return unhealthyUntil;
+        }
+
+        /**
+         * Check if the endpoint is in use, or left out after failing.
+         *
+         * @param now  The current time in nanoseconds
+         *
+         * @return true if the endpoint is in use
+         */
+        public synchronized boolean isHealthy(long now) {
+            return consecutiveFailures < failureThreshold || now - unhealthyUntil >= 0;
+        }
+
+        /**
+         * Record a working response.
+         *
+         * @param latencyNanos  The time the response took, in nanoseconds
+         */
+        private synchronized void recordSuccess(long latencyNanos) {
+            consecutiveFailures = 0;
+            smoothedLatency = smoothedLatency == 0
+                    ? latencyNanos
+                    : LATENCY_SMOOTHING * latencyNanos + (1 - LATENCY_SMOOTHING) * smoothedLatency;
+        }
+
+        /**
+         * Record a failure, leaving the endpoint out once it has failed too often in a row.
+         *
+         * @param now  The current time in nanoseconds
+         */
+        private synchronized void recordFailure(long now) {
+            consecutiveFailures++;
+            if (consecutiveFailures >= failureThreshold) {
+                unhealthyUntil = now + failureCooldownNanos;
+                LOG.warn("Druid endpoint {} failed {} times in a row, leaving it out", url, consecutiveFailures);
+            }
+        }
+    }
+}
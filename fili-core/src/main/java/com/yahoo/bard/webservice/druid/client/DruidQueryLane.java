@@ -0,0 +1,76 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client;
+
+import com.yahoo.bard.webservice.web.DataApiRequestTypeIdentifier;
+import com.yahoo.bard.webservice.web.handlers.RequestContext;
+
+import java.util.Locale;
+
+import javax.ws.rs.container.ContainerRequestContext;
+
+/**
+ * The lanes queries wait in when druid is busy, in priority order.
+ */
+public enum DruidQueryLane {
+    /** Interactive requests from the UI. */
+    UI(100),
+    /** Synchronous requests from other API clients. */
+    API(100),
+    /** Asynchronous jobs, and queries sent by Fili itself outside of any web request. */
+    ASYNC(50);
+
+    private static final String ASYNC_AFTER_PARAMETER = "asyncAfter";
+    private static final String NEVER = "never";
+
+    private final int defaultQueueSize;
+
+    /**
+     * Constructor.
+     *
+     * @param defaultQueueSize  The number of queries that may wait in this lane unless configured otherwise
+     */
+    DruidQueryLane(int defaultQueueSize) {
+        this.defaultQueueSize = defaultQueueSize;
+    }
+
+    public int getDefaultQueueSize() {
+        return defaultQueueSize;
+    }
+
+    /**
+     * The name of this lane as used in configuration and metric names.
+     *
+     * @return the lower case name of the lane
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Find the lane for the queries of a request.
+     * <p>
+     * Requests from the UI are identified by their headers, and asynchronous requests by an {@code asyncAfter}
+     * parameter other than {@code never}. Queries sent without a web request, such as dimension loading, go in the
+     * async lane.
+     *
+     * @param context  The context of the request sending the query, may be null
+     *
+     * @return the lane for the request
+     */
+    public static DruidQueryLane forContext(RequestContext context) {
+        ContainerRequestContext containerRequestContext = context == null
+                ? null
+                : context.getContainerRequestContext();
+        if (containerRequestContext == null) {
+            return ASYNC;
+        }
+        if (DataApiRequestTypeIdentifier.isUi(context.getHeadersLowerCase())) {
+            return UI;
+        }
+        String asyncAfter = containerRequestContext.getUriInfo() == null
+                ? null
+                : containerRequestContext.getUriInfo().getQueryParameters().getFirst(ASYNC_AFTER_PARAMETER);
+        return asyncAfter == null || NEVER.equalsIgnoreCase(asyncAfter) ? API : ASYNC;
+    }
+}
@@ -2,18 +2,23 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.druid.client;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * This class represents the configurable parameters for a particular Druid service endpoint.
  */
 public class DruidServiceConfig {
 
     private final String name;
-    private final String url;
+    private final List<String> urls;
     private final Integer timeout;
     private final Integer priority;
+    private final DruidTransportEncoding transportEncoding;
 
     /**
-     * Build the Druid Service Config.
+     * Build the Druid Service Config, using JSON to talk to the service.
      *
      * @param name  The name of the webservice
      * @param url  The URL for the webservice
@@ -21,10 +26,64 @@ public class DruidServiceConfig {
      * @param priority  The priority to be sent to the druid router
      */
     public DruidServiceConfig(String name, String url, Integer timeout, Integer priority) {
+        this(name, url, timeout, priority, DruidTransportEncoding.JSON);
+    }
+
+    /**
+     * Build the Druid Service Config.
+     *
+     * @param name  The name of the webservice
+     * @param url  The URL for the webservice
+     * @param timeout  The timeout in milliseconds
+     * @param priority  The priority to be sent to the druid router
+     * @param transportEncoding  The encoding of queries sent to, and responses requested from, the webservice
+     */
+    public DruidServiceConfig(
+            String name,
+            String url,
+            Integer timeout,
+            Integer priority,
+            DruidTransportEncoding transportEncoding
+    ) {
+        this(
+                name,
+                url == null ? Collections.emptyList() : Collections.singletonList(url),
+                timeout,
+                priority,
+                transportEncoding
+        );
+    }
+
+    /**
+     * Build the Druid Service Config for a service served by several interchangeable endpoints.
+     *
+     * @param name  The name of the webservice
+     * @param urls  The URLs of the endpoints of the webservice, the primary endpoint first
+     * @param timeout  The timeout in milliseconds
+     * @param priority  The priority to be sent to the druid router
+     * @param transportEncoding  The encoding of queries sent to, and responses requested from, the webservice
+     */
+    public DruidServiceConfig(
+            String name,
+            List<String> urls,
+            Integer timeout,
+            Integer priority,
+            DruidTransportEncoding transportEncoding
+    ) {
         this.name = name;
-        this.url = url;
+        this.urls = Collections.unmodifiableList(new ArrayList<>(urls));
         this.timeout = timeout;
         this.priority = priority;
+        this.transportEncoding = transportEncoding;
+    }
+
+    /**
+     * The name of the druid service.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
     }
 
     /**
@@ -33,7 +92,16 @@ public class DruidServiceConfig {
      * @return an URL as a string
      */
     public String getUrl() {
-        return url;
+        return urls.isEmpty() ? null : urls.get(0);
+    }
+
+    /**
+     * The URLs of all the endpoints serving the druid service, the primary endpoint first.
+     *
+     * @return the URLs as strings
+     */
+    public List<String> getUrls() {
+        return urls;
     }
 
     /**
@@ -54,12 +122,22 @@ public class DruidServiceConfig {
         return priority;
     }
 
+    /**
+     * The encoding of queries sent to, and responses requested from, the druid service.
+     *
+     * @return the transport encoding
+     */
+    public DruidTransportEncoding getTransportEncoding() {
+        return transportEncoding;
+    }
+
     @Override
     public String toString() {
         return "Druid Service config for " + name +
-                ": url: " + url +
+                ": url: " + (urls.size() > 1 ? urls : getUrl()) +
                 ", timeout: " + timeout +
-                ", priority: " + priority + ".";
+                ", priority: " + priority +
+                ", encoding: " + transportEncoding + ".";
     }
 
     /**
@@ -68,6 +146,6 @@ public class DruidServiceConfig {
      * @return A string representing the name and the URL of the druid service.
      */
     public String getNameAndUrl() {
-        return name + " " + url;
+        return name + " " + getUrl();
     }
 }
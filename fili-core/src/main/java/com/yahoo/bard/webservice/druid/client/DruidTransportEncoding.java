@@ -0,0 +1,76 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The encodings in which queries can be sent to, and responses received from, a druid service.
+ */
+public enum DruidTransportEncoding {
+    /** Text JSON. */
+    JSON("application/json", new MappingJsonFactory()),
+    /** Smile, the binary JSON encoding druid supports natively. */
+    SMILE("application/x-jackson-smile", new ObjectMapper(new SmileFactory()).getFactory());
+
+    private final String mediaType;
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param mediaType  The media type identifying this encoding in content negotiation
+     * @param jsonFactory  Factory for parsers and generators of this encoding, with a codec for reading trees
+     */
+    DruidTransportEncoding(String mediaType, JsonFactory jsonFactory) {
+        this.mediaType = mediaType;
+        this.jsonFactory = jsonFactory;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public JsonFactory getJsonFactory() {
+        return jsonFactory;
+    }
+
+    /**
+     * Find the encoding of a body with the given content type.
+     * <p>
+     * Bodies without a content type, or with a content type that isn't a known encoding, are treated as JSON.
+     *
+     * @param contentType  The value of a Content-Type header, possibly with parameters (e.g. charset)
+     *
+     * @return the encoding of the body
+     */
+    public static DruidTransportEncoding forContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        String type = contentType.split(";", 2)[0].trim();
+        return Arrays.stream(values())
+                .filter(encoding -> encoding.mediaType.equalsIgnoreCase(type))
+                .findFirst()
+                .orElse(JSON);
+    }
+
+    /**
+     * Find the encoding with the given configuration name (e.g. "json" or "smile"), ignoring case.
+     *
+     * @param name  The configured name of the encoding
+     *
+     * @return the encoding with that name
+     *
+     * @throws IllegalArgumentException if there is no encoding with that name
+     */
+    public static DruidTransportEncoding forName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -33,6 +33,31 @@ public interface DruidWebService {
             DruidQuery<?> query
     );
 
+    /**
+     * Serializes the provided query and invokes POST on the druid broker, handing the response body to the success
+     * callback as a token stream rather than as a JSON tree.
+     * <p>
+     * By default this builds the JSON tree through {@link #postDruidQuery} and streams over it, so implementations
+     * that can parse directly off of the response body should override it.
+     *
+     * @param context  The context for the Request.
+     * @param success  callback for handling successful requests.
+     * @param error  callback for handling http errors.
+     * @param failure  callback for handling exception failures.
+     * @param query  The druid query object to serialize.
+     *
+     * @return a future response to the post query.
+     */
+    default Future<Response> streamDruidQuery(
+            RequestContext context,
+            StreamingSuccessCallback success,
+            HttpErrorCallback error,
+            FailureCallback failure,
+            DruidQuery<?> query
+    ) {
+        return postDruidQuery(context, rootNode -> success.invoke(rootNode.traverse()), error, failure, query);
+    }
+
     /**
      * Invokes GET on the druid broker with a callback expecting a JSON Object on success.
      *
@@ -0,0 +1,20 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Callback from the async HTTP client on success, receiving the response as a token stream rather than a JSON tree.
+ */
+@FunctionalInterface
+public interface StreamingSuccessCallback {
+    /**
+     * Invoke the success callback code.
+     * <p>
+     * The parser is only valid for the duration of the call and is closed once the callback returns.
+     *
+     * @param parser  Parser over the body of the response, positioned before the first token
+     */
+    void invoke(JsonParser parser);
+}
@@ -2,18 +2,26 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.druid.client.impl;
 
+import static com.yahoo.bard.webservice.web.ErrorMessageFormat.DRUID_QUERY_REJECTED;
 import static com.yahoo.bard.webservice.web.ErrorMessageFormat.DRUID_URL_INVALID;
 import static com.yahoo.bard.webservice.web.handlers.workflow.DruidWorkflow.REQUEST_WORKFLOW_TIMER;
 import static com.yahoo.bard.webservice.web.handlers.workflow.DruidWorkflow.RESPONSE_WORKFLOW_TIMER;
 
 import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.config.BardFeatureFlag;
 import com.yahoo.bard.webservice.config.CacheFeatureFlag;
 import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
+import com.yahoo.bard.webservice.druid.client.DruidConcurrencyLimiter;
+import com.yahoo.bard.webservice.druid.client.DruidConcurrencyLimiter.Permit;
+import com.yahoo.bard.webservice.druid.client.DruidEndpointPool;
+import com.yahoo.bard.webservice.druid.client.DruidQueryLane;
 import com.yahoo.bard.webservice.druid.client.DruidServiceConfig;
+import com.yahoo.bard.webservice.druid.client.DruidTransportEncoding;
 import com.yahoo.bard.webservice.druid.client.DruidWebService;
 import com.yahoo.bard.webservice.druid.client.FailureCallback;
 import com.yahoo.bard.webservice.druid.client.HttpErrorCallback;
+import com.yahoo.bard.webservice.druid.client.StreamingSuccessCallback;
 import com.yahoo.bard.webservice.druid.client.SuccessCallback;
 import com.yahoo.bard.webservice.druid.model.query.DruidQuery;
 import com.yahoo.bard.webservice.druid.model.query.WeightEvaluationQuery;
@@ -24,10 +32,10 @@ import com.yahoo.bard.webservice.web.handlers.RequestContext;
 
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.MappingJsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
@@ -37,16 +45,22 @@ import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -72,6 +86,7 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
     public static final String DRUID_QUERY_MAX_TIMER = DRUID_QUERY_TIMER + "Max";
     public static final String DRUID_WEIGHTED_QUERY_TIMER = DRUID_TIMER + "_W_";
     public static final String DRUID_SEGMENT_METADATA_TIMER = DRUID_TIMER + "_S_0";
+    public static final String DRUID_QUEUE_TIMER = "DruidQueueWait";
 
     private static final String SSL_ENABLED_CIPHER_KEY = SYSTEM_CONFIG.getPackageVariableName(
             "org.asynchttpclient.AsyncHttpClientConfig.enabledCipherSuites"
@@ -79,10 +94,12 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
 
     /**
      * The default JSON builder puts only response body in the JSON response.
+     * <p>
+     * The body is read in the encoding named by the response content type, so both JSON and Smile bodies are supported.
      */
     public static final Function<Response, JsonNode> DEFAULT_JSON_NODE_BUILDER_STRATEGY =
             response -> {
-        try (JsonParser parser = new MappingJsonFactory().createParser(response.getResponseBodyAsStream())) {
+        try (JsonParser parser = createResponseParser(response)) {
             return parser.readValueAsTree();
         } catch (IOException ioe) {
             throw new IllegalStateException(ioe);
@@ -94,6 +111,12 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
 
     private final Function<Response, JsonNode> jsonNodeBuilderStrategy;
 
+    // Null when queries are sent without a concurrency limit
+    private final DruidConcurrencyLimiter concurrencyLimiter;
+
+    // Null when requests go straight to the single endpoint of the service
+    private final HedgingRequestExecutor endpointExecutor;
+
     /**
      * Friendly non-DI constructor useful for manual tests.
      *
@@ -231,6 +254,27 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
         this.exceptionMeter = REGISTRY.meter("druid.errors.exceptions");
 
         this.jsonNodeBuilderStrategy = jsonNodeBuilderStrategy;
+        this.concurrencyLimiter = BardFeatureFlag.DRUID_CONCURRENCY_LIMIT.isOn()
+                ? new DruidConcurrencyLimiter(config.getName())
+                : null;
+        this.endpointExecutor = buildEndpointExecutor(config, asyncHttpClient);
+    }
+
+    /**
+     * Build the executor that spreads, retries and hedges requests across the endpoints of the service.
+     *
+     * @param config  the configuration for this druid service
+     * @param asyncHttpClient  the HTTP client
+     *
+     * @return the executor, or null if requests can go straight to the only endpoint, without retries
+     */
+    protected HedgingRequestExecutor buildEndpointExecutor(DruidServiceConfig config, AsyncHttpClient asyncHttpClient) {
+        List<String> urls = config.getUrls();
+        if (urls == null || urls.isEmpty()) {
+            return null;
+        }
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(asyncHttpClient, new DruidEndpointPool(urls));
+        return urls.size() > 1 || executor.getMaxRetries() > 0 ? executor : null;
     }
 
     /**
@@ -263,6 +307,21 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
     }
 
 
+    /**
+     * Create a parser over the body of a response, in the encoding named by the response content type.
+     *
+     * @param response  The response to parse
+     *
+     * @return a parser, with a codec for reading trees, positioned before the first token of the body
+     *
+     * @throws IOException if the parser cannot be created
+     */
+    public static JsonParser createResponseParser(Response response) throws IOException {
+        return DruidTransportEncoding.forContentType(response.getContentType())
+                .getJsonFactory()
+                .createParser(response.getResponseBodyAsStream());
+    }
+
     /**
      * Serializes the provided query and invokes a request on the druid broker.
      *
@@ -282,12 +341,43 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
             final BoundRequestBuilder requestBuilder,
             final String timerName,
             final AtomicLong outstanding
+    ) {
+        return executeRequest(
+                response -> success.invoke(jsonNodeBuilderStrategy.apply(response)),
+                error,
+                failure,
+                requestBuilder,
+                timerName,
+                outstanding
+        );
+    }
+
+    /**
+     * Invokes a request on the druid broker, handing successful responses to the response handler.
+     * <p>
+     * Runtime exceptions thrown by the response handler are reported to the failure callback.
+     *
+     * @param responseHandler  handler for the responses of successful requests.
+     * @param error  callback for handling http errors.
+     * @param failure  callback for handling exception failures.
+     * @param requestBuilder  The bound request builder for the request to be sent.
+     * @param timerName  The name that distinguishes this request as part of a druid query or segment metadata request
+     * @param outstanding  The counter that keeps track of the outstanding (in flight) requests for the top level query
+     *
+     * @return a future response for the query being sent
+     */
+    protected Future<Response> executeRequest(
+            final Consumer<Response> responseHandler,
+            final HttpErrorCallback error,
+            final FailureCallback failure,
+            final BoundRequestBuilder requestBuilder,
+            final String timerName,
+            final AtomicLong outstanding
     ) {
         RequestLog.startTiming(timerName);
         final RequestLog logCtx = RequestLog.dump();
         try {
-            return requestBuilder.execute(
-                new AsyncCompletionHandler<Response>() {
+            AsyncCompletionHandler<Response> handler = new AsyncCompletionHandler<Response>() {
                     @Override
                     public Response onCompleted(Response response) {
                         String druidQueryId = response.getHeader("X-Druid-Query-Id");
@@ -298,7 +388,7 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
                             markError(status, response, druidQueryId, error);
                         } else {
                             try {
-                                success.invoke(jsonNodeBuilderStrategy.apply(response));
+                                responseHandler.accept(response);
                             } catch (RuntimeException e) {
                                 failure.invoke(e);
                             }
@@ -320,7 +410,10 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
                         LOG.error("druid {} request failed:", serviceConfig.getNameAndUrl(), t);
                         failure.invoke(t);
                     }
-                });
+                };
+            return endpointExecutor == null
+                    ? requestBuilder.execute(handler)
+                    : executeAcrossEndpoints(requestBuilder, handler);
         } catch (RuntimeException t) {
             RequestLog.restore(logCtx);
             RequestLog.stopTiming(timerName);
@@ -333,6 +426,32 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
         }
     }
 
+    /**
+     * Send a request through the endpoint executor, handing its outcome to the handler.
+     *
+     * @param requestBuilder  The bound request builder for the request, addressed to the primary endpoint
+     * @param handler  The handler for the response, or the failure to get one
+     *
+     * @return a future response for the request
+     */
+    private Future<Response> executeAcrossEndpoints(
+            BoundRequestBuilder requestBuilder,
+            AsyncCompletionHandler<Response> handler
+    ) {
+        return endpointExecutor.execute(requestBuilder.build(), serviceConfig.getUrl())
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        handler.onThrowable(throwable);
+                        return;
+                    }
+                    try {
+                        handler.onCompleted(response);
+                    } catch (Exception e) {
+                        handler.onThrowable(e);
+                    }
+                });
+    }
+
     @Override
     public Future<Response> getJsonObject(
             SuccessCallback success,
@@ -343,6 +462,9 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
         String url = String.format("%s%s", serviceConfig.getUrl(), resourcePath);
 
         BoundRequestBuilder requestBuilder = webClient.prepareGet(url);
+        if (getTransportEncoding() != DruidTransportEncoding.JSON) {
+            requestBuilder.addHeader("Accept", getTransportEncoding().getMediaType());
+        }
         headersToAppend.get().forEach(requestBuilder::addHeader);
 
         return sendRequest(
@@ -362,13 +484,87 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
             HttpErrorCallback error,
             FailureCallback failure,
             DruidQuery<?> druidQuery
+    ) {
+        return postDruidQuery(
+                context,
+                druidQuery,
+                error,
+                failure,
+                (requestBuilder, timerName, outstanding, permit) -> sendRequest(
+                        rootNode -> {
+                            permit.release(false);
+                            success.invoke(rootNode);
+                        },
+                        releasing(permit, error),
+                        releasing(permit, failure),
+                        requestBuilder,
+                        timerName,
+                        outstanding
+                )
+        );
+    }
+
+    @Override
+    public Future<Response> streamDruidQuery(
+            RequestContext context,
+            StreamingSuccessCallback success,
+            HttpErrorCallback error,
+            FailureCallback failure,
+            DruidQuery<?> druidQuery
+    ) {
+        return postDruidQuery(
+                context,
+                druidQuery,
+                error,
+                failure,
+                (requestBuilder, timerName, outstanding, permit) -> executeRequest(
+                        response -> {
+                            permit.release(false);
+                            try (JsonParser parser = createResponseParser(response)) {
+                                success.invoke(parser);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        },
+                        releasing(permit, error),
+                        releasing(permit, failure),
+                        requestBuilder,
+                        timerName,
+                        outstanding
+                )
+        );
+    }
+
+    /**
+     * Serializes the provided query, prepares a POST of it to the druid broker and hands the request off to be sent.
+     *
+     * @param context  The context for the Request.
+     * @param druidQuery  The druid query object to serialize.
+     * @param error  callback for handling http errors, including rejection by the concurrency limit.
+     * @param failure  callback for handling a failure to send a request that waited for the concurrency limit.
+     * @param sender  Sends the prepared request
+     *
+     * @return a future response to the post query.
+     */
+    private Future<Response> postDruidQuery(
+            RequestContext context,
+            DruidQuery<?> druidQuery,
+            HttpErrorCallback error,
+            FailureCallback failure,
+            RequestSender sender
     ) {
         long seqNum = druidQuery.getContext().getSequenceNumber();
-        String entityBody;
+        DruidTransportEncoding encoding = getTransportEncoding();
+        String entityBody = null;
+        byte[] encodedEntityBody = null;
         RequestLog.startTiming("DruidQuerySerializationSeq" + seqNum);
         try {
-            entityBody = writer.writeValueAsString(druidQuery);
-        } catch (JsonProcessingException e) {
+            if (encoding == DruidTransportEncoding.JSON) {
+                entityBody = writer.writeValueAsString(druidQuery);
+            } else {
+                encodedEntityBody = encode(druidQuery, encoding);
+            }
+        } catch (IOException e) {
             throw new IllegalStateException(e);
         } finally {
             RequestLog.stopTiming("DruidQuerySerializationSeq" + seqNum);
@@ -390,21 +586,210 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
             timerName = DRUID_WEIGHTED_QUERY_TIMER + String.format(format, seqNum);
         }
 
-        BoundRequestBuilder requestBuilder = webClient.preparePost(serviceConfig.getUrl())
-                .setBody(entityBody)
-                .addHeader("Content-Type", "application/json; charset=UTF-8");
+        BoundRequestBuilder requestBuilder = webClient.preparePost(serviceConfig.getUrl());
+        if (encoding == DruidTransportEncoding.JSON) {
+            requestBuilder.setBody(entityBody)
+                    .addHeader("Content-Type", "application/json; charset=UTF-8");
+            LOG.debug("druid json request: {}", entityBody);
+        } else {
+            requestBuilder.setBody(encodedEntityBody)
+                    .addHeader("Content-Type", encoding.getMediaType())
+                    .addHeader("Accept", encoding.getMediaType());
+            if (LOG.isDebugEnabled()) {
+                try {
+                    LOG.debug("druid {} request: {}", encoding, writer.writeValueAsString(druidQuery));
+                } catch (JsonProcessingException e) {
+                    LOG.debug("druid {} request could not be rendered as json", encoding, e);
+                }
+            }
+        }
 
         headersToAppend.get().forEach(requestBuilder::addHeader);
 
-        LOG.debug("druid json request: {}", entityBody);
-        return sendRequest(
-                success,
-                error,
-                failure,
-                requestBuilder,
-                timerName,
-                outstanding
+        return sendWithinLimit(context, requestBuilder, timerName, outstanding, error, failure, sender);
+    }
+
+    /**
+     * Send a prepared request once the concurrency limit allows it.
+     * <p>
+     * Requests over the limit wait in the lane of their request, carrying the request log along, and are rejected with
+     * a service unavailable error if the lane is full or they wait too long. The permit of a request the sender fails
+     * to send is returned, since no response will ever return it.
+     *
+     * @param context  The context for the Request.
+     * @param requestBuilder  The bound request builder for the request to be sent.
+     * @param timerName  The name that distinguishes this request as part of a druid query
+     * @param outstanding  The counter that keeps track of the outstanding (in flight) requests for the query
+     * @param error  callback for handling the rejection of the request
+     * @param failure  callback for handling a failure to send the request once it was admitted from the queue
+     * @param sender  Sends the prepared request
+     *
+     * @return a future response to the request
+     */
+    private Future<Response> sendWithinLimit(
+            RequestContext context,
+            BoundRequestBuilder requestBuilder,
+            String timerName,
+            AtomicLong outstanding,
+            HttpErrorCallback error,
+            FailureCallback failure,
+            RequestSender sender
+    ) {
+        if (concurrencyLimiter == null) {
+            return sender.send(requestBuilder, timerName, outstanding, DruidConcurrencyLimiter.UNLIMITED);
+        }
+        Optional<Permit> permit = concurrencyLimiter.tryAcquire();
+        if (permit.isPresent()) {
+            try {
+                return sender.send(requestBuilder, timerName, outstanding, permit.get());
+            } catch (RuntimeException e) {
+                permit.get().cancel();
+                throw e;
+            }
+        }
+
+        DruidQueryLane lane = DruidQueryLane.forContext(context);
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        RequestLog.startTiming(DRUID_QUEUE_TIMER);
+        RequestLog logCtx = RequestLog.dump();
+        concurrencyLimiter.enqueue(
+                lane,
+                admitted -> withRequestLog(logCtx, () -> {
+                    RequestLog.stopTiming(DRUID_QUEUE_TIMER);
+                    Future<Response> sent;
+                    try {
+                        sent = sender.send(requestBuilder, timerName, outstanding, admitted);
+                    } catch (RuntimeException e) {
+                        // Nobody is left to rethrow to, since this runs on whichever thread admitted the request
+                        admitted.cancel();
+                        if (outstanding.decrementAndGet() == 0) {
+                            RequestLog.startTiming(RESPONSE_WORKFLOW_TIMER);
+                        }
+                        LOG.error("druid {} request could not be sent: ", serviceConfig.getNameAndUrl(), e);
+                        failure.invoke(e);
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    completeWith(future, sent);
+                }),
+                rejection -> withRequestLog(logCtx, () -> {
+                    RequestLog.stopTiming(DRUID_QUEUE_TIMER);
+                    if (outstanding.decrementAndGet() == 0) {
+                        RequestLog.startTiming(RESPONSE_WORKFLOW_TIMER);
+                    }
+                    LOG.warn(DRUID_QUERY_REJECTED.logFormat(
+                            serviceConfig.getNameAndUrl(),
+                            lane.getName(),
+                            rejection.getMessage()
+                    ));
+                    error.invoke(
+                            Status.SERVICE_UNAVAILABLE.getStatusCode(),
+                            Status.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                            DRUID_QUERY_REJECTED.format()
+                    );
+                    future.completeExceptionally(rejection);
+                })
         );
+        return future;
+    }
+
+    /**
+     * Run an action on the request log of another request, restoring the request log of the current thread after.
+     *
+     * @param logCtx  The request log to run the action on
+     * @param action  The action to run
+     */
+    private static void withRequestLog(RequestLog logCtx, Runnable action) {
+        RequestLog current = RequestLog.dump();
+        RequestLog.restore(logCtx);
+        try {
+            action.run();
+        } finally {
+            RequestLog.restore(current);
+        }
+    }
+
+    /**
+     * Complete a future with the outcome of another.
+     *
+     * @param future  The future to complete
+     * @param sent  The future of the request that was sent
+     */
+    @SuppressWarnings("unchecked")
+    private static void completeWith(CompletableFuture<Response> future, Future<Response> sent) {
+        CompletableFuture<Response> outcome = sent instanceof ListenableFuture
+                ? ((ListenableFuture<Response>) sent).toCompletableFuture()
+                : (CompletableFuture<Response>) sent;
+        outcome.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(response);
+            }
+        });
+    }
+
+    /**
+     * Wrap an error callback to return a concurrency permit before handling the error.
+     *
+     * @param permit  The permit to return
+     * @param error  The callback to wrap
+     *
+     * @return the wrapped callback
+     */
+    private HttpErrorCallback releasing(Permit permit, HttpErrorCallback error) {
+        return (statusCode, reasonPhrase, responseBody) -> {
+            permit.release(isOverloaded(statusCode));
+            error.invoke(statusCode, reasonPhrase, responseBody);
+        };
+    }
+
+    /**
+     * Wrap a failure callback to return a concurrency permit before handling the failure.
+     * <p>
+     * A failure to get any response, such as a timeout, is taken as a sign of an overloaded service.
+     *
+     * @param permit  The permit to return
+     * @param failure  The callback to wrap
+     *
+     * @return the wrapped callback
+     */
+    private FailureCallback releasing(Permit permit, FailureCallback failure) {
+        return throwable -> {
+            permit.release(true);
+            failure.invoke(throwable);
+        };
+    }
+
+    /**
+     * Check if a response status shows the druid service to be overloaded.
+     *
+     * @param statusCode  The status code of the response
+     *
+     * @return true if druid is turning queries away or timing out
+     */
+    protected boolean isOverloaded(int statusCode) {
+        return statusCode == 429
+                || statusCode == Status.SERVICE_UNAVAILABLE.getStatusCode()
+                || statusCode == Status.GATEWAY_TIMEOUT.getStatusCode();
+    }
+
+    /**
+     * Serialize a druid query in a binary transport encoding.
+     *
+     * @param druidQuery  The query to serialize
+     * @param encoding  The encoding to serialize the query in
+     *
+     * @return the encoded query
+     *
+     * @throws IOException if the query cannot be serialized
+     */
+    private byte[] encode(DruidQuery<?> druidQuery, DruidTransportEncoding encoding) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = encoding.getJsonFactory().createGenerator(out)) {
+            writer.writeValue(generator, druidQuery);
+        }
+        return out.toByteArray();
     }
 
     @Override
@@ -429,6 +814,16 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
         return serviceConfig;
     }
 
+    /**
+     * The encoding used to talk to the druid service, JSON unless the service config says otherwise.
+     *
+     * @return the transport encoding
+     */
+    protected DruidTransportEncoding getTransportEncoding() {
+        DruidTransportEncoding encoding = serviceConfig.getTransportEncoding();
+        return encoding == null ? DruidTransportEncoding.JSON : encoding;
+    }
+
     /**
      * <ol>
      *     <li>Logs request using RequestLog,</li>
@@ -494,19 +889,62 @@ public class AsyncDruidWebServiceImpl implements DruidWebService {
      */
     private void markError(Status status, Response response, String druidQueryId, HttpErrorCallback error) {
         getHttpErrorMeter().mark();
+        String responseBody = readErrorBody(response);
         LOG.debug(
                 "druid {} error: {} {} {} and druid query id: {}",
                 getServiceConfig().getNameAndUrl(),
                 status.getStatusCode(),
                 status.getReasonPhrase(),
-                response.getResponseBody(),
+                responseBody,
                 druidQueryId
         );
 
         error.invoke(
                 status.getStatusCode(),
                 status.getReasonPhrase(),
-                response.getResponseBody()
+                responseBody
+        );
+    }
+
+    /**
+     * Read the body of an error response as text, rendering binary encoded bodies as JSON.
+     *
+     * @param response  The druid error response
+     *
+     * @return the body of the response as text
+     */
+    private String readErrorBody(Response response) {
+        if (DruidTransportEncoding.forContentType(response.getContentType()) == DruidTransportEncoding.JSON) {
+            return response.getResponseBody();
+        }
+        try {
+            return writer.writeValueAsString(DEFAULT_JSON_NODE_BUILDER_STRATEGY.apply(response));
+        } catch (JsonProcessingException | RuntimeException e) {
+            LOG.debug("Unable to decode druid {} error response", response.getContentType(), e);
+            return response.getResponseBody();
+        }
+    }
+
+    /**
+     * Sends a prepared request to the druid broker.
+     */
+    @FunctionalInterface
+    private interface RequestSender {
+        /**
+         * Send the request.
+         *
+         * @param requestBuilder  The bound request builder for the request to be sent.
+         * @param timerName  The name that distinguishes this request as part of a druid query
+         * @param outstanding  The counter that keeps track of the outstanding (in flight) requests for the query
+         * @param permit  The concurrency permit for the request, to be returned once its response arrives
+         *
+         * @return a future response for the request being sent
+         */
+        Future<Response> send(
+                BoundRequestBuilder requestBuilder,
+                String timerName,
+                AtomicLong outstanding,
+                Permit permit
         );
     }
 }
@@ -0,0 +1,339 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client.impl;
+
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+import com.yahoo.bard.webservice.druid.client.DruidEndpointPool;
+import com.yahoo.bard.webservice.druid.client.DruidEndpointPool.Endpoint;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import org.asynchttpclient.AsyncCompletionHandlerBase;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilder;
+import org.asynchttpclient.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Sends requests for a druid service across a pool of endpoints, retrying and hedging them.
+ * <p>
+ * A request is first sent to an endpoint picked from the pool. Requests that fail in ways that are safe to repeat,
+ * failing to connect or a service unavailable response, are retried on another endpoint. A request that has not been
+ * answered within the configured percentile of recent latencies is hedged: a duplicate is sent to another endpoint,
+ * and whichever answers first is used while the other is cancelled.
+ */
+public class HedgingRequestExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(HedgingRequestExecutor.class);
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+    protected static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    // Property names
+    protected static final @NotNull String MAX_RETRIES_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_request_max_retries");
+    protected static final @NotNull String HEDGE_PERCENTILE_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_hedge_latency_percentile");
+    protected static final @NotNull String HEDGE_MIN_DELAY_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_hedge_min_delay");
+
+    // Default values
+    protected static final int DEFAULT_MAX_RETRIES = 0;
+    protected static final double DEFAULT_HEDGE_PERCENTILE = 95;
+    protected static final long DEFAULT_HEDGE_MIN_DELAY = 50;
+
+    public static final Meter RETRIES = REGISTRY.meter("druid.requests.retries");
+    public static final Meter HEDGES = REGISTRY.meter("druid.requests.hedges");
+    public static final Meter HEDGE_WINS = REGISTRY.meter("druid.requests.hedges.wins");
+
+    /**
+     * Timer thread for hedges, shared by all executors. Hedges only start a request, so one thread is plenty.
+     */
+    private static final ScheduledExecutorService HEDGE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "druid-hedge-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    private final AsyncHttpClient webClient;
+    private final DruidEndpointPool endpoints;
+    private final int maxRetries;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayNanos;
+
+    /**
+     * Build an executor from configuration.
+     *
+     * @param webClient  The client to send requests with
+     * @param endpoints  The endpoints to send requests to
+     */
+    public HedgingRequestExecutor(AsyncHttpClient webClient, DruidEndpointPool endpoints) {
+        this(
+                webClient,
+                endpoints,
+                SYSTEM_CONFIG.getIntProperty(MAX_RETRIES_KEY, DEFAULT_MAX_RETRIES),
+                SYSTEM_CONFIG.getDoubleProperty(HEDGE_PERCENTILE_KEY, DEFAULT_HEDGE_PERCENTILE),
+                SYSTEM_CONFIG.getLongProperty(HEDGE_MIN_DELAY_KEY, DEFAULT_HEDGE_MIN_DELAY)
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param webClient  The client to send requests with
+     * @param endpoints  The endpoints to send requests to
+     * @param maxRetries  The most times a request is retried after a failure that is safe to repeat
+     * @param hedgePercentile  The percentile of recent latencies to wait for before hedging, 0 to never hedge
+     * @param hedgeMinDelay  The least time in milliseconds to wait before hedging
+     */
+    public HedgingRequestExecutor(
+            AsyncHttpClient webClient,
+            DruidEndpointPool endpoints,
+            int maxRetries,
+            double hedgePercentile,
+            long hedgeMinDelay
+    ) {
+        this.webClient = webClient;
+        this.endpoints = endpoints;
+        this.maxRetries = maxRetries;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeMinDelay);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Send a request.
+     *
+     * @param request  The request, addressed to the primary endpoint of the service
+     * @param primaryUrl  The URL of the primary endpoint, which prefixes the request URL
+     *
+     * @return the response of the attempt that answered, or the failure of the last attempt
+     */
+    public CompletableFuture<Response> execute(Request request, String primaryUrl) {
+        String path = request.getUrl().startsWith(primaryUrl) ? request.getUrl().substring(primaryUrl.length()) : "";
+        HedgedRequest hedgedRequest = new HedgedRequest(request, path);
+        hedgedRequest.start();
+        return hedgedRequest.result;
+    }
+
+    /**
+     * Check if a failure to get a response is safe to retry.
+     * <p>
+     * Only failures to connect are retried, since the request cannot have reached druid.
+     *
+     * @param throwable  The failure
+     *
+     * @return true if the request can be sent again
+     */
+    protected boolean isRetryable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a response is a refusal that is safe to retry elsewhere.
+     *
+     * @param response  The response
+     *
+     * @return true if the request can be sent again
+     */
+    protected boolean isRetryable(Response response) {
+        return response.getStatusCode() == Status.SERVICE_UNAVAILABLE.getStatusCode();
+    }
+
+    /**
+     * The attempts made for one request, of which the first to answer is used.
+     */
+    private class HedgedRequest {
+        private final Request request;
+        private final String path;
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+        // Guarded by this
+        private final List<Attempt> attempts = new ArrayList<>();
+        private final List<Endpoint> tried = new ArrayList<>();
+        private int retries = 0;
+        private boolean hedged = false;
+        private boolean decided = false;
+
+        /**
+         * Constructor.
+         *
+         * @param request  The request, addressed to the primary endpoint
+         * @param path  The part of the request URL after the endpoint URL
+         */
+        HedgedRequest(Request request, String path) {
+            this.request = request;
+            this.path = path;
+        }
+
+        /**
+         * Send the first attempt, and schedule the hedge.
+         */
+        void start() {
+            send(false);
+            if (hedgePercentile <= 0 || endpoints.size() < 2) {
+                return;
+            }
+            long delay = endpoints.getLatencyPercentile(hedgePercentile);
+            if (delay < 0) {
+                return;
+            }
+            HEDGE_SCHEDULER.schedule(this::hedge, Math.max(delay, hedgeMinDelayNanos), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Send a duplicate to another endpoint, if the request is still waiting on its only attempt.
+         */
+        private void hedge() {
+            synchronized (this) {
+                if (decided || hedged || attempts.size() != 1) {
+                    return;
+                }
+                hedged = true;
+            }
+            HEDGES.mark();
+            send(true);
+        }
+
+        /**
+         * Send an attempt to an endpoint that has not been tried yet, where possible.
+         *
+         * @param hedge  True if the attempt is a hedge
+         */
+        private void send(boolean hedge) {
+            Attempt attempt;
+            synchronized (this) {
+                Endpoint endpoint = endpoints.select(tried);
+                tried.add(endpoint);
+                attempt = new Attempt(endpoint, hedge);
+                attempts.add(attempt);
+            }
+            Request addressed = new RequestBuilder(request).setUrl(attempt.endpoint.getUrl() + path).build();
+            try {
+                attempt.future = webClient.executeRequest(addressed, new AsyncCompletionHandlerBase());
+                attempt.future.addListener(() -> onComplete(attempt), Runnable::run);
+            } catch (RuntimeException e) {
+                onOutcome(attempt, null, e);
+            }
+        }
+
+        /**
+         * Read the outcome of a completed attempt.
+         *
+         * @param attempt  The attempt that completed
+         */
+        private void onComplete(Attempt attempt) {
+            try {
+                onOutcome(attempt, attempt.future.get(), null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                onOutcome(attempt, null, e);
+            } catch (Exception e) {
+                onOutcome(attempt, null, e.getCause() == null ? e : e.getCause());
+            }
+        }
+
+        /**
+         * Use the outcome of an attempt, or retry.
+         *
+         * @param attempt  The attempt that completed
+         * @param response  The response, if there was one
+         * @param throwable  The failure, if there was no response
+         */
+        private void onOutcome(Attempt attempt, Response response, Throwable throwable) {
+            boolean retryable = response == null ? isRetryable(throwable) : isRetryable(response);
+            boolean retry = false;
+            List<Attempt> losers = new ArrayList<>();
+            synchronized (this) {
+                if (decided) {
+                    return;
+                }
+                attempts.remove(attempt);
+                if (retryable && retries < maxRetries) {
+                    retries++;
+                    retry = true;
+                } else if ((retryable || response == null) && !attempts.isEmpty()) {
+                    // Another attempt is still out, wait for it instead
+                    endpoints.recordFailure(attempt.endpoint);
+                    return;
+                } else {
+                    decided = true;
+                    losers.addAll(attempts);
+                    attempts.clear();
+                }
+            }
+
+            if (retryable || response == null) {
+                endpoints.recordFailure(attempt.endpoint);
+            } else {
+                endpoints.recordSuccess(attempt.endpoint, System.nanoTime() - attempt.start);
+            }
+
+            if (retry) {
+                LOG.debug("Retrying druid request failed on {}", attempt.endpoint.getUrl(), throwable);
+                RETRIES.mark();
+                send(false);
+                return;
+            }
+
+            // Losers are ignored when they complete, including a loser still being sent that has no future yet
+            losers.stream()
+                    .filter(loser -> loser.future != null)
+                    .forEach(loser -> loser.future.cancel(true));
+            if (attempt.hedge) {
+                HEDGE_WINS.mark();
+            }
+            if (response != null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(throwable);
+            }
+        }
+    }
+
+    /**
+     * One attempt at sending a request.
+     */
+    private static class Attempt {
+        private final Endpoint endpoint;
+        private final boolean hedge;
+        private final long start = System.nanoTime();
+        private volatile ListenableFuture<Response> future;
+
+        /**
+         * Constructor.
+         *
+         * @param endpoint  The endpoint the attempt is sent to
+         * @param hedge  True if the attempt is a hedge
+         */
+        Attempt(Endpoint endpoint, boolean hedge) {
+            this.endpoint = endpoint;
+            this.hedge = hedge;
+        }
+    }
+}
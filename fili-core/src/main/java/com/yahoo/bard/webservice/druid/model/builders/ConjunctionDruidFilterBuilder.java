@@ -4,6 +4,7 @@ package com.yahoo.bard.webservice.druid.model.builders;
 
 import static com.yahoo.bard.webservice.web.ErrorMessageFormat.TOO_MANY_DRUID_FILTERS;
 
+import com.yahoo.bard.webservice.config.BardFeatureFlag;
 import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.dimension.Dimension;
@@ -15,6 +16,9 @@ import com.yahoo.bard.webservice.druid.model.dimension.extractionfunction.Extrac
 import com.yahoo.bard.webservice.druid.model.filter.AndFilter;
 import com.yahoo.bard.webservice.druid.model.filter.ExtractionFilter;
 import com.yahoo.bard.webservice.druid.model.filter.Filter;
+import com.yahoo.bard.webservice.druid.model.filter.InFilter;
+import com.yahoo.bard.webservice.druid.model.filter.OrFilter;
+import com.yahoo.bard.webservice.druid.model.filter.RegularExpressionFilter;
 import com.yahoo.bard.webservice.druid.model.filter.SearchFilter;
 import com.yahoo.bard.webservice.druid.model.filter.SelectorFilter;
 import com.yahoo.bard.webservice.exception.TooManyDruidFiltersException;
@@ -22,12 +26,16 @@ import com.yahoo.bard.webservice.web.ApiFilter;
 import com.yahoo.bard.webservice.web.DefaultFilterOperation;
 import com.yahoo.bard.webservice.web.ErrorMessageFormat;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -35,7 +43,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -53,6 +63,26 @@ public abstract class ConjunctionDruidFilterBuilder implements DruidFilterBuilde
             DEFAULT_MAX_NUM_DRUID_FILTERS
     );
 
+    // Above this many values, a disjunction of selector filters is sent to Druid in a more compact form
+    private static final int COMPACT_FILTER_THRESHOLD = SYSTEM_CONFIG.getIntProperty(
+            SYSTEM_CONFIG.getPackageVariableName("druid_filter_compact_threshold"),
+            1000
+    );
+
+    private static final long FILTER_RESOLUTION_CACHE_MAX_ROWS = SYSTEM_CONFIG.getLongProperty(
+            SYSTEM_CONFIG.getPackageVariableName("filter_resolution_cache_max_rows"),
+            1000000
+    );
+
+    /**
+     * The dimension rows matching each set of filters on a dimension, keyed by dimension, filters and the row version
+     * of the dimension, so rows resolved before a dimension is updated are never read again.
+     */
+    private static final Cache<List<Object>, TreeSet<DimensionRow>> FILTER_RESOLUTION_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(FILTER_RESOLUTION_CACHE_MAX_ROWS)
+            .<List<Object>, TreeSet<DimensionRow>>weigher((key, rows) -> rows.size() + 1)
+            .build();
+
     private static final String NON_NEGATIVE_FILTER_ERROR_FORMAT = "Negating a non-negative filter - '%s'";
 
     @Override
@@ -189,7 +219,7 @@ public abstract class ConjunctionDruidFilterBuilder implements DruidFilterBuilde
      */
     protected Set<DimensionRow> getFilteredDimensionRows(Dimension dimension, Set<ApiFilter> filters)
             throws DimensionRowNotFoundException {
-        Set<DimensionRow> rows = dimension.getSearchProvider().findFilteredDimensionRows(filters);
+        Set<DimensionRow> rows = resolveFilters(dimension, filters);
 
         if (rows.isEmpty()) {
             String msg = ErrorMessageFormat.DIMENSION_ROWS_NOT_FOUND.format(dimension.getApiName(), filters);
@@ -200,6 +230,101 @@ public abstract class ConjunctionDruidFilterBuilder implements DruidFilterBuilde
         return rows;
     }
 
+    /**
+     * Find the dimension rows matching a set of filters, reusing the rows found for the same filters until the
+     * dimension's rows change.
+     * <p>
+     * Dimensions without a row version are searched every time. Rows found in the cache are handed out as a copy, so
+     * callers can change the set they get as they could before the cache.
+     *
+     * @param dimension  The dimension being filtered
+     * @param filters  The filters being applied to the {@code dimension}
+     *
+     * @return the dimension rows matching all of the filters
+     */
+    private static TreeSet<DimensionRow> resolveFilters(Dimension dimension, Set<ApiFilter> filters) {
+        Optional<String> rowVersion = dimension.getRowVersion();
+        if (rowVersion == null || !rowVersion.isPresent() || FILTER_RESOLUTION_CACHE_MAX_ROWS <= 0) {
+            return dimension.getSearchProvider().findFilteredDimensionRows(filters);
+        }
+
+        List<Object> key = Arrays.asList(dimension, new HashSet<>(filters), rowVersion.get());
+        TreeSet<DimensionRow> rows = FILTER_RESOLUTION_CACHE.getIfPresent(key);
+        if (rows == null) {
+            rows = new TreeSet<>(dimension.getSearchProvider().findFilteredDimensionRows(filters));
+            FILTER_RESOLUTION_CACHE.put(key, rows);
+        }
+        return new TreeSet<>(rows);
+    }
+
+    /**
+     * Drop every cached filter resolution.
+     */
+    public static void invalidateFilterResolutionCache() {
+        FILTER_RESOLUTION_CACHE.invalidateAll();
+    }
+
+    /**
+     * Builds a single Druid filter matching any of a set of dimension rows.
+     * <p>
+     * Up to {@code druid_filter_compact_threshold} rows are matched by a disjunction of selector or extraction
+     * filters. Larger sets are matched by a single Druid {@code in} filter on their key values instead, unless the
+     * dimension has an extraction function, which {@code in} filters can't carry.
+     *
+     * @param dimension  The dimension to build the filter for
+     * @param rows  The set of dimension rows to match
+     *
+     * @return a Druid filter matching any of the rows
+     */
+    protected Filter buildDisjunctionFilter(Dimension dimension, Set<DimensionRow> rows) {
+        if (rows.size() > COMPACT_FILTER_THRESHOLD && !getExtractionFunction(dimension).isPresent()) {
+            return new InFilter(
+                    dimension,
+                    rows.stream().map(row -> row.get(dimension.getKey())).collect(Collectors.toList())
+            );
+        }
+        return new OrFilter(buildSelectorFilters(dimension, rows));
+    }
+
+    /**
+     * Builds a Druid regular expression filter for a {@link DefaultFilterOperation#startswith} filter on the key of a
+     * dimension that matches more than {@code druid_filter_compact_threshold} rows.
+     * <p>
+     * A prefix is much smaller than the values it matches. Druid matches every value with the prefix, not just the
+     * values of rows loaded into the dimension, which can change the results, so this is only done when
+     * {@link BardFeatureFlag#DRUID_PREFIX_REGEX_FILTER} is on.
+     *
+     * @param dimension  The dimension being filtered
+     * @param filter  The filter being applied to the {@code dimension}
+     * @param rowCount  The number of rows the filter matches
+     *
+     * @return the regular expression filter, or empty if the filter is better sent as the values it matches
+     */
+    protected Optional<Filter> buildPrefixFilter(Dimension dimension, ApiFilter filter, int rowCount) {
+        if (!BardFeatureFlag.DRUID_PREFIX_REGEX_FILTER.isOn()
+                || rowCount <= COMPACT_FILTER_THRESHOLD
+                || filter.getOperation() != DefaultFilterOperation.startswith
+                || !dimension.getKey().equals(filter.getDimensionField())
+                || getExtractionFunction(dimension).isPresent()) {
+            return Optional.empty();
+        }
+        String prefixes = filter.getValues().stream().sorted().map(Pattern::quote).collect(Collectors.joining("|"));
+        return Optional.of(new RegularExpressionFilter(dimension, Pattern.compile("^(?:" + prefixes + ")")));
+    }
+
+    /**
+     * Get the extraction function Druid applies to a dimension, if any.
+     *
+     * @param dimension  The dimension
+     *
+     * @return the extraction function, or empty if the dimension has none
+     */
+    private static Optional<ExtractionFunction> getExtractionFunction(Dimension dimension) {
+        return dimension instanceof ExtractionFunctionDimension
+                ? ((ExtractionFunctionDimension) dimension).getExtractionFunction()
+                : Optional.empty();
+    }
+
     /**
      * Builds a list of Druid selector or extraction filters.
      *
@@ -215,17 +340,13 @@ public abstract class ConjunctionDruidFilterBuilder implements DruidFilterBuilde
                 row.get(dimension.getKey())
         );
 
-        if (dimension instanceof ExtractionFunctionDimension) {
-
-            Optional<ExtractionFunction> extractionFunction = ((ExtractionFunctionDimension) dimension)
-                    .getExtractionFunction();
-            if (extractionFunction.isPresent()) {
-                filterBuilder = row -> new ExtractionFilter(
-                        dimension,
-                        row.get(dimension.getKey()),
-                        extractionFunction.get()
-                );
-            }
+        Optional<ExtractionFunction> extractionFunction = getExtractionFunction(dimension);
+        if (extractionFunction.isPresent()) {
+            filterBuilder = row -> new ExtractionFilter(
+                    dimension,
+                    row.get(dimension.getKey()),
+                    extractionFunction.get()
+            );
         }
 
         final Function<DimensionRow, Filter> finalFilterBuilder = filterBuilder;
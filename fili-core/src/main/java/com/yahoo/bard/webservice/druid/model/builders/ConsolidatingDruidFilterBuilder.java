@@ -3,11 +3,11 @@
 package com.yahoo.bard.webservice.druid.model.builders;
 
 import com.yahoo.bard.webservice.data.dimension.Dimension;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
 import com.yahoo.bard.webservice.data.dimension.DimensionRowNotFoundException;
 import com.yahoo.bard.webservice.druid.model.filter.AndFilter;
 import com.yahoo.bard.webservice.druid.model.filter.Filter;
 import com.yahoo.bard.webservice.druid.model.filter.NotFilter;
-import com.yahoo.bard.webservice.druid.model.filter.OrFilter;
 import com.yahoo.bard.webservice.web.ApiFilter;
 import com.yahoo.bard.webservice.web.DefaultFilterOperation;
 
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -61,8 +62,11 @@ public class ConsolidatingDruidFilterBuilder extends ConjunctionDruidFilterBuild
         if (!filters.stream().map(ApiFilter::getOperation).allMatch(DefaultFilterOperation.notin::equals)) {
             // The search provider returns the set of dimension rows that satisfy all the filters, which are translated
             // into a disjunction of selector filters on their ids for Druid to use.
-            List<Filter> druidFilters = buildSelectorFilters(dimension, getFilteredDimensionRows(dimension, filters));
-            return druidFilters.size() == 1 ? druidFilters.get(0) : new OrFilter(druidFilters);
+            Set<DimensionRow> rows = getFilteredDimensionRows(dimension, filters);
+            Optional<Filter> prefixFilter = filters.size() == 1
+                    ? buildPrefixFilter(dimension, filters.iterator().next(), rows.size())
+                    : Optional.empty();
+            return prefixFilter.orElseGet(() -> buildConsolidatedFilter(dimension, rows));
         }
         // The search providers do not support disjunctions across dimension|field terms, so we can't use
         // DeMorgan's Law to send the positive versions of all the filters to the search provider at once.
@@ -73,16 +77,25 @@ public class ConsolidatingDruidFilterBuilder extends ConjunctionDruidFilterBuild
         // Can't really stream because getFilteredDimensionRows throws a very specific checked exception.
         List<Filter> druidFilters = new ArrayList<>(negatedFilters.size());
         for (ApiFilter negatedFilter : negatedFilters) {
-            List<Filter> selectorFilters = buildSelectorFilters(
+            druidFilters.add(new NotFilter(buildConsolidatedFilter(
                     dimension,
                     getFilteredDimensionRows(dimension, Collections.singleton(negatedFilter))
-            );
-            druidFilters.add(new NotFilter(
-                    selectorFilters.size() == 1 ?
-                            selectorFilters.get(0) :
-                            new OrFilter(selectorFilters)
-            ));
+            )));
         }
         return druidFilters.size() == 1 ? druidFilters.get(0) : new AndFilter(druidFilters);
     }
+
+    /**
+     * Builds a Druid filter matching any of a set of dimension rows, without a disjunction around a single row.
+     *
+     * @param dimension  The dimension to build the filter for
+     * @param rows  The set of dimension rows to match
+     *
+     * @return a Druid filter matching any of the rows
+     */
+    private Filter buildConsolidatedFilter(Dimension dimension, Set<DimensionRow> rows) {
+        return rows.size() == 1
+                ? buildSelectorFilters(dimension, rows).get(0)
+                : buildDisjunctionFilter(dimension, rows);
+    }
 }
@@ -3,6 +3,7 @@
 package com.yahoo.bard.webservice.druid.model.builders;
 
 import com.yahoo.bard.webservice.data.dimension.Dimension;
+import com.yahoo.bard.webservice.data.dimension.DimensionRow;
 import com.yahoo.bard.webservice.data.dimension.DimensionRowNotFoundException;
 import com.yahoo.bard.webservice.data.dimension.impl.NoOpSearchProvider;
 import com.yahoo.bard.webservice.druid.model.filter.AndFilter;
@@ -55,10 +56,9 @@ public class DruidOrFilterBuilder extends ConjunctionDruidFilterBuilder {
                         filter.getValuesList()
                 ));
             } else {
-                disjunction = new OrFilter(buildSelectorFilters(
-                        dimension,
-                        getFilteredDimensionRows(dimension, Collections.singleton(normalizedFilter))
-                ));
+                Set<DimensionRow> rows = getFilteredDimensionRows(dimension, Collections.singleton(normalizedFilter));
+                disjunction = buildPrefixFilter(dimension, normalizedFilter, rows.size())
+                        .orElseGet(() -> buildDisjunctionFilter(dimension, rows));
             }
             orFilters.add(normalizedFilter == filter ? disjunction : new NotFilter(disjunction));
         }
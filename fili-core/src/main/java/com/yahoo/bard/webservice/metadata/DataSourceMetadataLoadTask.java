@@ -6,6 +6,7 @@ import static com.yahoo.bard.webservice.web.ErrorMessageFormat.DRUID_METADATA_RE
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 
 import com.yahoo.bard.webservice.application.LoadTask;
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
 import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.config.names.DataSourceName;
@@ -16,6 +17,7 @@ import com.yahoo.bard.webservice.druid.client.SuccessCallback;
 import com.yahoo.bard.webservice.table.PhysicalTable;
 import com.yahoo.bard.webservice.table.PhysicalTableDictionary;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.asynchttpclient.Response;
@@ -25,10 +27,22 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import javax.inject.Singleton;
 
@@ -38,12 +52,18 @@ import javax.inject.Singleton;
  * data into columns of intervals and then updates the {@link DataSourceMetadataService}.
  * <p>
  * Note that this uses the segmentMetadata query that touches the coordinator.
+ * <p>
+ * Each run queries the data sources loaded longest ago first, with at most
+ * {@code druid_seg_loader_max_concurrent_requests} queries to the coordinator in flight at a time. Responses are parsed
+ * and applied by a pool of {@code druid_seg_loader_parallelism} threads rather than the threads receiving them, and
+ * a run ends once every data source it queried has been loaded or has failed.
  */
 @Singleton
 public class DataSourceMetadataLoadTask extends LoadTask<Boolean> {
 
     private static final Logger LOG = LoggerFactory.getLogger(DataSourceMetadataLoadTask.class);
     private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
 
     public static final String DATASOURCE_METADATA_QUERY_FORMAT = "/datasources/%s?full";
 
@@ -59,12 +79,50 @@ public class DataSourceMetadataLoadTask extends LoadTask<Boolean> {
     public static final String DRUID_SEG_LOADER_TIMER_DELAY_KEY =
             SYSTEM_CONFIG.getPackageVariableName("druid_seg_loader_timer_delay");
 
+    /**
+     * Parameter specifying the most metadata queries to the coordinator in flight at a time.
+     */
+    public static final String DRUID_SEG_LOADER_MAX_CONCURRENT_REQUESTS_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_seg_loader_max_concurrent_requests");
+
+    /**
+     * Parameter specifying the number of threads parsing and applying metadata responses.
+     */
+    public static final String DRUID_SEG_LOADER_PARALLELISM_KEY =
+            SYSTEM_CONFIG.getPackageVariableName("druid_seg_loader_parallelism");
+
+    /**
+     * Prefix of the names of the timers of loading the metadata of each data source.
+     */
+    public static final String LOAD_TIMER_PREFIX = "metadata.timer.load.";
+
+    private static final int PARALLELISM = SYSTEM_CONFIG.getIntProperty(DRUID_SEG_LOADER_PARALLELISM_KEY, 2);
+
+    /**
+     * Threads parsing and applying the metadata responses, shared by all loaders.
+     */
+    private static final ExecutorService LOADER_POOL = Executors.newFixedThreadPool(
+            Math.max(PARALLELISM, 1),
+            new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "datasource-metadata-loader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+    );
+
     protected final DruidWebService druidWebService;
     protected final PhysicalTableDictionary physicalTableDictionary;
     protected final DataSourceMetadataService metadataService;
     protected final AtomicReference<DateTime> lastRunTimestamp;
     protected final ObjectMapper mapper;
     protected final FailureCallback failureCallback;
+    protected final int maxConcurrentRequests;
+    protected final Map<DataSourceName, DateTime> lastLoadTimestamps;
 
     /**
      * Datasource metadata loader fetches data from the druid coordinator and updates the datasource metadata service.
@@ -95,19 +153,76 @@ public class DataSourceMetadataLoadTask extends LoadTask<Boolean> {
         this.mapper = mapper;
         this.failureCallback = getFailureCallback();
         this.lastRunTimestamp = new AtomicReference<>();
+        this.maxConcurrentRequests = Math.max(
+                SYSTEM_CONFIG.getIntProperty(DRUID_SEG_LOADER_MAX_CONCURRENT_REQUESTS_KEY, 8),
+                1
+        );
+        this.lastLoadTimestamps = new ConcurrentHashMap<>();
     }
 
     @Override
     public void run() {
-        physicalTableDictionary.values().stream()
+        // Data sources never loaded come first, then those loaded longest ago
+        List<DataSourceName> dataSourceNames = physicalTableDictionary.values().stream()
                 .map(PhysicalTable::getDataSourceNames)
                 .flatMap(Set::stream)
                 .distinct()
-                .peek(dataSourceName -> LOG.trace("Querying metadata for datasource: {}", dataSourceName))
-                .forEach(this::queryDataSourceMetadata);
+                .sorted(Comparator.comparingLong(dataSourceName -> {
+                    DateTime lastLoad = lastLoadTimestamps.get(dataSourceName);
+                    return lastLoad == null ? Long.MIN_VALUE : lastLoad.getMillis();
+                }))
+                .collect(Collectors.toList());
+
+        // The run is over once all of its queries have finished, or it is time for the next one
+        long timeout = getRunTimeout();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Semaphore requestPermits = new Semaphore(maxConcurrentRequests);
+        try {
+            for (DataSourceName dataSourceName : dataSourceNames) {
+                if (!requestPermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    LOG.warn(
+                            "{}: Metadata queries still running after {} ms, abandoning the run before {}",
+                            getName(),
+                            timeout,
+                            dataSourceName
+                    );
+                    return;
+                }
+                LOG.trace("Querying metadata for datasource: {}", dataSourceName);
+                AtomicBoolean released = new AtomicBoolean();
+                Runnable release = () -> {
+                    if (released.compareAndSet(false, true)) {
+                        requestPermits.release();
+                    }
+                };
+                try {
+                    queryDataSourceMetadata(dataSourceName, release);
+                } catch (RuntimeException e) {
+                    release.run();
+                    LOG.error("{}: Failed to query metadata for datasource: {}", getName(), dataSourceName, e);
+                }
+            }
+            if (!requestPermits.tryAcquire(maxConcurrentRequests, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                LOG.warn("{}: Metadata queries still running after {} ms", getName(), timeout);
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("{}: Interrupted while loading datasource metadata", getName());
+            Thread.currentThread().interrupt();
+        }
         lastRunTimestamp.set(DateTime.now());
     }
 
+    /**
+     * Get how long a run may take, in milliseconds, before it stops waiting for its metadata queries.
+     * <p>
+     * A run that can't send all of its queries in that time is abandoned, and doesn't count as a run.
+     *
+     * @return the period of the loader, or a minute if it doesn't run periodically
+     */
+    protected long getRunTimeout() {
+        return isPeriodic() ? getDefinedPeriod() : TimeUnit.MINUTES.toMillis(1);
+    }
+
     /**
      * Queries Druid for updated datasource metadata and then updates the datasource metadata service.
      *
@@ -116,12 +231,65 @@ public class DataSourceMetadataLoadTask extends LoadTask<Boolean> {
      * @return The response future for the json object being queried
      */
     protected Future<Response> queryDataSourceMetadata(DataSourceName dataSourceName) {
+        return queryDataSourceMetadata(dataSourceName, () -> { });
+    }
+
+    /**
+     * Queries Druid for updated datasource metadata and then, on the loader pool, updates the datasource metadata
+     * service.
+     *
+     * @param dataSourceName  The data source to be updated.
+     * @param onCompletion  Run once when the metadata has been applied, or the query has failed
+     *
+     * @return The response future for the json object being queried
+     */
+    protected Future<Response> queryDataSourceMetadata(DataSourceName dataSourceName, Runnable onCompletion) {
         String resourcePath = String.format(DATASOURCE_METADATA_QUERY_FORMAT, dataSourceName.asName());
+        long startNanos = System.nanoTime();
+        AtomicBoolean completed = new AtomicBoolean();
+        Runnable complete = () -> {
+            if (completed.compareAndSet(false, true)) {
+                onCompletion.run();
+            }
+        };
 
-        // Success callback will update datasource metadata on success
-        SuccessCallback success = buildDataSourceMetadataSuccessCallback(dataSourceName);
-        HttpErrorCallback errorCallback = getErrorCallback(dataSourceName);
-        return druidWebService.getJsonObject(success, errorCallback, failureCallback, resourcePath);
+        // Success callback will update datasource metadata on success, away from the thread receiving the response
+        SuccessCallback update = buildDataSourceMetadataSuccessCallback(dataSourceName);
+        SuccessCallback success = rootNode -> {
+            try {
+                LOADER_POOL.execute(() -> {
+                    try {
+                        update.invoke(rootNode);
+                        lastLoadTimestamps.put(dataSourceName, DateTime.now());
+                        REGISTRY.timer(LOAD_TIMER_PREFIX + dataSourceName.asName())
+                                .update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    } catch (RuntimeException e) {
+                        failureCallback.invoke(e);
+                    } finally {
+                        complete.run();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                complete.run();
+                throw e;
+            }
+        };
+        HttpErrorCallback dataSourceErrorCallback = getErrorCallback(dataSourceName);
+        HttpErrorCallback errorCallback = (statusCode, reason, responseBody) -> {
+            try {
+                dataSourceErrorCallback.invoke(statusCode, reason, responseBody);
+            } finally {
+                complete.run();
+            }
+        };
+        FailureCallback failure = error -> {
+            try {
+                failureCallback.invoke(error);
+            } finally {
+                complete.run();
+            }
+        };
+        return druidWebService.getJsonObject(success, errorCallback, failure, resourcePath);
     }
 
     /**
@@ -200,6 +368,17 @@ public class DataSourceMetadataLoadTask extends LoadTask<Boolean> {
         return lastRunTimestamp.get();
     }
 
+    /**
+     * Return when the metadata of a data source was most recently loaded by this loader.
+     *
+     * @param dataSourceName  The data source
+     *
+     * @return The date and time of the most recent load, or null if it has not been loaded
+     */
+    public DateTime getLastLoadTimestamp(DataSourceName dataSourceName) {
+        return lastLoadTimestamps.get(dataSourceName);
+    }
+
     /**
      * Get a default callback for an http error.
      *
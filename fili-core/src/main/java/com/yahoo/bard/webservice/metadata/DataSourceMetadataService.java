@@ -2,9 +2,15 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.metadata;
 
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
 import com.yahoo.bard.webservice.data.config.names.DataSourceName;
+import com.yahoo.bard.webservice.util.IntervalSet;
 import com.yahoo.bard.webservice.util.SimplifiedIntervalList;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 
 import org.joda.time.DateTime;
@@ -14,14 +20,24 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.druid.timeline.DataSegment;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
@@ -34,6 +50,14 @@ import javax.inject.Singleton;
 @Singleton
 public class DataSourceMetadataService {
     private static final Logger LOG = LoggerFactory.getLogger(DataSourceMetadataService.class);
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+
+    public static final Timer UPDATE_TIMER = REGISTRY.timer("metadata.timer.update");
+    public static final Histogram UPDATE_ALLOCATED_BYTES = REGISTRY.histogram("metadata.histogram.update.allocated");
+    public static final Meter SEGMENTS_ADDED = REGISTRY.meter("metadata.meter.segments.added");
+    public static final Meter SEGMENTS_REMOVED = REGISTRY.meter("metadata.meter.segments.removed");
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
 
     /**
      * The container that holds the segment metadata for every table. It should support concurrent access.
@@ -43,6 +67,22 @@ public class DataSourceMetadataService {
     private final Map<DataSourceName, AtomicReference<ImmutableMap<String, SimplifiedIntervalList>>>
             allSegmentsByColumn;
 
+    /**
+     * The longest interval of any segment of each data source, which bounds how far before an instant a segment
+     * covering it can start. Only ever grows, as removing segments leaves it a valid bound.
+     */
+    private final Map<DataSourceName, Long> longestSegmentMillis;
+
+    /**
+     * Locks serializing the updates of each data source, so that no update is applied to a stale copy.
+     */
+    private final Map<DataSourceName, Object> updateLocks;
+
+    /**
+     * The number of updates that changed the segments of any data source.
+     */
+    private final AtomicLong version;
+
     /**
      * The collector that accumulates partitions of a segment.
      */
@@ -54,6 +94,18 @@ public class DataSourceMetadataService {
     public DataSourceMetadataService() {
         this.allSegmentsByTime = new ConcurrentHashMap<>();
         this.allSegmentsByColumn = new ConcurrentHashMap<>();
+        this.longestSegmentMillis = new ConcurrentHashMap<>();
+        this.updateLocks = new ConcurrentHashMap<>();
+        this.version = new AtomicLong();
+    }
+
+    /**
+     * Get the version of the metadata held, which moves on whenever the segments of any data source change.
+     *
+     * @return the version of the metadata
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     /**
@@ -93,11 +145,43 @@ public class DataSourceMetadataService {
     /**
      * Update the information with respect to the segment metadata of a particular data source.
      * This operation update both segment mappings for the dataSourceName.
+     * <p>
+     * Once a data source has been loaded, only the segments added or removed since the previous update are applied,
+     * to copies of its mappings. If no segment changed, the mappings are kept as they are.
      *
      * @param dataSourceName  The data source to which the metadata refer.
      * @param metadata  The updated datasource metadata.
      */
     public void update(DataSourceName dataSourceName, DataSourceMetadata metadata) {
+        long allocatedBefore = getAllocatedBytes();
+        try (Timer.Context ignored = UPDATE_TIMER.time()) {
+            synchronized (updateLocks.computeIfAbsent(dataSourceName, ignoredName -> new Object())) {
+                AtomicReference<ConcurrentSkipListMap<DateTime, Map<String, SegmentInfo>>> previousByTime =
+                        allSegmentsByTime.get(dataSourceName);
+                AtomicReference<ImmutableMap<String, SimplifiedIntervalList>> previousByColumn =
+                        allSegmentsByColumn.get(dataSourceName);
+                if (previousByTime == null || previousByTime.get() == null ||
+                        previousByColumn == null || previousByColumn.get() == null ||
+                        !longestSegmentMillis.containsKey(dataSourceName)) {
+                    replace(dataSourceName, metadata);
+                } else {
+                    applyChanges(dataSourceName, previousByTime.get(), previousByColumn.get(), metadata);
+                }
+            }
+        }
+        long allocatedAfter = getAllocatedBytes();
+        if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+            UPDATE_ALLOCATED_BYTES.update(allocatedAfter - allocatedBefore);
+        }
+    }
+
+    /**
+     * Build the mappings of a data source from all of its segments.
+     *
+     * @param dataSourceName  The data source to which the metadata refer
+     * @param metadata  The datasource metadata
+     */
+    private void replace(DataSourceName dataSourceName, DataSourceMetadata metadata) {
         // Group all the segments by the starting date of their interval.
         // Accumulate all the partitions of a segment in a map indexed by their identifier.
         ConcurrentSkipListMap<DateTime, Map<String, SegmentInfo>> currentByTime = groupSegmentByTime(metadata);
@@ -105,10 +189,183 @@ public class DataSourceMetadataService {
         // Group segment interval by every column present in the segment
         Map<String, SimplifiedIntervalList> currentByColumn = groupIntervalByColumn(metadata);
 
+        longestSegmentMillis.put(
+                dataSourceName,
+                metadata.getSegments().stream()
+                        .mapToLong(segment -> segment.getInterval().toDurationMillis())
+                        .max()
+                        .orElse(0L)
+        );
         allSegmentsByTime.computeIfAbsent(dataSourceName, ignored -> new AtomicReference<>())
                 .set(currentByTime);
         allSegmentsByColumn.computeIfAbsent(dataSourceName, ignored -> new AtomicReference<>())
                 .set(ImmutableMap.copyOf(currentByColumn));
+        version.incrementAndGet();
+        SEGMENTS_ADDED.mark(metadata.getSegments().size());
+    }
+
+    /**
+     * Apply the segments added and removed since the mappings of a data source were last updated.
+     * <p>
+     * Only the start times of changed segments are copied in the mapping by time. Only the columns of changed
+     * segments are recomputed in the mapping by column, and of those, only across the intervals of removed segments
+     * are the remaining segments consulted.
+     *
+     * @param dataSourceName  The data source to which the metadata refer
+     * @param previousByTime  The current partitions of the data source by their start time
+     * @param previousByColumn  The current available intervals of the data source by column
+     * @param metadata  The updated datasource metadata
+     */
+    private void applyChanges(
+            DataSourceName dataSourceName,
+            ConcurrentSkipListMap<DateTime, Map<String, SegmentInfo>> previousByTime,
+            ImmutableMap<String, SimplifiedIntervalList> previousByColumn,
+            DataSourceMetadata metadata
+    ) {
+        // Find the segments removed, leaving the added ones in the incoming segments
+        Map<String, DataSegment> added = new HashMap<>();
+        for (DataSegment segment : metadata.getSegments()) {
+            added.put(segment.getId().toString(), segment);
+        }
+        List<SegmentInfo> removed = new ArrayList<>();
+        for (Map<String, SegmentInfo> partitions : previousByTime.values()) {
+            for (SegmentInfo segmentInfo : partitions.values()) {
+                if (added.remove(segmentInfo.getIdentifier()) == null) {
+                    removed.add(segmentInfo);
+                }
+            }
+        }
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Map<DateTime, List<SegmentInfo>> removedByTime = new TreeMap<>();
+        Map<DateTime, List<SegmentInfo>> addedByTime = new TreeMap<>();
+        Map<String, List<Interval>> removedByColumn = new LinkedHashMap<>();
+        Map<String, List<Interval>> addedByColumn = new LinkedHashMap<>();
+        long longest = longestSegmentMillis.get(dataSourceName);
+        for (SegmentInfo segmentInfo : removed) {
+            removedByTime.computeIfAbsent(segmentInfo.getInterval().getStart(), ignored -> new ArrayList<>())
+                    .add(segmentInfo);
+            for (String column : segmentInfo.getColumnNames()) {
+                removedByColumn.computeIfAbsent(column, ignored -> new ArrayList<>()).add(segmentInfo.getInterval());
+            }
+        }
+        for (DataSegment segment : added.values()) {
+            SegmentInfo segmentInfo = new SegmentInfo(segment);
+            addedByTime.computeIfAbsent(segmentInfo.getInterval().getStart(), ignored -> new ArrayList<>())
+                    .add(segmentInfo);
+            for (String column : segmentInfo.getColumnNames()) {
+                addedByColumn.computeIfAbsent(column, ignored -> new ArrayList<>()).add(segmentInfo.getInterval());
+            }
+            longest = Math.max(longest, segmentInfo.getInterval().toDurationMillis());
+        }
+
+        // Copy the partitions of only the start times that changed
+        ConcurrentSkipListMap<DateTime, Map<String, SegmentInfo>> currentByTime =
+                new ConcurrentSkipListMap<>(previousByTime);
+        Set<DateTime> changedTimes = new TreeSet<>(removedByTime.keySet());
+        changedTimes.addAll(addedByTime.keySet());
+        for (DateTime start : changedTimes) {
+            Map<String, SegmentInfo> partitions = new LinkedHashMap<>(
+                    currentByTime.getOrDefault(start, Collections.emptyMap())
+            );
+            for (SegmentInfo segmentInfo : removedByTime.getOrDefault(start, Collections.emptyList())) {
+                partitions.remove(segmentInfo.getIdentifier());
+            }
+            for (SegmentInfo segmentInfo : addedByTime.getOrDefault(start, Collections.emptyList())) {
+                partitions.put(segmentInfo.getIdentifier(), segmentInfo);
+            }
+            if (partitions.isEmpty()) {
+                currentByTime.remove(start);
+            } else {
+                currentByTime.put(start, partitions);
+            }
+        }
+
+        // Recompute the availability of only the columns that changed
+        Map<String, SimplifiedIntervalList> currentByColumn = new LinkedHashMap<>(previousByColumn);
+        Set<String> changedColumns = new HashSet<>(removedByColumn.keySet());
+        changedColumns.addAll(addedByColumn.keySet());
+        for (String column : changedColumns) {
+            SimplifiedIntervalList previous = previousByColumn.get(column);
+            IntervalSet intervals = previous == null ? IntervalSet.EMPTY : previous.toIntervalSet();
+            if (removedByColumn.containsKey(column)) {
+                IntervalSet removedIntervals = IntervalSet.of(removedByColumn.get(column));
+                intervals = intervals.subtract(removedIntervals)
+                        .union(getCoveringIntervals(currentByTime, column, removedIntervals, longest));
+            }
+            if (addedByColumn.containsKey(column)) {
+                intervals = intervals.union(IntervalSet.of(addedByColumn.get(column)));
+            }
+            if (intervals.isEmpty()) {
+                currentByColumn.remove(column);
+            } else {
+                currentByColumn.put(column, intervals.toSimplifiedIntervalList());
+            }
+        }
+
+        longestSegmentMillis.put(dataSourceName, longest);
+        allSegmentsByTime.get(dataSourceName).set(currentByTime);
+        allSegmentsByColumn.get(dataSourceName).set(ImmutableMap.copyOf(currentByColumn));
+        version.incrementAndGet();
+        SEGMENTS_ADDED.mark(added.size());
+        SEGMENTS_REMOVED.mark(removed.size());
+    }
+
+    /**
+     * Find the parts of some intervals covered by segments having a column.
+     *
+     * @param segmentsByTime  The partitions of the data source by their start time
+     * @param column  The name of the column
+     * @param intervals  The intervals to cover
+     * @param longestSegmentMillis  The length of the longest segment of the data source
+     *
+     * @return the parts of the intervals for which the column is available
+     */
+    private static IntervalSet getCoveringIntervals(
+            ConcurrentSkipListMap<DateTime, Map<String, SegmentInfo>> segmentsByTime,
+            String column,
+            IntervalSet intervals,
+            long longestSegmentMillis
+    ) {
+        List<Interval> covering = new ArrayList<>();
+        for (int i = 0; i < intervals.size(); i++) {
+            long start = intervals.getStartMillis(i);
+            long end = intervals.getEndMillis(i);
+            // No segment starting longer ago than the longest segment can reach the interval
+            for (Map<String, SegmentInfo> partitions : segmentsByTime.subMap(
+                    new DateTime(start - longestSegmentMillis),
+                    true,
+                    new DateTime(end),
+                    false
+            ).values()) {
+                for (SegmentInfo segmentInfo : partitions.values()) {
+                    Interval interval = segmentInfo.getInterval();
+                    if (interval.getEndMillis() > start &&
+                            (segmentInfo.getDimensions().contains(column) ||
+                                    segmentInfo.getMetrics().contains(column))) {
+                        covering.add(interval);
+                    }
+                }
+            }
+        }
+        return IntervalSet.of(covering).intersect(intervals);
+    }
+
+    /**
+     * Get the bytes allocated by the current thread so far, where the JVM can tell.
+     *
+     * @return the bytes allocated, or -1 if they can't be measured
+     */
+    private static long getAllocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
     }
 
     /**
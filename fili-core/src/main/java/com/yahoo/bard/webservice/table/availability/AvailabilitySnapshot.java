@@ -0,0 +1,122 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.table.availability;
+
+import com.yahoo.bard.webservice.util.IntervalSet;
+import com.yahoo.bard.webservice.util.SimplifiedIntervalList;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The available intervals of a data source as of one version of its segment metadata, with the intervals available
+ * for sets of its columns computed once and kept for as long as that version is current.
+ * <p>
+ * A snapshot is bound to the map of intervals by column it was built from. The metadata service replaces that map
+ * whenever the metadata of the data source is updated, so a snapshot is current for as long as the service returns
+ * the same map. The interval lists handed out are shared by every caller and must not be modified.
+ */
+public final class AvailabilitySnapshot {
+
+    /**
+     * The most column sets whose available intervals are kept by a snapshot. Column sets past these are computed on
+     * every request, so an unusual mix of queries can't grow a snapshot without bound.
+     */
+    static final int MAX_COLUMN_SETS = 1024;
+
+    private final Map<String, SimplifiedIntervalList> allAvailableIntervals;
+    private final ConcurrentMap<Set<String>, SimplifiedIntervalList> availableIntervalsByColumns;
+    private volatile SimplifiedIntervalList availableIntervals;
+
+    /**
+     * Constructor.
+     *
+     * @param allAvailableIntervals  The intervals available for each column of the data source
+     */
+    public AvailabilitySnapshot(Map<String, SimplifiedIntervalList> allAvailableIntervals) {
+        this.allAvailableIntervals = allAvailableIntervals;
+        this.availableIntervalsByColumns = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Tell whether this snapshot was built from a map of intervals by column.
+     *
+     * @param allAvailableIntervals  The intervals available for each column, as currently supplied by the metadata
+     *
+     * @return true if the snapshot describes that very map, and so is still current
+     */
+    public boolean isSnapshotOf(Map<String, SimplifiedIntervalList> allAvailableIntervals) {
+        return this.allAvailableIntervals == allAvailableIntervals;
+    }
+
+    public Map<String, SimplifiedIntervalList> getAllAvailableIntervals() {
+        return allAvailableIntervals;
+    }
+
+    /**
+     * Get the union of the intervals available for every column.
+     *
+     * @return the intervals for which any column is available
+     */
+    public SimplifiedIntervalList getAvailableIntervals() {
+        SimplifiedIntervalList union = availableIntervals;
+        if (union == null) {
+            IntervalSet intervals = IntervalSet.EMPTY;
+            for (SimplifiedIntervalList columnIntervals : allAvailableIntervals.values()) {
+                intervals = intervals.union(columnIntervals.toIntervalSet());
+            }
+            union = intervals.toSimplifiedIntervalList();
+            availableIntervals = union;
+        }
+        return union;
+    }
+
+    /**
+     * Get the intersection of the intervals available for some columns.
+     * <p>
+     * A column the data source doesn't have is available for no intervals.
+     *
+     * @param columnNames  The physical names of the columns, of which there is at least one
+     *
+     * @return the intervals for which every one of the columns is available
+     */
+    public SimplifiedIntervalList getAvailableIntervals(Set<String> columnNames) {
+        SimplifiedIntervalList intervals = availableIntervalsByColumns.get(columnNames);
+        if (intervals != null) {
+            return intervals;
+        }
+        intervals = intersectColumns(columnNames);
+        if (availableIntervalsByColumns.size() < MAX_COLUMN_SETS) {
+            availableIntervalsByColumns.putIfAbsent(ImmutableSet.copyOf(columnNames), intervals);
+        }
+        return intervals;
+    }
+
+    /**
+     * Intersect the intervals available for some columns.
+     *
+     * @param columnNames  The physical names of the columns
+     *
+     * @return the intervals for which every one of the columns is available
+     */
+    private SimplifiedIntervalList intersectColumns(Set<String> columnNames) {
+        IntervalSet intervals = null;
+        for (String columnName : columnNames) {
+            SimplifiedIntervalList columnIntervals = allAvailableIntervals.get(columnName);
+            if (columnIntervals == null) {
+                return new SimplifiedIntervalList();
+            }
+            intervals = intervals == null ?
+                    columnIntervals.toIntervalSet() :
+                    intervals.intersect(columnIntervals.toIntervalSet());
+            if (intervals.isEmpty()) {
+                break;
+            }
+        }
+        return intervals == null ? new SimplifiedIntervalList() : intervals.toSimplifiedIntervalList();
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.validation.constraints.NotNull;
 
@@ -22,6 +23,7 @@ public abstract class BaseMetadataAvailability implements Availability {
     private final DataSourceName dataSourceName;
     private final Set<DataSourceName> dataSourceNames;
     private final DataSourceMetadataService metadataService;
+    private final AtomicReference<AvailabilitySnapshot> snapshot;
 
     /**
      * Constructor.
@@ -36,6 +38,7 @@ public abstract class BaseMetadataAvailability implements Availability {
         this.metadataService = metadataService;
         this.dataSourceName = dataSourceName;
         this.dataSourceNames = Collections.singleton(dataSourceName);
+        this.snapshot = new AtomicReference<>();
     }
 
     public DataSourceName getDataSourceName() {
@@ -61,6 +64,27 @@ public abstract class BaseMetadataAvailability implements Availability {
         return getDataSourceMetadataService().getAvailableIntervalsByDataSource(getDataSourceName());
     }
 
+    /**
+     * Get the snapshot of the current metadata of the data source, replacing the one kept if the metadata has been
+     * updated since it was taken.
+     *
+     * @return the snapshot of the available intervals
+     */
+    protected AvailabilitySnapshot getAvailabilitySnapshot() {
+        Map<String, SimplifiedIntervalList> allAvailableIntervals = getAllAvailableIntervals();
+        AvailabilitySnapshot current = snapshot.get();
+        if (current == null || !current.isSnapshotOf(allAvailableIntervals)) {
+            current = new AvailabilitySnapshot(allAvailableIntervals);
+            snapshot.set(current);
+        }
+        return current;
+    }
+
+    @Override
+    public SimplifiedIntervalList getAvailableIntervals() {
+        return getAvailabilitySnapshot().getAvailableIntervals();
+    }
+
     @Override
     public String toString() {
         return String.format("BaseMetadataAvailability for data source = %s", getDataSourceName().asName());
@@ -6,12 +6,11 @@ import com.yahoo.bard.webservice.data.config.names.DataSourceName;
 import com.yahoo.bard.webservice.table.ConfigPhysicalTable;
 import com.yahoo.bard.webservice.table.resolver.DataSourceConstraint;
 import com.yahoo.bard.webservice.table.resolver.DataSourceFilter;
+import com.yahoo.bard.webservice.util.IntervalSet;
 import com.yahoo.bard.webservice.util.SimplifiedIntervalList;
 
 import org.joda.time.DateTime;
-import org.joda.time.Interval;
 
-import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -95,16 +94,18 @@ public class PartitionAvailability extends BaseCompositeAvailability implements
      * @return The intervals which are available for the given constraint
      */
     private SimplifiedIntervalList mergeAvailabilities(DataSourceConstraint constraint) {
-        SimplifiedIntervalList unionOfAvailableIntervals = new SimplifiedIntervalList();
-        SimplifiedIntervalList unionOfMissingIntervals = new SimplifiedIntervalList();
+        // Unions are accumulated as interval sets, so that no intervals are built until the result
+        IntervalSet unionOfAvailableIntervals = IntervalSet.EMPTY;
+        IntervalSet unionOfMissingIntervals = IntervalSet.EMPTY;
         for (Availability availability : filteredAvailabilities(constraint).collect(Collectors.toSet())) {
-            unionOfAvailableIntervals = unionOfAvailableIntervals.union(availability.getAvailableIntervals(constraint));
+            IntervalSet availableIntervals = availability.getAvailableIntervals(constraint).toIntervalSet();
+            unionOfAvailableIntervals = unionOfAvailableIntervals.union(availableIntervals);
             unionOfMissingIntervals = unionOfMissingIntervals.union(
-                    getBoundedMissingIntervalsWithConstraint(availability, constraint)
+                    getBoundedMissingIntervalsWithConstraint(availability, constraint, availableIntervals)
             );
         }
 
-        return unionOfAvailableIntervals.subtract(unionOfMissingIntervals);
+        return unionOfAvailableIntervals.subtract(unionOfMissingIntervals).toSimplifiedIntervalList();
 
     }
 
@@ -113,16 +114,17 @@ public class PartitionAvailability extends BaseCompositeAvailability implements
      *
      * @param availability  The availability to find the missing intervals for
      * @param constraint  The constraint for the query
+     * @param availableIntervals  The intervals available for the query from the availability
      * @return the missing intervals
      */
-    private SimplifiedIntervalList getBoundedMissingIntervalsWithConstraint(
+    private IntervalSet getBoundedMissingIntervalsWithConstraint(
             Availability availability,
-            DataSourceConstraint constraint
+            DataSourceConstraint constraint,
+            IntervalSet availableIntervals
     ) {
-        SimplifiedIntervalList availableIntervals = availability.getAvailableIntervals(constraint);
         DateTime expectedStart = availability.getExpectedStartDate(constraint).orElse(Availability.DISTANT_PAST);
         DateTime expectedEnd = availability.getExpectedEndDate(constraint).orElse(Availability.FAR_FUTURE);
-        return new SimplifiedIntervalList(Collections.singleton(new Interval(expectedStart, expectedEnd)))
+        return IntervalSet.of(expectedStart.getMillis(), expectedEnd.getMillis(), expectedStart.getChronology())
                 .subtract(availableIntervals);
     }
 
@@ -45,9 +45,7 @@ public class PermissiveAvailability extends BaseMetadataAvailability {
      */
     @Override
     public SimplifiedIntervalList getAvailableIntervals(DataSourceConstraint ignoredConstraint) {
-        return getAllAvailableIntervals().values().stream()
-                .map(SimplifiedIntervalList::new)
-                .reduce(new SimplifiedIntervalList(), SimplifiedIntervalList::simplifyIntervals);
+        return getAvailableIntervals();
     }
 
     @Override
@@ -73,14 +73,7 @@ public class StrictAvailability extends BaseMetadataAvailability {
             return getAvailableIntervals();
         }
 
-        // Need to ensure requestColumns is not empty in order to prevent returning null by reduce operation
-        return requestColumns.stream()
-                .map(physicalName -> getAllAvailableIntervals().getOrDefault(
-                        physicalName,
-                        new SimplifiedIntervalList()
-                ))
-                .reduce(SimplifiedIntervalList::intersect)
-                .orElseGet(this::getAvailableIntervals);
+        return getAvailabilitySnapshot().getAvailableIntervals(requestColumns);
     }
 
     @Override
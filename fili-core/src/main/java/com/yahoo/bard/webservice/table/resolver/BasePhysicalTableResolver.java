@@ -3,27 +3,81 @@
 package com.yahoo.bard.webservice.table.resolver;
 
 import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.config.BardFeatureFlag;
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.table.PhysicalTable;
 import com.yahoo.bard.webservice.web.ErrorMessageFormat;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BinaryOperator;
 
 /**
  *  Abstract parent to with business rule agnostic implementations of core methods.
+ * <p>
+ * With the {@code physical_table_resolution_cache_enabled} feature flag on, the table resolved for a set of candidate
+ * tables and a constraint is reused until the availability version of the resolver changes, or for at most
+ * {@code physical_table_resolution_cache_expiration_seconds}. Resolvers without an availability version resolve every
+ * request.
  */
 public abstract class BasePhysicalTableResolver implements PhysicalTableResolver {
 
     private static final Logger LOG = LoggerFactory.getLogger(BasePhysicalTableResolver.class);
     private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    public static final Meter RESOLUTION_CACHE_HITS = REGISTRY.meter("request.physical.table.resolution.cache.hits");
+    public static final Meter RESOLUTION_CACHE_MISSES =
+            REGISTRY.meter("request.physical.table.resolution.cache.misses");
+
+    private static final long RESOLUTION_CACHE_MAX_ENTRIES = SYSTEM_CONFIG.getLongProperty(
+            SYSTEM_CONFIG.getPackageVariableName("physical_table_resolution_cache_max_entries"),
+            10000
+    );
+
+    // Volatile intervals move with time rather than with availability, so resolutions also expire
+    private static final long RESOLUTION_CACHE_EXPIRATION_SECONDS = SYSTEM_CONFIG.getLongProperty(
+            SYSTEM_CONFIG.getPackageVariableName("physical_table_resolution_cache_expiration_seconds"),
+            60
+    );
+
+    /**
+     * The table resolved for each list of candidate tables, constraint and availability version.
+     */
+    private final Cache<List<Object>, PhysicalTable> resolutionCache = CacheBuilder.newBuilder()
+            .maximumSize(RESOLUTION_CACHE_MAX_ENTRIES)
+            .expireAfterWrite(RESOLUTION_CACHE_EXPIRATION_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * Get the version of the availability of the tables this resolver chooses from, which moves on whenever the
+     * availability of any of them may have changed.
+     * <p>
+     * Resolutions are only reused while the version is the same. By default there is no version, and every request is
+     * resolved.
+     *
+     * @return the availability version, or empty if availability changes can't be told
+     */
+    protected Optional<Long> getAvailabilityVersion() {
+        return Optional.empty();
+    }
 
     /**
      * Create a list of matchers based on a request and query.
@@ -86,6 +140,77 @@ public abstract class BasePhysicalTableResolver implements PhysicalTableResolver
             Collection<PhysicalTable> candidateTables,
             QueryPlanningConstraint requestConstraint
     ) throws NoMatchFoundException {
+        Optional<Long> availabilityVersion = getAvailabilityVersion();
+        if (!BardFeatureFlag.PHYSICAL_TABLE_RESOLUTION_CACHE.isOn() || !availabilityVersion.isPresent()) {
+            return resolveUncached(candidateTables, requestConstraint);
+        }
+
+        List<Object> key = Arrays.asList(
+                new ArrayList<>(candidateTables),
+                requestConstraint,
+                availabilityVersion.get()
+        );
+        PhysicalTable bestTable = resolutionCache.getIfPresent(key);
+        if (bestTable == null) {
+            RESOLUTION_CACHE_MISSES.mark();
+            bestTable = resolveUncached(candidateTables, requestConstraint);
+            resolutionCache.put(key, bestTable);
+        } else {
+            RESOLUTION_CACHE_HITS.mark();
+            REGISTRY.meter(
+                    "request.physical.table." + bestTable.getName() + "." + bestTable.getSchema().getTimeGrain()
+            ).mark();
+            LOG.trace("Found best Table: {} among resolved tables", bestTable);
+        }
+        return bestTable;
+    }
+
+    /**
+     * Describe the resolutions currently reused, for debugging.
+     *
+     * @return the name of the table resolved for each cached constraint, described with its availability version
+     */
+    public Map<String, String> getCachedResolutions() {
+        Map<String, String> resolutions = new LinkedHashMap<>();
+        resolutionCache.asMap().forEach((key, table) -> {
+            QueryPlanningConstraint constraint = (QueryPlanningConstraint) key.get(1);
+            resolutions.put(
+                    String.format(
+                            "version %s, table %s, grain %s, columns %s, intervals %s, filters %s",
+                            key.get(2),
+                            constraint.getLogicalTable() == null ? null : constraint.getLogicalTable().getName(),
+                            constraint.getRequestGranularity(),
+                            constraint.getAllColumnNames(),
+                            constraint.getIntervals(),
+                            constraint.getApiFilters()
+                    ),
+                    table.getName()
+            );
+        });
+        return resolutions;
+    }
+
+    /**
+     * Drop every reused resolution.
+     */
+    public void invalidateResolutionCache() {
+        resolutionCache.invalidateAll();
+    }
+
+    /**
+     * Choose the best of the candidate tables matching a constraint.
+     *
+     * @param candidateTables  The tables to choose from
+     * @param requestConstraint contains the request constraints extracted from DataApiRequest and TemplateDruidQuery
+     *
+     * @return the best table
+     *
+     * @throws NoMatchFoundException if no table matches the constraint
+     */
+    protected PhysicalTable resolveUncached(
+            Collection<PhysicalTable> candidateTables,
+            QueryPlanningConstraint requestConstraint
+    ) throws NoMatchFoundException {
 
         // Minimum grain at which the request can be aggregated from
         LOG.trace(
@@ -5,6 +5,7 @@ package com.yahoo.bard.webservice.table.resolver;
 import com.yahoo.bard.webservice.config.BardFeatureFlag;
 import com.yahoo.bard.webservice.data.PartialDataHandler;
 import com.yahoo.bard.webservice.data.volatility.VolatileIntervalsService;
+import com.yahoo.bard.webservice.metadata.DataSourceMetadataService;
 import com.yahoo.bard.webservice.table.PhysicalTable;
 import com.yahoo.bard.webservice.util.ChainingComparator;
 
@@ -12,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.BinaryOperator;
 
 import javax.inject.Inject;
@@ -32,20 +34,44 @@ public class DefaultPhysicalTableResolver extends BasePhysicalTableResolver {
 
     private final PartialDataHandler partialDataHandler;
     private final VolatileIntervalsService volatileIntervalsService;
+    private final DataSourceMetadataService metadataService;
 
     /**
      * Constructor.
+     * <p>
+     * Without a metadata service to tell when availability changes, every request is resolved.
      *
      * @param partialDataHandler  Handler for to use for PartialData
      * @param volatileIntervalsService  Service to get volatile intervals from
      */
-    @Inject
     public DefaultPhysicalTableResolver(
             PartialDataHandler partialDataHandler,
             VolatileIntervalsService volatileIntervalsService
+    ) {
+        this(partialDataHandler, volatileIntervalsService, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param partialDataHandler  Handler for to use for PartialData
+     * @param volatileIntervalsService  Service to get volatile intervals from
+     * @param metadataService  Service whose version tells when the availability of tables changes
+     */
+    @Inject
+    public DefaultPhysicalTableResolver(
+            PartialDataHandler partialDataHandler,
+            VolatileIntervalsService volatileIntervalsService,
+            DataSourceMetadataService metadataService
     ) {
         this.partialDataHandler = partialDataHandler;
         this.volatileIntervalsService = volatileIntervalsService;
+        this.metadataService = metadataService;
+    }
+
+    @Override
+    protected Optional<Long> getAvailabilityVersion() {
+        return metadataService == null ? Optional.empty() : Optional.of(metadataService.getVersion());
     }
 
     @Override
@@ -45,7 +45,7 @@ public class PartialTimeComparator implements Comparator<PhysicalTable> {
         long missingDurationLeft = IntervalUtils.getTotalDuration(
                 partialDataHandler.findMissingTimeGrainIntervals(
                         left.getAvailableIntervals(requestConstraint).intersect(requestedIntervals),
-                        new SimplifiedIntervalList(requestConstraint.getIntervals()),
+                        requestedIntervals,
                         requestConstraint.getRequestGranularity(),
                         left.getName()
                 )
@@ -53,7 +53,7 @@ public class PartialTimeComparator implements Comparator<PhysicalTable> {
         long missingDurationRight = IntervalUtils.getTotalDuration(
                 partialDataHandler.findMissingTimeGrainIntervals(
                         right.getAvailableIntervals(requestConstraint).intersect(requestedIntervals),
-                        new SimplifiedIntervalList(requestConstraint.getIntervals()),
+                        requestedIntervals,
                         requestConstraint.getRequestGranularity(),
                         right.getName()
                 )
@@ -6,7 +6,6 @@ import com.yahoo.bard.webservice.data.PartialDataHandler;
 import com.yahoo.bard.webservice.data.time.Granularity;
 import com.yahoo.bard.webservice.data.volatility.VolatileIntervalsService;
 import com.yahoo.bard.webservice.table.PhysicalTable;
-import com.yahoo.bard.webservice.util.IntervalUtils;
 import com.yahoo.bard.webservice.util.SimplifiedIntervalList;
 
 import java.util.Comparator;
@@ -82,16 +81,16 @@ public class VolatileTimeComparator implements Comparator<PhysicalTable> {
         SimplifiedIntervalList requestIntervals = new SimplifiedIntervalList(requestConstraint.getIntervals());
         Granularity apiRequestGranularity = requestConstraint.getRequestGranularity();
         // First, find the volatile intervals that are also partial at the request grain.
+        SimplifiedIntervalList tableAvailability = table.getAvailableIntervals(requestConstraint);
         SimplifiedIntervalList volatilePartialRequestIntervals = partialDataHandler.findMissingTimeGrainIntervals(
-                table.getAvailableIntervals(requestConstraint),
+                tableAvailability,
                 volatileIntervalsService.getVolatileIntervals(apiRequestGranularity, requestIntervals, table),
                 apiRequestGranularity,
                 table.getName()
         );
-        //Next find the intervals on the physical table that are available.
-        SimplifiedIntervalList tableAvailability = table.getAvailableIntervals(requestConstraint);
-
-        //Take the duration of their intersection.
-        return IntervalUtils.getTotalDuration(tableAvailability.intersect(volatilePartialRequestIntervals));
+        //Take the duration of their intersection with the intervals on the physical table that are available.
+        return tableAvailability.toIntervalSet()
+                .intersect(volatilePartialRequestIntervals.toIntervalSet())
+                .getTotalDurationMillis();
     }
 }
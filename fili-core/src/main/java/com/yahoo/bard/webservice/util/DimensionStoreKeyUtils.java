@@ -20,6 +20,18 @@ public class DimensionStoreKeyUtils {
         return "last_updated_key";
     }
 
+    /**
+     * Returns a key for the field names of every layout compactly encoded dimension rows have been stored under.
+     * <p>
+     * The layouts are stored as a list, in the order they were first stored, and the id of a layout is its position in
+     * the list, counted from 1.
+     *
+     * @return The key for the layouts
+     */
+    public static String getRowLayoutsKey() {
+        return "row_layouts_key";
+    }
+
     /**
      * Returns a key for accessing all the dimension values in a
      * {@link com.yahoo.bard.webservice.data.dimension.KeyValueStore}.
@@ -0,0 +1,461 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.util;
+
+import org.joda.time.Chronology;
+import org.joda.time.Interval;
+import org.joda.time.chrono.ISOChronology;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable set of instants, held as sorted arrays of the start and end millis of the fewest intervals covering
+ * them.
+ * <p>
+ * Like a {@link SimplifiedIntervalList}, the intervals are ordered by time, and overlapping or abutting intervals are
+ * combined. Set operations walk the arrays of both sets together, writing into new arrays, so they allocate no
+ * {@link Interval}s, and containment is found by binary search. Intervals are only built when the set is read as a
+ * list.
+ * <p>
+ * A set keeps the chronology of the intervals it was built from, the first of them if they differ, and builds the
+ * intervals it is read as in that chronology, so they are equal to the intervals it was built from. The results of set
+ * operations keep the chronology of the set they were called on, or of the other set if that set is empty. Sets are
+ * equal when they hold the same instants, whatever their chronology.
+ */
+public final class IntervalSet implements Iterable<Interval> {
+
+    public static final IntervalSet EMPTY = new IntervalSet(
+            new long[0],
+            new long[0],
+            0,
+            ISOChronology.getInstanceUTC()
+    );
+
+    private final long[] starts;
+    private final long[] ends;
+    private final int size;
+    private final Chronology chronology;
+
+    /**
+     * Constructor.
+     *
+     * @param starts  The start millis of the intervals, in order, of which the first size are used
+     * @param ends  The end millis of the intervals, in order, of which the first size are used
+     * @param size  The number of intervals
+     * @param chronology  The chronology of the intervals
+     */
+    private IntervalSet(long[] starts, long[] ends, int size, Chronology chronology) {
+        this.starts = starts;
+        this.ends = ends;
+        this.size = size;
+        this.chronology = chronology;
+    }
+
+    /**
+     * Build the set of instants covered by some intervals.
+     *
+     * @param intervals  The intervals, in any order, which may overlap
+     *
+     * @return the set of instants covered by the intervals
+     */
+    public static IntervalSet of(Collection<Interval> intervals) {
+        if (intervals.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder(intervals.size(), intervals.iterator().next().getChronology());
+        if (intervals instanceof SimplifiedIntervalList) {
+            // Already in order, so the intervals only need copying
+            for (Interval interval : intervals) {
+                builder.append(interval.getStartMillis(), interval.getEndMillis());
+            }
+        } else {
+            intervals.stream()
+                    .sorted(IntervalStartComparator.INSTANCE)
+                    .forEach(interval -> builder.append(interval.getStartMillis(), interval.getEndMillis()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build the set of instants of a single interval, in the ISO chronology of the default time zone.
+     *
+     * @param startMillis  The start of the interval, inclusive
+     * @param endMillis  The end of the interval, exclusive
+     *
+     * @return the set of instants of the interval
+     */
+    public static IntervalSet of(long startMillis, long endMillis) {
+        return of(startMillis, endMillis, ISOChronology.getInstance());
+    }
+
+    /**
+     * Build the set of instants of a single interval.
+     *
+     * @param startMillis  The start of the interval, inclusive
+     * @param endMillis  The end of the interval, exclusive
+     * @param chronology  The chronology to build the interval of the set in
+     *
+     * @return the set of instants of the interval
+     */
+    public static IntervalSet of(long startMillis, long endMillis, Chronology chronology) {
+        Builder builder = new Builder(1, chronology);
+        builder.append(startMillis, endMillis);
+        return builder.build();
+    }
+
+    /**
+     * Get the number of intervals of the set.
+     *
+     * @return the number of intervals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tell whether the set has no instants.
+     *
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the start of an interval of the set.
+     *
+     * @param index  The position of the interval in time order
+     *
+     * @return the start millis of the interval
+     */
+    public long getStartMillis(int index) {
+        checkIndex(index);
+        return starts[index];
+    }
+
+    /**
+     * Get the end of an interval of the set.
+     *
+     * @param index  The position of the interval in time order
+     *
+     * @return the end millis of the interval
+     */
+    public long getEndMillis(int index) {
+        checkIndex(index);
+        return ends[index];
+    }
+
+    /**
+     * Get the chronology the intervals of the set are built in.
+     *
+     * @return the chronology
+     */
+    public Chronology getChronology() {
+        return chronology;
+    }
+
+    /**
+     * Get the total length of the intervals of the set.
+     *
+     * @return the number of millis in the set
+     */
+    public long getTotalDurationMillis() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += ends[i] - starts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Tell whether an instant is in the set.
+     *
+     * @param instant  The instant, in millis
+     *
+     * @return true if an interval of the set contains the instant
+     */
+    public boolean contains(long instant) {
+        int index = floorIndex(instant);
+        return index >= 0 && instant < ends[index];
+    }
+
+    /**
+     * Tell whether an interval is contained by a single interval of the set, as {@link Interval#contains(
+     * org.joda.time.ReadableInterval)} would tell.
+     *
+     * @param interval  The interval
+     *
+     * @return true if an interval of the set contains the interval
+     */
+    public boolean contains(Interval interval) {
+        long start = interval.getStartMillis();
+        long end = interval.getEndMillis();
+        int index = floorIndex(start);
+        return index >= 0 && start < ends[index] && end <= ends[index];
+    }
+
+    /**
+     * Tell whether every instant of another set is in this set.
+     *
+     * @param that  The other set
+     *
+     * @return true if that set is a subset of this set
+     */
+    public boolean containsAll(IntervalSet that) {
+        int i = 0;
+        for (int j = 0; j < that.size; j++) {
+            // Intervals of this set ending before that interval starts can't contain it, or any later one
+            while (i < size && ends[i] <= that.starts[j]) {
+                i++;
+            }
+            if (i == size || starts[i] > that.starts[j] || ends[i] < that.ends[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Build the set of the instants in this set or another.
+     *
+     * @param that  The other set
+     *
+     * @return the union of the sets
+     */
+    public IntervalSet union(IntervalSet that) {
+        if (that.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return that;
+        }
+        Builder builder = new Builder(size + that.size, chronology);
+        int i = 0;
+        int j = 0;
+        while (i < size || j < that.size) {
+            if (j == that.size || (i < size && starts[i] <= that.starts[j])) {
+                builder.append(starts[i], ends[i]);
+                i++;
+            } else {
+                builder.append(that.starts[j], that.ends[j]);
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build the set of the instants in both this set and another.
+     *
+     * @param that  The other set
+     *
+     * @return the intersection of the sets
+     */
+    public IntervalSet intersect(IntervalSet that) {
+        if (isEmpty() || that.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = new Builder(size + that.size, chronology);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < that.size) {
+            builder.append(Math.max(starts[i], that.starts[j]), Math.min(ends[i], that.ends[j]));
+            if (ends[i] < that.ends[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build the set of the instants in this set and not in another.
+     *
+     * @param that  The other set
+     *
+     * @return the difference of the sets
+     */
+    public IntervalSet subtract(IntervalSet that) {
+        if (isEmpty() || that.isEmpty()) {
+            return this;
+        }
+        Builder builder = new Builder(size + that.size, chronology);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            long start = starts[i];
+            long end = ends[i];
+            // Skip the intervals of that set ending before this interval starts
+            while (j < that.size && that.ends[j] <= start) {
+                j++;
+            }
+            // Cut each interval of that set overlapping this interval out of it
+            int k = j;
+            while (k < that.size && that.starts[k] < end) {
+                builder.append(start, that.starts[k]);
+                start = Math.max(start, that.ends[k]);
+                k++;
+            }
+            builder.append(start, end);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the intervals of the set, built as they are read.
+     *
+     * @return a view of the intervals of the set, in time order
+     */
+    public List<Interval> asList() {
+        return new AbstractList<Interval>() {
+            @Override
+            public Interval get(int index) {
+                checkIndex(index);
+                return new Interval(starts[index], ends[index], chronology);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Copy the intervals of the set into a simplified interval list.
+     *
+     * @return a new simplified interval list of the intervals of the set
+     */
+    public SimplifiedIntervalList toSimplifiedIntervalList() {
+        return SimplifiedIntervalList.ofSimplified(asList());
+    }
+
+    @Override
+    public Iterator<Interval> iterator() {
+        return asList().iterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntervalSet)) {
+            return false;
+        }
+        IntervalSet that = (IntervalSet) o;
+        if (size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (starts[i] != that.starts[i] || ends[i] != that.ends[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = size;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + Long.hashCode(starts[i]);
+            hash = 31 * hash + Long.hashCode(ends[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return asList().stream().map(Interval::toString).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    /**
+     * Find the last interval of the set starting at or before an instant.
+     *
+     * @param instant  The instant, in millis
+     *
+     * @return the index of the interval, or -1 if every interval starts after the instant
+     */
+    private int floorIndex(long instant) {
+        int index = Arrays.binarySearch(starts, 0, size, instant);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Check that an index is the index of an interval of the set.
+     *
+     * @param index  The index
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d of %d intervals", index, size));
+        }
+    }
+
+    /**
+     * Collects intervals appended in order of their starts into the arrays of a set, combining those that overlap or
+     * abut and dropping empty ones.
+     */
+    private static final class Builder {
+        private final Chronology chronology;
+        private long[] starts;
+        private long[] ends;
+        private int size;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity  The most intervals the set can have
+         * @param chronology  The chronology of the intervals of the set
+         */
+        Builder(int capacity, Chronology chronology) {
+            this.chronology = chronology;
+            starts = new long[capacity];
+            ends = new long[capacity];
+        }
+
+        /**
+         * Add an interval starting no earlier than those added before it.
+         *
+         * @param start  The start millis of the interval
+         * @param end  The end millis of the interval
+         */
+        void append(long start, long end) {
+            if (end <= start) {
+                return;
+            }
+            if (size > 0 && start <= ends[size - 1]) {
+                ends[size - 1] = Math.max(ends[size - 1], end);
+                return;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, Math.max(2 * size, 1));
+                ends = Arrays.copyOf(ends, Math.max(2 * size, 1));
+            }
+            starts[size] = start;
+            ends[size] = end;
+            size++;
+        }
+
+        /**
+         * Build the set of the intervals added.
+         *
+         * @return the set
+         */
+        IntervalSet build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            // Sets are kept for as long as the availabilities they describe, so don't keep unused capacity
+            return size < starts.length / 2 ?
+                    new IntervalSet(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), size, chronology) :
+                    new IntervalSet(starts, ends, size, chronology);
+        }
+    }
+}
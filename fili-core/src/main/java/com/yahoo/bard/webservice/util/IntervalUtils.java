@@ -10,7 +10,6 @@ import com.yahoo.bard.webservice.data.time.TimeGrain;
 import com.yahoo.bard.webservice.table.resolver.GranularityComparator;
 
 import org.joda.time.DateTime;
-import org.joda.time.Duration;
 import org.joda.time.Interval;
 import org.joda.time.base.AbstractInterval;
 
@@ -169,10 +168,7 @@ public class IntervalUtils {
      * @return The total duration of all the intervals
      */
     public static long getTotalDuration(Collection<Interval> intervals) {
-        return new SimplifiedIntervalList(intervals).stream()
-                .map(Interval::toDuration)
-                .mapToLong(Duration::getMillis)
-                .sum();
+        return IntervalSet.of(intervals).getTotalDurationMillis();
     }
 
     /**
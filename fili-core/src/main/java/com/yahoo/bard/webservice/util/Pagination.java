@@ -4,6 +4,7 @@ package com.yahoo.bard.webservice.util;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 
 /**
@@ -51,6 +52,15 @@ public interface Pagination<T> extends Serializable {
      */
     OptionalInt getNextPage();
 
+    /**
+     * Gets the cursor to resume from when fetching the next page, if the source of the data hands out cursors.
+     *
+     * @return The cursor of the next page
+     */
+    default Optional<String> getNextCursor() {
+        return Optional.empty();
+    }
+
     /**
      * Gets previous page if it exists.
      *
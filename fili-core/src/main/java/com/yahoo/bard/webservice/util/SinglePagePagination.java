@@ -6,6 +6,7 @@ import com.yahoo.bard.webservice.web.PageNotFoundException;
 import com.yahoo.bard.webservice.web.util.PaginationParameters;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 
 /**
@@ -19,6 +20,7 @@ public class SinglePagePagination<T> implements Pagination<T> {
     private final int countPerPage;
     private final int lastPage;
     private final int totalMatch;
+    private final String nextCursor;
 
     /**
      * Constructor.
@@ -28,6 +30,24 @@ public class SinglePagePagination<T> implements Pagination<T> {
      * @param totalMatch  The total number of results found. The single page collection is part of these results
      */
     public SinglePagePagination(List<T> entirePage, PaginationParameters paginationParameters, int totalMatch) {
+        this(entirePage, paginationParameters, totalMatch, null);
+    }
+
+    /**
+     * Constructor for a page handing out a cursor to resume from for the next page.
+     *
+     * @param entirePage  Collection of one page of data
+     * @param paginationParameters  The parameters needed for pagination
+     * @param totalMatch  The total number of results found. The single page collection is part of these results
+     * @param nextCursor  The cursor of the next page, or null if there is none
+     */
+    public SinglePagePagination(
+            List<T> entirePage,
+            PaginationParameters paginationParameters,
+            int totalMatch,
+            String nextCursor
+    ) {
+        this.nextCursor = nextCursor;
         this.pageToFetch = paginationParameters.getPage(entirePage.size());
         this.countPerPage = paginationParameters.getPerPage();
         this.totalMatch = totalMatch;
@@ -64,6 +84,11 @@ public class SinglePagePagination<T> implements Pagination<T> {
         return pageToFetch < lastPage ? OptionalInt.of(pageToFetch + 1) : OptionalInt.empty();
     }
 
+    @Override
+    public Optional<String> getNextCursor() {
+        return pageToFetch < lastPage ? Optional.ofNullable(nextCursor) : Optional.empty();
+    }
+
     @Override
     public OptionalInt getPreviousPage() {
         return pageToFetch > FIRST_PAGE ? OptionalInt.of(pageToFetch - 1) : OptionalInt.empty();
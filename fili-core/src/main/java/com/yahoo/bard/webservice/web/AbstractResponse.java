@@ -113,7 +113,9 @@ public abstract class AbstractResponse<T> implements ResponseStream {
             UriBuilder uriBuilder,
             Map<String, URI> bodyLinks
     ) {
-        link.getPage(pages).ifPresent(page -> addLink(link, page, pages.getPerPage(), uriBuilder, bodyLinks));
+        link.getPage(pages).ifPresent(
+                page -> addLink(link, page, pages.getPerPage(), link.withCursor(uriBuilder, pages), bodyLinks)
+        );
     }
 
     /**
@@ -180,7 +182,14 @@ public abstract class AbstractResponse<T> implements ResponseStream {
             Map<String, URI> bodyLinks
     ) {
         link.getPage(pages).ifPresent(
-                page -> addLink(link, page, pages.getPerPage(), uriBuilder, responseProcessor, bodyLinks)
+                page -> addLink(
+                        link,
+                        page,
+                        pages.getPerPage(),
+                        link.withCursor(uriBuilder, pages),
+                        responseProcessor,
+                        bodyLinks
+                )
         );
     }
 
@@ -130,6 +130,11 @@ public enum ErrorMessageFormat implements MessageFormatter {
 
     DRUID_URL_INVALID("Druid %s url is unset."),
 
+    DRUID_QUERY_REJECTED(
+            "Too many queries are waiting on the backend, please try again later.",
+            "Druid %s rejected a %s query: %s"
+    ),
+
     WEIGHT_CHECK_FAILED(
             "Result set too large. Try reducing interval, dimensions, or sketch metrics.",
             "The product of sketches and rows is too large: %d > %d"
@@ -124,7 +124,7 @@ public class JsonApiResponseWriter extends JsonAndJsonApiResponseWriter {
             // Write the data rows and extract the dimension rows for the sidecars
             generator.writeArrayFieldStart("rows");
             for (Result result : responseData.getResultSet()) {
-                generator.writeObject(responseData.buildResultRowWithSidecars(result, sidecars));
+                responseData.writeResultRowWithSidecars(result, sidecars, generator);
             }
             generator.writeEndArray();
 
@@ -77,7 +77,7 @@ public class JsonResponseWriter extends JsonAndJsonApiResponseWriter {
 
             g.writeArrayFieldStart("rows");
             for (Result result : responseData.getResultSet()) {
-                g.writeObject(responseData.buildResultRow(result));
+                responseData.writeResultRow(result, g);
             }
             g.writeEndArray();
 
@@ -18,11 +18,16 @@ import com.yahoo.bard.webservice.util.SimplifiedIntervalList;
 import com.yahoo.bard.webservice.util.StreamUtils;
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
 import org.joda.time.Interval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -54,6 +59,12 @@ public class ResponseData {
     protected final Pagination pagination;
     protected final Map<String, URI> paginationLinks;
 
+    private static final SerializedString TIME_DIMENSION_FIELD_NAME =
+            new SerializedString(TimeDimension.TIME_DIMENSION_NAME);
+
+    // Resolved on first use, rows of a response are written by a single thread
+    private List<RowDimensionField> rowDimensionFields;
+
     /**
      * Constructor.
      *
@@ -220,6 +231,118 @@ public class ResponseData {
         return outputRow;
     }
 
+    /**
+     * Write a result as a row object, field by field, without building a map of the row first.
+     * <p>
+     * The row has the same fields, in the same order, as the map built by {@link #buildResultRow(Result)}.
+     *
+     * @param result  The result to write
+     * @param generator  The generator to write the row to
+     *
+     * @throws IOException if the row cannot be written
+     */
+    public void writeResultRow(Result result, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TIME_DIMENSION_FIELD_NAME);
+        generator.writeString(result.getTimestamp(DateTimeFormatterFactory.getOutputFormatter()));
+
+        for (RowDimensionField field : getRowDimensionFields()) {
+            DimensionRow dimensionRow = field.column == null ? null : result.getDimensionRow(field.column);
+            generator.writeFieldName(field.name);
+            generator.writeString(dimensionRow == null ? null : dimensionRow.get(field.field));
+        }
+
+        writeMetricFields(result, generator);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write a result as a row object with dimension keys, field by field, collecting the requested dimension fields of
+     * each dimension row into the sidecars.
+     * <p>
+     * The row has the same fields, in the same order, as the map built by
+     * {@link #buildResultRowWithSidecars(Result, Map)}, and the sidecars are filled the same way.
+     *
+     * @param result  The result to write
+     * @param sidecars  Map of sidecar data (dimension rows in the result)
+     * @param generator  The generator to write the row to
+     *
+     * @throws IOException if the row cannot be written
+     */
+    public void writeResultRowWithSidecars(
+            Result result,
+            Map<Dimension, Set<Map<DimensionField, String>>> sidecars,
+            JsonGenerator generator
+    ) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TIME_DIMENSION_FIELD_NAME);
+        generator.writeString(result.getTimestamp(DateTimeFormatterFactory.getOutputFormatter()));
+
+        for (Entry<DimensionColumn, DimensionRow> dimensionColumnEntry : result.getDimensionRows().entrySet()) {
+            Dimension dimension = dimensionColumnEntry.getKey().getDimension();
+            DimensionRow dimensionRow = dimensionColumnEntry.getValue();
+            LinkedHashSet<DimensionField> requestedDimensionFields = requestedApiDimensionFields.get(dimension);
+
+            if (requestedDimensionFields == null || requestedDimensionFields.isEmpty()) {
+                // add sidecar only if at-least one field needs to be shown
+                continue;
+            }
+
+            // The key field is required
+            requestedDimensionFields.add(dimension.getKey());
+
+            Map<DimensionField, String> dimensionFieldToValueMap = requestedDimensionFields.stream()
+                    .collect(StreamUtils.toLinkedMap(Function.identity(), dimensionRow::get));
+            sidecars.get(dimension).add(dimensionFieldToValueMap);
+
+            generator.writeStringField(dimension.getApiName(), dimensionRow.get(dimension.getKey()));
+        }
+
+        writeMetricFields(result, generator);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write the api metric values of a result as fields of the current object.
+     *
+     * @param result  The result to write
+     * @param generator  The generator to write the fields to
+     *
+     * @throws IOException if the fields cannot be written
+     */
+    private void writeMetricFields(Result result, JsonGenerator generator) throws IOException {
+        for (MetricColumn apiMetricColumn : apiMetricColumns) {
+            generator.writeFieldName(apiMetricColumn.getName());
+            generator.writeObject(result.getMetricValue(apiMetricColumn));
+        }
+    }
+
+    /**
+     * The requested dimension fields in the order they are written in each row, resolved once per response.
+     *
+     * @return the dimension fields of a row
+     */
+    private List<RowDimensionField> getRowDimensionFields() {
+        if (rowDimensionFields == null) {
+            Map<Dimension, DimensionColumn> columns = new HashMap<>();
+            for (DimensionColumn column : resultSet.getSchema().getColumns(DimensionColumn.class)) {
+                columns.putIfAbsent(column.getDimension(), column);
+            }
+            List<RowDimensionField> fields = new ArrayList<>();
+            for (Entry<Dimension, LinkedHashSet<DimensionField>> entry : requestedApiDimensionFields.entrySet()) {
+                for (DimensionField field : entry.getValue()) {
+                    fields.add(new RowDimensionField(
+                            new SerializedString(getDimensionColumnName(entry.getKey(), field)),
+                            columns.get(entry.getKey()),
+                            field
+                    ));
+                }
+            }
+            rowDimensionFields = fields;
+        }
+        return rowDimensionFields;
+    }
+
     /**
      * Builds map of result row from a result and loads the dimension rows into the sidecar map.
      *
@@ -307,4 +430,26 @@ public class ResponseData {
                         .isEmpty() ? dimension.getApiName() : dimension.getApiName() + "|" + field.getName()
         );
     }
+
+    /**
+     * A requested dimension field as a field of a row: its name, ready to write, and where its value comes from.
+     */
+    private static class RowDimensionField {
+        private final SerializedString name;
+        private final DimensionColumn column;
+        private final DimensionField field;
+
+        /**
+         * Constructor.
+         *
+         * @param name  The name of the field in the row
+         * @param column  The column of the result set holding the dimension rows, or null if there is none
+         * @param field  The field of the dimension rows
+         */
+        RowDimensionField(SerializedString name, DimensionColumn column, DimensionField field) {
+            this.name = name;
+            this.column = column;
+            this.field = field;
+        }
+    }
 }
@@ -34,7 +34,11 @@ public class ResponsePaginator {
             UriInfo uriInfo,
             Pagination<?> pages
     ) {
-        link.getPage(pages).ifPresent(page -> addPageLink(responseBuilder, link, uriInfo, page));
+        link.getPage(pages).ifPresent(page -> {
+            UriBuilder uriBuilder = link.withCursor(uriInfo.getRequestUriBuilder(), pages)
+                    .replaceQueryParam("page", page);
+            responseBuilder.header(HttpHeaders.LINK, Link.fromUriBuilder(uriBuilder).rel(link.getHeaderName()).build());
+        });
     }
 
     /**
@@ -51,7 +55,9 @@ public class ResponsePaginator {
             UriInfo uriInfo,
             int pageNumber
     ) {
-        UriBuilder uriBuilder = uriInfo.getRequestUriBuilder().replaceQueryParam("page", pageNumber);
+        UriBuilder uriBuilder = uriInfo.getRequestUriBuilder()
+                .replaceQueryParam("page", pageNumber)
+                .replaceQueryParam(PaginationLink.CURSOR);
         responseBuilder.header(HttpHeaders.LINK, Link.fromUriBuilder(uriBuilder).rel(link.getHeaderName()).build());
     }
 
@@ -7,11 +7,14 @@ import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 
 import com.yahoo.bard.webservice.application.ObjectMappersSuite;
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.cache.DataCache;
 import com.yahoo.bard.webservice.data.dimension.Dimension;
 import com.yahoo.bard.webservice.data.dimension.DimensionDictionary;
 import com.yahoo.bard.webservice.data.dimension.DimensionField;
 import com.yahoo.bard.webservice.data.dimension.DimensionRow;
+import com.yahoo.bard.webservice.data.dimension.DimensionRowsLoadJob;
 import com.yahoo.bard.webservice.data.dimension.DimensionUpdateDate;
 import com.yahoo.bard.webservice.web.PATCH;
 
@@ -19,16 +22,27 @@ import com.codahale.metrics.annotation.Timed;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -41,6 +55,9 @@ import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -51,10 +68,52 @@ import javax.ws.rs.core.Response.Status;
 @Singleton
 public class DimensionCacheLoaderServlet {
     private static final Logger LOG = LoggerFactory.getLogger(DimensionCacheLoaderServlet.class);
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    public static final String BULK_DIMENSION_LOAD_THREADS =
+            SYSTEM_CONFIG.getPackageVariableName("bulk_dimension_load_threads");
+    public static final String BULK_DIMENSION_LOAD_BATCH_SIZE =
+            SYSTEM_CONFIG.getPackageVariableName("bulk_dimension_load_batch_size");
+    public static final String BULK_DIMENSION_LOAD_JOB_RETENTION_MINUTES =
+            SYSTEM_CONFIG.getPackageVariableName("bulk_dimension_load_job_retention_minutes");
+
+    private static final int BULK_LOAD_BATCH_SIZE = SYSTEM_CONFIG.getIntProperty(BULK_DIMENSION_LOAD_BATCH_SIZE, 10000);
+
+    /**
+     * Loads the rows posted in bulk, so that the requests posting them return as soon as the rows are received.
+     */
+    private static final ExecutorService BULK_LOAD_POOL = Executors.newFixedThreadPool(
+            Math.max(SYSTEM_CONFIG.getIntProperty(BULK_DIMENSION_LOAD_THREADS, 1), 1),
+            new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "bulk-dimension-loader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+    );
 
     private final DimensionDictionary dimensionDictionary;
     private final ObjectMapper mapper;
     private final DataCache<?> dataCache;
+    private final ObjectReader ndjsonRowReader;
+    private final ObjectReader csvRowReader;
+
+    /**
+     * The bulk loads that have been accepted, by job id, kept for a while after they finish so they can be polled.
+     */
+    private final Cache<String, DimensionRowsLoadJob> bulkLoadJobs = CacheBuilder.newBuilder()
+            .expireAfterWrite(
+                    SYSTEM_CONFIG.getIntProperty(BULK_DIMENSION_LOAD_JOB_RETENTION_MINUTES, 1440),
+                    TimeUnit.MINUTES
+            )
+            .build();
 
     /**
      * Constructor.
@@ -72,6 +131,10 @@ public class DimensionCacheLoaderServlet {
         this.mapper = objectMappers.getMapper();
         this.dimensionDictionary = dimensionDictionary;
         this.dataCache = dataCache;
+        this.ndjsonRowReader = mapper.readerFor(DimensionRowsLoadJob.ROW_TYPE);
+        this.csvRowReader = objectMappers.getCsvMapper()
+                .readerFor(DimensionRowsLoadJob.ROW_TYPE)
+                .with(CsvSchema.emptySchema().withHeader());
     }
 
     /**
@@ -320,6 +383,130 @@ public class DimensionCacheLoaderServlet {
         }
     }
 
+    /**
+     * Endpoint to add/replace dimension rows in bulk, without holding the request open while they are loaded.
+     * <p>
+     * The rows are sent either as newline delimited JSON, one JSON object per row, or as CSV with a header line naming
+     * the fields of the rows. The body may be gzip compressed, with a {@code Content-Encoding: gzip} header. Once the
+     * body has been received the request returns, and the rows are loaded a batch at a time in the background. As with
+     * {@link #addReplaceDimensionRows}, a row having the same ID as an existing row overwrites it.
+     * <p>
+     * {@code curl -X POST -H "Content-Type: application/x-ndjson" --data-binary @rows.json
+     * "http://localhost:4080/v1/cache/dimensions/country/dimensionRows/bulk"}
+     * <pre><code>
+     * { "id":"usa", "description":"United_States_of_America" }
+     * { "id":"can", "description":"Canada" }
+     * </code></pre>
+     *
+     * @param dimensionName  name of the dimension whose dimension rows are to be modified. (path parameter)
+     * @param headers  Headers of the request, giving the format and encoding of the rows
+     * @param rows  The rows to load
+     *
+     * @return Accepted(202) with the progress of the load job, including the job id to poll for its progress
+     */
+    @POST
+    @Timed
+    @Path("/dimensions/{dimensionName}/dimensionRows/bulk")
+    @Consumes({NDJSON_MEDIA_TYPE, CSV_MEDIA_TYPE})
+    public Response bulkLoadDimensionRows(
+            @PathParam("dimensionName") String dimensionName,
+            @Context HttpHeaders headers,
+            InputStream rows
+    ) {
+        Dimension dimension = dimensionDictionary.findByApiName(dimensionName);
+        if (dimension == null) {
+            String message = String.format("Dimension %s cannot be found.", dimensionName);
+            LOG.debug(message);
+            return Response.status(NOT_FOUND).entity(message).build();
+        }
+
+        String contentEncoding = headers.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+        boolean gzipped = "gzip".equalsIgnoreCase(contentEncoding);
+        if (contentEncoding != null && !gzipped && !"identity".equalsIgnoreCase(contentEncoding)) {
+            String message = String.format("Unsupported content encoding %s", contentEncoding);
+            LOG.debug(message);
+            return Response.status(BAD_REQUEST).entity(message).build();
+        }
+        ObjectReader rowReader = headers.getMediaType().isCompatible(MediaType.valueOf(CSV_MEDIA_TYPE))
+                ? csvRowReader
+                : ndjsonRowReader;
+
+        // Save the rows as they arrive, so that neither the body nor the request are held while they are loaded
+        DimensionRowsLoadJob job;
+        try {
+            job = DimensionRowsLoadJob.receive(
+                    UUID.randomUUID().toString(),
+                    dimension,
+                    rows,
+                    gzipped,
+                    rowReader,
+                    BULK_LOAD_BATCH_SIZE
+            );
+        } catch (IOException e) {
+            String message = "Failed to receive dimension rows";
+            LOG.error(message, e);
+            return Response.status(INTERNAL_SERVER_ERROR).entity(message).build();
+        }
+        bulkLoadJobs.put(job.getId(), job);
+        BULK_LOAD_POOL.execute(job);
+
+        LOG.debug("Accepted bulk load {} of {} dimension rows", job.getId(), dimensionName);
+        return writeProgress(job, Status.ACCEPTED);
+    }
+
+    /**
+     * Get the progress of a bulk load of dimension rows.
+     *
+     * @param dimensionName  name of the dimension the rows are loaded into. (path parameter)
+     * @param jobId  id of the bulk load job. (path parameter)
+     *
+     * @return Response Format:
+     * <pre><code>
+     * {
+     *     "id":"{@literal <jobId>}",
+     *     "dimension":"{@literal <dimensionName>}",
+     *     "status":"{@literal <pending|success|failure>}",
+     *     "rowsLoaded":{@literal <number of rows loaded so far>},
+     *     "created":"{@literal <ISO_8601_datetime_string>}",
+     *     "finished":"{@literal <ISO_8601_datetime_string>}"
+     * }
+     * </code></pre>
+     * with an "error" message when the load failed, or Not Found(404) if there is no such job for the dimension
+     */
+    @GET
+    @Timed
+    @Path("/dimensions/{dimensionName}/dimensionRows/bulk/{jobId}")
+    public Response getBulkLoadProgress(
+            @PathParam("dimensionName") String dimensionName,
+            @PathParam("jobId") String jobId
+    ) {
+        DimensionRowsLoadJob job = bulkLoadJobs.getIfPresent(jobId);
+        if (job == null || !job.getDimension().getApiName().equals(dimensionName)) {
+            String message = String.format("Bulk load %s of dimension %s cannot be found.", jobId, dimensionName);
+            LOG.debug(message);
+            return Response.status(NOT_FOUND).entity(message).build();
+        }
+        return writeProgress(job, Status.OK);
+    }
+
+    /**
+     * Build a response giving the progress of a bulk load.
+     *
+     * @param job  The bulk load job
+     * @param status  The status of the response
+     *
+     * @return the response
+     */
+    private Response writeProgress(DimensionRowsLoadJob job, Status status) {
+        try {
+            return Response.status(status).entity(mapper.writeValueAsString(job.getProgress())).build();
+        } catch (JsonProcessingException e) {
+            String message = String.format("Unable to serialize progress of bulk load %s", job.getId());
+            LOG.error(message, e);
+            return Response.status(INTERNAL_SERVER_ERROR).entity(message).build();
+        }
+    }
+
     /**
      * Endpoint to update cache status.
      *
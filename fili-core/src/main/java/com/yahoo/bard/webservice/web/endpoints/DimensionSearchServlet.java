@@ -21,6 +21,7 @@ import com.yahoo.bard.webservice.web.ResponseFormatResolver;
 import com.yahoo.bard.webservice.web.apirequest.DimensionsApiRequest;
 import com.yahoo.bard.webservice.web.apirequest.DimensionsApiRequestImpl;
 import com.yahoo.bard.webservice.web.apirequest.ResponsePaginator;
+import com.yahoo.bard.webservice.web.util.PaginationLink;
 import com.yahoo.bard.webservice.web.util.PaginationParameters;
 
 import com.codahale.metrics.annotation.Timed;
@@ -108,6 +109,7 @@ public class DimensionSearchServlet extends EndpointServlet {
      * @param searchQuery The query to search the dimensions with
      * @param perPage  The number of rows per page
      * @param page  The page number
+     * @param cursor  The cursor of the page, handed out in the link to it
      * @param format  The format of the response
      * @param downloadFilename If present, indicates the response should be downloaded by the client with the provided
      * filename. Otherwise indicates the response should be rendered in the browser.
@@ -125,6 +127,7 @@ public class DimensionSearchServlet extends EndpointServlet {
             @QueryParam("format") String format,
             @QueryParam("filename") String downloadFilename,
             @QueryParam("query") String searchQuery,
+            @QueryParam(PaginationLink.CURSOR) String cursor,
             @Context final UriInfo uriInfo,
             @Context final ContainerRequestContext containerRequestContext
     ) {
@@ -149,7 +152,8 @@ public class DimensionSearchServlet extends EndpointServlet {
 
             PaginationParameters paginationParameters = apiRequest
                     .getPaginationParameters()
-                    .orElse(DEFAULT_PAGINATION);
+                    .orElse(DEFAULT_PAGINATION)
+                    .withCursor(cursor);
 
             Pagination<DimensionRow> pagedRows;
 
@@ -23,6 +23,7 @@ import com.yahoo.bard.webservice.web.apirequest.DimensionsApiRequest;
 import com.yahoo.bard.webservice.web.apirequest.DimensionsApiRequestImpl;
 import com.yahoo.bard.webservice.web.apirequest.ResponsePaginator;
 import com.yahoo.bard.webservice.web.endpoints.views.DimensionMetadataFormatter;
+import com.yahoo.bard.webservice.web.util.PaginationLink;
 import com.yahoo.bard.webservice.web.util.PaginationParameters;
 
 import com.codahale.metrics.annotation.Timed;
@@ -266,6 +267,7 @@ public class DimensionsServlet extends EndpointServlet {
      * @param filterQuery  The filters
      * @param page  The page number
      * @param perPage  The number of rows per page
+     * @param cursor  The cursor of the page, handed out in the link to it
      * @param format  The format of the response
      * @param downloadFilename If present, indicates the response should be downloaded by the client with the provided
      * filename. Otherwise indicates the response should be rendered in the browser.
@@ -299,6 +301,7 @@ public class DimensionsServlet extends EndpointServlet {
             @QueryParam("filters") String filterQuery,
             @DefaultValue("") @NotNull @QueryParam("perPage") String perPage,
             @DefaultValue("") @NotNull @QueryParam("page") String page,
+            @QueryParam(PaginationLink.CURSOR) String cursor,
             @QueryParam("format") String format,
             @QueryParam("filename") String downloadFilename,
             @Context final UriInfo uriInfo,
@@ -327,7 +330,8 @@ public class DimensionsServlet extends EndpointServlet {
             SearchProvider searchProvider = apiRequest.getDimension().getSearchProvider();
             PaginationParameters paginationParameters = apiRequest
                     .getPaginationParameters()
-                    .orElse(ApiRequestImpl.DEFAULT_PAGINATION);
+                    .orElse(ApiRequestImpl.DEFAULT_PAGINATION)
+                    .withCursor(cursor);
 
             Pagination<DimensionRow> pagedRows = getPagedRows(apiRequest, searchProvider, paginationParameters);
             Response.ResponseBuilder builder = Response.status(Response.Status.OK);
@@ -2,9 +2,11 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.web.handlers;
 
+import com.yahoo.bard.webservice.config.BardFeatureFlag;
 import com.yahoo.bard.webservice.druid.client.DruidWebService;
 import com.yahoo.bard.webservice.druid.client.FailureCallback;
 import com.yahoo.bard.webservice.druid.client.HttpErrorCallback;
+import com.yahoo.bard.webservice.druid.client.StreamingSuccessCallback;
 import com.yahoo.bard.webservice.druid.client.SuccessCallback;
 import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
 import com.yahoo.bard.webservice.logging.RequestLog;
@@ -13,7 +15,9 @@ import com.yahoo.bard.webservice.util.DruidWebServiceSelector;
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest;
 import com.yahoo.bard.webservice.web.responseprocessors.LoggingContext;
 import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor;
+import com.yahoo.bard.webservice.web.responseprocessors.StreamingResponseProcessor;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -21,6 +25,9 @@ import javax.validation.constraints.NotNull;
 
 /**
  * Request handler to submit the response to the druid web service.
+ * <p>
+ * When response streaming is enabled and the response processor can consume a token stream (i.e. no processor in the
+ * chain needs the JSON tree of the response), the druid response is parsed directly into a result set.
  */
 public class AsyncWebServiceRequestHandler extends BaseDataRequestHandler {
 
@@ -54,17 +61,34 @@ public class AsyncWebServiceRequestHandler extends BaseDataRequestHandler {
             final DruidAggregationQuery<?> druidQuery,
             final ResponseProcessor response
     ) {
+        HttpErrorCallback error = response.getErrorCallback(druidQuery);
+        FailureCallback failure = response.getFailureCallback(druidQuery);
+
+        BardQueryInfo.incrementCountFactHits();
+        DruidWebService webService = druidWebServiceSelector.select(context, request, druidQuery);
+
+        if (BardFeatureFlag.DRUID_RESPONSE_STREAMING.isOn() && response instanceof StreamingResponseProcessor) {
+            StreamingResponseProcessor streamingResponse = (StreamingResponseProcessor) response;
+            StreamingSuccessCallback success = new StreamingSuccessCallback() {
+                @Override
+                public void invoke(JsonParser parser) {
+                    streamingResponse.processStreamingResponse(
+                            parser,
+                            druidQuery,
+                            new LoggingContext(RequestLog.copy())
+                    );
+                }
+            };
+            webService.streamDruidQuery(context, success, error, failure, druidQuery);
+            return true;
+        }
+
         SuccessCallback success = new SuccessCallback() {
             @Override
             public void invoke(JsonNode rootNode) {
                 response.processResponse(rootNode, druidQuery, new LoggingContext(RequestLog.copy()));
             }
         };
-        HttpErrorCallback error = response.getErrorCallback(druidQuery);
-        FailureCallback failure = response.getFailureCallback(druidQuery);
-
-        BardQueryInfo.incrementCountFactHits();
-        DruidWebService webService = druidWebServiceSelector.select(context, request, druidQuery);
         webService.postDruidQuery(context, success, error, failure, druidQuery);
         return true;
     }
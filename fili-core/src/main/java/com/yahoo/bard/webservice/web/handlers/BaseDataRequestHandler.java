@@ -2,6 +2,11 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.web.handlers;
 
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+import com.yahoo.bard.webservice.util.Utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
@@ -24,4 +29,21 @@ public abstract class BaseDataRequestHandler implements DataRequestHandler {
         this.mapper = mapper;
         this.writer = mapper.writer();
     }
+
+    /**
+     * Construct the key identifying a query in the caches and among the queries in flight.
+     * <p>
+     * The key is the canonical JSON form of the query, without its context, so identical queries share a key however
+     * they were built.
+     *
+     * @param druidQuery  The druid query.
+     *
+     * @return The key as a String.
+     * @throws JsonProcessingException if the druid query cannot be serialized to JSON
+     */
+    protected String getCanonicalQueryKey(DruidAggregationQuery<?> druidQuery) throws JsonProcessingException {
+        JsonNode root = mapper.valueToTree(druidQuery);
+        Utils.canonicalize(root, mapper, false);
+        return writer.writeValueAsString(root);
+    }
 }
@@ -0,0 +1,306 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.handlers;
+
+import static com.yahoo.bard.webservice.web.handlers.workflow.DruidWorkflow.REQUEST_WORKFLOW_TIMER;
+import static com.yahoo.bard.webservice.web.handlers.workflow.DruidWorkflow.RESPONSE_WORKFLOW_TIMER;
+
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.data.cache.CacheValueEncoder;
+import com.yahoo.bard.webservice.data.cache.DataCache;
+import com.yahoo.bard.webservice.data.cache.TupleDataCache;
+import com.yahoo.bard.webservice.data.time.AllGranularity;
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+import com.yahoo.bard.webservice.druid.model.query.GroupByQuery;
+import com.yahoo.bard.webservice.druid.model.query.TimeSeriesQuery;
+import com.yahoo.bard.webservice.druid.model.query.TopNQuery;
+import com.yahoo.bard.webservice.logging.RequestLog;
+import com.yahoo.bard.webservice.logging.blocks.BardQueryInfo;
+import com.yahoo.bard.webservice.metadata.QuerySigningService;
+import com.yahoo.bard.webservice.util.IntervalUtils;
+import com.yahoo.bard.webservice.web.apirequest.DataApiRequest;
+import com.yahoo.bard.webservice.web.responseprocessors.BucketCachingResponseProcessor;
+import com.yahoo.bard.webservice.web.responseprocessors.LoggingContext;
+import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor;
+import com.yahoo.bard.webservice.web.responseprocessors.SplitQueryResponseProcessor;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import org.joda.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Request handler caching the response of an aggregation query one time grain bucket at a time.
+ * <p>
+ * The query is sliced into buckets along its time grain, the same way {@link SplitQueryRequestHandler} slices it.
+ * Each bucket is looked up in the cache under the key and segment signature of the query for that bucket alone. Runs of
+ * adjacent buckets missing from the cache are each sent to druid as a single query, and their responses are split back
+ * into buckets to cache. The cached buckets and the responses for the missing runs are merged by a
+ * {@link SplitQueryResponseProcessor}, so a query whose window slides forward only asks druid for the new buckets.
+ * <p>
+ * Queries that cannot be answered bucket by bucket (the "all" grain, a single bucket, a limit over all buckets, or
+ * query types without a timestamp on every row) are handled by the fallback handler instead.
+ */
+public class BucketedCacheRequestHandler extends BaseDataRequestHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BucketedCacheRequestHandler.class);
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+    public static final Meter BUCKET_HITS = REGISTRY.meter("queries.meter.cache.buckets.hits");
+    public static final Meter BUCKET_MISSES = REGISTRY.meter("queries.meter.cache.buckets.misses");
+
+    protected final @NotNull DataRequestHandler next;
+    protected final @NotNull DataRequestHandler fallback;
+    protected final @NotNull TupleDataCache<String, Long, String> dataCache;
+    protected final @NotNull QuerySigningService<Long> querySigningService;
+    protected final @NotNull CacheValueEncoder valueEncoder;
+
+    /**
+     * Build a bucketed cache request handler.
+     *
+     * @param next  The next handler in the chain, which sends queries for missing buckets on to druid
+     * @param fallback  The handler for queries that cannot be cached bucket by bucket
+     * @param dataCache  The cache instance
+     * @param querySigningService  The service to generate query signatures
+     * @param mapper  The mapper for all JSON processing
+     */
+    @SuppressWarnings("unchecked")
+    public BucketedCacheRequestHandler(
+            DataRequestHandler next,
+            DataRequestHandler fallback,
+            @NotNull DataCache<?> dataCache,
+            QuerySigningService<?> querySigningService,
+            ObjectMapper mapper
+    ) {
+        super(mapper);
+        this.next = next;
+        this.fallback = fallback;
+        this.dataCache = (TupleDataCache<String, Long, String>) dataCache;
+        this.querySigningService = (QuerySigningService<Long>) querySigningService;
+        this.valueEncoder = CacheValueEncoder.getInstance();
+    }
+
+    @Override
+    public boolean handleRequest(
+            final RequestContext context,
+            final DataApiRequest request,
+            final DruidAggregationQuery<?> druidQuery,
+            final ResponseProcessor response
+    ) {
+        if (!isBucketable(druidQuery)) {
+            return fallback.handleRequest(context, request, druidQuery, response);
+        }
+
+        List<Interval> buckets = new ArrayList<>(
+                IntervalUtils.getSlicedIntervals(druidQuery.getIntervals(), druidQuery.getGranularity()).keySet()
+        );
+        if (buckets.size() < 2 || context.getNumberOfIncoming().get() != 1
+                || context.getNumberOfOutgoing().get() != 1) {
+            return fallback.handleRequest(context, request, druidQuery, response);
+        }
+
+        // Look up each bucket, then group the missing ones into runs of adjacent buckets
+        Map<Interval, JsonNode> pieces = new LinkedHashMap<>();
+        Map<Interval, List<Interval>> runs = new LinkedHashMap<>();
+        List<Interval> run = null;
+        for (Interval bucket : buckets) {
+            JsonNode cached = context.isReadCache() ? readBucket(druidQuery, bucket) : null;
+            if (cached != null) {
+                BUCKET_HITS.mark();
+                pieces.put(bucket, cached);
+                run = null;
+                continue;
+            }
+            BUCKET_MISSES.mark();
+            if (run == null || !run.get(run.size() - 1).abuts(bucket)) {
+                run = new ArrayList<>();
+                pieces.put(bucket, null);
+                runs.put(bucket, run);
+            }
+            run.add(bucket);
+        }
+
+        if (runs.isEmpty()) {
+            respondFromCache(context, druidQuery, response, pieces);
+            return true;
+        }
+
+        // Each run is one piece of the response, spanning its buckets
+        Map<Interval, AtomicInteger> expectedIntervals = new LinkedHashMap<>();
+        Map<Interval, JsonNode> hits = new LinkedHashMap<>();
+        Map<Interval, List<Interval>> runsBySpan = new LinkedHashMap<>();
+        for (Map.Entry<Interval, JsonNode> piece : pieces.entrySet()) {
+            Interval span = piece.getKey();
+            if (piece.getValue() == null) {
+                List<Interval> runBuckets = runs.get(span);
+                span = new Interval(runBuckets.get(0).getStart(), runBuckets.get(runBuckets.size() - 1).getEnd());
+                runsBySpan.put(span, runBuckets);
+            } else {
+                hits.put(span, piece.getValue());
+            }
+            expectedIntervals.put(span, new AtomicInteger(expectedIntervals.size()));
+        }
+
+        int numberOfPieces = expectedIntervals.size();
+        context.getNumberOfIncoming().set(numberOfPieces);
+        context.getNumberOfOutgoing().set(numberOfPieces);
+
+        final RequestLog logCtx = RequestLog.dump();
+        final SplitQueryResponseProcessor mergingResponse = new SplitQueryResponseProcessor(
+                response,
+                request,
+                druidQuery,
+                Collections.unmodifiableMap(expectedIntervals),
+                logCtx
+        );
+
+        hits.forEach((bucket, json) -> {
+            RequestLog.restore(logCtx);
+            markAnswered(context);
+            mergingResponse.processResponse(
+                    json,
+                    druidQuery.withAllIntervals(Collections.singletonList(bucket)),
+                    new LoggingContext(RequestLog.dump())
+            );
+        });
+
+        runsBySpan.forEach((span, runBuckets) -> {
+            RequestLog.restore(logCtx);
+            DruidAggregationQuery<?> runQuery = druidQuery.withAllIntervals(Collections.singletonList(span));
+            next.handleRequest(
+                    context,
+                    request,
+                    runQuery,
+                    new BucketCachingResponseProcessor(
+                            mergingResponse,
+                            druidQuery,
+                            getBucketKeys(druidQuery, runBuckets),
+                            dataCache,
+                            querySigningService,
+                            valueEncoder,
+                            mapper
+                    )
+            );
+        });
+        return true;
+    }
+
+    /**
+     * Build the cache keys of the buckets of a run.
+     *
+     * @param druidQuery  The query
+     * @param runBuckets  The buckets of the run, in time order
+     *
+     * @return the cache key of each bucket, or no keys if they cannot be built
+     */
+    private Map<Interval, String> getBucketKeys(DruidAggregationQuery<?> druidQuery, List<Interval> runBuckets) {
+        Map<Interval, String> keys = new LinkedHashMap<>();
+        try {
+            for (Interval bucket : runBuckets) {
+                DruidAggregationQuery<?> bucketQuery = druidQuery.withAllIntervals(Collections.singletonList(bucket));
+                keys.put(bucket, getCanonicalQueryKey(bucketQuery));
+            }
+        } catch (JsonProcessingException e) {
+            LOG.warn("Bucket cache keys cannot be built: ", e);
+            return Collections.emptyMap();
+        }
+        return keys;
+    }
+
+    /**
+     * Check if a query can be answered bucket by bucket.
+     *
+     * @param druidQuery  The query
+     *
+     * @return true if the response for each time grain bucket can be cached on its own
+     */
+    protected boolean isBucketable(DruidAggregationQuery<?> druidQuery) {
+        if (druidQuery.getGranularity() instanceof AllGranularity) {
+            return false;
+        }
+        if (druidQuery instanceof GroupByQuery) {
+            GroupByQuery groupBy = (GroupByQuery) druidQuery;
+            // A limit applies across all buckets, so buckets cannot be answered on their own
+            return groupBy.getLimitSpec() == null || !groupBy.getLimitSpec().getLimit().isPresent();
+        }
+        return druidQuery instanceof TopNQuery || druidQuery instanceof TimeSeriesQuery;
+    }
+
+    /**
+     * Read the cached response for one bucket of a query.
+     *
+     * @param druidQuery  The query
+     * @param bucket  The bucket
+     *
+     * @return the cached rows of the bucket, or null if there are none valid for the current segments
+     */
+    protected JsonNode readBucket(DruidAggregationQuery<?> druidQuery, Interval bucket) {
+        DruidAggregationQuery<?> bucketQuery = druidQuery.withAllIntervals(Collections.singletonList(bucket));
+        try {
+            Optional<Long> signature = querySigningService.getSegmentSetId(bucketQuery);
+            if (!signature.isPresent()) {
+                return null;
+            }
+            TupleDataCache.DataEntry<String, Long, String> entry = dataCache.get(getCanonicalQueryKey(bucketQuery));
+            if (entry == null || !Objects.equals(entry.getMeta(), signature.get())) {
+                return null;
+            }
+            JsonNode json = mapper.readTree(valueEncoder.decode(entry.getValue()));
+            return json instanceof ArrayNode ? json : null;
+        } catch (Exception e) {
+            LOG.warn("Cached bucket {} cannot be read: ", bucket, e);
+            return null;
+        }
+    }
+
+    /**
+     * Answer a query whose buckets were all found in the cache.
+     *
+     * @param context  The context data from the request processing chain
+     * @param druidQuery  The query
+     * @param response  The response handler
+     * @param pieces  The cached rows of each bucket, in time order
+     */
+    private void respondFromCache(
+            RequestContext context,
+            DruidAggregationQuery<?> druidQuery,
+            ResponseProcessor response,
+            Map<Interval, JsonNode> pieces
+    ) {
+        markAnswered(context);
+        BardQueryInfo.getBardQueryInfo().incrementCountCacheHits();
+        ArrayNode merged = mapper.createArrayNode();
+        pieces.values().forEach(json -> merged.addAll((ArrayNode) json));
+        response.processResponse(merged, druidQuery, new LoggingContext(RequestLog.dump()));
+    }
+
+    /**
+     * Count a piece of the response as answered without going to druid.
+     *
+     * @param context  The context data from the request processing chain
+     */
+    private void markAnswered(RequestContext context) {
+        if (context.getNumberOfOutgoing().decrementAndGet() == 0) {
+            RequestLog.stopTiming(REQUEST_WORKFLOW_TIMER);
+        }
+        if (context.getNumberOfIncoming().decrementAndGet() == 0) {
+            RequestLog.startTiming(RESPONSE_WORKFLOW_TIMER);
+        }
+    }
+}
@@ -2,13 +2,13 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.web.handlers;
 
+import com.yahoo.bard.webservice.data.cache.CacheValueEncoder;
 import com.yahoo.bard.webservice.data.cache.DataCache;
 import com.yahoo.bard.webservice.data.cache.TupleDataCache;
 import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
 import com.yahoo.bard.webservice.druid.model.query.DruidQuery;
 import com.yahoo.bard.webservice.logging.RequestLog;
 import com.yahoo.bard.webservice.metadata.QuerySigningService;
-import com.yahoo.bard.webservice.util.Utils;
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest;
 import com.yahoo.bard.webservice.web.responseprocessors.CacheV2ResponseProcessor;
 import com.yahoo.bard.webservice.web.responseprocessors.LoggingContext;
@@ -16,7 +16,6 @@ import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor;
 import com.yahoo.bard.webservice.web.util.QuerySignedCacheService;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.Logger;
@@ -40,6 +39,7 @@ public class CacheV2RequestHandler extends BaseDataRequestHandler {
     protected final @NotNull TupleDataCache<String, Long, String> dataCache;
     protected final @NotNull QuerySigningService<Long> querySigningService;
     protected final @NotNull QuerySignedCacheService querySignedCacheService;
+    protected final @NotNull CacheValueEncoder valueEncoder = CacheValueEncoder.getInstance();
 
     /**
      * Build a Cache request handler.
@@ -126,7 +126,7 @@ public class CacheV2RequestHandler extends BaseDataRequestHandler {
             ResponseProcessor response,
             final String cacheKey
     ) {
-        return new CacheV2ResponseProcessor(response, cacheKey, dataCache, querySigningService, mapper);
+        return new CacheV2ResponseProcessor(response, cacheKey, dataCache, querySigningService, mapper, valueEncoder);
     }
 
     /**
@@ -139,8 +139,6 @@ public class CacheV2RequestHandler extends BaseDataRequestHandler {
      * @throws JsonProcessingException if the druid query cannot be serialized to JSON
      */
     protected String getKey(DruidAggregationQuery<?> druidQuery) throws JsonProcessingException {
-        JsonNode root = mapper.valueToTree(druidQuery);
-        Utils.canonicalize(root , mapper, false);
-        return writer.writeValueAsString(root);
+        return getCanonicalQueryKey(druidQuery);
     }
 }
@@ -0,0 +1,162 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.handlers;
+
+import static com.yahoo.bard.webservice.web.handlers.workflow.DruidWorkflow.REQUEST_WORKFLOW_TIMER;
+
+import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+import com.yahoo.bard.webservice.logging.RequestLog;
+import com.yahoo.bard.webservice.web.apirequest.DataApiRequest;
+import com.yahoo.bard.webservice.web.responseprocessors.CoalescingResponseProcessor;
+import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor;
+import com.yahoo.bard.webservice.web.responseprocessors.StreamingCoalescingResponseProcessor;
+import com.yahoo.bard.webservice.web.responseprocessors.StreamingResponseProcessor;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Request handler that coalesces identical druid queries that are in flight at the same time.
+ * <p>
+ * The first request for a query is sent on to the next handler, with its response processor wrapped so that the
+ * druid response is also handed to the response processors of every identical query that arrives while it is still
+ * outstanding. Those later queries are never sent to druid. Queries are identical when their canonical forms, which
+ * exclude the query context, are equal.
+ * <p>
+ * Requests that skip the cache are not coalesced, since they ask for a fresh response. Queries whose response
+ * processors can stream are only coalesced with each other, and keep streaming while no other query is attached.
+ */
+public class CoalescingRequestHandler extends BaseDataRequestHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoalescingRequestHandler.class);
+    private static final MetricRegistry REGISTRY = MetricRegistryFactory.getRegistry();
+    private static final String STREAMING_KEY_PREFIX = "streaming:";
+
+    public static final Meter COALESCED_HITS = REGISTRY.meter("queries.meter.coalesced.hits");
+    public static final Meter COALESCED_LEADERS = REGISTRY.meter("queries.meter.coalesced.leaders");
+
+    /**
+     * Timer for the time a coalesced query waits on the query it attached to.
+     */
+    public static final String COALESCED_WAIT_TIMER = "CoalescedQueryWait";
+
+    protected final @NotNull DataRequestHandler next;
+
+    private final ConcurrentMap<String, CoalescingResponseProcessor> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param next  The next handler in the chain
+     * @param mapper  The mapper for all JSON processing
+     */
+    public CoalescingRequestHandler(DataRequestHandler next, ObjectMapper mapper) {
+        super(mapper);
+        this.next = next;
+    }
+
+    @Override
+    public boolean handleRequest(
+            final RequestContext context,
+            final DataApiRequest request,
+            final DruidAggregationQuery<?> druidQuery,
+            final ResponseProcessor response
+    ) {
+        if (!context.isReadCache()) {
+            return next.handleRequest(context, request, druidQuery, response);
+        }
+
+        // Queries that can stream their responses only share a response with other queries that can
+        boolean streaming = response instanceof StreamingResponseProcessor;
+        String key;
+        try {
+            key = (streaming ? STREAMING_KEY_PREFIX : "") + getCanonicalQueryKey(druidQuery);
+        } catch (JsonProcessingException e) {
+            LOG.warn("Coalescing key cannot be built: ", e);
+            return next.handleRequest(context, request, druidQuery, response);
+        }
+
+        while (true) {
+            CoalescingResponseProcessor leader = inFlight.get(key);
+            if (leader != null) {
+                if (attach(leader, context, druidQuery, response)) {
+                    COALESCED_HITS.mark();
+                    return true;
+                }
+                // The outstanding query completed before this one could attach, so send this one instead
+                continue;
+            }
+
+            CoalescingResponseProcessor newLeader = streaming ?
+                    new StreamingCoalescingResponseProcessor(
+                            (StreamingResponseProcessor) response,
+                            completed -> inFlight.remove(key, completed)
+                    ) :
+                    new CoalescingResponseProcessor(response, completed -> inFlight.remove(key, completed));
+            if (inFlight.putIfAbsent(key, newLeader) == null) {
+                COALESCED_LEADERS.mark();
+                try {
+                    return next.handleRequest(context, request, druidQuery, newLeader);
+                } catch (RuntimeException e) {
+                    // The query was never sent, so no response will arrive for the queries attached to it
+                    inFlight.remove(key, newLeader);
+                    newLeader.abandon(e);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Attach a query to an outstanding identical query, so that it is answered by that query's response.
+     * <p>
+     * Attaching takes over the parts of sending a druid query that concern the request log: the request workflow ends
+     * here and the request log is carried along until the response arrives.
+     *
+     * @param leader  The response processor of the outstanding query
+     * @param context  The context of the request attaching
+     * @param druidQuery  The query attaching
+     * @param response  The response processor chain of the query attaching
+     *
+     * @return true if the query was attached, false if the outstanding query had already completed
+     */
+    protected boolean attach(
+            CoalescingResponseProcessor leader,
+            RequestContext context,
+            DruidAggregationQuery<?> druidQuery,
+            ResponseProcessor response
+    ) {
+        return leader.attach(
+                response,
+                druidQuery,
+                context.getNumberOfIncoming(),
+                () -> {
+                    if (context.getNumberOfOutgoing().decrementAndGet() == 0) {
+                        RequestLog.stopTiming(REQUEST_WORKFLOW_TIMER);
+                    }
+                    RequestLog.startTiming(COALESCED_WAIT_TIMER);
+                    return RequestLog.dump();
+                }
+        );
+    }
+
+    /**
+     * The number of distinct queries currently outstanding.
+     *
+     * @return the number of outstanding queries
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
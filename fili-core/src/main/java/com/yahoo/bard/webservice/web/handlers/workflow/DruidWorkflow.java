@@ -15,8 +15,10 @@ import com.yahoo.bard.webservice.logging.TimeRemainingFunction;
 import com.yahoo.bard.webservice.metadata.QuerySigningService;
 import com.yahoo.bard.webservice.table.PhysicalTableDictionary;
 import com.yahoo.bard.webservice.web.handlers.AsyncWebServiceRequestHandler;
+import com.yahoo.bard.webservice.web.handlers.BucketedCacheRequestHandler;
 import com.yahoo.bard.webservice.web.handlers.CacheRequestHandler;
 import com.yahoo.bard.webservice.web.handlers.CacheV2RequestHandler;
+import com.yahoo.bard.webservice.web.handlers.CoalescingRequestHandler;
 import com.yahoo.bard.webservice.web.handlers.DataRequestHandler;
 import com.yahoo.bard.webservice.web.handlers.DateTimeSortRequestHandler;
 import com.yahoo.bard.webservice.web.handlers.DebugRequestHandler;
@@ -111,6 +113,11 @@ public class DruidWorkflow implements RequestWorkflowProvider {
         // The final stage of the workflow is to send a request to a druid web service
         DataRequestHandler handler = new AsyncWebServiceRequestHandler(webService, mapper);
 
+        // Identical queries in flight at the same time share a single request to druid
+        if (BardFeatureFlag.QUERY_COALESCING.isOn()) {
+            handler = new CoalescingRequestHandler(handler, mapper);
+        }
+
         // If Druid sends uncoveredIntervals, missing intervals are checked before sending the request
         if (druidUncoveredIntervalLimit > 0) {
             handler = new DruidPartialDataRequestHandler(handler);
@@ -120,13 +127,18 @@ public class DruidWorkflow implements RequestWorkflowProvider {
         if (CacheFeatureFlag.TTL.isOn()) {
             handler = new CacheRequestHandler(handler, dataCache, mapper);
         } else if (CacheFeatureFlag.LOCAL_SIGNATURE.isOn()) {
+            DataRequestHandler uncached = handler;
             handler = new CacheV2RequestHandler(
-                    handler,
+                    uncached,
                     dataCache,
                     querySigningService,
                     querySignedCacheService,
                     mapper
             );
+            // Queries that can be cached bucket by bucket only ask druid for the buckets missing from the cache
+            if (BardFeatureFlag.BUCKETED_QUERY_CACHE.isOn()) {
+                handler = new BucketedCacheRequestHandler(uncached, handler, dataCache, querySigningService, mapper);
+            }
         } else if (CacheFeatureFlag.ETAG.isOn()) {
             handler = new EtagCacheRequestHandler(
                     handler,
@@ -0,0 +1,225 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.responseprocessors;
+
+import static com.yahoo.bard.webservice.config.BardFeatureFlag.CACHE_PARTIAL_DATA;
+import static com.yahoo.bard.webservice.web.handlers.PartialDataRequestHandler.getPartialIntervalsWithDefault;
+import static com.yahoo.bard.webservice.web.handlers.VolatileDataRequestHandler.getVolatileIntervalsWithDefault;
+
+import com.yahoo.bard.webservice.config.SystemConfig;
+import com.yahoo.bard.webservice.config.SystemConfigProvider;
+import com.yahoo.bard.webservice.data.cache.CacheValueEncoder;
+import com.yahoo.bard.webservice.data.cache.TupleDataCache;
+import com.yahoo.bard.webservice.druid.client.FailureCallback;
+import com.yahoo.bard.webservice.druid.client.HttpErrorCallback;
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+import com.yahoo.bard.webservice.metadata.QuerySigningService;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A response processor for a query spanning a run of time grain buckets, which caches the rows of each bucket on their
+ * own after passing the response on.
+ * <p>
+ * Each bucket is cached under the key and segment signature of the query for that bucket alone. Buckets overlapping
+ * missing or volatile intervals are not cached, but the other buckets of the run still are.
+ */
+public class BucketCachingResponseProcessor implements CacheWritingResponseProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BucketCachingResponseProcessor.class);
+    protected static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
+
+    private final long maxDruidResponseLengthToCache = SYSTEM_CONFIG.getLongProperty(
+            SYSTEM_CONFIG.getPackageVariableName("druid_max_response_length_to_cache"),
+            Long.MAX_VALUE
+    );
+
+    protected final ResponseProcessor next;
+    protected final DruidAggregationQuery<?> queryBeforeSplit;
+    protected final Map<Interval, String> bucketKeys;
+    protected final @NotNull TupleDataCache<String, Long, String> dataCache;
+    protected final @NotNull QuerySigningService<Long> querySigningService;
+    protected final @NotNull CacheValueEncoder valueEncoder;
+    protected final ObjectMapper mapper;
+    protected final ObjectWriter writer;
+
+    /**
+     * Constructor.
+     *
+     * @param next  Next ResponseProcessor in the chain
+     * @param queryBeforeSplit  The query the run of buckets is part of
+     * @param bucketKeys  The cache key of each bucket of the run, in time order
+     * @param dataCache  The cache into which to write the buckets
+     * @param querySigningService  Service to use for signing the query of each bucket with its segments
+     * @param valueEncoder  Encodes the values written to the cache
+     * @param mapper  An object mapper to use for processing Json
+     */
+    public BucketCachingResponseProcessor(
+            ResponseProcessor next,
+            DruidAggregationQuery<?> queryBeforeSplit,
+            Map<Interval, String> bucketKeys,
+            TupleDataCache<String, Long, String> dataCache,
+            QuerySigningService<Long> querySigningService,
+            CacheValueEncoder valueEncoder,
+            ObjectMapper mapper
+    ) {
+        this.next = next;
+        this.queryBeforeSplit = queryBeforeSplit;
+        this.bucketKeys = bucketKeys;
+        this.dataCache = dataCache;
+        this.querySigningService = querySigningService;
+        this.valueEncoder = valueEncoder;
+        this.mapper = mapper;
+        this.writer = mapper.writer();
+    }
+
+    @Override
+    public ResponseProcessor getNext() {
+        return next;
+    }
+
+    @Override
+    public ResponseContext getResponseContext() {
+        return next.getResponseContext();
+    }
+
+    @Override
+    public FailureCallback getFailureCallback(DruidAggregationQuery<?> druidQuery) {
+        return next.getFailureCallback(druidQuery);
+    }
+
+    @Override
+    public HttpErrorCallback getErrorCallback(DruidAggregationQuery<?> druidQuery) {
+        return next.getErrorCallback(druidQuery);
+    }
+
+    @Override
+    public void processResponse(JsonNode json, DruidAggregationQuery<?> druidQuery, LoggingContext metadata) {
+        // Capture the signature of each bucket as we're about to process the response
+        Map<Interval, Long> signatures = new LinkedHashMap<>();
+        for (Interval bucket : bucketKeys.keySet()) {
+            Optional<Long> signature = querySigningService.getSegmentSetId(
+                    queryBeforeSplit.withAllIntervals(Collections.singletonList(bucket))
+            );
+            signature.ifPresent(id -> signatures.put(bucket, id));
+        }
+
+        // First dispatch message to user
+        next.processResponse(json, druidQuery, metadata);
+
+        // Then try to cache
+        Map<Interval, ArrayNode> rows = splitByBucket(json);
+        if (rows == null) {
+            return;
+        }
+        rows.forEach((bucket, bucketRows) -> {
+            if (signatures.containsKey(bucket) && isCacheable(bucket)) {
+                cacheBucket(bucket, bucketRows, signatures.get(bucket));
+            }
+        });
+    }
+
+    /**
+     * Split the rows of a response by the bucket their timestamp falls in.
+     *
+     * @param json  The response
+     *
+     * @return the rows of each bucket, or null if some row doesn't fall in a bucket of the run
+     */
+    protected Map<Interval, ArrayNode> splitByBucket(JsonNode json) {
+        if (!json.isArray()) {
+            return null;
+        }
+        Map<Interval, ArrayNode> rows = new LinkedHashMap<>();
+        bucketKeys.keySet().forEach(bucket -> rows.put(bucket, mapper.createArrayNode()));
+        for (JsonNode row : json) {
+            JsonNode timestamp = row.get("timestamp");
+            if (timestamp == null) {
+                return null;
+            }
+            DateTime time = new DateTime(timestamp.asText());
+            Interval bucket = findBucket(rows.keySet(), time);
+            if (bucket == null) {
+                LOG.debug("Response row at {} is outside the cached buckets, skipping bucket caching", time);
+                return null;
+            }
+            rows.get(bucket).add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * A bucket is cacheable if it does not overlap partial or volatile data.
+     *
+     * @param bucket  The bucket
+     *
+     * @return whether the bucket can be cached
+     */
+    protected boolean isCacheable(Interval bucket) {
+        ResponseContext responseContext = getResponseContext();
+        return CACHE_PARTIAL_DATA.isOn() || (
+                getPartialIntervalsWithDefault(responseContext).stream().noneMatch(bucket::overlaps) &&
+                        getVolatileIntervalsWithDefault(responseContext).stream().noneMatch(bucket::overlaps)
+        );
+    }
+
+    /**
+     * Write the rows of one bucket to the cache.
+     *
+     * @param bucket  The bucket
+     * @param bucketRows  The rows of the bucket
+     * @param signature  The segment signature of the bucket
+     */
+    private void cacheBucket(Interval bucket, ArrayNode bucketRows, Long signature) {
+        String valueString = null;
+        try {
+            valueString = valueEncoder.encode(writer.writeValueAsString(bucketRows));
+            if (valueString.length() <= maxDruidResponseLengthToCache) {
+                dataCache.set(bucketKeys.get(bucket), signature, valueString);
+            } else {
+                LOG.debug(
+                        "Bucket {} not cached. Length of {} exceeds max value length of {}",
+                        bucket,
+                        valueString.length(),
+                        maxDruidResponseLengthToCache
+                );
+            }
+        } catch (Exception e) {
+            CacheV2ResponseProcessor.CACHE_SET_FAILURES.mark(1);
+            LOG.warn(
+                    "Unable to cache bucket {} value of size: {}",
+                    bucket,
+                    valueString == null ? "N/A" : valueString.length(),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Find the bucket a time falls in.
+     *
+     * @param buckets  The buckets
+     * @param time  The time
+     *
+     * @return the bucket containing the time, or null if none does
+     */
+    private static Interval findBucket(Collection<Interval> buckets, DateTime time) {
+        return buckets.stream().filter(bucket -> bucket.contains(time)).findFirst().orElse(null);
+    }
+}
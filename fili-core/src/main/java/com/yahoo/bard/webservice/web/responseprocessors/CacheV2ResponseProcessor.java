@@ -9,6 +9,7 @@ import static com.yahoo.bard.webservice.web.handlers.VolatileDataRequestHandler.
 import com.yahoo.bard.webservice.application.MetricRegistryFactory;
 import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
+import com.yahoo.bard.webservice.data.cache.CacheValueEncoder;
 import com.yahoo.bard.webservice.data.cache.TupleDataCache;
 import com.yahoo.bard.webservice.druid.client.FailureCallback;
 import com.yahoo.bard.webservice.druid.client.HttpErrorCallback;
@@ -20,7 +21,6 @@ import com.yahoo.bard.webservice.web.util.QuerySignedCacheService;
 
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
@@ -28,6 +28,7 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -39,7 +40,7 @@ import javax.xml.bind.DatatypeConverter;
 /**
  * A response processor which caches the results if appropriate after completing a query.
  */
-public class CacheV2ResponseProcessor implements ResponseProcessor {
+public class CacheV2ResponseProcessor implements CacheWritingResponseProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(CacheV2ResponseProcessor.class);
 
@@ -59,6 +60,7 @@ public class CacheV2ResponseProcessor implements ResponseProcessor {
     protected final String cacheKeyChecksum;
     protected final @NotNull TupleDataCache<String, Long, String> dataCache;
     protected final @NotNull QuerySigningService<Long> querySigningService;
+    protected final @NotNull CacheValueEncoder valueEncoder;
 
     protected final ObjectWriter writer;
 
@@ -77,15 +79,42 @@ public class CacheV2ResponseProcessor implements ResponseProcessor {
             TupleDataCache<String, Long, String> dataCache,
             QuerySigningService<Long> querySigningService,
             ObjectMapper mapper
+    ) {
+        this(next, cacheKey, dataCache, querySigningService, mapper, CacheValueEncoder.getInstance());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param next  Next ResponseProcessor in the chain
+     * @param cacheKey  Key into which to write a cache entry
+     * @param dataCache  The cache into which to write a cache entry
+     * @param querySigningService  Service to use for signing the queries in the cache key with their metadata
+     * @param mapper  An object mapper to use for processing Json
+     * @param valueEncoder  Encodes the value written to the cache
+     */
+    public CacheV2ResponseProcessor(
+            ResponseProcessor next,
+            String cacheKey,
+            TupleDataCache<String, Long, String> dataCache,
+            QuerySigningService<Long> querySigningService,
+            ObjectMapper mapper,
+            CacheValueEncoder valueEncoder
     ) {
         this.next = next;
         this.cacheKey = cacheKey;
         this.dataCache = dataCache;
         this.querySigningService = querySigningService;
+        this.valueEncoder = valueEncoder;
         this.writer = mapper.writer();
         this.cacheKeyChecksum = getMD5Checksum(cacheKey);
     }
 
+    @Override
+    public ResponseProcessor getNext() {
+        return next;
+    }
+
     @Override
     public ResponseContext getResponseContext() {
         return next.getResponseContext();
@@ -113,8 +142,8 @@ public class CacheV2ResponseProcessor implements ResponseProcessor {
         if (isCacheable()) {
             String valueString;
             try {
-                valueString = writer.writeValueAsString(json);
-            } catch (JsonProcessingException e) {
+                valueString = valueEncoder.encode(writer.writeValueAsString(json));
+            } catch (IOException e) {
                 handleException(e, querySignature);
                 return;
             }
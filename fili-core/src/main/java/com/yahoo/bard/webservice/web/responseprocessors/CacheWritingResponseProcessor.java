@@ -0,0 +1,20 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.responseprocessors;
+
+/**
+ * A response processor which writes the druid response to a cache, and otherwise leaves answering the query to the
+ * next response processor in the chain.
+ * <p>
+ * A query answered with the response to an identical query, whose own chain already writes the response to the cache,
+ * can be answered by the next response processor alone.
+ */
+public interface CacheWritingResponseProcessor extends ResponseProcessor {
+
+    /**
+     * Get the response processor the response is handed on to, which answers the query without caching the response.
+     *
+     * @return the next response processor in the chain
+     */
+    ResponseProcessor getNext();
+}
@@ -25,7 +25,7 @@ import javax.validation.constraints.NotNull;
 /**
  * A response processor which caches the results if appropriate after completing a query.
  */
-public class CachingResponseProcessor implements ResponseProcessor {
+public class CachingResponseProcessor implements CacheWritingResponseProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(CachingResponseProcessor.class);
     private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
@@ -63,6 +63,11 @@ public class CachingResponseProcessor implements ResponseProcessor {
         this.writer = mapper.writer();
     }
 
+    @Override
+    public ResponseProcessor getNext() {
+        return next;
+    }
+
     @Override
     public ResponseContext getResponseContext() {
         return next.getResponseContext();
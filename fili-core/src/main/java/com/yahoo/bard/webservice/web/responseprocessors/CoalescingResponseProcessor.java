@@ -0,0 +1,262 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.responseprocessors;
+
+import static com.yahoo.bard.webservice.web.handlers.CoalescingRequestHandler.COALESCED_WAIT_TIMER;
+import static com.yahoo.bard.webservice.web.handlers.workflow.DruidWorkflow.RESPONSE_WORKFLOW_TIMER;
+
+import com.yahoo.bard.webservice.druid.client.FailureCallback;
+import com.yahoo.bard.webservice.druid.client.HttpErrorCallback;
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+import com.yahoo.bard.webservice.logging.RequestLog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A response processor which shares the druid response of a query with every identical query attached to it.
+ * <p>
+ * Each attached query is answered through its own response processor chain, on its own request log and with its own
+ * copy of the response, so that processors which modify the response cannot affect each other. The copies are made one
+ * at a time as the attached queries are answered. When the chain of this query writes the response to the cache, the
+ * processors of the attached chains that would write the same entry again are skipped.
+ * <p>
+ * Queries whose response processors can stream are coalesced through a {@link StreamingCoalescingResponseProcessor}.
+ */
+public class CoalescingResponseProcessor implements ResponseProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoalescingResponseProcessor.class);
+
+    protected final ResponseProcessor next;
+    private final Consumer<CoalescingResponseProcessor> onComplete;
+
+    private final List<Follower> followers = new ArrayList<>();
+    private boolean complete = false;
+
+    /**
+     * Constructor.
+     *
+     * @param next  The next ResponseProcessor in the chain to call
+     * @param onComplete  Called with this processor once the response, error or failure arrives, before it is shared
+     */
+    public CoalescingResponseProcessor(ResponseProcessor next, Consumer<CoalescingResponseProcessor> onComplete) {
+        this.next = next;
+        this.onComplete = onComplete;
+    }
+
+    /**
+     * Attach an identical query so that it is answered with the response to this one.
+     * <p>
+     * The request log supplier is only called once the query is attached, and should hand off the request log of the
+     * attaching request.
+     *
+     * @param response  The response processor chain of the attaching query
+     * @param druidQuery  The attaching query
+     * @param outstanding  The number of responses the attaching request is still waiting for
+     * @param logCtx  Supplier of the request log of the attaching request
+     *
+     * @return true if the query was attached, false if the response has already arrived
+     */
+    public synchronized boolean attach(
+            ResponseProcessor response,
+            DruidAggregationQuery<?> druidQuery,
+            AtomicLong outstanding,
+            Supplier<RequestLog> logCtx
+    ) {
+        if (complete) {
+            return false;
+        }
+        followers.add(new Follower(response, druidQuery, outstanding, logCtx.get()));
+        return true;
+    }
+
+    /**
+     * Mark the response as arrived, stopping further queries from attaching.
+     *
+     * @return The queries attached so far
+     */
+    protected synchronized List<Follower> complete() {
+        if (complete) {
+            return Collections.emptyList();
+        }
+        complete = true;
+        onComplete.accept(this);
+        return new ArrayList<>(followers);
+    }
+
+    /**
+     * Give up on the query, failing every query attached to it.
+     * <p>
+     * Used when the query could not be sent, so that the queries attached to it are not left waiting for a response
+     * that will never arrive. The query itself is not answered, since whoever sent it already has the error.
+     *
+     * @param error  The reason the query could not be sent
+     */
+    public void abandon(Throwable error) {
+        complete().forEach(follower -> follower.respond(
+                () -> follower.response.getFailureCallback(follower.druidQuery).invoke(error)
+        ));
+    }
+
+    @Override
+    public ResponseContext getResponseContext() {
+        return next.getResponseContext();
+    }
+
+    @Override
+    public FailureCallback getFailureCallback(DruidAggregationQuery<?> druidQuery) {
+        return error -> fail(complete(), druidQuery, error);
+    }
+
+    @Override
+    public HttpErrorCallback getErrorCallback(DruidAggregationQuery<?> druidQuery) {
+        return (statusCode, reasonPhrase, responseBody) -> {
+            List<Follower> attached = complete();
+            try {
+                next.getErrorCallback(druidQuery).invoke(statusCode, reasonPhrase, responseBody);
+            } finally {
+                attached.forEach(follower -> follower.respond(
+                        () -> follower.response.getErrorCallback(follower.druidQuery)
+                                .invoke(statusCode, reasonPhrase, responseBody)
+                ));
+            }
+        };
+    }
+
+    @Override
+    public void processResponse(JsonNode json, DruidAggregationQuery<?> druidQuery, LoggingContext metadata) {
+        share(complete(), json, druidQuery, metadata);
+    }
+
+    /**
+     * Answer this query and the queries attached to it with a response.
+     *
+     * @param attached  The queries attached to this one
+     * @param json  The response
+     * @param druidQuery  The query of this processor
+     * @param metadata  The LoggingContext of this query
+     */
+    protected void share(
+            List<Follower> attached,
+            JsonNode json,
+            DruidAggregationQuery<?> druidQuery,
+            LoggingContext metadata
+    ) {
+        if (attached.isEmpty()) {
+            next.processResponse(json, druidQuery, metadata);
+            return;
+        }
+        // Keep the response as it arrived, since processing may modify it
+        JsonNode unprocessed = json.deepCopy();
+        // When the leading chain writes the response to the cache, the attached chains need not write it again
+        boolean cached = next instanceof CacheWritingResponseProcessor;
+        try {
+            next.processResponse(json, druidQuery, metadata);
+        } finally {
+            for (int i = 0; i < attached.size(); i++) {
+                Follower follower = attached.get(i);
+                boolean last = i == attached.size() - 1;
+                follower.respond(() -> follower.getResponseProcessor(cached).processResponse(
+                        // Copy as each query is answered, so one copy is held at a time, and give the last the kept one
+                        last ? unprocessed : unprocessed.deepCopy(),
+                        follower.druidQuery,
+                        new LoggingContext(RequestLog.copy())
+                ));
+            }
+        }
+    }
+
+    /**
+     * Fail this query and the queries attached to it.
+     *
+     * @param attached  The queries attached to this one
+     * @param druidQuery  The query of this processor
+     * @param error  The failure
+     */
+    protected void fail(List<Follower> attached, DruidAggregationQuery<?> druidQuery, Throwable error) {
+        try {
+            next.getFailureCallback(druidQuery).invoke(error);
+        } finally {
+            attached.forEach(follower -> follower.respond(
+                    () -> follower.response.getFailureCallback(follower.druidQuery).invoke(error)
+            ));
+        }
+    }
+
+    /**
+     * A query attached to the query being sent to druid.
+     */
+    protected static class Follower {
+        private final ResponseProcessor response;
+        private final DruidAggregationQuery<?> druidQuery;
+        private final AtomicLong outstanding;
+        private final RequestLog logCtx;
+
+        /**
+         * Constructor.
+         *
+         * @param response  The response processor chain of the attached query
+         * @param druidQuery  The attached query
+         * @param outstanding  The number of responses the attached request is still waiting for
+         * @param logCtx  The request log of the attached request
+         */
+        Follower(
+                ResponseProcessor response,
+                DruidAggregationQuery<?> druidQuery,
+                AtomicLong outstanding,
+                RequestLog logCtx
+        ) {
+            this.response = response;
+            this.druidQuery = druidQuery;
+            this.outstanding = outstanding;
+            this.logCtx = logCtx;
+        }
+
+        /**
+         * Get the response processor chain answering the attached query with a response.
+         *
+         * @param cached  True if the response is already written to the cache, so the processors writing it to the
+         * cache can be skipped
+         *
+         * @return the response processor to hand the response to
+         */
+        ResponseProcessor getResponseProcessor(boolean cached) {
+            ResponseProcessor processor = response;
+            while (cached && processor instanceof CacheWritingResponseProcessor) {
+                processor = ((CacheWritingResponseProcessor) processor).getNext();
+            }
+            return processor;
+        }
+
+        /**
+         * Answer the attached query on its own request log.
+         * <p>
+         * Unexpected errors while answering are sent to the failure callback of the attached query, so that they
+         * cannot prevent the other attached queries from being answered.
+         *
+         * @param action  The action answering the query
+         */
+        void respond(Runnable action) {
+            RequestLog.restore(logCtx);
+            RequestLog.stopTiming(COALESCED_WAIT_TIMER);
+            if (outstanding.decrementAndGet() == 0) {
+                RequestLog.startTiming(RESPONSE_WORKFLOW_TIMER);
+            }
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.error("Failed to answer coalesced query", e);
+                response.getFailureCallback(druidQuery).invoke(e);
+            }
+        }
+    }
+}
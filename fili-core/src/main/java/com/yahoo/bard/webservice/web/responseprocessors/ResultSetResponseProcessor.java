@@ -27,6 +27,7 @@ import com.yahoo.bard.webservice.web.PageNotFoundException;
 import com.yahoo.bard.webservice.web.PreResponse;
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import org.joda.time.DateTimeZone;
@@ -35,8 +36,11 @@ import org.slf4j.LoggerFactory;
 
 import rx.subjects.Subject;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.core.Response.Status;
@@ -44,7 +48,7 @@ import javax.ws.rs.core.Response.Status;
 /**
  * Callback handler for JSON to be processed into result sets.
  */
-public class ResultSetResponseProcessor extends MappingResponseProcessor implements ResponseProcessor {
+public class ResultSetResponseProcessor extends MappingResponseProcessor implements StreamingResponseProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(ResultSetResponseProcessor.class);
 
@@ -88,9 +92,41 @@ public class ResultSetResponseProcessor extends MappingResponseProcessor impleme
 
     @Override
     public void processResponse(JsonNode json, DruidAggregationQuery<?> druidQuery, LoggingContext metadata) {
+        processResultSet(
+                () -> buildResultSet(json, druidQuery, apiRequest.getTimeZone()),
+                druidQuery,
+                metadata
+        );
+    }
+
+    @Override
+    public void processStreamingResponse(
+            JsonParser parser,
+            DruidAggregationQuery<?> druidQuery,
+            LoggingContext metadata
+    ) {
+        processResultSet(
+                () -> buildResultSet(parser, druidQuery, apiRequest.getTimeZone()),
+                druidQuery,
+                metadata
+        );
+    }
+
+    /**
+     * Build, map and emit the result set for a druid response, or emit an error if that fails.
+     *
+     * @param resultSetBuilder  Builds the initial result set from the druid response
+     * @param druidQuery  The druid query being processed
+     * @param metadata  The LoggingContext to use
+     */
+    protected void processResultSet(
+            Supplier<ResultSet> resultSetBuilder,
+            DruidAggregationQuery<?> druidQuery,
+            LoggingContext metadata
+    ) {
         try {
             RequestLog.restore(metadata.getRequestLog());
-            ResultSet resultSet = buildResultSet(json, druidQuery, apiRequest.getTimeZone());
+            ResultSet resultSet = resultSetBuilder.get();
             resultSet = mapResultSet(resultSet);
 
             LinkedHashSet<String> apiMetricColumnNames = apiRequest.getLogicalMetrics().stream()
@@ -144,11 +180,44 @@ public class ResultSetResponseProcessor extends MappingResponseProcessor impleme
      */
     public ResultSet buildResultSet(JsonNode json, DruidAggregationQuery<?> druidQuery, DateTimeZone dateTimeZone) {
 
+        ResultSetSchema resultSetSchema = buildResultSetSchema(druidQuery);
+
+        return druidResponseParser.parse(json, resultSetSchema, druidQuery.getQueryType(), dateTimeZone);
+    }
+
+    /**
+     * Build a result set using the api request time grain, streaming the rows directly off of the druid response.
+     *
+     * @param parser  Parser over the druid response.
+     * @param druidQuery  The druid query being processed
+     * @param dateTimeZone  The date time zone for parsing result rows
+     *
+     * @return The initial result set from the druid response.
+     */
+    public ResultSet buildResultSet(JsonParser parser, DruidAggregationQuery<?> druidQuery, DateTimeZone dateTimeZone) {
+        try {
+            return druidResponseParser.parse(
+                    parser,
+                    buildResultSetSchema(druidQuery),
+                    druidQuery.getQueryType(),
+                    dateTimeZone
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Build the schema of the result set for a druid query using the api request time grain.
+     *
+     * @param druidQuery  The druid query being processed
+     *
+     * @return The schema for the query's result set
+     */
+    protected ResultSetSchema buildResultSetSchema(DruidAggregationQuery<?> druidQuery) {
         LinkedHashSet<Column> columns = druidResponseParser.buildSchemaColumns(druidQuery)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        ResultSetSchema resultSetSchema = new ExtensibleResultSetSchema(granularity, columns);
-
-        return druidResponseParser.parse(json, resultSetSchema, druidQuery.getQueryType(), dateTimeZone);
+        return new ExtensibleResultSetSchema(granularity, columns);
     }
 }
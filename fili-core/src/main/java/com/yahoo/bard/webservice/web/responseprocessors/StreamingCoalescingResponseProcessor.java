@@ -0,0 +1,58 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.responseprocessors;
+
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A coalescing response processor in front of a response processor that can stream, so that coalescing doesn't cost
+ * the query its streaming path.
+ * <p>
+ * While no query is attached, the response stream is handed straight on to the next processor. Otherwise the response
+ * is read into a tree once and shared with the attached queries, whose response processors must also be able to
+ * stream, since they receive the response as it was streamed rather than as a full druid JSON response.
+ */
+public class StreamingCoalescingResponseProcessor extends CoalescingResponseProcessor
+        implements StreamingResponseProcessor {
+
+    /**
+     * Constructor.
+     *
+     * @param next  The next ResponseProcessor in the chain to call
+     * @param onComplete  Called with this processor once the response, error or failure arrives, before it is shared
+     */
+    public StreamingCoalescingResponseProcessor(
+            StreamingResponseProcessor next,
+            Consumer<CoalescingResponseProcessor> onComplete
+    ) {
+        super(next, onComplete);
+    }
+
+    @Override
+    public void processStreamingResponse(
+            JsonParser parser,
+            DruidAggregationQuery<?> druidQuery,
+            LoggingContext metadata
+    ) {
+        List<Follower> attached = complete();
+        if (attached.isEmpty()) {
+            ((StreamingResponseProcessor) next).processStreamingResponse(parser, druidQuery, metadata);
+            return;
+        }
+        JsonNode json;
+        try {
+            json = parser.readValueAsTree();
+        } catch (IOException e) {
+            fail(attached, druidQuery, e);
+            return;
+        }
+        share(attached, json, druidQuery, metadata);
+    }
+}
@@ -0,0 +1,27 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.responseprocessors;
+
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * A response processor that can also consume a druid data response as a token stream, without a JSON tree of the
+ * response ever being built.
+ * <p>
+ * Only processors that need nothing from the response beyond its rows should implement this. Processors that inspect or
+ * store the raw JSON (cache writers, etag handling, partial data checks) must not, so that requests passing through
+ * them continue to receive the full JSON tree.
+ */
+public interface StreamingResponseProcessor extends ResponseProcessor {
+
+    /**
+     * Process the response token stream and respond to the original web request.
+     *
+     * @param parser  Parser over the druid data response, valid only for the duration of the call
+     * @param query  The query with the schema for processing this response
+     * @param metadata  The LoggingContext to use
+     */
+    void processStreamingResponse(JsonParser parser, DruidAggregationQuery<?> query, LoggingContext metadata);
+}
@@ -4,8 +4,11 @@ package com.yahoo.bard.webservice.web.util;
 
 import com.yahoo.bard.webservice.util.Pagination;
 
+import java.util.Optional;
 import java.util.OptionalInt;
 
+import javax.ws.rs.core.UriBuilder;
+
 /**
  * Enumerates the names of the page links that may show up in the headers and/or bodies of responses that contain
  * pagination.
@@ -28,6 +31,11 @@ public enum PaginationLink {
         public OptionalInt getPage(Pagination<?> page) {
            return page.getNextPage();
        }
+
+       @Override
+        public Optional<String> getCursor(Pagination<?> page) {
+           return page.getNextCursor();
+       }
     },
     PREVIOUS("prev", "previous") {
        @Override
@@ -36,6 +44,11 @@ public enum PaginationLink {
        }
     };
 
+    /**
+     * Name of the query parameter carrying the cursor of a page.
+     */
+    public static final String CURSOR = "cursor";
+
     private final String headerName;
     private final String bodyName;
 
@@ -66,4 +79,29 @@ public enum PaginationLink {
      * @return a populated Optional if the page exists based on the current page, empty if not
      */
     public abstract OptionalInt getPage(Pagination<?> page);
+
+    /**
+     * Get the cursor to resume from when fetching the linked page, if the current page hands one out.
+     *
+     * @param page  Current page to evaluate
+     *
+     * @return a populated Optional if there is a cursor for the linked page, empty if not
+     */
+    public Optional<String> getCursor(Pagination<?> page) {
+        return Optional.empty();
+    }
+
+    /**
+     * Set the cursor query parameter of a link to the cursor of the linked page, or drop it if there is none.
+     *
+     * @param uriBuilder  The builder of the link
+     * @param page  Current page to evaluate
+     *
+     * @return the builder of the link
+     */
+    public UriBuilder withCursor(UriBuilder uriBuilder, Pagination<?> page) {
+        return getCursor(page)
+                .map(cursor -> uriBuilder.replaceQueryParam(CURSOR, cursor))
+                .orElseGet(() -> uriBuilder.replaceQueryParam(CURSOR));
+    }
 }
@@ -16,6 +16,10 @@ import java.util.Optional;
 /**
  * A wrapper around the pagination parameters ('perPage' and 'page') to simplify working with pagination requests.
  * This class is immutable.
+ * <p>
+ * A request may also carry an opaque cursor handed out with the link to the page, which lets a search provider resume
+ * from where the previous page ended instead of finding the page again from the first result. Cursors are only hints:
+ * a provider that can't use a cursor finds the page by its number.
  */
 public class PaginationParameters {
 
@@ -47,6 +51,7 @@ public class PaginationParameters {
 
     private final int perPage;
     private final int page;
+    private final String cursor;
 
     /**
      * Given a pair of strings, attempts to parse them into ints representing the pagination parameters.
@@ -67,8 +72,20 @@ public class PaginationParameters {
      * @param page  The page to be displayed
      */
     public PaginationParameters(int perPage, int page) {
+        this(perPage, page, null);
+    }
+
+    /**
+     * Constructor for already-parsed pagination parameters resuming from a cursor.
+     *
+     * @param perPage  The number of rows to be displayed on each page.
+     * @param page  The page to be displayed
+     * @param cursor  The cursor of the page handed out by the search provider, or null if there is none
+     */
+    public PaginationParameters(int perPage, int page, String cursor) {
         this.perPage = perPage;
         this.page = page;
+        this.cursor = cursor;
     }
 
     /**
@@ -137,6 +154,16 @@ public class PaginationParameters {
         }
         return page;
     }
+
+    /**
+     * Returns the cursor of the requested page, if the request carried one.
+     *
+     * @return The cursor of the requested page
+     */
+    public Optional<String> getCursor() {
+        return Optional.ofNullable(cursor);
+    }
+
     public Optional<Integer> getMaxResults() {
         if (page == -1) {
             return Optional.empty();
@@ -157,6 +184,17 @@ public class PaginationParameters {
         return new PaginationParameters(perPage, parseParameter(page, "page"));
     }
 
+    /**
+     * Returns a new PaginationParameters object with the specified cursor.
+     *
+     * @param cursor  The cursor of the page, or null or empty for none
+     *
+     * @return A new PaginationParameters object with the same state as this object, except with the specified cursor.
+     */
+    public PaginationParameters withCursor(String cursor) {
+        return new PaginationParameters(perPage, page, cursor == null || cursor.isEmpty() ? null : cursor);
+    }
+
     /**
      * Returns a new PaginationParameters object with the specified perPage value.
      *
@@ -172,7 +210,7 @@ public class PaginationParameters {
 
     @Override
     public String toString() {
-        return "perPage=" + perPage + "&page=" + page;
+        return "perPage=" + perPage + "&page=" + page + (cursor == null ? "" : "&cursor=" + cursor);
     }
 
     @Override
@@ -182,11 +220,12 @@ public class PaginationParameters {
         PaginationParameters that = (PaginationParameters) o;
         return
                 perPage == that.perPage &&
-                        page == that.page;
+                        page == that.page &&
+                        Objects.equals(cursor, that.cursor);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(perPage, page);
+        return Objects.hash(perPage, page, cursor);
     }
 }
@@ -16,6 +16,7 @@ import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.logging.blocks.BardCacheInfo;
 import com.yahoo.bard.webservice.util.SimplifiedIntervalList;
 import com.yahoo.bard.webservice.application.MetricRegistryFactory;
+import com.yahoo.bard.webservice.data.cache.CacheValueEncoder;
 import com.yahoo.bard.webservice.data.cache.TupleDataCache;
 import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery;
 import com.yahoo.bard.webservice.logging.RequestLog;
@@ -67,6 +68,8 @@ public class QuerySignedCacheService implements CacheService {
     QuerySigningService<Long> querySigningService;
     ObjectMapper objectMapper;
     ObjectWriter writer;
+    CacheValueEncoder valueEncoder;
+
     /**
      * Constructor.
      *
@@ -79,11 +82,29 @@ public class QuerySignedCacheService implements CacheService {
             TupleDataCache<String, Long, String> dataCache,
             QuerySigningService<Long> querySigningService,
             ObjectMapper objectMapper
+    ) {
+        this(dataCache, querySigningService, objectMapper, CacheValueEncoder.getInstance());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dataCache  The cache instance
+     * @param querySigningService  The service to generate query signatures
+     * @param objectMapper A JSON object mapper, used to parse JSON response
+     * @param valueEncoder  Encodes values written to the cache, and decodes values read from it
+     */
+    public QuerySignedCacheService(
+            TupleDataCache<String, Long, String> dataCache,
+            QuerySigningService<Long> querySigningService,
+            ObjectMapper objectMapper,
+            CacheValueEncoder valueEncoder
     ) {
         this.dataCache = dataCache;
         this.querySigningService = querySigningService;
         this.objectMapper = objectMapper;
         this.writer = objectMapper.writer();
+        this.valueEncoder = valueEncoder;
     }
 
 
@@ -103,6 +124,7 @@ public class QuerySignedCacheService implements CacheService {
                             .isPresent()
             ) {
                 try {
+                    String value = valueEncoder.decode(cacheEntry.getValue());
                     if (context.getNumberOfOutgoing().decrementAndGet() == 0) {
                         RequestLog.stopTiming(REQUEST_WORKFLOW_TIMER);
                     }
@@ -124,7 +146,7 @@ public class QuerySignedCacheService implements CacheService {
                                     cacheEntry.getValue().length()
                             )
                     );
-                    return cacheEntry.getValue();
+                    return value;
 
                 } catch (Exception e) {
                     LOG.warn("Error processing cached value for key {} with cksum {}",
@@ -190,7 +212,7 @@ public class QuerySignedCacheService implements CacheService {
             String cacheKey = getKey(druidQuery);
             String valueString = null;
             try {
-                valueString = writer.writeValueAsString(json);
+                valueString = valueEncoder.encode(writer.writeValueAsString(json));
                 int valueLength = valueString.length();
                 if (valueLength <= maxDruidResponseLengthToCache) {
                     dataCache.set(
@@ -0,0 +1,106 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.application
+
+import com.yahoo.bard.webservice.data.dimension.BardDimensionField
+import com.yahoo.bard.webservice.data.dimension.MapStoreManager
+import com.yahoo.bard.webservice.data.dimension.impl.KeyValueStoreDimension
+import com.yahoo.bard.webservice.data.dimension.impl.NoOpSearchProviderManager
+
+import org.joda.time.DateTime
+
+import spock.lang.Specification
+
+class DimensionValueWriterSpec extends Specification {
+
+    KeyValueStoreDimension dimension
+    DimensionValueWriter writer = new DimensionValueWriter(2)
+
+    def setup() {
+        dimension = Spy(
+                KeyValueStoreDimension,
+                constructorArgs: [
+                        "writer",
+                        "writer",
+                        [BardDimensionField.ID] as LinkedHashSet,
+                        MapStoreManager.getInstance("writer"),
+                        NoOpSearchProviderManager.getInstance("writer")
+                ]
+        )
+    }
+
+    def cleanup() {
+        MapStoreManager.removeInstance("writer")
+        NoOpSearchProviderManager.removeInstance("writer")
+    }
+
+    def "Values the dimension doesn't have are added a batch at a time"() {
+        when:
+        int added = writer.write(dimension, ["a", "b", "c"])
+
+        then:
+        2 * dimension.addAllDimensionRows(_)
+        added == 3
+        ["a", "b", "c"].every { dimension.findDimensionRowByKeyValue(it)?.getKeyValue() == it }
+    }
+
+    def "Values the dimension already has are not added again"() {
+        given:
+        dimension.addDimensionRow(BardDimensionField.makeDimensionRow(dimension, "a"))
+
+        when:
+        int added = writer.write(dimension, ["a", "b"])
+
+        then:
+        1 * dimension.addAllDimensionRows({ it*.getKeyValue() == ["b"] })
+        added == 1
+    }
+
+    def "Values found by earlier writes are skipped without a lookup until the dimension changes"() {
+        given:
+        writer.write(dimension, ["a", "b"])
+
+        when:
+        int added = writer.write(dimension, ["a", "b"])
+
+        then:
+        0 * dimension.findDimensionRowsByKeyValues(_)
+        added == 0
+
+        when:
+        dimension.setLastUpdated(DateTime.now())
+        writer.write(dimension, ["a", "b"])
+
+        then:
+        1 * dimension.findDimensionRowsByKeyValues(_)
+        0 * dimension.addAllDimensionRows(_)
+    }
+
+    def "Values found by earlier writes stay known as the table of their hashes grows"() {
+        given:
+        DimensionValueWriter largeWriter = new DimensionValueWriter(1000)
+        List<String> values = (0..<10000).collect { "value$it" as String }
+        largeWriter.write(dimension, values)
+
+        when:
+        int added = largeWriter.write(dimension, values)
+
+        then:
+        0 * dimension.findDimensionRowsByKeyValues(_)
+        added == 0
+    }
+
+    def "Values beyond the maximum remembered are looked up every time"() {
+        given:
+        DimensionValueWriter cappedWriter = new DimensionValueWriter(2, 1)
+        cappedWriter.write(dimension, ["a", "b"])
+
+        when:
+        int added = cappedWriter.write(dimension, ["a", "b"])
+
+        then:
+        1 * dimension.findDimensionRowsByKeyValues(["b"] as Set)
+        0 * dimension.addAllDimensionRows(_)
+        added == 0
+    }
+}
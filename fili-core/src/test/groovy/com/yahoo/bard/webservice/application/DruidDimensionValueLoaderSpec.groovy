@@ -2,16 +2,28 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.application
 
+import com.yahoo.bard.webservice.data.dimension.BardDimensionField
 import com.yahoo.bard.webservice.data.dimension.Dimension
 import com.yahoo.bard.webservice.data.dimension.DimensionDictionary
+import com.yahoo.bard.webservice.data.dimension.MapStoreManager
+import com.yahoo.bard.webservice.data.dimension.impl.KeyValueStoreDimension
+import com.yahoo.bard.webservice.data.dimension.impl.NoOpSearchProviderManager
 import com.yahoo.bard.webservice.druid.client.DruidWebService
+import com.yahoo.bard.webservice.druid.client.SuccessCallback
 import com.yahoo.bard.webservice.druid.model.datasource.DataSource
 import com.yahoo.bard.webservice.druid.model.query.DruidSearchQuery
 import com.yahoo.bard.webservice.table.PhysicalTableDictionary
 
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+
+import org.joda.time.DateTime
+
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
 
 import java.util.concurrent.Future
+import java.util.concurrent.atomic.AtomicInteger
 
 class DruidDimensionValueLoaderSpec extends Specification {
 
@@ -57,4 +69,64 @@ class DruidDimensionValueLoaderSpec extends Specification {
         searchQuery2.getIntervals().get(0).getStart() > searchQuery1.getIntervals().get(0).getStart()
 
     }
+
+    def "Values loaded by an earlier load are skipped without a lookup by the next load"() {
+        setup:
+        KeyValueStoreDimension dimension = Spy(
+                KeyValueStoreDimension,
+                constructorArgs: [
+                        "loaded",
+                        "loaded",
+                        [BardDimensionField.ID] as LinkedHashSet,
+                        MapStoreManager.getInstance("loaded"),
+                        NoOpSearchProviderManager.getInstance("loaded")
+                ]
+        )
+        AtomicInteger lookups = new AtomicInteger()
+        dimension.findDimensionRowsByKeyValues(_) >> {
+            lookups.incrementAndGet()
+            callRealMethod()
+        }
+
+        SuccessCallback success = null
+        druidWebService.postDruidQuery(*_) >> { arguments ->
+            success = arguments[1]
+            return Mock(Future)
+        }
+        JsonNode response = new ObjectMapper().readTree(
+                '''[{"timestamp": "2026-01-01T00:00:00.000Z", "result": [
+                        {"dimension": "loaded", "value": "a"},
+                        {"dimension": "loaded", "value": "b"}
+                ]}]'''
+        )
+        PollingConditions conditions = new PollingConditions(timeout: 5)
+
+        when: "The dimension is loaded"
+        loader.query(dimension, Mock(DataSource))
+        success.invoke(response)
+
+        then: "Its values are looked up and added, and it is marked as loaded"
+        conditions.eventually {
+            assert dimension.getLastUpdated() != null
+        }
+        lookups.get() == 1
+        dimension.findDimensionRowByKeyValue("a") != null
+        dimension.findDimensionRowByKeyValue("b") != null
+
+        when: "The dimension is loaded again with the same values"
+        DateTime firstLoad = dimension.getLastUpdated()
+        Thread.sleep(10)
+        loader.query(dimension, Mock(DataSource))
+        success.invoke(response)
+
+        then: "It is marked as loaded again without looking the values up"
+        conditions.eventually {
+            assert dimension.getLastUpdated().isAfter(firstLoad)
+        }
+        lookups.get() == 1
+
+        cleanup:
+        MapStoreManager.removeInstance("loaded")
+        NoOpSearchProviderManager.removeInstance("loaded")
+    }
 }
@@ -43,7 +43,11 @@ class FeatureFlagRegistrySpec extends Specification {
                    "druid_lookup_metadata_enabled", "druid_dimensions_loader_enabled",
                    "case_sensitive_keys_enabled", "default_in_filter_enabled", "require_metrics_in_query",
                    "adjust_current_by_timezone", "require_all_data_request_building_stages_called",
-                   "metric_type_in_meta_block"] as Set
+                   "metric_type_in_meta_block", "druid_response_streaming_enabled",
+                   "druid_query_coalescing_enabled", "druid_concurrency_limit_enabled",
+                   "query_response_l1_cache_enabled", "query_response_bucketed_cache_enabled",
+                   "columnar_result_set_enabled", "physical_table_resolution_cache_enabled",
+                   "druid_prefix_regex_filter_enabled"] as Set
     }
 
     @Unroll
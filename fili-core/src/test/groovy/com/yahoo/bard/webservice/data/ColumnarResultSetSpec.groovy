@@ -0,0 +1,197 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data
+
+import static com.yahoo.bard.webservice.data.time.DefaultTimeGrain.DAY
+
+import com.yahoo.bard.webservice.data.dimension.BardDimensionField
+import com.yahoo.bard.webservice.data.dimension.Dimension
+import com.yahoo.bard.webservice.data.dimension.DimensionColumn
+import com.yahoo.bard.webservice.data.dimension.DimensionField
+import com.yahoo.bard.webservice.data.dimension.MapStoreManager
+import com.yahoo.bard.webservice.data.dimension.impl.KeyValueStoreDimension
+import com.yahoo.bard.webservice.data.dimension.impl.ScanSearchProviderManager
+import com.yahoo.bard.webservice.data.metric.MetricColumn
+import com.yahoo.bard.webservice.data.metric.mappers.DateTimeSortMapper
+import com.yahoo.bard.webservice.data.metric.mappers.ResultSetMapper
+import com.yahoo.bard.webservice.data.metric.mappers.RowNumMapper
+import com.yahoo.bard.webservice.data.metric.mappers.TopNResultSetMapper
+import com.yahoo.bard.webservice.druid.model.orderby.SortDirection
+
+import com.fasterxml.jackson.databind.node.TextNode
+
+import org.joda.time.DateTime
+import org.joda.time.DateTimeZone
+import org.joda.time.chrono.GJChronology
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ColumnarResultSetSpec extends Specification {
+
+    Dimension dimension = new KeyValueStoreDimension(
+            "product",
+            "product",
+            [BardDimensionField.ID, BardDimensionField.DESC] as LinkedHashSet<DimensionField>,
+            MapStoreManager.getInstance("product"),
+            ScanSearchProviderManager.getInstance("product")
+    )
+    DimensionColumn product = new DimensionColumn(dimension)
+    MetricColumn count = new MetricColumn("count")
+    MetricColumn ratio = new MetricColumn("ratio")
+    MetricColumn other = new MetricColumn("other")
+
+    ResultSetSchema schema = new ResultSetSchema(DAY, [product, count, ratio, other])
+
+    DateTime day1 = new DateTime(2015, 1, 1, 0, 0, DateTimeZone.UTC)
+    DateTime day2 = day1.plusDays(1)
+
+    Result result(DateTime timeStamp, String productId, Map<MetricColumn, Object> metrics) {
+        new Result(
+                productId == null ? [:] : [(product): BardDimensionField.makeDimensionRow(dimension, productId, "")],
+                metrics,
+                timeStamp
+        )
+    }
+
+    List<Result> results() {
+        [
+                result(day2, "a", [(count): 3G, (ratio): 0.5G, (other): "x"]),
+                result(day1, "b", [(count): 1G, (ratio): 1.25G, (other): null]),
+                result(day2, "b", [(count): 2G, (ratio): 2.0G, (other): new TextNode("y")]),
+                result(day1, "a", [(count): 4G, (ratio): 1.50G]),
+                result(null, null, [(count): 5G, (ratio): -7.75G, (other): 1G])
+        ]
+    }
+
+    def "A columnar result set reads back the results it was built from"() {
+        when:
+        ResultSet resultSet = ColumnarResultSet.of(schema, results())
+
+        then:
+        resultSet instanceof ColumnarResultSet
+        resultSet.schema == schema
+        resultSet.size() == 5
+        resultSet == results()
+        resultSet.hashCode() == results().hashCode()
+        (0..4).every { resultSet.get(it) == results()[it] }
+
+        and: "Numbers keep their scale"
+        resultSet.get(3).getMetricValue(ratio).toString() == "1.50"
+        resultSet.get(2).getMetricValue(ratio).toString() == "2.0"
+
+        and: "Missing values stay missing, and null values stay null"
+        !resultSet.get(3).metricValues.containsKey(other)
+        resultSet.get(1).metricValues.containsKey(other)
+        resultSet.get(4).dimensionRows.isEmpty()
+        resultSet.get(4).timeStamp == null
+    }
+
+    def "Results with timestamps in different chronologies are kept as they are"() {
+        given:
+        List<Result> mixed = results() + [result(new DateTime(GJChronology.getInstance()), "a", [(count): 1G])]
+
+        when:
+        ResultSet resultSet = ColumnarResultSet.of(schema, mixed)
+
+        then:
+        !(resultSet instanceof ColumnarResultSet)
+        resultSet == mixed
+    }
+
+    def "A columnar result set cannot be modified"() {
+        given:
+        ResultSet resultSet = ColumnarResultSet.of(schema, results())
+
+        when:
+        resultSet.add(results()[0])
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "Selecting rows shares the columns in the selected order"() {
+        given:
+        ColumnarResultSet resultSet = (ColumnarResultSet) ColumnarResultSet.of(schema, results())
+
+        expect:
+        resultSet.select([4, 0] as int[]) == [results()[4], results()[0]]
+        resultSet.select(1, 3) == results().subList(1, 3)
+        resultSet.select(1, 3).select([1] as int[]) == [results()[2]]
+    }
+
+    @Unroll
+    def "#mapper.class.simpleName maps a columnar result set like the result set of its rows"() {
+        given:
+        ResultSet rows = new ResultSet(schema, results().subList(0, 4))
+        ResultSet columnar = ColumnarResultSet.of(schema, results().subList(0, 4))
+
+        when:
+        ResultSet mapped = mapper.map(columnar)
+
+        then:
+        mapped instanceof ColumnarResultSet
+        mapped == mapper.map(rows)
+
+        where:
+        mapper << [
+                new DateTimeSortMapper(SortDirection.ASC),
+                new DateTimeSortMapper(SortDirection.DESC),
+                new TopNResultSetMapper(1),
+                new RowNumMapper()
+        ]
+    }
+
+    def "Row numbers of a selection of rows are a column over the selected rows"() {
+        given: "Rows selected out of order from shared columns"
+        ColumnarResultSet sorted = (ColumnarResultSet) new DateTimeSortMapper(SortDirection.DESC).map(
+                ColumnarResultSet.of(schema, results().subList(0, 4))
+        )
+        ResultSet rows = new DateTimeSortMapper(SortDirection.DESC).map(new ResultSet(schema, results().subList(0, 4)))
+
+        when:
+        ResultSet numbered = new RowNumMapper().map(sorted)
+
+        then:
+        numbered instanceof ColumnarResultSet
+        numbered == new RowNumMapper().map(rows)
+        numbered.schema.getColumn("rowNum", MetricColumn.class).isPresent()
+        numbered*.getMetricValue(new MetricColumn("rowNum")) == [0G, 1G, 2G, 3G]
+    }
+
+    def "A metric column cannot be added with a value count other than the row count"() {
+        given:
+        ColumnarResultSet resultSet = (ColumnarResultSet) ColumnarResultSet.of(schema, results())
+
+        when:
+        resultSet.withMetricColumn(schema, count, [1L] as long[])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "A mapper walking the rows of a columnar result set builds columns of the rows it keeps"() {
+        given: "A mapper dropping the rows without a timestamp and doubling the counts of the others"
+        ResultSetMapper mapper = new ResultSetMapper() {
+            @Override
+            protected Result map(Result result, ResultSetSchema resultSchema) {
+                result.timeStamp == null ?
+                        null :
+                        result.withMetricValue(count, result.getMetricValue(count) * 2)
+            }
+
+            @Override
+            protected ResultSetSchema map(ResultSetSchema resultSchema) {
+                resultSchema
+            }
+        }
+
+        when:
+        ResultSet mapped = mapper.map(ColumnarResultSet.of(schema, results()))
+
+        then:
+        mapped instanceof ColumnarResultSet
+        mapped == mapper.map(new ResultSet(schema, results()))
+        mapped*.getMetricValue(count) == [6G, 2G, 4G, 8G]
+    }
+}
@@ -5,10 +5,13 @@ package com.yahoo.bard.webservice.data
 import static com.yahoo.bard.webservice.data.time.DefaultTimeGrain.DAY
 
 import com.yahoo.bard.webservice.application.ObjectMappersSuite
+import com.yahoo.bard.webservice.config.BardFeatureFlag
 import com.yahoo.bard.webservice.data.dimension.BardDimensionField
+import com.yahoo.bard.webservice.data.dimension.Dimension
 import com.yahoo.bard.webservice.data.dimension.DimensionColumn
 import com.yahoo.bard.webservice.data.dimension.DimensionDictionary
 import com.yahoo.bard.webservice.data.dimension.DimensionField
+import com.yahoo.bard.webservice.data.dimension.DimensionRow
 import com.yahoo.bard.webservice.data.dimension.MapStoreManager
 import com.yahoo.bard.webservice.data.dimension.impl.KeyValueStoreDimension
 import com.yahoo.bard.webservice.data.dimension.impl.ScanSearchProviderManager
@@ -20,6 +23,7 @@ import com.yahoo.bard.webservice.table.Column
 import com.yahoo.bard.webservice.table.Schema
 
 import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonParseException
 import com.fasterxml.jackson.core.JsonParser
 import com.fasterxml.jackson.databind.JsonNode
 import com.fasterxml.jackson.databind.ObjectMapper
@@ -397,6 +401,162 @@ class DruidResponseParserSpec extends Specification {
         queryType << [DefaultQueryType.GROUP_BY, DefaultQueryType.TOP_N, DefaultQueryType.TIMESERIES]
     }
 
+    @Unroll
+    def "Streaming a Druid #queryType result builds the same ResultSet as parsing its JSON tree"() {
+        given: "A response from Druid with numeric, String, boolean, null and JsonNode metrics"
+        String druidResponse = buildResponse(
+                queryType,
+                [
+                        '"pageViews"': 12.5,
+                        '"luckyNumbers"': '"1, 3, 7"',
+                        '"true"': true,
+                        '"null"': null,
+                        '"sketch"': '{"values": "1, 3, 7", "length": 3}'
+                ]
+        )
+        ResultSetSchema schema = buildSchema(["pageViews", "luckyNumbers", "true", "null", "sketch", "missing"])
+
+        when: "We build result sets from the JSON tree and from the token stream"
+        ResultSet treeResultSet = buildResultSet(druidResponse, schema, queryType)
+        ResultSet streamedResultSet = responseParser.parse(
+                new JsonFactory().createParser(druidResponse),
+                schema,
+                queryType,
+                DateTimeZone.UTC
+        )
+
+        then: "The result sets are the same"
+        streamedResultSet == treeResultSet
+        streamedResultSet.get(0).getMetricValues().keySet() as List == treeResultSet.get(0).getMetricValues().keySet() as List
+
+        where:
+        queryType << [
+                DefaultQueryType.GROUP_BY,
+                DefaultQueryType.TOP_N,
+                DefaultQueryType.TIMESERIES,
+                DefaultQueryType.LOOKBACK
+        ]
+    }
+
+    @Unroll
+    def "With columnar result sets enabled a Druid #queryType result parses to the same results held by column"() {
+        given: "A response from Druid with numeric, String, boolean, null and JsonNode metrics"
+        String druidResponse = buildResponse(
+                queryType,
+                [
+                        '"pageViews"': 12.5,
+                        '"luckyNumbers"': '"1, 3, 7"',
+                        '"true"': true,
+                        '"null"': null,
+                        '"sketch"': '{"values": "1, 3, 7", "length": 3}'
+                ]
+        )
+        ResultSetSchema schema = buildSchema(["pageViews", "luckyNumbers", "true", "null", "sketch", "missing"])
+        ResultSet rowResultSet = buildResultSet(druidResponse, schema, queryType)
+
+        when:
+        BardFeatureFlag.COLUMNAR_RESULT_SET.setOn(true)
+        ResultSet columnarResultSet = buildResultSet(druidResponse, schema, queryType)
+        ResultSet streamedResultSet = responseParser.parse(
+                new JsonFactory().createParser(druidResponse),
+                schema,
+                queryType,
+                DateTimeZone.UTC
+        )
+
+        then:
+        columnarResultSet instanceof ColumnarResultSet
+        columnarResultSet == rowResultSet
+
+        and: "Rows streamed off the response go straight into the columns too"
+        streamedResultSet instanceof ColumnarResultSet
+        streamedResultSet == rowResultSet
+
+        cleanup:
+        BardFeatureFlag.COLUMNAR_RESULT_SET.reset()
+
+        where:
+        queryType << [DefaultQueryType.GROUP_BY, DefaultQueryType.TOP_N, DefaultQueryType.TIMESERIES]
+    }
+
+    def "Streaming a top N result builds one result per entry, sharing the record timestamp"() {
+        given:
+        String druidResponse = """
+            [ {
+                "result" : [ { "ageBracket" : "1", "pageViews" : 1 }, { "ageBracket" : "4", "pageViews" : 2 } ],
+                "timestamp" : "2012-01-01T00:00:00.000Z"
+            }, {
+                "timestamp" : "2012-01-02T00:00:00.000Z",
+                "result" : [ ]
+            } ]
+        """
+        ResultSetSchema schema = buildSchema(["pageViews"])
+        MetricColumn pageViews = schema.getColumn("pageViews", MetricColumn.class).get()
+
+        when:
+        ResultSet resultSet = responseParser.parse(
+                new JsonFactory().createParser(druidResponse),
+                schema,
+                DefaultQueryType.TOP_N,
+                DateTimeZone.UTC
+        )
+
+        then:
+        resultSet.size() == 2
+        resultSet*.getTimeStamp() == [new DateTime("2012-01-01T00:00:00.000Z", DateTimeZone.UTC)] * 2
+        resultSet*.getDimensionRow(ageColumn)*.get(BardDimensionField.ID) == ["1", "4"]
+        resultSet*.getMetricValueAsNumber(pageViews) == [1 as BigDecimal, 2 as BigDecimal]
+    }
+
+    @Unroll
+    def "Each distinct dimension value of a response is looked up once, together with the other values (#how)"() {
+        given: "A dimension whose rows are only found through batch lookups"
+        Dimension dimension = Mock(Dimension)
+        dimension.getApiName() >> "product"
+        DimensionColumn productColumn = new DimensionColumn(dimension)
+        MetricColumn pageViews = new MetricColumn("pageViews")
+        ResultSetSchema schema = new ResultSetSchema(DAY, [productColumn, pageViews])
+        DimensionRow row1 = BardDimensionField.makeDimensionRow(ageColumn.dimension, "1", "one")
+        DimensionRow row9 = BardDimensionField.makeDimensionRow(ageColumn.dimension, "9", "")
+
+        String druidResponse = "[" + ["1", "9", "1", "1", "9"].collect {
+            """{"timestamp": "2012-01-01T00:00:00.000Z", "event": {"product": "${it}", "pageViews": 1}}"""
+        }.join(",") + "]"
+
+        when:
+        ResultSet resultSet = streamed ?
+                responseParser.parse(
+                        new JsonFactory().createParser(druidResponse),
+                        schema,
+                        DefaultQueryType.GROUP_BY,
+                        DateTimeZone.UTC
+                ) :
+                buildResultSet(druidResponse, schema, DefaultQueryType.GROUP_BY)
+
+        then:
+        1 * dimension.findDimensionRowsByKeyValues(["1", "9"] as Set) >> ["1": row1]
+        1 * dimension.createEmptyDimensionRow("9") >> row9
+        0 * dimension.findDimensionRowByKeyValue(_)
+        resultSet*.getDimensionRow(productColumn) == [row1, row9, row1, row1, row9]
+
+        where:
+        streamed << [false, true]
+        how = streamed ? "streamed" : "parsed tree"
+    }
+
+    def "Streaming a response that is not an array of records fails to parse"() {
+        when:
+        responseParser.parse(
+                new JsonFactory().createParser('{"error": "not a result"}'),
+                buildSchema([]),
+                DefaultQueryType.GROUP_BY,
+                DateTimeZone.UTC
+        )
+
+        then:
+        thrown(JsonParseException)
+    }
+
     def "Attempting to parse an unknown query type throws an UnsupportedOperationException"() {
         given:
         QueryType mysteryType = Mock(QueryType)
@@ -443,6 +603,16 @@ class DruidResponseParserSpec extends Specification {
                     } ]
                 } ]
             """
+        } else if (queryType == DefaultQueryType.LOOKBACK) {
+            return """
+                [ {
+                    "timestamp" : "2012-01-01T00:00:00.000Z",
+                    "result" : {
+                        "ageBracket" : "4",
+                        $complexMetricsString
+                    }
+                } ]
+            """
         } else {
             return """
                 [ {
@@ -0,0 +1,91 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CacheValueEncoderSpec extends Specification {
+
+    static final String JSON = '[{"version":"v1","timestamp":"2014-06-10T00:00:00.000Z","event":{"color":"Foo","width":10}}]'
+
+    List<CacheValueCodec> readCodecs = DefaultCacheValueCodec.values() as List
+
+    @Unroll
+    def "Values encoded with #codec decode back to the same JSON"() {
+        given:
+        CacheValueEncoder encoder = new CacheValueEncoder(codec, readCodecs)
+
+        when:
+        String stored = encoder.encode(JSON)
+
+        then:
+        stored != JSON
+        encoder.decode(stored) == JSON
+
+        where:
+        codec << DefaultCacheValueCodec.values()
+    }
+
+    def "Large repetitive responses are stored much smaller"() {
+        given:
+        String big = "[" + (1..1000).collect { '{"version":"v1","event":{"color":"Foo","width":' + it + '}}' }.join(",") + "]"
+        CacheValueEncoder encoder = new CacheValueEncoder(DefaultCacheValueCodec.GZIP, readCodecs)
+
+        expect:
+        encoder.encode(big).length() < big.length() / 4
+    }
+
+    def "Without a codec values are stored as plain JSON"() {
+        given:
+        CacheValueEncoder encoder = new CacheValueEncoder(null, readCodecs)
+
+        expect:
+        encoder.encode(JSON) == JSON
+        encoder.decode(JSON) == JSON
+    }
+
+    def "Values written with any known codec, or none, can be read while the write codec changes"() {
+        given:
+        String gzipped = new CacheValueEncoder(DefaultCacheValueCodec.GZIP, readCodecs).encode(JSON)
+        CacheValueEncoder encoder = new CacheValueEncoder(DefaultCacheValueCodec.SMILE_GZIP, readCodecs)
+
+        expect:
+        encoder.decode(gzipped) == JSON
+        encoder.decode(JSON) == JSON
+    }
+
+    def "Values written with an unknown codec fail to decode"() {
+        given:
+        String stored = new CacheValueEncoder(DefaultCacheValueCodec.GZIP, readCodecs).encode(JSON)
+        CacheValueEncoder encoder = new CacheValueEncoder(null, [])
+
+        when:
+        encoder.decode(stored)
+
+        then:
+        IOException e = thrown()
+        e.message == "Unknown cache value codec: gzip"
+    }
+
+    @Unroll
+    def "Codec name #name is configured as #expected"() {
+        expect:
+        CacheValueEncoder.forName(name) == expected
+
+        where:
+        name          | expected
+        "none"        | null
+        "gzip"        | DefaultCacheValueCodec.GZIP
+        " Smile-Gzip" | DefaultCacheValueCodec.SMILE_GZIP
+    }
+
+    def "Unknown codec names are rejected"() {
+        when:
+        CacheValueEncoder.forName("lz4")
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Unknown cache value codec: lz4"
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache
+
+import spock.lang.Specification
+
+class FrequencySketchSpec extends Specification {
+
+    FrequencySketch sketch = new FrequencySketch(64)
+
+    def "Sightings of a key are counted, up to 15"() {
+        when:
+        3.times { sketch.increment("key") }
+
+        then:
+        sketch.frequency("key") == 3
+        sketch.frequency("other") == 0
+
+        when:
+        20.times { sketch.increment("key") }
+
+        then:
+        sketch.frequency("key") == 15
+    }
+
+    def "Counts are halved once enough sightings have been counted"() {
+        given: "64 counters per row, so counts halve every 640 sightings"
+        8.times { sketch.increment("hot") }
+
+        when:
+        (1..632).each { sketch.increment("cold" + (it % 4)) }
+
+        then:
+        sketch.frequency("hot") == 4
+    }
+
+    def "Clearing forgets all sightings"() {
+        given:
+        sketch.increment("key")
+
+        when:
+        sketch.clear()
+
+        then:
+        sketch.frequency("key") == 0
+    }
+}
@@ -0,0 +1,156 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.cache
+
+import org.joda.time.DateTime
+
+import spock.lang.Specification
+
+class TieredDataCacheSpec extends Specification {
+
+    TestTupleDataCache l2 = Spy(TestTupleDataCache)
+    TieredTupleDataCache<Long, String> cache = new TieredTupleDataCache<>(l2, 1024 * 1024, 300, 2)
+
+    def "Entries are only admitted to L1 once their key has been asked for often enough"() {
+        given:
+        cache.set("key", 1L, "value")
+
+        expect: "A key never asked for is not admitted on write"
+        cache.getL1Size() == 0
+
+        when: "The first read goes to L2, and the key has been asked for once"
+        TupleDataCache.DataEntry<String, Long, String> first = cache.get("key")
+
+        then:
+        1 * l2.get("key")
+        first.value == "value"
+        cache.getL1Size() == 0
+
+        when: "The second read goes to L2, and admits the entry"
+        cache.get("key")
+
+        then:
+        1 * l2.get("key")
+        cache.getL1Size() == 1
+
+        when: "Later reads are answered by L1"
+        long hits = TieredDataCache.L1_HITS.count
+        TupleDataCache.DataEntry<String, Long, String> cached = cache.get("key")
+
+        then:
+        0 * l2.get(_)
+        cached.meta == 1L
+        cached.value == "value"
+        cache.getDataValue("key") == "value"
+        TieredDataCache.L1_HITS.count == hits + 2
+    }
+
+    def "Writing a popular key replaces its L1 entry, carrying the new metadata"() {
+        given:
+        cache.set("key", 1L, "old")
+        2.times { cache.get("key") }
+
+        when:
+        cache.set("key", 2L, "new")
+        TupleDataCache.DataEntry<String, Long, String> entry = cache.get("key")
+
+        then:
+        0 * l2.get(_)
+        entry.meta == 2L
+        entry.value == "new"
+    }
+
+    def "A write that L2 fails to store drops the L1 entry"() {
+        given:
+        cache.set("key", 1L, "old")
+        2.times { cache.get("key") }
+
+        when:
+        boolean stored = cache.set("key", 2L, "new")
+
+        then:
+        1 * l2.set("key", 2L, "new") >> false
+        !stored
+        cache.getL1Size() == 0
+    }
+
+    def "Misses in both tiers are counted"() {
+        given:
+        long l1Misses = TieredDataCache.L1_MISSES.count
+        long l2Misses = TieredDataCache.L2_MISSES.count
+
+        expect:
+        cache.get("missing") == null
+        TieredDataCache.L1_MISSES.count == l1Misses + 1
+        TieredDataCache.L2_MISSES.count == l2Misses + 1
+    }
+
+    def "L1 is bounded by the estimated size of its entries, and counts evictions"() {
+        given: "Room for a few entries of about 300 bytes"
+        TieredTupleDataCache<Long, String> small = new TieredTupleDataCache<>(l2, 2000, 300, 1)
+        long evictions = TieredDataCache.L1_EVICTIONS.count
+
+        when:
+        (1..20).each {
+            small.get("key" + it)
+            small.set("key" + it, 1L, "x" * 100)
+        }
+
+        then:
+        small.getL1Size() < 7
+        TieredDataCache.L1_EVICTIONS.count == evictions + 20 - small.getL1Size()
+    }
+
+    def "Entries written with an expiration expire from L1 with it"() {
+        given:
+        TestDataCache ttlL2 = new TestDataCache()
+        TieredDataCache<HashDataCache.Pair<String, String>> ttlCache = new TieredDataCache<>(ttlL2, 1024, 300, 1)
+        HashDataCache.Pair<String, String> pair = new HashDataCache.Pair<>("key", "value")
+        ttlCache.get("key")
+
+        when:
+        ttlCache.set("key", pair, new DateTime().minusSeconds(1))
+
+        then: "Expired in both tiers"
+        ttlCache.get("key") == null
+
+        when:
+        ttlCache.set("key", pair, new DateTime().plusHours(1))
+
+        then:
+        ttlCache.getL1Size() == 1
+        ttlCache.get("key") == pair
+    }
+
+    def "Clearing the cache clears both tiers"() {
+        given:
+        cache.set("key", 1L, "value")
+        2.times { cache.get("key") }
+
+        when:
+        cache.clear()
+
+        then:
+        cache.getL1Size() == 0
+        cache.get("key") == null
+    }
+
+    def "Encoded values are kept decoded in L1, and read back through the encoder unchanged"() {
+        setup:
+        CacheValueEncoder encoder = new CacheValueEncoder(DefaultCacheValueCodec.GZIP, [])
+        TieredTupleDataCache<Long, String> encodedCache = new TieredTupleDataCache<>(l2, 1024 * 1024, 300, 2, encoder)
+        String json = '[{"timestamp":"2014-06-10T00:00:00.000Z","event":{"pageViews":1}}]'
+        String stored = encoder.encode(json)
+        encodedCache.set("key", 1L, stored)
+
+        when: "The entry is admitted from L2"
+        2.times { encodedCache.get("key") }
+        TupleDataCache.DataEntry<String, Long, String> cached = encodedCache.get("key")
+
+        then: "L1 answers with the decoded value, which the encoder passes through"
+        2 * l2.get("key")
+        cached.meta == 1L
+        cached.value == json
+        encoder.decode(cached.value) == json
+    }
+}
@@ -45,6 +45,16 @@ abstract class BaseKeyValueStoreSpec extends Specification {
         "value1" == store1.get("key1")
     }
 
+    def "get several keys returns the values of the keys that are set"() {
+        given: 'two of three keys exist'
+        store1.put("key1", "value1")
+        store1.put("key2", "value2")
+        store1.remove("key3")
+
+        expect: 'only the keys that are set are returned'
+        store1.getAll(["key1", "key2", "key3"]) == [key1: "value1", key2: "value2"]
+    }
+
     def "put a key with a null value removes the key"() {
         given: 'the key exists'
         store1.put("key1", "value")
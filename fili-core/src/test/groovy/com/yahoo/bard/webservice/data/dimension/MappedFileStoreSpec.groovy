@@ -0,0 +1,208 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension
+
+import com.yahoo.bard.webservice.util.Utils
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.StandardOpenOption
+
+class MappedFileStoreSpec extends BaseKeyValueStoreSpec {
+
+    def KeyValueStore getInstance(String storeName) {
+        return MappedFileStoreManager.getInstance(storeName)
+    }
+
+    def void removeInstance(String storeName) {
+        MappedFileStoreManager.removeInstance(storeName)
+    }
+
+    Path directory = Paths.get("./target/tmp/mappedFileStoreSpec")
+
+    def setup() {
+        Utils.deleteFiles(directory.toString())
+    }
+
+    def "values survive closing and reopening the store"() {
+        given:
+        MappedFileStore store = new MappedFileStore(directory, 4096)
+        store.putAll(["key1": "value1", "key2": "value2"])
+        store.remove("key2")
+        store.close()
+
+        when:
+        MappedFileStore reopened = new MappedFileStore(directory, 4096)
+
+        then:
+        reopened.get("key1") == "value1"
+        reopened.get("key2") == null
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "the index is rebuilt from the log when it was not saved"() {
+        given: 'a store whose index is lost'
+        MappedFileStore store = new MappedFileStore(directory, 4096)
+        (1..3000).each { store.put("key" + it, "value" + it) }
+        store.close()
+        Files.delete(directory.resolve(MappedFileStore.INDEX_FILE_NAME))
+
+        when:
+        MappedFileStore reopened = new MappedFileStore(directory, 4096)
+
+        then: 'every value is found, including values in later chunks of the log'
+        (1..3000).every { reopened.get("key" + it) == "value" + it }
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "a store that was not closed is reopened from its saved index, without reading its log"() {
+        given: 'a store left open, as if its process died, whose first record is overwritten by a later write'
+        MappedFileStore store = new MappedFileStore(directory, 4096)
+        store.put("key1", "value1")
+        store.putAll(["key1": "value1_2", "key2": "value2"])
+        long garbage = store.getGarbageLength()
+
+        and: 'the first record, just past the 64 byte log header, zeroed, so reading the log would stop there'
+        FileChannel.open(directory.resolve(MappedFileStore.LOG_FILE_NAME), StandardOpenOption.WRITE).withCloseable {
+            it.write(ByteBuffer.allocate(Integer.BYTES), 64)
+        }
+
+        when:
+        MappedFileStore reopened = new MappedFileStore(directory, 4096)
+
+        then: 'the latest values are found through the index saved by the last write'
+        reopened.get("key1") == "value1_2"
+        reopened.get("key2") == "value2"
+        reopened.getGarbageLength() == garbage
+
+        cleanup:
+        reopened.close()
+        store.close()
+    }
+
+    def "writes past the committed end of the log are ignored"() {
+        given: 'a committed write, then a write whose commit is undone as if the process crashed before committing it'
+        MappedFileStore store = new MappedFileStore(directory, 4096)
+        store.put("key1", "value1")
+        long committed = store.getLogLength()
+        store.put("key2", "value2")
+        store.close()
+        FileChannel.open(directory.resolve(MappedFileStore.LOG_FILE_NAME), StandardOpenOption.WRITE).withCloseable {
+            it.write(ByteBuffer.allocate(Long.BYTES).putLong(0, committed), 16)
+        }
+
+        when:
+        MappedFileStore reopened = new MappedFileStore(directory, 4096)
+
+        then:
+        reopened.get("key1") == "value1"
+        reopened.get("key2") == null
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "compaction drops overwritten values and keeps the latest ones"() {
+        given:
+        MappedFileStore store = new MappedFileStore(directory, 1 << 20)
+        (1..10).each { version -> store.putAll((1..100).collectEntries { ["key" + it, "value" + it + "_" + version] }) }
+        store.remove("key1")
+        long before = store.getLogLength()
+
+        when:
+        store.compact()
+
+        then:
+        store.getLogLength() < before / 5
+        store.get("key1") == null
+        (2..100).every { store.get("key" + it) == "value" + it + "_10" }
+
+        when: 'the compacted store is reopened'
+        store.close()
+        store.open()
+
+        then:
+        store.get("key100") == "value100_10"
+
+        cleanup:
+        store.close()
+    }
+
+    def "the space taken by overwritten values is still known after the store is reopened"() {
+        given:
+        MappedFileStore store = new MappedFileStore(directory, 1 << 20)
+        (1..3).each { version -> store.putAll((1..100).collectEntries { ["key" + it, "value" + it + "_" + version] }) }
+        long garbage = store.getGarbageLength()
+        store.close()
+
+        expect:
+        garbage > 0
+
+        when:
+        store.open()
+
+        then:
+        store.getGarbageLength() == garbage
+
+        when: 'the index is lost, and rebuilt from the log'
+        store.close()
+        Files.delete(directory.resolve(MappedFileStore.INDEX_FILE_NAME))
+        store.open()
+
+        then:
+        store.getGarbageLength() == garbage
+
+        when:
+        store.compact()
+
+        then:
+        store.getGarbageLength() == 0
+        (1..100).every { store.get("key" + it) == "value" + it + "_3" }
+
+        cleanup:
+        store.close()
+    }
+
+    def "the leftovers of an interrupted compaction are deleted when the store is opened"() {
+        given: 'a compaction that stopped part way through writing its new log'
+        Path compactionDirectory = directory.resolve("compacting")
+        new MappedFileStore(compactionDirectory, 4096).with {
+            put("stale", "value")
+            close()
+        }
+
+        when:
+        MappedFileStore store = new MappedFileStore(directory, 4096)
+        store.put("key1", "value1")
+        store.compact()
+
+        then: 'nothing of the interrupted compaction is left, or copied into the store'
+        !Files.exists(compactionDirectory)
+        store.get("stale") == null
+        store.get("key1") == "value1"
+
+        cleanup:
+        store.close()
+    }
+
+    def "a row larger than a chunk is rejected"() {
+        given:
+        MappedFileStore store = new MappedFileStore(directory, 4096)
+
+        when:
+        store.put("key1", "x" * 5000)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        cleanup:
+        store.close()
+    }
+}
@@ -0,0 +1,115 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl
+
+import com.yahoo.bard.webservice.data.dimension.BardDimensionField
+import com.yahoo.bard.webservice.data.dimension.Dimension
+import com.yahoo.bard.webservice.data.dimension.DimensionField
+import com.yahoo.bard.webservice.data.dimension.DimensionRow
+import com.yahoo.bard.webservice.data.dimension.MapStore
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompactDimensionRowCodecSpec extends Specification {
+
+    CompactDimensionRowCodec codec = new CompactDimensionRowCodec()
+
+    Dimension dimension = dimension([BardDimensionField.ID, BardDimensionField.DESC])
+
+    Dimension dimension(List<DimensionField> fields) {
+        new KeyValueStoreDimension(
+                "compact",
+                "compact",
+                fields as LinkedHashSet<DimensionField>,
+                new MapStore(),
+                new ScanSearchProvider()
+        )
+    }
+
+    @Unroll
+    def "A row with description '#description' reads back as it was written"() {
+        given:
+        DimensionRow row = BardDimensionField.makeDimensionRow(dimension, "key", description)
+
+        when:
+        String encoded = codec.encode(dimension, row)
+
+        then:
+        codec.canDecode(encoded)
+        !new JsonDimensionRowCodec().canDecode(encoded)
+        codec.decode(dimension, encoded) == row
+
+        and: "Only values, not field names, are written"
+        encoded.length() <= 12 + description.length()
+
+        where:
+        description << ["", "a row", "été 😀", "x" * 20000]
+    }
+
+    def "Missing values read back as empty"() {
+        given:
+        DimensionRow keyOnly = new DimensionRow(BardDimensionField.ID, [(BardDimensionField.ID): "key"])
+
+        expect:
+        codec.decode(dimension, codec.encode(dimension, keyOnly)) ==
+                BardDimensionField.makeDimensionRow(dimension, "key", "")
+    }
+
+    def "Rows written for an unknown layout of the dimension's fields read as missing"() {
+        given:
+        Dimension reordered = dimension([BardDimensionField.DESC, BardDimensionField.ID])
+        String encoded = codec.encode(dimension, BardDimensionField.makeDimensionRow(dimension, "key", "desc"), 1)
+
+        expect:
+        codec.isCurrent(encoded, 1)
+        !codec.isCurrent(encoded, 2)
+        codec.decode(reordered, encoded, 2, { null }) == null
+    }
+
+    def "Rows written for a stored layout of the dimension's fields are read by field name"() {
+        given: "A row stored before the dimension's fields were reordered and a field was dropped and added"
+        Dimension before = dimension([BardDimensionField.ID, BardDimensionField.FIELD1, BardDimensionField.DESC])
+        Dimension after = dimension([BardDimensionField.DESC, BardDimensionField.ID, BardDimensionField.FIELD2])
+        DimensionRow row = new DimensionRow(
+                BardDimensionField.ID,
+                [
+                        (BardDimensionField.ID): "key",
+                        (BardDimensionField.FIELD1): "dropped",
+                        (BardDimensionField.DESC): "desc"
+                ]
+        )
+        String encoded = codec.encode(before, row, 1)
+
+        when:
+        DimensionRow decoded = codec.decode(
+                after,
+                encoded,
+                2,
+                { it == 1 ? ["id", "field1", "desc"] : null }
+        )
+
+        then:
+        decoded == new DimensionRow(
+                BardDimensionField.ID,
+                [
+                        (BardDimensionField.DESC): "desc",
+                        (BardDimensionField.ID): "key",
+                        (BardDimensionField.FIELD2): ""
+                ]
+        )
+        codec.isCurrent(encoded, 1)
+        !codec.isCurrent(encoded, 2)
+    }
+
+    def "Truncated rows cannot be read"() {
+        given:
+        String encoded = codec.encode(dimension, BardDimensionField.makeDimensionRow(dimension, "key", "desc"))
+
+        when:
+        codec.decode(dimension, encoded.substring(0, encoded.length() - 2))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
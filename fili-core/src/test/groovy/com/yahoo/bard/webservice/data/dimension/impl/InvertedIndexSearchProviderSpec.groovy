@@ -0,0 +1,143 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.data.dimension.impl
+
+import static com.yahoo.bard.webservice.data.dimension.BardDimensionField.makeDimensionRow
+
+import com.yahoo.bard.webservice.data.cache.HashDataCache.Pair
+import com.yahoo.bard.webservice.data.dimension.DimensionRow
+import com.yahoo.bard.webservice.data.dimension.MapStore
+import com.yahoo.bard.webservice.data.dimension.MapStoreManager
+import com.yahoo.bard.webservice.util.DimensionStoreKeyUtils
+import com.yahoo.bard.webservice.web.util.PaginationParameters
+
+/**
+ * Specification for behavior specific to the InvertedIndexSearchProvider.
+ */
+class InvertedIndexSearchProviderSpec extends SearchProviderSpec<InvertedIndexSearchProvider> {
+
+    @Override
+    InvertedIndexSearchProvider getSearchProvider(String dimensionName) {
+        InvertedIndexSearchProviderManager.getInstance(dimensionName)
+    }
+
+    @Override
+    void cleanSearchProvider(String dimensionName) {
+        InvertedIndexSearchProviderManager.removeInstance(dimensionName)
+    }
+
+    @Override
+    boolean indicesHaveBeenCleared() {
+        return searchProvider.keyValueStore.store.size() == 2 &&
+                searchProvider.keyValueStore[DimensionStoreKeyUtils.getCardinalityKey()] == "0" &&
+                searchProvider.keyValueStore[DimensionStoreKeyUtils.getAllValuesKey()] == "[]" &&
+                searchProvider.findAllDimensionRows().isEmpty()
+    }
+
+    def "Filter values are matched literally, and contains and startswith match within and at the start of values"() {
+        expect:
+        keysMatching("animal|desc-startswith[Monkeys]") ==
+                ["bonobo", "chimpanzee", "spidermonkey"]
+        keysMatching("animal|desc-contains[eight]") ==
+                ["brownrecluse", "tarantula", "wolfspider"]
+        searchProvider.findFilteredDimensionRows([buildFilter("animal|id-startswith[.*]")] as Set).isEmpty()
+        !searchProvider.hasAnyRows([buildFilter("animal|id-in[unicorn]")] as Set)
+        searchProvider.hasAnyRows([buildFilter("animal|id-notin[unicorn]")] as Set)
+    }
+
+    def "The index is rebuilt from the rows in the key value store"() {
+        given: "A new provider for the same store"
+        InvertedIndexSearchProvider rebuilt = new InvertedIndexSearchProvider()
+        rebuilt.setDimension(keyValueStoreDimension)
+        rebuilt.setKeyValueStore(MapStoreManager.getInstance("animal"))
+
+        expect:
+        rebuilt.getDimensionCardinality() == dimensionRows.size()
+        rebuilt.findAllOrderedDimensionRows() == searchProvider.findAllOrderedDimensionRows()
+        rebuilt.findFilteredDimensionRows([buildFilter("animal|desc-in[this is a raptor]")] as Set) ==
+                [dimensionRow2, dimensionRow2a] as Set
+    }
+
+    def "Replacing a row moves it between the values of its fields without adding a row"() {
+        when:
+        keyValueStoreDimension.addDimensionRow(makeDimensionRow(keyValueStoreDimension, "owl", "a night raptor"))
+
+        then:
+        searchProvider.getDimensionCardinality() == dimensionRows.size()
+        searchProvider.findFilteredDimensionRows([buildFilter("animal|desc-in[this is an owl]")] as Set).isEmpty()
+        keysMatching("animal|desc-contains[raptor]") ==
+                ["eagle", "hawk", "owl"]
+        searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 1)).pageOfData*.getKeyValue() ==
+                ["alligator", "aneurysm", "bonobo"]
+    }
+
+    def "A field with a distinct value per row takes room in proportion to the rows, not their square"() {
+        given: "A provider over 100k rows, each with its own key and description"
+        int rowCount = 100000
+        InvertedIndexSearchProvider provider = new InvertedIndexSearchProvider()
+        provider.setDimension(keyValueStoreDimension)
+        provider.setKeyValueStore(new MapStore())
+        Map<String, Pair<DimensionRow, DimensionRow>> changedRows = (0..<rowCount).collectEntries {
+            DimensionRow row = makeDimensionRow(keyValueStoreDimension, "row$it", "description $it")
+            [(row.getKeyValue()): new Pair<>(row, null)]
+        }
+
+        when:
+        provider.refreshIndex(changedRows)
+
+        then: "Each description holds a single row number rather than a bit set over the rows before it"
+        provider.getPostingsSizeInBytes() <= (long) rowCount * Integer.BYTES
+
+        and: "Both fields are still searchable"
+        provider.findFilteredDimensionRows([buildFilter("animal|desc-in[description 99999]")] as Set)*.getKeyValue() ==
+                ["row99999"]
+        provider.findFilteredDimensionRows([buildFilter("animal|id-startswith[row9999]")] as Set).size() == 11
+        provider.findFilteredDimensionRows([buildFilter("animal|id-in[row42]")] as Set)*.getKeyValue() == ["row42"]
+    }
+
+    def "Row numbers of a value shared by many rows move to a bit set"() {
+        given:
+        RowNumberSet rowNumbers = RowNumberSet.of(0)
+
+        when: "Every other row of 1000 is added"
+        (2..<1000).step(2) { rowNumbers.add(it, 1000) }
+        BitSet matches = new BitSet()
+        rowNumbers.addTo(matches)
+
+        then: "The set takes no more room than a bit set over the rows"
+        rowNumbers.getSizeInBytes() <= 1000
+        matches.cardinality() == 500
+        matches.stream().allMatch { it % 2 == 0 }
+
+        when: "Rows are removed, and one is added out of order"
+        rowNumbers.remove(0)
+        rowNumbers.remove(998)
+        rowNumbers.add(1, 1000)
+        matches = new BitSet()
+        rowNumbers.addTo(matches)
+
+        then:
+        matches.cardinality() == 499
+        !matches.get(0) && !matches.get(998) && matches.get(1)
+    }
+
+    def "Sparse row numbers stay sorted when added out of order"() {
+        given:
+        RowNumberSet rowNumbers = RowNumberSet.of(500)
+
+        when:
+        [100, 900, 100, 300].each { rowNumbers.add(it, 100000) }
+        rowNumbers.remove(900)
+        BitSet matches = new BitSet()
+        rowNumbers.addTo(matches)
+
+        then:
+        matches.stream().toArray() as List == [100, 300, 500]
+        rowNumbers.getSizeInBytes() < 100000 / Byte.SIZE
+        !rowNumbers.isEmpty()
+    }
+
+    List<String> keysMatching(String filterQuery) {
+        return searchProvider.findFilteredDimensionRows([buildFilter(filterQuery)] as Set)*.getKeyValue()
+    }
+}
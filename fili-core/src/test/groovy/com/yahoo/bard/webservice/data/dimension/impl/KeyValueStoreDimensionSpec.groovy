@@ -6,12 +6,17 @@ import com.yahoo.bard.webservice.data.config.dimension.DimensionBackend
 import com.yahoo.bard.webservice.data.dimension.BardDimensionField
 import com.yahoo.bard.webservice.data.dimension.DimensionField
 import com.yahoo.bard.webservice.data.dimension.DimensionRow
+import com.yahoo.bard.webservice.data.dimension.DimensionRowCodec
 import com.yahoo.bard.webservice.data.dimension.KeyValueStore
+import com.yahoo.bard.webservice.data.dimension.MapStore
 import com.yahoo.bard.webservice.data.dimension.MapStoreManager
 import com.yahoo.bard.webservice.data.dimension.SearchProvider
+import com.yahoo.bard.webservice.util.DimensionStoreKeyUtils
 import com.yahoo.bard.webservice.web.ApiFilter
 import com.yahoo.bard.webservice.web.DefaultFilterOperation
 
+import com.fasterxml.jackson.databind.ObjectMapper
+
 import org.joda.time.DateTime
 
 import spock.lang.Shared
@@ -177,4 +182,176 @@ class KeyValueStoreDimensionSpec extends Specification {
         threads.each { it.join(10000) }
         threads.each { if ( it.cause != null ) throw it.cause }
     }
+
+    def "Rows looked up together are fetched from the store together, and then read from the row cache"() {
+        setup:
+        KeyValueStore store = Spy(MapStore)
+        KeyValueStoreDimension dimension = new KeyValueStoreDimension(
+                "batched",
+                "batched",
+                [BardDimensionField.ID, BardDimensionField.DESC] as LinkedHashSet<DimensionField>,
+                store,
+                ScanSearchProviderManager.getInstance("batched")
+        )
+        dimension.setLastUpdated(lastUpdated)
+        DimensionRow row1 = BardDimensionField.makeDimensionRow(dimension, "row1", "this is a row")
+        DimensionRow row2 = BardDimensionField.makeDimensionRow(dimension, "row2", "this is a row")
+        dimension.addAllDimensionRows([row1, row2] as Set)
+
+        when:
+        Map<String, DimensionRow> rows = dimension.findDimensionRowsByKeyValues(["row1", "row2", "unknown"])
+
+        then: "The rows are fetched in one multi-get"
+        rows == [row1: row1, row2: row2]
+        1 * store.getAll(_)
+
+        when:
+        rows = dimension.findDimensionRowsByKeyValues(["row1", "row2"])
+
+        then: "The rows are then read from the cache"
+        rows == [row1: row1, row2: row2]
+        0 * store.getAll(_)
+
+        when: "The dimension's rows change"
+        DimensionRow updatedRow1 = BardDimensionField.makeDimensionRow(dimension, "row1", "this is a new row")
+        dimension.addDimensionRow(updatedRow1)
+        rows = dimension.findDimensionRowsByKeyValues(["row1", "row2"])
+
+        then: "The cached rows are no longer read"
+        rows == [row1: updatedRow1, row2: row2]
+        1 * store.getAll({ it.size() == 2 })
+
+        when: "The dimension's last updated date changes"
+        rows = dimension.findDimensionRowsByKeyValues(["row1"])
+        dimension.setLastUpdated(lastUpdated.plusDays(1))
+        rows = dimension.findDimensionRowsByKeyValues(["row1"])
+
+        then: "The cached rows are no longer read"
+        rows == [row1: updatedRow1]
+        1 * store.getAll(_)
+
+        when: "The dimension's rows are deleted"
+        dimension.deleteAllDimensionRows()
+
+        then:
+        dimension.findDimensionRowsByKeyValues(["row1", "row2"]).isEmpty()
+    }
+
+    /**
+     * Make a dimension storing its rows compactly.
+     *
+     * @param fields  The fields of the dimension
+     * @param store  The store of the dimension's rows
+     *
+     * @return the dimension
+     */
+    KeyValueStoreDimension compactDimension(List<DimensionField> fields, KeyValueStore store) {
+        return new KeyValueStoreDimension(
+                "migrated",
+                "migrated",
+                fields as LinkedHashSet<DimensionField>,
+                store,
+                new ScanSearchProvider()
+        ) {
+            @Override
+            protected DimensionRowCodec getRowCodec() {
+                return new CompactDimensionRowCodec()
+            }
+        }
+    }
+
+    def "Rows stored as JSON are read, and migrated to the compact encoding"() {
+        setup:
+        KeyValueStore store = new MapStore()
+        KeyValueStoreDimension dimension = compactDimension([BardDimensionField.ID, BardDimensionField.DESC], store)
+        DimensionRow row1 = BardDimensionField.makeDimensionRow(dimension, "row1", "this is a row")
+        DimensionRow row2 = BardDimensionField.makeDimensionRow(dimension, "row2", "this is a row")
+        dimension.addAllDimensionRows([row1, row2] as Set)
+        JsonDimensionRowCodec json = new JsonDimensionRowCodec()
+        CompactDimensionRowCodec compact = new CompactDimensionRowCodec()
+        String rowKey1 = DimensionStoreKeyUtils.getRowKey("id", "row1")
+        String rowKey2 = DimensionStoreKeyUtils.getRowKey("id", "row2")
+
+        expect: "Rows are stored compactly"
+        compact.canDecode(store.get(rowKey1))
+
+        when: "The rows were stored as JSON"
+        store.put(rowKey1, json.encode(dimension, row1))
+        store.put(rowKey2, json.encode(dimension, row2))
+
+        then: "They can still be read"
+        dimension.findDimensionRowByKeyValue("row1") == row1
+        dimension.searchProvider.findAllDimensionRows() == [row1, row2] as Set
+
+        when: "A row is loaded again"
+        dimension.addDimensionRow(row1)
+
+        then: "It is stored compactly"
+        compact.canDecode(store.get(rowKey1))
+        json.canDecode(store.get(rowKey2))
+
+        when: "The dimension is migrated"
+        int migrated = dimension.migrateDimensionRows()
+
+        then: "The remaining rows are stored compactly"
+        migrated == 1
+        compact.canDecode(store.get(rowKey2))
+        dimension.findDimensionRowByKeyValue("row2") == row2
+    }
+
+    def "Compact rows stored before the dimension's fields changed are read by field name, and rewritten"() {
+        setup: "Rows stored compactly"
+        KeyValueStore store = new MapStore()
+        KeyValueStoreDimension before = compactDimension([BardDimensionField.ID, BardDimensionField.DESC], store)
+        before.addAllDimensionRows([BardDimensionField.makeDimensionRow(before, "row1", "this is a row")] as Set)
+        String rowKey = DimensionStoreKeyUtils.getRowKey("id", "row1")
+
+        and: "The dimension's fields change"
+        KeyValueStoreDimension after = compactDimension(
+                [BardDimensionField.ID, BardDimensionField.FIELD1, BardDimensionField.DESC],
+                store
+        )
+        CompactDimensionRowCodec compact = new CompactDimensionRowCodec()
+        DimensionRow row = BardDimensionField.makeDimensionRow(after, "row1", "", "this is a row")
+
+        expect: "The stored row is still read"
+        after.findDimensionRowByKeyValue("row1") == row
+        compact.isCurrent(store.get(rowKey), 1)
+
+        and: "Each layout is stored, numbered in the order it was first used"
+        new ObjectMapper().readValue(store.get(DimensionStoreKeyUtils.getRowLayoutsKey()), List) ==
+                [["id", "desc"], ["id", "field1", "desc"]]
+
+        when: "The dimension is migrated"
+        int migrated = after.migrateDimensionRows()
+
+        then: "The row is stored under the new layout"
+        migrated == 1
+        compact.isCurrent(store.get(rowKey), 2)
+        after.findDimensionRowByKeyValue("row1") == row
+    }
+
+    def "A layout keeps its id, so rows stored under it are read as they were stored"() {
+        setup: "A row stored under one layout, and a row stored under another"
+        KeyValueStore store = new MapStore()
+        KeyValueStoreDimension first = compactDimension([BardDimensionField.ID, BardDimensionField.DESC], store)
+        first.addDimensionRow(BardDimensionField.makeDimensionRow(first, "row1", "first"))
+        KeyValueStoreDimension second = compactDimension(
+                [BardDimensionField.ID, BardDimensionField.FIELD1, BardDimensionField.DESC],
+                store
+        )
+        second.addDimensionRow(BardDimensionField.makeDimensionRow(second, "row2", "dropped", "second"))
+
+        when: "The dimension goes back to its first layout"
+        KeyValueStoreDimension again = compactDimension([BardDimensionField.ID, BardDimensionField.DESC], store)
+
+        then: "Rows stored under either layout read by field name"
+        again.findDimensionRowByKeyValue("row1") == BardDimensionField.makeDimensionRow(again, "row1", "first")
+        again.findDimensionRowByKeyValue("row2") == BardDimensionField.makeDimensionRow(again, "row2", "second")
+
+        and: "The first layout was not stored again"
+        new ObjectMapper().readValue(store.get(DimensionStoreKeyUtils.getRowLayoutsKey()), List) ==
+                [["id", "desc"], ["id", "field1", "desc"]]
+        again.migrateDimensionRows() == 1
+    }
 }
@@ -2,16 +2,22 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.data.dimension.impl
 
+import com.yahoo.bard.webservice.data.cache.HashDataCache.Pair
 import com.yahoo.bard.webservice.data.dimension.BardDimensionField
+import com.yahoo.bard.webservice.data.dimension.DimensionField
 import com.yahoo.bard.webservice.data.dimension.DimensionRow
+import com.yahoo.bard.webservice.data.dimension.DimensionRowCache
 import com.yahoo.bard.webservice.data.dimension.KeyValueStore
+import com.yahoo.bard.webservice.data.dimension.MapStoreManager
 import com.yahoo.bard.webservice.data.dimension.TimeoutException
 import com.yahoo.bard.webservice.util.DimensionStoreKeyUtils
+import com.yahoo.bard.webservice.util.Pagination
 import com.yahoo.bard.webservice.web.ErrorMessageFormat
 import com.yahoo.bard.webservice.web.RowLimitReachedException
 import com.yahoo.bard.webservice.web.util.PaginationParameters
 
 import org.apache.commons.io.FileUtils
+import org.apache.lucene.search.IndexSearcher
 import org.apache.lucene.store.FSDirectory
 
 import spock.lang.Ignore
@@ -130,6 +136,83 @@ class LuceneSearchProviderSpec extends SearchProviderSpec<LuceneSearchProvider>
         thrown RowLimitReachedException
     }
 
+    def "every row is on exactly one page when pages are found by number"() {
+        when:
+        List<List<DimensionRow>> pages = (1..5).collect {
+            searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, it)).getPageOfData()
+        }
+
+        then:
+        pages*.size() == [3, 3, 3, 3, 2]
+        pages.flatten() as Set == dimensionRows as Set
+    }
+
+    def "pages found through the cursor of the previous page match the pages found by number"() {
+        given:
+        Pagination<DimensionRow> page = searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 1))
+
+        expect:
+        (2..5).every { pageNumber ->
+            String cursor = page.getNextCursor().get()
+            page = searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, pageNumber, cursor))
+            page.getPageOfData() ==
+                    searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, pageNumber)).getPageOfData()
+        }
+
+        and: "the last page hands out no cursor"
+        !page.getNextCursor().isPresent()
+    }
+
+    def "a cursor of another page or of an index since refreshed is ignored"() {
+        given:
+        String cursor = searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 1)).getNextCursor().get()
+
+        expect: "a cursor for page 2 used for page 3 finds page 3"
+        searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 3, cursor)).getPageOfData() ==
+                searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 3)).getPageOfData()
+
+        when: "the index is refreshed"
+        keyValueStoreDimension.addDimensionRow(
+                BardDimensionField.makeDimensionRow(keyValueStoreDimension, "badger", "mushroom")
+        )
+
+        then: "the stale cursor finds page 2 by number"
+        searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 2, cursor)).getPageOfData() ==
+                searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 2)).getPageOfData()
+    }
+
+    def "cursors of separate instances over the same rows don't match each other's readers"() {
+        given: "two instances loaded the same way, as an instance would be before and after a restart"
+        List<String> cursors = ["before_restart", "after_restart"].collect { name ->
+            KeyValueStoreDimension dimension = new KeyValueStoreDimension(
+                    name,
+                    name,
+                    [BardDimensionField.ID, BardDimensionField.DESC] as LinkedHashSet<DimensionField>,
+                    MapStoreManager.getInstance(name),
+                    LuceneSearchProviderManager.getInstance(name)
+            )
+            dimension.addAllDimensionRows(
+                    (1..6).collect { BardDimensionField.makeDimensionRow(dimension, "row$it", "desc$it") } as Set
+            )
+            dimension.searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 1)).getNextCursor().get()
+        }
+
+        expect: "their cursors for the same page differ"
+        cursors[0] != cursors[1]
+
+        cleanup:
+        ["before_restart", "after_restart"].each {
+            LuceneSearchProviderManager.removeInstance(it)
+            MapStoreManager.removeInstance(it)
+        }
+    }
+
+    def "a malformed cursor is ignored"() {
+        expect:
+        searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 2, "not a cursor")).getPageOfData() ==
+                searchProvider.findAllDimensionRowsPaged(new PaginationParameters(3, 2)).getPageOfData()
+    }
+
     def "refresh cardinality is called when assigining a new key value store"() {
         given: "a new key value store"
         KeyValueStore keyValueStore = Mock()
@@ -249,6 +332,87 @@ class LuceneSearchProviderSpec extends SearchProviderSpec<LuceneSearchProvider>
         )
     }
 
+    @Timeout(5)
+    def "Searches don't wait for a writer holding the write lock"() {
+        setup:
+        searchProvider.@searchTimeout = 2000
+
+        when: "another thread holds the write lock"
+        Thread t = new Thread({searchProvider.writeLock()})
+        t.start()
+        t.join()
+
+        then: "searches still run"
+        searchProvider.findAllDimensionRowsPaged(new PaginationParameters(rowLimit, 1)).getNumResults() ==
+                dimensionRows.size()
+    }
+
+    def "A searcher acquired before the index is refreshed keeps searching the index as it was"() {
+        given:
+        IndexSearcher before = searchProvider.acquireIndexSearcher()
+
+        when:
+        keyValueStoreDimension.addDimensionRow(
+                BardDimensionField.makeDimensionRow(keyValueStoreDimension, "badger", "mushroom")
+        )
+        IndexSearcher after = searchProvider.acquireIndexSearcher()
+
+        then:
+        before.getIndexReader().numDocs() == dimensionRows.size()
+        after.getIndexReader().numDocs() == dimensionRows.size() + 1
+
+        cleanup:
+        searchProvider.releaseIndexSearcher(before)
+        searchProvider.releaseIndexSearcher(after)
+    }
+
+    def "rebuildIndex applies the changed rows, carries over the others and swaps in a single merged segment"() {
+        given: "a changed row and a new row, already in the key value store as the dimension writes rows first"
+        DimensionRow oldOwl = keyValueStoreDimension.findDimensionRowByKeyValue("owl")
+        DimensionRow newOwl = BardDimensionField.makeDimensionRow(keyValueStoreDimension, "owl", "still a raptor")
+        DimensionRow badger = BardDimensionField.makeDimensionRow(keyValueStoreDimension, "badger", "mushroom")
+        String keyName = keyValueStoreDimension.getKey().getName()
+        Map<String, Pair<DimensionRow, DimensionRow>> changedRows = [
+                (DimensionStoreKeyUtils.getRowKey(keyName, "owl")): new Pair<>(newOwl, oldOwl),
+                (DimensionStoreKeyUtils.getRowKey(keyName, "badger")): new Pair<>(badger, null)
+        ]
+        changedRows.each { rowKey, rows ->
+            keyValueStoreDimension.getKeyValueStore().put(
+                    rowKey,
+                    keyValueStoreDimension.encodeDimensionRow(rows.getKey())
+            )
+        }
+        Set<DimensionRow> expectedRows = (dimensionRows - oldOwl) + [newOwl, badger] as Set
+        DimensionRowCache.getInstance().invalidateAll()
+
+        when:
+        searchProvider.rebuildIndex(changedRows)
+        Map<String, DimensionRow> cachedRows = DimensionRowCache.getInstance().getAll(
+                keyValueStoreDimension.getRowVersion().get(),
+                dimensionRows*.getKeyValue()
+        )
+        IndexSearcher indexSearcher = searchProvider.acquireIndexSearcher()
+
+        then:
+        searchProvider.findAllDimensionRows() == expectedRows
+        searchProvider.findFilteredDimensionRows([buildFilter("animal|desc-in[still a raptor]")] as Set) ==
+                [newOwl] as Set
+        searchProvider.getDimensionCardinality() == expectedRows.size()
+
+        and: "the index has no deleted documents and a single segment"
+        indexSearcher.getIndexReader().leaves().size() == 1
+        indexSearcher.getIndexReader().maxDoc() == expectedRows.size()
+
+        and: "the side directory is gone"
+        !Files.exists(destinationPath.resolveSibling(destinationPath.getFileName().toString() + "_rebuild"))
+
+        and: "the unchanged rows were read from the store without filling the shared row cache"
+        cachedRows.isEmpty()
+
+        cleanup:
+        searchProvider.releaseIndexSearcher(indexSearcher)
+    }
+
     @Ignore("This test is currently not valid because the replacement index is invalid.")
     def "replaceIndex hot-swaps Lucene indexes in place"() {
         given:
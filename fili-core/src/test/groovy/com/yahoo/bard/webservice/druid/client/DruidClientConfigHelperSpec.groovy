@@ -66,4 +66,31 @@ class DruidClientConfigHelperSpec extends Specification {
         IllegalArgumentException e = thrown()
         e.message == "Invalid druid host url provided: [BAD URL]"
     }
+
+    def "druid transport encoding defaults to json and can be configured"() {
+        given:
+        String key = systemConfig.getPackageVariableName("druid_broker_transport_encoding")
+        String original = systemConfig.getStringProperty(key, null)
+
+        expect:
+        DruidClientConfigHelper.getDruidCoordTransportEncoding() == DruidTransportEncoding.JSON
+
+        when:
+        systemConfig.setProperty(key, "smile")
+
+        then:
+        DruidClientConfigHelper.getDruidTransportEncoding() == DruidTransportEncoding.SMILE
+        DruidClientConfigHelper.getServiceConfig().getTransportEncoding() == DruidTransportEncoding.SMILE
+
+        when:
+        systemConfig.setProperty(key, "xml")
+        DruidClientConfigHelper.getDruidTransportEncoding()
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "Invalid druid transport encoding provided: xml"
+
+        cleanup:
+        original == null ? systemConfig.clearProperty(key) : systemConfig.setProperty(key, original)
+    }
 }
@@ -0,0 +1,193 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client
+
+import com.yahoo.bard.webservice.druid.client.DruidConcurrencyLimiter.Permit
+
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class DruidConcurrencyLimiterSpec extends Specification {
+
+    long now = 0
+
+    DruidConcurrencyLimiter limiter = new DruidConcurrencyLimiter(
+            "test",
+            2,
+            1,
+            4,
+            1000,
+            0.5,
+            5000,
+            [(DruidQueryLane.UI): 1, (DruidQueryLane.API): 1, (DruidQueryLane.ASYNC): 1],
+            { now }
+    )
+
+    def advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis)
+    }
+
+    def "Permits are handed out up to the limit"() {
+        when:
+        Optional<Permit> first = limiter.tryAcquire()
+        Optional<Permit> second = limiter.tryAcquire()
+        Optional<Permit> third = limiter.tryAcquire()
+
+        then:
+        first.isPresent()
+        second.isPresent()
+        !third.isPresent()
+        limiter.inFlight == 2
+    }
+
+    def "Fast responses raise the limit additively"() {
+        when: "Two queries respond quickly"
+        Permit first = limiter.tryAcquire().get()
+        Permit second = limiter.tryAcquire().get()
+        advance(10)
+        first.release(false)
+        second.release(false)
+
+        then: "The limit has grown by a fraction of a query for each"
+        limiter.limit == 2
+        limiter.inFlight == 0
+
+        when: "Another query responds quickly"
+        limiter.tryAcquire().get().release(false)
+
+        then: "The limit has grown by a whole query"
+        limiter.limit == 3
+    }
+
+    def "Slow or overloaded responses cut the limit once per round trip"() {
+        setup:
+        Permit first = limiter.tryAcquire().get()
+        Permit second = limiter.tryAcquire().get()
+        advance(10)
+
+        when: "Druid reports overload for one query"
+        first.release(true)
+
+        then: "The limit is cut"
+        limiter.limit == 1
+
+        when: "A query sent before the cut is slow"
+        advance(2000)
+        second.release(false)
+
+        then: "The limit is not cut again"
+        limiter.limit == 1
+
+        when: "A query sent after the cut is slow"
+        Permit third = limiter.tryAcquire().get()
+        advance(2000)
+        third.release(false)
+
+        then: "The limit doesn't drop below the minimum"
+        limiter.limit == 1
+    }
+
+    def "Releasing a permit more than once, or cancelling it, leaves the limit alone"() {
+        setup:
+        Permit permit = limiter.tryAcquire().get()
+
+        when:
+        permit.cancel()
+        permit.release(true)
+
+        then:
+        limiter.limit == 2
+        limiter.inFlight == 0
+    }
+
+    def "Queued queries are admitted in lane priority order as permits are returned"() {
+        setup:
+        List<String> admitted = []
+        Permit first = limiter.tryAcquire().get()
+        limiter.tryAcquire().get()
+
+        limiter.enqueue(DruidQueryLane.ASYNC, { admitted.add("async") }, { throw it })
+        limiter.enqueue(DruidQueryLane.API, { admitted.add("api") }, { throw it })
+        limiter.enqueue(DruidQueryLane.UI, { admitted.add("ui") }, { throw it })
+
+        expect: "Nothing is admitted while the limit is reached"
+        admitted.isEmpty()
+        limiter.queued == 3
+        !limiter.tryAcquire().isPresent()
+
+        when:
+        first.cancel()
+
+        then: "The highest priority lane goes first"
+        admitted == ["ui"]
+        limiter.queued == 2
+        limiter.inFlight == 2
+    }
+
+    def "Queries are rejected when their lane is full"() {
+        setup:
+        limiter.tryAcquire().get()
+        limiter.tryAcquire().get()
+        List<RejectedExecutionException> rejections = []
+        limiter.enqueue(DruidQueryLane.API, { }, { rejections.add(it) })
+
+        when:
+        limiter.enqueue(DruidQueryLane.API, { }, { rejections.add(it) })
+
+        then:
+        rejections.size() == 1
+        rejections[0].message.contains("api")
+        limiter.queued == 1
+    }
+
+    def "Queries that waited too long are rejected instead of admitted"() {
+        setup:
+        Permit first = limiter.tryAcquire().get()
+        limiter.tryAcquire().get()
+        boolean admitted = false
+        RejectedExecutionException rejection = null
+        limiter.enqueue(DruidQueryLane.API, { admitted = true }, { rejection = it })
+
+        when:
+        advance(6000)
+        first.cancel()
+
+        then:
+        !admitted
+        rejection != null
+        limiter.queued == 0
+        limiter.inFlight == 1
+    }
+
+    def "Queries are rejected at the queue timeout even while no permit is returned"() {
+        setup:
+        DruidConcurrencyLimiter timedLimiter = new DruidConcurrencyLimiter(
+                "timed",
+                1,
+                1,
+                1,
+                1000,
+                0.5,
+                50,
+                [(DruidQueryLane.UI): 1, (DruidQueryLane.API): 1, (DruidQueryLane.ASYNC): 1],
+                { System.nanoTime() }
+        )
+        timedLimiter.tryAcquire().get()
+        boolean admitted = false
+        RejectedExecutionException rejection = null
+
+        when:
+        timedLimiter.enqueue(DruidQueryLane.API, { admitted = true }, { rejection = it })
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert rejection != null
+        }
+        !admitted
+        timedLimiter.queued == 0
+        timedLimiter.inFlight == 1
+    }
+}
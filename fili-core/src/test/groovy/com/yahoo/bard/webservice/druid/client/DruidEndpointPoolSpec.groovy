@@ -0,0 +1,100 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client
+
+import com.yahoo.bard.webservice.druid.client.DruidEndpointPool.Endpoint
+
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class DruidEndpointPoolSpec extends Specification {
+
+    long now = 0
+    DruidEndpointPool pool = new DruidEndpointPool(["http://a", "http://b", "http://c"], 2, 1000, { now })
+
+    Endpoint a = pool.endpoints[0]
+    Endpoint b = pool.endpoints[1]
+    Endpoint c = pool.endpoints[2]
+
+    def "A pool needs at least one endpoint"() {
+        when:
+        new DruidEndpointPool([], 2, 1000, { now })
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Endpoints already tried are avoided while others remain"() {
+        expect:
+        pool.select([a, b]) == c
+        pool.select([a, b, c]) in [a, b, c]
+    }
+
+    def "The faster of two healthy endpoints is picked"() {
+        given:
+        pool.recordSuccess(a, 100)
+        pool.recordSuccess(b, 500)
+
+        expect: "Between a and b, a always wins"
+        (1..20).every { pool.select([c]) == a }
+    }
+
+    def "An endpoint failing too often in a row is left out until its cool down ends"() {
+        when:
+        pool.recordFailure(a)
+
+        then: "One failure is not enough"
+        a.isHealthy(now)
+
+        when:
+        pool.recordFailure(a)
+
+        then:
+        !a.isHealthy(now)
+        (1..20).every { pool.select([b]) == c }
+
+        when:
+        now += TimeUnit.MILLISECONDS.toNanos(1000)
+
+        then:
+        a.isHealthy(now)
+    }
+
+    def "A success clears the failures of an endpoint"() {
+        when:
+        pool.recordFailure(a)
+        pool.recordSuccess(a, 100)
+        pool.recordFailure(a)
+
+        then:
+        a.isHealthy(now)
+    }
+
+    def "When every endpoint is left out, the one whose cool down ends first is picked"() {
+        given:
+        [b, b, a, a].each { pool.recordFailure(it) }
+        now += 10
+        [c, c].each { pool.recordFailure(it) }
+
+        expect:
+        pool.select([]) in [a, b]
+        pool.select([a, b]) == c
+    }
+
+    def "Latency percentiles need enough samples"() {
+        when:
+        (1..19).each { pool.recordSuccess(a, it * 10) }
+
+        then:
+        pool.getLatencyPercentile(95) == -1
+
+        when:
+        pool.recordSuccess(a, 200)
+
+        then:
+        pool.getLatencyPercentile(95) == 190
+        pool.getLatencyPercentile(50) == 100
+        pool.getLatencyPercentile(100) == 200
+    }
+}
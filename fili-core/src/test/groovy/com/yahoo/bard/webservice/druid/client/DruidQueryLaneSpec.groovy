@@ -0,0 +1,45 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client
+
+import com.yahoo.bard.webservice.web.handlers.RequestContext
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.ws.rs.container.ContainerRequestContext
+import javax.ws.rs.core.MultivaluedHashMap
+import javax.ws.rs.core.UriInfo
+
+class DruidQueryLaneSpec extends Specification {
+
+    @Unroll
+    def "A request with headers #headers and asyncAfter #asyncAfter goes in the #lane lane"() {
+        setup:
+        UriInfo uriInfo = Mock(UriInfo)
+        uriInfo.getQueryParameters() >> new MultivaluedHashMap<String, String>(
+                asyncAfter == null ? [:] : [asyncAfter: asyncAfter]
+        )
+        ContainerRequestContext containerRequestContext = Mock(ContainerRequestContext)
+        containerRequestContext.getHeaders() >> new MultivaluedHashMap<String, String>(headers)
+        containerRequestContext.getUriInfo() >> uriInfo
+
+        expect:
+        DruidQueryLane.forContext(new RequestContext(containerRequestContext, true)) == lane
+
+        where:
+        headers                                  | asyncAfter || lane
+        [ClientId: "UI", referer: "http://ui"]   | null       || DruidQueryLane.UI
+        [ClientId: "UI", referer: "http://ui"]   | "always"   || DruidQueryLane.UI
+        [:]                                      | null       || DruidQueryLane.API
+        [:]                                      | "never"    || DruidQueryLane.API
+        [:]                                      | "always"   || DruidQueryLane.ASYNC
+        [:]                                      | "1000"     || DruidQueryLane.ASYNC
+    }
+
+    def "Queries sent outside of a web request go in the async lane"() {
+        expect:
+        DruidQueryLane.forContext(null) == DruidQueryLane.ASYNC
+        DruidQueryLane.forContext(new RequestContext(null, false)) == DruidQueryLane.ASYNC
+    }
+}
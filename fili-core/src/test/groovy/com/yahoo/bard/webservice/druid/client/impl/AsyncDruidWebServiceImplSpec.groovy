@@ -3,19 +3,31 @@
 package com.yahoo.bard.webservice.druid.client.impl
 
 import com.yahoo.bard.webservice.application.ObjectMappersSuite
+import com.yahoo.bard.webservice.config.BardFeatureFlag
+import com.yahoo.bard.webservice.config.SystemConfig
+import com.yahoo.bard.webservice.config.SystemConfigProvider
 import com.yahoo.bard.webservice.druid.client.DruidClientConfigHelper
+import com.yahoo.bard.webservice.druid.client.DruidServiceConfig
+import com.yahoo.bard.webservice.druid.client.DruidTransportEncoding
+import com.yahoo.bard.webservice.druid.client.HttpErrorCallback
 import com.yahoo.bard.webservice.druid.model.query.QueryContext
 import com.yahoo.bard.webservice.druid.model.query.WeightEvaluationQuery
 
+import com.fasterxml.jackson.databind.JsonNode
 import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+
+import org.asynchttpclient.Response
 
 import io.netty.handler.codec.http.HttpHeaders
 import spock.lang.Specification
 
+import java.nio.charset.StandardCharsets
 import java.util.function.Supplier
 
 class AsyncDruidWebServiceImplSpec extends Specification {
     private static final ObjectMapper MAPPER = new ObjectMappersSuite().getMapper()
+    private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance()
 
     def "Ensure that headersToAppend are added to request when calling postDruidQuery"() {
         setup:
@@ -71,4 +83,109 @@ class AsyncDruidWebServiceImplSpec extends Specification {
             assert actualHeaders.get(header.getKey()) == header.getValue()
         }
     }
+
+    def "Queries to a Smile service are sent Smile encoded, asking for a Smile response"() {
+        setup:
+        WeightEvaluationQuery weightEvaluationQuery = Mock(WeightEvaluationQuery)
+        weightEvaluationQuery.getContext() >> Mock(QueryContext)
+
+        DruidServiceConfig jsonConfig = DruidClientConfigHelper.getServiceConfig()
+        DruidServiceConfig smileConfig = new DruidServiceConfig(
+                "Broker",
+                jsonConfig.getUrl(),
+                jsonConfig.getTimeout(),
+                jsonConfig.getPriority(),
+                DruidTransportEncoding.SMILE
+        )
+        AsyncDruidWebServiceImplWrapper webServiceImplWrapper = new AsyncDruidWebServiceImplWrapper(
+                smileConfig,
+                MAPPER,
+                { [:] } as Supplier
+        )
+
+        when:
+        webServiceImplWrapper.postDruidQuery(null, null, null, null, weightEvaluationQuery)
+
+        then:
+        webServiceImplWrapper.getHeaders().get("Content-Type") == "application/x-jackson-smile"
+        webServiceImplWrapper.getHeaders().get("Accept") == "application/x-jackson-smile"
+
+        and: "The body starts with the Smile format header"
+        new String(webServiceImplWrapper.request.getByteData(), 0, 2, StandardCharsets.US_ASCII) == ":)"
+    }
+
+    def "Queries to a JSON service are sent as text JSON without an Accept header"() {
+        setup:
+        WeightEvaluationQuery weightEvaluationQuery = Mock(WeightEvaluationQuery)
+        weightEvaluationQuery.getContext() >> Mock(QueryContext)
+        AsyncDruidWebServiceImplWrapper webServiceImplWrapper = new AsyncDruidWebServiceImplWrapper(
+                DruidClientConfigHelper.getServiceConfig(),
+                MAPPER,
+                { [:] } as Supplier
+        )
+
+        when:
+        webServiceImplWrapper.postDruidQuery(null, null, null, null, weightEvaluationQuery)
+
+        then:
+        webServiceImplWrapper.getHeaders().get("Content-Type") == "application/json; charset=UTF-8"
+        webServiceImplWrapper.getHeaders().get("Accept") == null
+    }
+
+    def "The default JSON node builder reads #contentType bodies"() {
+        setup:
+        String json = '[{"timestamp":"2012-01-01T00:00:00.000Z","result":{"pageViews":1.5,"name":"a"}}]'
+        JsonNode expected = MAPPER.readTree(json)
+        byte[] body = contentType?.contains("smile")
+                ? new ObjectMapper(new SmileFactory()).writeValueAsBytes(expected)
+                : json.getBytes(StandardCharsets.UTF_8)
+
+        Response response = Mock(Response)
+        response.getContentType() >> contentType
+        response.getResponseBodyAsStream() >> new ByteArrayInputStream(body)
+
+        expect:
+        AsyncDruidWebServiceImpl.DEFAULT_JSON_NODE_BUILDER_STRATEGY.apply(response) == expected
+
+        where:
+        contentType << ["application/json", "application/json; charset=UTF-8", null, "application/x-jackson-smile"]
+    }
+
+    def "Queries over the concurrency limit are rejected with a 503 once their lane is full"() {
+        setup:
+        List<String> keys = [
+                "druid_concurrency_limit_initial",
+                "druid_concurrency_limit_min",
+                "druid_concurrency_limit_max"
+        ].collect { SYSTEM_CONFIG.getPackageVariableName(it) }
+        keys.each { SYSTEM_CONFIG.setProperty(it, "1") }
+        String queueSizeKey = SYSTEM_CONFIG.getPackageVariableName("druid_concurrency_queue_size_async")
+        SYSTEM_CONFIG.setProperty(queueSizeKey, "0")
+        BardFeatureFlag.DRUID_CONCURRENCY_LIMIT.setOn(true)
+
+        WeightEvaluationQuery weightEvaluationQuery = Mock(WeightEvaluationQuery)
+        weightEvaluationQuery.getContext() >> Mock(QueryContext)
+        HttpErrorCallback error = Mock(HttpErrorCallback)
+        AsyncDruidWebServiceImplWrapper webServiceImplWrapper = new AsyncDruidWebServiceImplWrapper(
+                DruidClientConfigHelper.getServiceConfig(),
+                MAPPER,
+                { [:] } as Supplier
+        )
+
+        when: "The first query takes the only permit, and never returns it"
+        webServiceImplWrapper.postDruidQuery(null, null, error, null, weightEvaluationQuery)
+
+        then:
+        0 * error.invoke(*_)
+
+        when: "Another query arrives with no room to wait"
+        webServiceImplWrapper.postDruidQuery(null, null, error, null, weightEvaluationQuery)
+
+        then:
+        1 * error.invoke(503, _, _)
+
+        cleanup:
+        BardFeatureFlag.DRUID_CONCURRENCY_LIMIT.reset()
+        (keys + queueSizeKey).each { SYSTEM_CONFIG.clearProperty(it) }
+    }
 }
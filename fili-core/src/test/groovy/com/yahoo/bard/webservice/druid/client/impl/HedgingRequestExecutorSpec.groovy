@@ -0,0 +1,189 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.druid.client.impl
+
+import com.yahoo.bard.webservice.druid.client.DruidEndpointPool
+
+import org.asynchttpclient.AsyncHttpClient
+import org.asynchttpclient.ListenableFuture
+import org.asynchttpclient.Request
+import org.asynchttpclient.RequestBuilder
+import org.asynchttpclient.Response
+
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.net.ConnectException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+class HedgingRequestExecutorSpec extends Specification {
+
+    AsyncHttpClient webClient = Mock(AsyncHttpClient)
+    DruidEndpointPool pool = new DruidEndpointPool(["http://a", "http://b"], 3, 30000, System.&nanoTime)
+
+    Request request = new RequestBuilder("POST").setUrl("http://a/druid/v2").build()
+    List<String> sentTo = []
+    Map<String, StubFuture> futures = [:]
+
+    def setup() {
+        webClient.executeRequest(_, _) >> { Request addressed, handler ->
+            sentTo.add(addressed.getUrl())
+            StubFuture future = new StubFuture()
+            futures.put(addressed.getUrl(), future)
+            future
+        }
+    }
+
+    Response response(int status) {
+        Response response = Mock(Response)
+        response.getStatusCode() >> status
+        response
+    }
+
+    def "A request is sent to an endpoint, keeping its path"() {
+        given:
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(webClient, pool, 0, 0, 50)
+        Response ok = response(200)
+
+        when:
+        CompletableFuture<Response> result = executor.execute(request, "http://a")
+
+        then:
+        sentTo.size() == 1
+        sentTo[0] in ["http://a/druid/v2", "http://b/druid/v2"]
+
+        when:
+        futures[sentTo[0]].complete(ok)
+
+        then:
+        result.get() == ok
+    }
+
+    def "A request that failed to connect is retried on another endpoint"() {
+        given:
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(webClient, pool, 1, 0, 50)
+        Response ok = response(200)
+        long retries = HedgingRequestExecutor.RETRIES.count
+
+        when:
+        CompletableFuture<Response> result = executor.execute(request, "http://a")
+        futures[sentTo[0]].fail(new ConnectException("refused"))
+
+        then:
+        sentTo.size() == 2
+        sentTo[0] != sentTo[1]
+        !result.isDone()
+        HedgingRequestExecutor.RETRIES.count == retries + 1
+
+        when:
+        futures[sentTo[1]].complete(ok)
+
+        then:
+        result.get() == ok
+    }
+
+    def "A service unavailable response is retried, but other errors are not"() {
+        given:
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(webClient, pool, 1, 0, 50)
+        Response unavailable = response(503)
+        Response badRequest = response(400)
+
+        when:
+        CompletableFuture<Response> result = executor.execute(request, "http://a")
+        futures[sentTo[0]].complete(unavailable)
+        futures[sentTo[1]].complete(badRequest)
+
+        then:
+        sentTo.size() == 2
+        result.get() == badRequest
+    }
+
+    def "Failures are not retried beyond the retry limit"() {
+        given:
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(webClient, pool, 0, 0, 50)
+        ConnectException refused = new ConnectException("refused")
+
+        when:
+        CompletableFuture<Response> result = executor.execute(request, "http://a")
+        futures[sentTo[0]].fail(refused)
+        result.get()
+
+        then:
+        sentTo.size() == 1
+        ExecutionException e = thrown()
+        e.cause == refused
+    }
+
+    def "A slow request is hedged on another endpoint, and the first answer wins"() {
+        given: "Recent responses took a millisecond"
+        (1..20).each { pool.recordSuccess(pool.endpoints[0], TimeUnit.MILLISECONDS.toNanos(1)) }
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(webClient, pool, 0, 95, 10)
+        Response ok = response(200)
+        long wins = HedgingRequestExecutor.HEDGE_WINS.count
+
+        when:
+        CompletableFuture<Response> result = executor.execute(request, "http://a")
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert sentTo.size() == 2
+        }
+        sentTo[0] != sentTo[1]
+
+        when:
+        futures[sentTo[1]].complete(ok)
+
+        then:
+        result.get() == ok
+        futures[sentTo[0]].isCancelled()
+        HedgingRequestExecutor.HEDGE_WINS.count == wins + 1
+    }
+
+    def "A request is not hedged before there are enough recent responses"() {
+        given:
+        HedgingRequestExecutor executor = new HedgingRequestExecutor(webClient, pool, 0, 95, 1)
+
+        when:
+        executor.execute(request, "http://a")
+        Thread.sleep(50)
+
+        then:
+        sentTo.size() == 1
+    }
+
+    /**
+     * A listenable future completed by the test.
+     */
+    static class StubFuture extends CompletableFuture<Response> implements ListenableFuture<Response> {
+        void fail(Throwable throwable) {
+            completeExceptionally(throwable)
+        }
+
+        @Override
+        void done() {
+        }
+
+        @Override
+        void abort(Throwable t) {
+            completeExceptionally(t)
+        }
+
+        @Override
+        void touch() {
+        }
+
+        @Override
+        ListenableFuture<Response> addListener(Runnable listener, Executor exec) {
+            whenComplete { response, throwable -> exec.execute(listener) }
+            this
+        }
+
+        @Override
+        CompletableFuture<Response> toCompletableFuture() {
+            this
+        }
+    }
+}
@@ -5,12 +5,18 @@ package com.yahoo.bard.webservice.filterbuilders
 import static com.yahoo.bard.webservice.druid.model.filter.Filter.DefaultFilterType.AND
 import static com.yahoo.bard.webservice.druid.model.filter.Filter.DefaultFilterType.SELECTOR
 
+import com.yahoo.bard.webservice.config.BardFeatureFlag
 import com.yahoo.bard.webservice.data.QueryBuildingTestingResources
+import com.yahoo.bard.webservice.data.dimension.BardDimensionField
 import com.yahoo.bard.webservice.data.dimension.Dimension
 import com.yahoo.bard.webservice.data.dimension.DimensionRow
 import com.yahoo.bard.webservice.data.dimension.DimensionRowNotFoundException
+import com.yahoo.bard.webservice.data.dimension.SearchProvider
 import com.yahoo.bard.webservice.druid.model.builders.ConjunctionDruidFilterBuilder
 import com.yahoo.bard.webservice.druid.model.filter.Filter
+import com.yahoo.bard.webservice.druid.model.filter.InFilter
+import com.yahoo.bard.webservice.druid.model.filter.OrFilter
+import com.yahoo.bard.webservice.druid.model.filter.RegularExpressionFilter
 import com.yahoo.bard.webservice.druid.model.filter.SearchFilter
 import com.yahoo.bard.webservice.druid.model.filter.SelectorFilter
 import com.yahoo.bard.webservice.web.ApiFilter
@@ -22,6 +28,8 @@ import spock.lang.Shared
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.util.regex.Pattern
+
 class ConjunctionDruidFilterBuilderSpec extends Specification {
 
     @Shared QueryBuildingTestingResources resources
@@ -186,6 +194,102 @@ class ConjunctionDruidFilterBuilderSpec extends Specification {
         ['v1', 'v2', 'v3']  | _
     }
 
+    def "getFilteredDimensionRows reuses the rows found for the same filters until the dimension's rows change"() {
+        given:
+        Set<ApiFilter> filters = [apiFilters.ageIdEq1234] as Set
+        Set<DimensionRow> rows = getDimensionRows(["1", "2", "3", "4"])
+        SearchProvider searchProvider = Mock(SearchProvider)
+        String rowVersion = "1"
+        Dimension dimension = Mock(Dimension) {
+            getRowVersion() >> { Optional.of(rowVersion) }
+            getSearchProvider() >> searchProvider
+        }
+
+        when:
+        filterBuilder.getFilteredDimensionRows(dimension, filters)
+        Set<DimensionRow> found = filterBuilder.getFilteredDimensionRows(dimension, filters)
+
+        then:
+        1 * searchProvider.findFilteredDimensionRows(filters) >> rows
+        found == rows
+
+        when: "the rows handed out are changed"
+        found.clear()
+
+        then: "the cached rows are not"
+        filterBuilder.getFilteredDimensionRows(dimension, filters) == rows
+
+        when:
+        rowVersion = "2"
+        filterBuilder.getFilteredDimensionRows(dimension, filters)
+
+        then:
+        1 * searchProvider.findFilteredDimensionRows(filters) >> rows
+    }
+
+    @Unroll
+    def "getFilteredDimensionRows searches every time for dimensions with #description row version"() {
+        given:
+        Set<ApiFilter> filters = [apiFilters.ageIdEq1234] as Set
+        SearchProvider searchProvider = Mock(SearchProvider)
+        Dimension dimension = Mock(Dimension) {
+            getRowVersion() >> rowVersion
+            getSearchProvider() >> searchProvider
+        }
+
+        when:
+        filterBuilder.getFilteredDimensionRows(dimension, filters)
+        filterBuilder.getFilteredDimensionRows(dimension, filters)
+
+        then:
+        2 * searchProvider.findFilteredDimensionRows(filters) >> getDimensionRows(["1"])
+
+        where:
+        rowVersion       | description
+        Optional.empty() | "no"
+        null             | "a null"
+    }
+
+    def "buildDisjunctionFilter matches a few rows with selector filters and many rows with a single in filter"() {
+        given:
+        Set<DimensionRow> manyRows = (1..1001).collect {
+            BardDimensionField.makeDimensionRow(resources.d3, it as String, "")
+        } as Set
+
+        expect:
+        filterBuilder.buildDisjunctionFilter(resources.d3, getDimensionRows(["1", "2"])) ==
+                new OrFilter(getSelectorFilters(["1", "2"]))
+        filterBuilder.buildDisjunctionFilter(resources.d3, manyRows) ==
+                new InFilter(resources.d3, (1..1001).collect { it as String })
+    }
+
+    def "buildPrefixFilter sends a startswith filter on the key matching many rows as a regular expression"() {
+        given:
+        ApiFilter idFilter = filterBinders.generateApiFilter(
+                "ageBracket|id-startswith[1,2]",
+                resources.dimensionDictionary
+        )
+        ApiFilter descFilter = filterBinders.generateApiFilter(
+                "ageBracket|desc-startswith[1]",
+                resources.dimensionDictionary
+        )
+
+        expect: "startswith filters are left alone by default"
+        filterBuilder.buildPrefixFilter(resources.d3, idFilter, 1001) == Optional.empty()
+
+        when:
+        BardFeatureFlag.DRUID_PREFIX_REGEX_FILTER.setOn(true)
+
+        then:
+        filterBuilder.buildPrefixFilter(resources.d3, idFilter, 1001) ==
+                Optional.of(new RegularExpressionFilter(resources.d3, Pattern.compile('^(?:\\Q1\\E|\\Q2\\E)')))
+        filterBuilder.buildPrefixFilter(resources.d3, idFilter, 1000) == Optional.empty()
+        filterBuilder.buildPrefixFilter(resources.d3, descFilter, 1001) == Optional.empty()
+
+        cleanup:
+        BardFeatureFlag.DRUID_PREFIX_REGEX_FILTER.reset()
+    }
+
     List<Filter> getSearchFilters(List<String> values) {
         return values.collect {new SearchFilter(resources.d16, SearchFilter.QueryType.Contains, it)}
     }
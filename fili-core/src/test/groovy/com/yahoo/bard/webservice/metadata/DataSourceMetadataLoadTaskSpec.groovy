@@ -7,6 +7,8 @@ import static com.yahoo.bard.webservice.data.Columns.METRICS
 
 import com.yahoo.bard.webservice.application.JerseyTestBinder
 import com.yahoo.bard.webservice.application.ObjectMappersSuite
+import com.yahoo.bard.webservice.config.SystemConfig
+import com.yahoo.bard.webservice.config.SystemConfigProvider
 import com.yahoo.bard.webservice.data.config.names.DataSourceName
 import com.yahoo.bard.webservice.data.config.names.TestApiDimensionName
 import com.yahoo.bard.webservice.data.config.names.TestApiMetricName
@@ -179,6 +181,85 @@ class DataSourceMetadataLoadTaskSpec extends BaseDataSourceMetadataSpec {
         segmentSetIdGenerator.getSegmentSetId(query) != OptionalInt.empty()
     }
 
+    def "run records when each data source was loaded"() {
+        setup:
+        DataSourceMetadataLoadTask loader = new DataSourceMetadataLoadTask(
+                tableDict,
+                metadataService,
+                druidWS,
+                MAPPERS.metadataMapper
+        )
+        DataSourceName dataSourceName = DataSourceName.of(tableName)
+
+        expect:
+        loader.getLastLoadTimestamp(dataSourceName) == null
+
+        when:
+        loader.run()
+
+        then: "the metadata has been applied by the time the run ends"
+        loader.getLastLoadTimestamp(dataSourceName) != null
+        metadataService.getAvailableIntervalsByDataSource(dataSourceName) != null
+        loader.getLastRunTimestamp() != null
+    }
+
+    def "run ends when the metadata queries fail"() {
+        setup:
+        DruidWebService testWs = Mock(DruidWebService)
+        DataSourceMetadataLoadTask loader = new DataSourceMetadataLoadTask(
+                tableDict,
+                metadataService,
+                testWs,
+                MAPPERS.mapper
+        )
+        int dataSourceCount = (int) tableDict.values().stream()
+                .flatMap { it.dataSourceNames.stream() }
+                .distinct()
+                .count()
+
+        when:
+        loader.run()
+
+        then: "every data source is queried once, and the run is not held up by the failures"
+        dataSourceCount * testWs.getJsonObject(_, _, _, _) >> { success, error, failure, path ->
+            failure.invoke(new IOException("Coordinator unavailable"))
+            null
+        }
+        loader.getLastRunTimestamp() != null
+        loader.getLastLoadTimestamp(DataSourceName.of(tableName)) == null
+    }
+
+    def "a run that can't send its queries in time is abandoned"() {
+        setup: "a loader sending one query at a time to a coordinator that never answers"
+        SystemConfig systemConfig = SystemConfigProvider.getInstance()
+        systemConfig.setProperty(DataSourceMetadataLoadTask.DRUID_SEG_LOADER_MAX_CONCURRENT_REQUESTS_KEY, "1")
+        DruidWebService testWs = Mock(DruidWebService)
+        DataSourceMetadataLoadTask loader = new DataSourceMetadataLoadTask(
+                tableDict,
+                metadataService,
+                testWs,
+                MAPPERS.mapper
+        ) {
+            @Override
+            protected long getRunTimeout() {
+                return 100
+            }
+        }
+
+        expect:
+        tableDict.values().stream().flatMap { it.dataSourceNames.stream() }.distinct().count() > 1
+
+        when:
+        loader.run()
+
+        then: "only the first data source is queried, and the run is not recorded"
+        1 * testWs.getJsonObject(_, _, _, _) >> null
+        loader.getLastRunTimestamp() == null
+
+        cleanup:
+        systemConfig.clearProperty(DataSourceMetadataLoadTask.DRUID_SEG_LOADER_MAX_CONCURRENT_REQUESTS_KEY)
+    }
+
     def "Test datasource metadata can deserialize JSON correctly"() {
         setup: "instantiate the loader"
         DataSourceMetadataService localMetadataService = Mock(DataSourceMetadataService)
@@ -5,6 +5,7 @@ package com.yahoo.bard.webservice.metadata
 import com.yahoo.bard.webservice.application.JerseyTestBinder
 import com.yahoo.bard.webservice.data.config.names.DataSourceName
 import com.yahoo.bard.webservice.data.config.names.TestApiDimensionName
+import com.yahoo.bard.webservice.util.SimplifiedIntervalList
 
 import org.joda.time.DateTime
 import org.joda.time.Interval
@@ -62,6 +63,47 @@ class DataSourceMetadataServiceSpec extends BaseDataSourceMetadataSpec {
         jtb.tearDown()
     }
 
+    def "updates apply only the segments added and removed, and agree with loading the segments afresh"() {
+        setup:
+        DataSourceName dataSourceName = DataSourceName.of(tableName)
+        DataSourceMetadataService metadataService = new DataSourceMetadataService()
+        metadataService.update(dataSourceName, metadata)
+        Map<String, SimplifiedIntervalList> loaded = metadataService.getAvailableIntervalsByDataSource(dataSourceName)
+
+        when: "the same segments are loaded again"
+        metadataService.update(dataSourceName, new DataSourceMetadata(tableName, [:], segments.values().toList()))
+
+        then: "nothing is replaced"
+        metadataService.getAvailableIntervalsByDataSource(dataSourceName).is(loaded)
+
+        when: "a partition of the second day is removed"
+        metadataService.update(
+                dataSourceName,
+                new DataSourceMetadata(tableName, [:], [segments.segment1, segments.segment2, segments.segment3])
+        )
+
+        then: "the other partition still covers the day"
+        metadataService.getAvailableIntervalsByDataSource(dataSourceName) == loaded
+        metadataService.getSegments([dataSourceName] as Set)*.values()*.collect { it.keySet() } == [[
+                [segments.segment1.id.toString(), segments.segment2.id.toString()] as Set,
+                [segments.segment3.id.toString()] as Set
+        ]]
+
+        when: "the whole second day is removed"
+        DataSourceMetadata firstDay = new DataSourceMetadata(tableName, [:], [segments.segment1, segments.segment2])
+        metadataService.update(dataSourceName, firstDay)
+        DataSourceMetadataService freshService = new DataSourceMetadataService()
+        freshService.update(dataSourceName, firstDay)
+
+        then:
+        metadataService.getAvailableIntervalsByDataSource(dataSourceName).values().every {
+            it == new SimplifiedIntervalList([intervals["interval1"]])
+        }
+        metadataService.getAvailableIntervalsByDataSource(dataSourceName) ==
+                freshService.getAvailableIntervalsByDataSource(dataSourceName)
+        metadataService.getSegments([dataSourceName] as Set) == freshService.getSegments([dataSourceName] as Set)
+    }
+
     def "grouping segment data by date time behave as expected"() {
         given:
         ConcurrentSkipListMap<DateTime, Map<String, SegmentInfo>> segmentByTime = DataSourceMetadataService
@@ -3,6 +3,7 @@
 package com.yahoo.bard.webservice.table.availability
 
 import com.yahoo.bard.webservice.data.config.names.DataSourceName
+import com.yahoo.bard.webservice.metadata.DataSourceMetadataService
 import com.yahoo.bard.webservice.metadata.TestDataSourceMetadataService
 import com.yahoo.bard.webservice.table.resolver.PhysicalDataSourceConstraint
 import com.yahoo.bard.webservice.util.SimplifiedIntervalList
@@ -99,4 +100,36 @@ class StrictAvailabilitySpec extends Specification{
         expect:
         strictAvailability.getAvailableIntervals(constraint) == new SimplifiedIntervalList([interval1, interval2])
     }
+
+    def "getAvailableIntervals is computed once per version of the metadata"() {
+        given:
+        Map<String, SimplifiedIntervalList> firstVersion = [
+                (columnPhysicalName1): new SimplifiedIntervalList([interval1]),
+                (columnPhysicalName2): new SimplifiedIntervalList([interval2])
+        ]
+        Map<String, SimplifiedIntervalList> secondVersion = [
+                (columnPhysicalName1): new SimplifiedIntervalList([interval1]),
+                (columnPhysicalName2): new SimplifiedIntervalList([interval1])
+        ]
+        DataSourceMetadataService metadataService = Mock(DataSourceMetadataService)
+        metadataService.getAvailableIntervalsByDataSource(_ as DataSourceName) >>> [
+                firstVersion,
+                firstVersion,
+                secondVersion
+        ]
+        strictAvailability = new StrictAvailability(DataSourceName.of('table'), metadataService)
+
+        PhysicalDataSourceConstraint constraint = Mock(PhysicalDataSourceConstraint)
+        constraint.allColumnPhysicalNames >> ([columnPhysicalName1, columnPhysicalName2] as Set)
+
+        when:
+        SimplifiedIntervalList first = strictAvailability.getAvailableIntervals(constraint)
+        SimplifiedIntervalList second = strictAvailability.getAvailableIntervals(constraint)
+        SimplifiedIntervalList updated = strictAvailability.getAvailableIntervals(constraint)
+
+        then:
+        first.is(second)
+        first == new SimplifiedIntervalList([interval1.overlap(interval2)])
+        updated == new SimplifiedIntervalList([interval1])
+    }
 }
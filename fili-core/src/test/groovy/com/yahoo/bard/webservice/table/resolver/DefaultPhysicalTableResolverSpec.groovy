@@ -18,6 +18,7 @@ import com.yahoo.bard.webservice.data.time.GranularityParser
 import com.yahoo.bard.webservice.data.time.StandardGranularityParser
 import com.yahoo.bard.webservice.data.time.ZonelessTimeGrain
 import com.yahoo.bard.webservice.data.volatility.DefaultingVolatileIntervalsService
+import com.yahoo.bard.webservice.metadata.DataSourceMetadataService
 import com.yahoo.bard.webservice.table.PhysicalTable
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest
 
@@ -758,4 +759,34 @@ class DefaultPhysicalTableResolverSpec  extends Specification {
         HOUR  | dimSet12   | resources.tg4h | resources.t1h
         HOUR  | dimSet12   | resources.tg5h | resources.t2h
     }
+
+    def "Resolved tables are reused until the availability version changes"() {
+        setup:
+        BardFeatureFlag.PHYSICAL_TABLE_RESOLUTION_CACHE.setOn(true)
+        DataSourceMetadataService metadataService = Mock(DataSourceMetadataService)
+        metadataService.getVersion() >>> [1L, 1L, 2L]
+        DefaultPhysicalTableResolver cachingResolver = Spy(
+                DefaultPhysicalTableResolver,
+                constructorArgs: [new PartialDataHandler(), new DefaultingVolatileIntervalsService(), metadataService]
+        )
+
+        TemplateDruidQuery query = buildQuery(queryPrototype)
+        apiRequestPrototype['dimensions'] = dimSet1
+        apiRequestPrototype['logicalMetrics'] = metricsForNameSet(queryPrototype['dependentFieldNames'] as Set)
+        QueryPlanningConstraint constraint = new QueryPlanningConstraint(buildDataApiRequest(apiRequestPrototype), query)
+        PhysicalTable expected = resolver.resolve(resources.tg1All.physicalTables, constraint)
+
+        when: "the same constraint is resolved twice at one version, then again at the next"
+        List<PhysicalTable> resolved = (1..3).collect {
+            cachingResolver.resolve(resources.tg1All.physicalTables, constraint)
+        }
+
+        then: "the tables are only chosen once per version"
+        2 * cachingResolver.resolveUncached(_, _)
+        resolved == [expected, expected, expected]
+        cachingResolver.getCachedResolutions().values() as List == [expected.name, expected.name]
+
+        cleanup:
+        BardFeatureFlag.PHYSICAL_TABLE_RESOLUTION_CACHE.reset()
+    }
 }
@@ -0,0 +1,107 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.util
+
+import org.joda.time.DateTime
+import org.joda.time.DateTimeZone
+import org.joda.time.Interval
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class IntervalSetSpec extends Specification {
+
+    static IntervalSet set(List<List<Long>> times) {
+        IntervalSet.of(times.collect { new Interval(it[0], it[1]) })
+    }
+
+    static Set<Long> instants(IntervalSet intervalSet) {
+        (0L..<60L).findAll { intervalSet.contains(it as long) } as Set
+    }
+
+    @Unroll
+    def "Intervals #input are held as #expected"() {
+        expect:
+        set(input) == set(expected)
+        set(input).asList() == expected.collect { new Interval(it[0], it[1]) }
+
+        where:
+        input                          | expected
+        []                             | []
+        [[5, 5]]                       | []
+        [[20, 30], [2, 4]]             | [[2, 4], [20, 30]]
+        [[2, 4], [4, 8]]               | [[2, 8]]
+        [[2, 10], [3, 4], [9, 12]]     | [[2, 12]]
+        [[14, 30], [2, 4], [6, 10]]    | [[2, 4], [6, 10], [14, 30]]
+    }
+
+    @Unroll
+    def "#left #operation #right is #expected"() {
+        expect:
+        set(left)."$operation"(set(right)) == set(expected)
+
+        where:
+        left                         | operation   | right                               | expected
+        [[2, 4], [6, 10], [14, 30]]  | "union"     | [[1, 3], [7, 9], [11, 15], [17, 19]] | [[1, 4], [6, 10], [11, 30]]
+        [[2, 4], [6, 10], [14, 30]]  | "intersect" | [[1, 3], [7, 9], [11, 15], [17, 19]] | [[2, 3], [7, 9], [14, 15], [17, 19]]
+        [[2, 4], [6, 10], [14, 30]]  | "subtract"  | [[1, 3], [7, 9], [11, 15], [17, 19]] | [[3, 4], [6, 7], [9, 10], [15, 17], [19, 30]]
+        [[4, 42]]                    | "subtract"  | [[5, 11], [16, 21]]                  | [[4, 5], [11, 16], [21, 42]]
+        [[5, 11], [16, 21]]          | "subtract"  | [[4, 42]]                            | []
+        [[5, 11]]                    | "intersect" | [[11, 16]]                           | []
+        []                           | "union"     | [[5, 11]]                            | [[5, 11]]
+    }
+
+    def "Intervals read back from a set keep the chronology they were built in"() {
+        given: "intervals in a zone other than the default"
+        DateTimeZone zone = DateTimeZone.forID("Asia/Kolkata")
+        Interval first = new Interval(new DateTime(2026, 1, 1, 0, 0, zone), new DateTime(2026, 1, 2, 0, 0, zone))
+        Interval second = new Interval(new DateTime(2026, 1, 5, 0, 0, zone), new DateTime(2026, 1, 8, 0, 0, zone))
+        Interval overlapping = new Interval(
+                new DateTime(2026, 1, 6, 0, 0, zone),
+                new DateTime(2026, 1, 10, 0, 0, zone)
+        )
+
+        expect:
+        zone != DateTimeZone.getDefault()
+        IntervalSet.of([second, first]).asList() == [first, second]
+        IntervalSet.of([first]).union(IntervalSet.of([second])).asList() == [first, second]
+        IntervalSet.of([second]).intersect(IntervalSet.of([overlapping])).asList() ==
+                [new Interval(overlapping.getStart(), second.getEnd())]
+        IntervalSet.of([second]).subtract(IntervalSet.of([overlapping])).asList() ==
+                [new Interval(second.getStart(), overlapping.getStart())]
+        new SimplifiedIntervalList([first]).union(new SimplifiedIntervalList([second])) == [first, second]
+    }
+
+    def "Set operations and containment agree with the sets of instants they describe"() {
+        given:
+        Random random = new Random(42)
+        Closure<IntervalSet> randomSet = {
+            set((0..<random.nextInt(6)).collect {
+                long start = random.nextInt(50)
+                [start, start + random.nextInt(10)]
+            })
+        }
+
+        expect:
+        (0..<500).every {
+            IntervalSet left = randomSet()
+            IntervalSet right = randomSet()
+            Interval interval = new Interval(random.nextInt(50), random.nextInt(10) + 50)
+            instants(left.union(right)) == instants(left) + instants(right) &&
+                    instants(left.intersect(right)) == instants(left).intersect(instants(right)) &&
+                    instants(left.subtract(right)) == instants(left) - instants(right) &&
+                    left.containsAll(right) == instants(left).containsAll(instants(right)) &&
+                    left.contains(interval) == left.asList().any { it.contains(interval) }
+        }
+    }
+
+    def "Simplified interval lists convert to and from interval sets"() {
+        given:
+        SimplifiedIntervalList list = new SimplifiedIntervalList([new Interval(6, 10), new Interval(2, 4)])
+
+        expect:
+        list.toIntervalSet() == set([[2, 4], [6, 10]])
+        list.toIntervalSet().toSimplifiedIntervalList() == list
+        list.toIntervalSet().getTotalDurationMillis() == 6
+    }
+}
@@ -4,6 +4,7 @@ package com.yahoo.bard.webservice.web
 
 import static com.yahoo.bard.webservice.data.time.DefaultTimeGrain.DAY
 
+import com.yahoo.bard.webservice.application.ObjectMappersSuite
 import com.yahoo.bard.webservice.config.SystemConfig
 import com.yahoo.bard.webservice.config.SystemConfigProvider
 import com.yahoo.bard.webservice.data.Result
@@ -27,6 +28,9 @@ import com.yahoo.bard.webservice.util.Pagination
 import com.yahoo.bard.webservice.util.SimplifiedIntervalList
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest
 
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.databind.ObjectMapper
+
 import org.joda.time.DateTime
 import org.joda.time.DateTimeZone
 
@@ -245,4 +249,19 @@ class ResponseDataSpec extends Specification {
         expect:
         row == expectedRow
     }
+
+    def "Writing a result row writes the fields of the built result row, in order"() {
+        setup:
+        ObjectMapper mapper = new ObjectMappersSuite().getMapper()
+        Result result = resultSet.iterator().next()
+        StringWriter written = new StringWriter()
+
+        when:
+        JsonGenerator generator = mapper.getFactory().createGenerator(written)
+        response.writeResultRow(result, generator)
+        generator.close()
+
+        then:
+        written.toString() == mapper.writeValueAsString(response.buildResultRow(result))
+    }
 }
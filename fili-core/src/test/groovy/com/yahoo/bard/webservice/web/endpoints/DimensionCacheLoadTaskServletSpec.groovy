@@ -20,13 +20,19 @@ import org.joda.time.DateTime
 import org.joda.time.DateTimeZone
 
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.zip.GZIPOutputStream
 
 import javax.ws.rs.client.Entity
+import javax.ws.rs.core.HttpHeaders
+import javax.ws.rs.core.MediaType
 import javax.ws.rs.core.Response
 import javax.ws.rs.core.Response.Status
 
 class DimensionCacheLoadTaskServletSpec extends Specification {
     private static final ObjectMappersSuite MAPPERS = new ObjectMappersSuite()
+    private static final PollingConditions POLLING = new PollingConditions(timeout: 5)
 
     DateTimeZone originalTimeZone
 
@@ -330,4 +336,126 @@ class DimensionCacheLoadTaskServletSpec extends Specification {
         cleanup:
         jtb.tearDown()
     }
+
+    def "Rows posted in bulk as newline delimited JSON are loaded in the background and the load can be polled"() {
+        setup:
+        String rows = """{"id": "usa", "description": "United_States_of_America", "field1": "foo"}
+                         {"id": "can", "description": "Canada"}
+                      """
+
+        when:
+        Response r = dimensionCacheLoaderServlet.bulkLoadDimensionRows(
+                "user_country",
+                headers(DimensionCacheLoaderServlet.NDJSON_MEDIA_TYPE, null),
+                new ByteArrayInputStream(rows.getBytes("UTF-8"))
+        )
+        Map accepted = MAPPERS.mapper.readValue(r.getEntity() as String, Map)
+
+        then:
+        r.getStatusInfo() == Status.ACCEPTED
+        accepted.dimension == "user_country"
+        POLLING.eventually {
+            Map progress = progress("user_country", accepted.id as String)
+            assert progress.status == "success"
+            assert progress.rowsLoaded == 2
+        }
+        dimensionUserCountry.findDimensionRowByKeyValue("usa") ==
+                BardDimensionField.makeDimensionRow(dimensionUserCountry, "usa", "United_States_of_America", "foo", "")
+        dimensionUserCountry.findDimensionRowByKeyValue("can") ==
+                BardDimensionField.makeDimensionRow(dimensionUserCountry, "can", "Canada", "", "")
+        dimensionUserCountry.findDimensionRowByKeyValue("ind") == dimensionRowIndia
+    }
+
+    def "Rows posted in bulk as gzipped CSV are loaded"() {
+        setup:
+        ByteArrayOutputStream rows = new ByteArrayOutputStream()
+        new GZIPOutputStream(rows).withWriter("UTF-8") {
+            it << "id,description\nu,unknown\nm,Male\n"
+        }
+
+        when:
+        Response r = dimensionCacheLoaderServlet.bulkLoadDimensionRows(
+                "gender",
+                headers(DimensionCacheLoaderServlet.CSV_MEDIA_TYPE, "gzip"),
+                new ByteArrayInputStream(rows.toByteArray())
+        )
+        String id = MAPPERS.mapper.readValue(r.getEntity() as String, Map).id
+
+        then:
+        r.getStatusInfo() == Status.ACCEPTED
+        POLLING.eventually {
+            assert progress("gender", id).status == "success"
+        }
+        dimensionGender.findDimensionRowByKeyValue("u") ==
+                BardDimensionField.makeDimensionRow(dimensionGender, "u", "unknown")
+        dimensionGender.findDimensionRowByKeyValue("m") ==
+                BardDimensionField.makeDimensionRow(dimensionGender, "m", "Male")
+        dimensionGender.findDimensionRowByKeyValue("f") == dimensionRowFemale
+    }
+
+    def "A bulk load of rows missing their key fails and reports its error"() {
+        setup:
+        String rows = """{"description": "no id"}"""
+
+        when:
+        Response r = dimensionCacheLoaderServlet.bulkLoadDimensionRows(
+                "gender",
+                headers(DimensionCacheLoaderServlet.NDJSON_MEDIA_TYPE, null),
+                new ByteArrayInputStream(rows.getBytes("UTF-8"))
+        )
+        String id = MAPPERS.mapper.readValue(r.getEntity() as String, Map).id
+
+        then:
+        POLLING.eventually {
+            Map progress = progress("gender", id)
+            assert progress.status == "failure"
+            assert progress.rowsLoaded == 0
+            assert progress.error
+        }
+    }
+
+    def "Bulk loads are refused for unknown dimensions and unsupported encodings, and unknown loads aren't found"() {
+        expect:
+        dimensionCacheLoaderServlet.bulkLoadDimensionRows(
+                "unknown",
+                headers(DimensionCacheLoaderServlet.NDJSON_MEDIA_TYPE, null),
+                new ByteArrayInputStream(new byte[0])
+        ).getStatusInfo() == Status.NOT_FOUND
+        dimensionCacheLoaderServlet.bulkLoadDimensionRows(
+                "gender",
+                headers(DimensionCacheLoaderServlet.NDJSON_MEDIA_TYPE, "br"),
+                new ByteArrayInputStream(new byte[0])
+        ).getStatusInfo() == Status.BAD_REQUEST
+        dimensionCacheLoaderServlet.getBulkLoadProgress("gender", "unknown").getStatusInfo() == Status.NOT_FOUND
+    }
+
+    def "POST to bulkLoadDimensionRows accepts newline delimited JSON and CSV"() {
+        setup:
+        JerseyTestBinder jtb = new JerseyTestBinder(DimensionCacheLoaderServlet.class)
+
+        expect:
+        jtb.getHarness().target("cache/dimensions/color/dimensionRows/bulk")
+                .request()
+                .post(Entity.entity('{"id": "1", "description": "red"}', DimensionCacheLoaderServlet.NDJSON_MEDIA_TYPE))
+                .getStatusInfo() == Status.ACCEPTED
+        jtb.getHarness().target("cache/dimensions/color/dimensionRows/bulk")
+                .request()
+                .post(Entity.entity("id,description\n1,red\n", DimensionCacheLoaderServlet.CSV_MEDIA_TYPE))
+                .getStatusInfo() == Status.ACCEPTED
+
+        cleanup:
+        jtb.tearDown()
+    }
+
+    HttpHeaders headers(String mediaType, String contentEncoding) {
+        HttpHeaders headers = Mock(HttpHeaders)
+        headers.getMediaType() >> MediaType.valueOf(mediaType)
+        headers.getHeaderString(HttpHeaders.CONTENT_ENCODING) >> contentEncoding
+        return headers
+    }
+
+    Map progress(String dimensionName, String jobId) {
+        Response r = dimensionCacheLoaderServlet.getBulkLoadProgress(dimensionName, jobId)
+        return MAPPERS.mapper.readValue(r.getEntity() as String, Map)
+    }
 }
@@ -2,7 +2,9 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.web.handlers
 
+import com.yahoo.bard.webservice.config.BardFeatureFlag
 import com.yahoo.bard.webservice.druid.client.DruidWebService
+import com.yahoo.bard.webservice.druid.client.StreamingSuccessCallback
 import com.yahoo.bard.webservice.druid.client.SuccessCallback
 import com.yahoo.bard.webservice.druid.model.query.GroupByQuery
 import com.yahoo.bard.webservice.logging.blocks.BardQueryInfo
@@ -10,6 +12,9 @@ import com.yahoo.bard.webservice.logging.blocks.BardQueryInfoUtils
 import com.yahoo.bard.webservice.web.apirequest.DataApiRequest
 import com.yahoo.bard.webservice.web.responseprocessors.LoggingContext
 import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor
+import com.yahoo.bard.webservice.web.responseprocessors.StreamingResponseProcessor
+
+import com.fasterxml.jackson.core.JsonParser
 
 import com.fasterxml.jackson.databind.JsonNode
 import com.fasterxml.jackson.databind.ObjectMapper
@@ -29,6 +34,7 @@ class AsyncWebServiceRequestHandlerSpec extends Specification {
 
     def cleanup() {
         BardQueryInfoUtils.resetBardQueryInfo()
+        BardFeatureFlag.DRUID_RESPONSE_STREAMING.reset()
     }
 
     def "Test handle request invokes asynch call"() {
@@ -71,4 +77,49 @@ class AsyncWebServiceRequestHandlerSpec extends Specification {
         then:
         1 * response.processResponse(rootNode, groupByQuery, _ as LoggingContext)
     }
+
+    def "Streaming processors are sent the response as a token stream when streaming is enabled"() {
+        setup:
+        BardFeatureFlag.DRUID_RESPONSE_STREAMING.setOn(true)
+        DruidWebService dws = Mock(DruidWebService)
+        RequestContext rc = Mock(RequestContext)
+        GroupByQuery groupByQuery = Mock(GroupByQuery)
+        StreamingResponseProcessor response = Mock(StreamingResponseProcessor)
+        JsonParser parser = Mock(JsonParser)
+        AsyncWebServiceRequestHandler handler = new AsyncWebServiceRequestHandler(dws, Mock(ObjectMapper))
+
+        StreamingSuccessCallback sc = null
+
+        when:
+        handler.handleRequest(rc, Mock(DataApiRequest), groupByQuery, response)
+
+        then:
+        0 * dws.postDruidQuery(*_)
+        1 * dws.streamDruidQuery(rc, _, _, _, groupByQuery) >> { a0, a1, a2, a3, a4 ->
+            sc = a1
+            return Mock(Future)
+        }
+
+        when:
+        sc.invoke(parser)
+
+        then:
+        1 * response.processStreamingResponse(parser, groupByQuery, _ as LoggingContext)
+        0 * response.processResponse(*_)
+    }
+
+    def "Streaming processors are sent the JSON tree when streaming is disabled"() {
+        setup:
+        BardFeatureFlag.DRUID_RESPONSE_STREAMING.setOn(false)
+        DruidWebService dws = Mock(DruidWebService)
+        StreamingResponseProcessor response = Mock(StreamingResponseProcessor)
+        AsyncWebServiceRequestHandler handler = new AsyncWebServiceRequestHandler(dws, Mock(ObjectMapper))
+
+        when:
+        handler.handleRequest(Mock(RequestContext), Mock(DataApiRequest), Mock(GroupByQuery), response)
+
+        then:
+        1 * dws.postDruidQuery(*_) >> Mock(Future)
+        0 * dws.streamDruidQuery(*_)
+    }
 }
@@ -0,0 +1,189 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.handlers
+
+import static com.yahoo.bard.webservice.web.responseprocessors.ResponseContextKeys.VOLATILE_INTERVALS_CONTEXT_KEY
+
+import com.yahoo.bard.webservice.application.ObjectMappersSuite
+import com.yahoo.bard.webservice.data.cache.TestTupleDataCache
+import com.yahoo.bard.webservice.data.time.AllGranularity
+import com.yahoo.bard.webservice.druid.model.orderby.LimitSpec
+import com.yahoo.bard.webservice.druid.model.query.DruidAggregationQuery
+import com.yahoo.bard.webservice.druid.model.query.TimeSeriesQuery
+import com.yahoo.bard.webservice.logging.RequestLog
+import com.yahoo.bard.webservice.logging.blocks.BardQueryInfo
+import com.yahoo.bard.webservice.logging.blocks.BardQueryInfoUtils
+import com.yahoo.bard.webservice.metadata.QuerySigningService
+import com.yahoo.bard.webservice.metadata.SegmentIntervalsHashIdGenerator
+import com.yahoo.bard.webservice.util.SimplifiedIntervalList
+import com.yahoo.bard.webservice.web.RequestUtils
+import com.yahoo.bard.webservice.web.apirequest.DataApiRequest
+import com.yahoo.bard.webservice.web.responseprocessors.BucketCachingResponseProcessor
+import com.yahoo.bard.webservice.web.responseprocessors.LoggingContext
+import com.yahoo.bard.webservice.web.responseprocessors.ResponseContext
+import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+
+import org.joda.time.Interval
+
+import spock.lang.Specification
+
+import javax.ws.rs.container.ContainerRequestContext
+import javax.ws.rs.core.MultivaluedHashMap
+
+class BucketedCacheRequestHandlerSpec extends Specification {
+
+    ObjectMapper mapper = new ObjectMappersSuite().getMapper()
+
+    DataRequestHandler next = Mock(DataRequestHandler)
+    DataRequestHandler fallback = Mock(DataRequestHandler)
+    TestTupleDataCache dataCache = new TestTupleDataCache()
+    QuerySigningService<Long> querySigningService = Mock(SegmentIntervalsHashIdGenerator)
+
+    DataApiRequest apiRequest = Mock(DataApiRequest)
+    ResponseProcessor response = Mock(ResponseProcessor)
+    ResponseContext responseContext = new ResponseContext([:])
+
+    RequestContext requestContext
+    BucketedCacheRequestHandler handler
+    BardQueryInfo bardQueryInfo
+
+    TimeSeriesQuery query = RequestUtils.buildTimeSeriesQuery()
+            .withAllIntervals([new Interval("2015-01-01/2015-01-04")])
+
+    def setup() {
+        querySigningService.getSegmentSetId(_) >> Optional.of(1234L)
+        response.getResponseContext() >> responseContext
+        ContainerRequestContext containerRequestContext = Mock(ContainerRequestContext)
+        containerRequestContext.getHeaders() >> (["Bard-Testing": "###BYPASS###", "ClientId": "UI"] as
+                MultivaluedHashMap<String, String>)
+        requestContext = new RequestContext(containerRequestContext, true)
+        handler = new BucketedCacheRequestHandler(next, fallback, dataCache, querySigningService, mapper)
+        bardQueryInfo = BardQueryInfoUtils.initializeBardQueryInfo()
+    }
+
+    def cleanup() {
+        BardQueryInfoUtils.resetBardQueryInfo()
+        RequestLog.dump()
+    }
+
+    JsonNode rows(String... days) {
+        mapper.readTree("[" + days.collect { """{"timestamp":"${it}T00:00:00.000Z","result":{"m":1}}""" }
+                .join(",") + "]")
+    }
+
+    void cache(String day) {
+        DruidAggregationQuery<?> bucketQuery = query.withAllIntervals([new Interval(day + "/P1D")])
+        dataCache.set(handler.getCanonicalQueryKey(bucketQuery), 1234L, mapper.writeValueAsString(rows(day)))
+    }
+
+    def "Queries that cannot be answered bucket by bucket go to the fallback handler"() {
+        when:
+        handler.handleRequest(requestContext, apiRequest, fallbackQuery, response)
+
+        then:
+        1 * fallback.handleRequest(requestContext, apiRequest, fallbackQuery, response)
+        0 * next.handleRequest(*_)
+
+        where:
+        fallbackQuery << [
+                RequestUtils.buildTimeSeriesQuery().withAllIntervals([new Interval("2015-01-01/2015-01-02")]),
+                RequestUtils.buildTimeSeriesQuery().withGranularity(AllGranularity.INSTANCE)
+                        .withAllIntervals([new Interval("2015-01-01/2015-01-04")]),
+                RequestUtils.buildGroupByQuery().withLimitSpec(new LimitSpec([] as LinkedHashSet, Optional.of(5)))
+                        .withAllIntervals([new Interval("2015-01-01/2015-01-04")])
+        ]
+    }
+
+    def "A query with every bucket cached is answered from the cache"() {
+        setup:
+        ["2015-01-01", "2015-01-02", "2015-01-03"].each { cache(it) }
+
+        when:
+        boolean processed = handler.handleRequest(requestContext, apiRequest, query, response)
+
+        then:
+        processed
+        1 * response.processResponse(rows("2015-01-01", "2015-01-02", "2015-01-03"), query, _)
+        0 * next.handleRequest(*_)
+        0 * fallback.handleRequest(*_)
+        bardQueryInfo.queryCounter.get(BardQueryInfo.FACT_QUERY_CACHE_HIT).get() == 1
+    }
+
+    def "Adjacent missing buckets are asked for in one query, merged with cached buckets, and cached"() {
+        setup:
+        cache("2015-01-01")
+        DruidAggregationQuery<?> sentQuery
+        ResponseProcessor sentResponse
+
+        when:
+        handler.handleRequest(requestContext, apiRequest, query, response)
+
+        then: "Only the missing run is sent on"
+        1 * next.handleRequest(requestContext, apiRequest, _, _ as BucketCachingResponseProcessor) >> {
+            sentQuery = it[2]
+            sentResponse = it[3]
+            true
+        }
+        sentQuery.intervals == [new Interval("2015-01-02/2015-01-04")]
+        0 * response.processResponse(*_)
+
+        when: "Druid answers the run"
+        sentResponse.processResponse(rows("2015-01-02", "2015-01-03"), sentQuery, new LoggingContext(RequestLog.dump()))
+
+        then: "The merged response is sent on"
+        1 * response.processResponse(rows("2015-01-01", "2015-01-02", "2015-01-03"), query, _)
+
+        and: "Each bucket of the run is cached on its own"
+        handler.readBucket(query, new Interval("2015-01-02/P1D")) == rows("2015-01-02")
+        handler.readBucket(query, new Interval("2015-01-03/P1D")) == rows("2015-01-03")
+    }
+
+    def "Buckets overlapping volatile data are not cached, but the rest of the run is"() {
+        setup:
+        responseContext.put(
+                VOLATILE_INTERVALS_CONTEXT_KEY.getName(),
+                new SimplifiedIntervalList([new Interval("2015-01-03/2015-01-04")])
+        )
+        ResponseProcessor sentResponse
+        DruidAggregationQuery<?> sentQuery
+
+        when:
+        handler.handleRequest(requestContext, apiRequest, query, response)
+        sentResponse.processResponse(
+                rows("2015-01-01", "2015-01-02", "2015-01-03"),
+                sentQuery,
+                new LoggingContext(RequestLog.dump())
+        )
+
+        then:
+        1 * next.handleRequest(requestContext, apiRequest, _, _) >> {
+            sentQuery = it[2]
+            sentResponse = it[3]
+            true
+        }
+        1 * response.processResponse(rows("2015-01-01", "2015-01-02", "2015-01-03"), query, _)
+        handler.readBucket(query, new Interval("2015-01-01/P1D")) == rows("2015-01-01")
+        handler.readBucket(query, new Interval("2015-01-02/P1D")) == rows("2015-01-02")
+        handler.readBucket(query, new Interval("2015-01-03/P1D")) == null
+    }
+
+    def "Buckets cached under an older segment signature are asked for again"() {
+        setup:
+        ["2015-01-01", "2015-01-02", "2015-01-03"].each { cache(it) }
+        QuerySigningService<Long> newSegments = Mock(SegmentIntervalsHashIdGenerator)
+        newSegments.getSegmentSetId(_) >> { DruidAggregationQuery<?> bucketQuery ->
+            Optional.of(bucketQuery.intervals[0].start.dayOfMonth == 3 ? 5678L : 1234L)
+        }
+        handler = new BucketedCacheRequestHandler(next, fallback, dataCache, newSegments, mapper)
+
+        when:
+        handler.handleRequest(requestContext, apiRequest, query, response)
+
+        then:
+        1 * next.handleRequest(requestContext, apiRequest, { it.intervals == [new Interval("2015-01-03/P1D")] }, _)
+        0 * response.processResponse(*_)
+    }
+}
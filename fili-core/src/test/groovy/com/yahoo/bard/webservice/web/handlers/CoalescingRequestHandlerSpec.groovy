@@ -0,0 +1,285 @@
+// Copyright 2026 Yahoo Inc.
+// Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
+package com.yahoo.bard.webservice.web.handlers
+
+import com.yahoo.bard.webservice.application.ObjectMappersSuite
+import com.yahoo.bard.webservice.druid.client.FailureCallback
+import com.yahoo.bard.webservice.druid.client.HttpErrorCallback
+import com.yahoo.bard.webservice.druid.model.query.GroupByQuery
+import com.yahoo.bard.webservice.druid.model.query.TimeSeriesQuery
+import com.yahoo.bard.webservice.logging.RequestLog
+import com.yahoo.bard.webservice.web.RequestUtils
+import com.yahoo.bard.webservice.web.apirequest.DataApiRequest
+import com.yahoo.bard.webservice.web.responseprocessors.CacheWritingResponseProcessor
+import com.yahoo.bard.webservice.web.responseprocessors.CoalescingResponseProcessor
+import com.yahoo.bard.webservice.web.responseprocessors.LoggingContext
+import com.yahoo.bard.webservice.web.responseprocessors.ResponseProcessor
+import com.yahoo.bard.webservice.web.responseprocessors.StreamingCoalescingResponseProcessor
+import com.yahoo.bard.webservice.web.responseprocessors.StreamingResponseProcessor
+
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.node.ArrayNode
+
+import spock.lang.Specification
+
+import javax.ws.rs.container.ContainerRequestContext
+import javax.ws.rs.core.MultivaluedHashMap
+
+class CoalescingRequestHandlerSpec extends Specification {
+
+    ObjectMapper mapper = new ObjectMappersSuite().getMapper()
+
+    DataRequestHandler next = Mock(DataRequestHandler)
+    CoalescingRequestHandler handler = new CoalescingRequestHandler(next, mapper)
+
+    GroupByQuery groupByQuery = RequestUtils.buildGroupByQuery()
+    TimeSeriesQuery timeSeriesQuery = RequestUtils.buildTimeSeriesQuery()
+    DataApiRequest apiRequest = Mock(DataApiRequest)
+
+    ResponseProcessor leadResponse = Mock(ResponseProcessor)
+    ResponseProcessor followResponse = Mock(ResponseProcessor)
+
+    JsonNode json = mapper.readTree('[{"version": "v1", "timestamp": "2014-06-10T00:00:00.000Z", "event": {}}]')
+
+    ContainerRequestContext containerRequestContext = Mock(ContainerRequestContext)
+
+    def setup() {
+        containerRequestContext.getHeaders() >> (["Bard-Testing": "###BYPASS###", "ClientId": "UI"] as
+                MultivaluedHashMap<String, String>)
+    }
+
+    def cleanup() {
+        RequestLog.dump()
+    }
+
+    RequestContext newContext(boolean readCache = true) {
+        new RequestContext(containerRequestContext, readCache)
+    }
+
+    def "The first query is sent on and an identical one attaches to it"() {
+        setup:
+        ResponseProcessor leader = null
+        RequestContext followContext = newContext()
+
+        when: "The first query arrives"
+        boolean first = handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+
+        then: "It is sent on with a coalescing response processor"
+        first
+        1 * next.handleRequest(_, apiRequest, groupByQuery, _ as CoalescingResponseProcessor) >> {
+            leader = it[3]
+            true
+        }
+        handler.inFlightCount == 1
+
+        when: "An identical query arrives while the first is outstanding"
+        boolean second = handler.handleRequest(followContext, apiRequest, groupByQuery, followResponse)
+
+        then: "It is not sent on and no longer counts as outgoing"
+        second
+        0 * next.handleRequest(*_)
+        followContext.numberOfOutgoing.get() == 0
+
+        when: "The response to the first query arrives"
+        leader.processResponse(json, groupByQuery, new LoggingContext(RequestLog.copy()))
+
+        then: "Both queries are answered with equal but separate copies of the response"
+        1 * leadResponse.processResponse(json, groupByQuery, _)
+        1 * followResponse.processResponse({ it == json && !it.is(json) }, groupByQuery, _ as LoggingContext)
+        followContext.numberOfIncoming.get() == 0
+        handler.inFlightCount == 0
+    }
+
+    def "Different queries are each sent on"() {
+        when:
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+        handler.handleRequest(newContext(), apiRequest, timeSeriesQuery, followResponse)
+
+        then:
+        1 * next.handleRequest(_, apiRequest, groupByQuery, _) >> true
+        1 * next.handleRequest(_, apiRequest, timeSeriesQuery, _) >> true
+        handler.inFlightCount == 2
+    }
+
+    def "Queries that skip the cache are not coalesced"() {
+        when:
+        handler.handleRequest(newContext(false), apiRequest, groupByQuery, leadResponse)
+        handler.handleRequest(newContext(false), apiRequest, groupByQuery, followResponse)
+
+        then:
+        1 * next.handleRequest(_, apiRequest, groupByQuery, leadResponse) >> true
+        1 * next.handleRequest(_, apiRequest, groupByQuery, followResponse) >> true
+        handler.inFlightCount == 0
+    }
+
+    def "A query arriving after the response is sent on again"() {
+        setup:
+        List<ResponseProcessor> sent = []
+        next.handleRequest(*_) >> { sent.add(it[3]); true }
+
+        when:
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+        sent[0].processResponse(json, groupByQuery, new LoggingContext(RequestLog.copy()))
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, followResponse)
+
+        then:
+        sent.size() == 2
+        !sent[1].is(sent[0])
+        0 * followResponse.processResponse(*_)
+    }
+
+    def "Errors and failures are shared with attached queries"() {
+        setup:
+        ResponseProcessor leader = null
+        next.handleRequest(*_) >> { leader = it[3]; true }
+        HttpErrorCallback leadError = Mock(HttpErrorCallback)
+        HttpErrorCallback followError = Mock(HttpErrorCallback)
+        leadResponse.getErrorCallback(groupByQuery) >> leadError
+        followResponse.getErrorCallback(groupByQuery) >> followError
+
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, followResponse)
+
+        when:
+        leader.getErrorCallback(groupByQuery).invoke(500, "Internal Server Error", "body")
+
+        then:
+        1 * leadError.invoke(500, "Internal Server Error", "body")
+        1 * followError.invoke(500, "Internal Server Error", "body")
+        handler.inFlightCount == 0
+    }
+
+    def "A failure answering one attached query does not prevent answering the others"() {
+        setup:
+        ResponseProcessor leader = null
+        next.handleRequest(*_) >> { leader = it[3]; true }
+        ResponseProcessor otherResponse = Mock(ResponseProcessor)
+        FailureCallback followFailure = Mock(FailureCallback)
+        followResponse.getFailureCallback(groupByQuery) >> followFailure
+        RuntimeException exception = new IllegalStateException("failed")
+
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, followResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, otherResponse)
+
+        when:
+        leader.processResponse(json, groupByQuery, new LoggingContext(RequestLog.copy()))
+
+        then:
+        1 * followResponse.processResponse(*_) >> { throw exception }
+        1 * followFailure.invoke(exception)
+        1 * otherResponse.processResponse(json, groupByQuery, _)
+    }
+
+    def "A query the next handler throws on is not left in flight and fails the queries attached to it"() {
+        setup:
+        RuntimeException exception = new IllegalStateException("not sent")
+        FailureCallback followFailure = Mock(FailureCallback)
+        followResponse.getFailureCallback(groupByQuery) >> followFailure
+
+        when: "The next handler throws while a follower attaches"
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+
+        then: "The error reaches the leading request and the follower is failed with it"
+        1 * next.handleRequest(_, apiRequest, groupByQuery, _) >> {
+            assert handler.handleRequest(newContext(), apiRequest, groupByQuery, followResponse)
+            throw exception
+        }
+        IllegalStateException thrown = thrown()
+        thrown.is(exception)
+        1 * followFailure.invoke(exception)
+        handler.inFlightCount == 0
+
+        when: "The query arrives again"
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+
+        then: "It is sent on rather than attached to the query that was never sent"
+        1 * next.handleRequest(_, apiRequest, groupByQuery, _ as CoalescingResponseProcessor) >> true
+        handler.inFlightCount == 1
+    }
+
+    def "Queries that can stream keep streaming, and only coalesce with each other"() {
+        setup:
+        List<ResponseProcessor> sent = []
+        next.handleRequest(*_) >> { sent.add(it[3]); true }
+        StreamingResponseProcessor streamingLead = Mock(StreamingResponseProcessor)
+        StreamingResponseProcessor streamingFollow = Mock(StreamingResponseProcessor)
+        JsonParser parser = mapper.getFactory().createParser(mapper.writeValueAsString(json))
+
+        when: "A query that can stream arrives alone"
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, streamingLead)
+        sent[0].processStreamingResponse(parser, groupByQuery, new LoggingContext(RequestLog.copy()))
+
+        then: "Its response is streamed straight on"
+        sent[0] instanceof StreamingCoalescingResponseProcessor
+        1 * streamingLead.processStreamingResponse(parser, groupByQuery, _)
+
+        when: "Queries that can and can't stream arrive together"
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, streamingLead)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, streamingFollow)
+        sent[1].processStreamingResponse(
+                mapper.getFactory().createParser(mapper.writeValueAsString(json)),
+                groupByQuery,
+                new LoggingContext(RequestLog.copy())
+        )
+
+        then: "Each kind is sent once, and the streamed response is shared as a tree"
+        sent.size() == 3
+        sent[1] instanceof StreamingCoalescingResponseProcessor
+        !(sent[2] instanceof StreamingResponseProcessor)
+        1 * streamingLead.processResponse(json, groupByQuery, _)
+        1 * streamingFollow.processResponse({ it == json }, groupByQuery, _)
+        0 * leadResponse.processResponse(*_)
+    }
+
+    def "Attached queries get unmodified copies of the response, each made as the query is answered"() {
+        setup:
+        ResponseProcessor leader = null
+        next.handleRequest(*_) >> { leader = it[3]; true }
+        ResponseProcessor otherResponse = Mock(ResponseProcessor)
+        JsonNode received = json.deepCopy()
+        List<JsonNode> copies = []
+
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leadResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, followResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, otherResponse)
+
+        when: "Every chain empties the response it is given"
+        leader.processResponse(received, groupByQuery, new LoggingContext(RequestLog.copy()))
+
+        then: "Each attached query still gets the response as it arrived"
+        1 * leadResponse.processResponse(received, groupByQuery, _) >> { ((ArrayNode) it[0]).removeAll() }
+        1 * followResponse.processResponse(*_) >> {
+            copies.add(it[0].deepCopy())
+            ((ArrayNode) it[0]).removeAll()
+        }
+        1 * otherResponse.processResponse(*_) >> { copies.add(it[0].deepCopy()) }
+        copies == [json, json]
+        received.size() == 0
+    }
+
+    def "Attached queries skip writing to the cache when the leading query's chain writes the response to it"() {
+        setup:
+        ResponseProcessor leader = null
+        next.handleRequest(*_) >> { leader = it[3]; true }
+        CacheWritingResponseProcessor leadCaching = Mock(CacheWritingResponseProcessor)
+        CacheWritingResponseProcessor followCaching = Mock(CacheWritingResponseProcessor)
+        followCaching.getNext() >> followResponse
+
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, leaderIsCaching ? leadCaching : leadResponse)
+        handler.handleRequest(newContext(), apiRequest, groupByQuery, followCaching)
+
+        when:
+        leader.processResponse(json, groupByQuery, new LoggingContext(RequestLog.copy()))
+
+        then:
+        (leaderIsCaching ? 0 : 1) * followCaching.processResponse({ it == json }, groupByQuery, _)
+        (leaderIsCaching ? 1 : 0) * followResponse.processResponse({ it == json }, groupByQuery, _)
+
+        where:
+        leaderIsCaching << [true, false]
+    }
+}
@@ -143,4 +143,16 @@ class PaginationParametersSpec extends Specification {
     String missingParamMessage(String missingParam) {
         "Missing parameter '$missingParam.' Both 'perPage' and 'page' are required for pagination."
     }
+
+    def "a cursor is kept for its page, and dropped when the page changes"() {
+        when:
+        PaginationParameters withCursor = new PaginationParameters(3, 2).withCursor("abc")
+
+        then:
+        withCursor.getCursor() == Optional.of("abc")
+        withCursor.getPage(10) == 2
+        withCursor != new PaginationParameters(3, 2)
+        !withCursor.withPage("3").getCursor().isPresent()
+        !withCursor.withCursor("").getCursor().isPresent()
+    }
 }
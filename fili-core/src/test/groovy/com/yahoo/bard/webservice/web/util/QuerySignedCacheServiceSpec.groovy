@@ -7,6 +7,8 @@ import com.yahoo.bard.webservice.config.SystemConfigProvider
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.databind.node.JsonNodeFactory
 import com.yahoo.bard.webservice.application.ObjectMappersSuite
+import com.yahoo.bard.webservice.data.cache.CacheValueEncoder
+import com.yahoo.bard.webservice.data.cache.DefaultCacheValueCodec
 import com.yahoo.bard.webservice.data.cache.MemTupleDataCache
 import com.yahoo.bard.webservice.data.cache.TupleDataCache
 import com.yahoo.bard.webservice.druid.model.query.GroupByQuery
@@ -199,4 +201,29 @@ class QuerySignedCacheServiceSpec extends Specification {
         cleanup: "Restore the original setting for max-length-to-cache"
         SYSTEM_CONFIG.clearProperty(max_druid_response_length_to_cache_key )
     }
+
+    def "Compressed cache values are written encoded and read back as JSON"() {
+        setup:
+        CacheValueEncoder encoder = new CacheValueEncoder(
+                DefaultCacheValueCodec.GZIP,
+                DefaultCacheValueCodec.values() as List
+        )
+        cacheService = new QuerySignedCacheService(dataCache, querySigningService, MAPPER, encoder)
+        response.getResponseContext() >> responseContext
+        String stored = null
+
+        when:
+        cacheService.writeCache(response, json, groupByQuery)
+
+        then:
+        1 * dataCache.set(_, 1234L, _) >> { key, meta, value -> stored = value; true }
+        stored != "[]"
+
+        when:
+        String cachedValue = cacheService.readCache(requestContext, groupByQuery)
+
+        then:
+        1 * dataCache.get(_) >> new MemTupleDataCache.DataEntry<Long, String>("key1", 1234L, stored)
+        cachedValue == "[]"
+    }
 }
@@ -2,13 +2,14 @@
 // Licensed under the terms of the Apache license. Please see LICENSE.md file distributed with this work for terms.
 package com.yahoo.bard.webservice.application;
 
+import static com.yahoo.bard.webservice.application.DruidDimensionValueLoader.DRUID_DIM_LOADER_BATCH_SIZE;
+import static com.yahoo.bard.webservice.application.DruidDimensionValueLoader.DRUID_DIM_LOADER_MAX_KNOWN_VALUES;
 import static com.yahoo.bard.webservice.application.DruidDimensionValueLoader.DRUID_DIM_LOADER_ROW_LIMIT;
 
 import com.yahoo.bard.webservice.config.SystemConfig;
 import com.yahoo.bard.webservice.config.SystemConfigProvider;
 import com.yahoo.bard.webservice.data.dimension.Dimension;
 import com.yahoo.bard.webservice.data.dimension.DimensionDictionary;
-import com.yahoo.bard.webservice.data.dimension.DimensionRow;
 import com.yahoo.bard.webservice.data.time.AllGranularity;
 import com.yahoo.bard.webservice.druid.client.FailureCallback;
 import com.yahoo.bard.webservice.druid.client.HttpErrorCallback;
@@ -23,8 +24,6 @@ import com.yahoo.bard.webservice.table.SqlPhysicalTable;
 import com.yahoo.bard.webservice.table.resolver.DataSourceConstraint;
 import com.yahoo.bard.webservice.util.Utils;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.joda.time.Years;
@@ -35,6 +34,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * The SqlDimensionValueLoader sends values to the configured sql backend to load dimension values into the dimension
@@ -43,11 +43,20 @@ import java.util.stream.Collectors;
 public class SqlDimensionValueLoader implements DimensionValueLoader {
     private static final SystemConfig SYSTEM_CONFIG = SystemConfigProvider.getInstance();
     private static final Integer ROW_LIMIT = SYSTEM_CONFIG.getIntProperty(DRUID_DIM_LOADER_ROW_LIMIT, 1000);
+    private static final int BATCH_SIZE = SYSTEM_CONFIG.getIntProperty(DRUID_DIM_LOADER_BATCH_SIZE, 10000);
+    private static final int MAX_KNOWN_VALUES = SYSTEM_CONFIG.getIntProperty(
+            DRUID_DIM_LOADER_MAX_KNOWN_VALUES,
+            DimensionValueWriter.DEFAULT_MAX_KNOWN_VALUES
+    );
     private static final Interval INTERVAL = new Interval(Years.years(10), DateTime.now());
     private FailureCallback failureCallback;
     private final Set<Dimension> dimensions;
     private final Set<DataSource> dataSources;
     private final SqlBackedClient sqlBackedClient;
+    private final DimensionValueWriter dimensionValueWriter = new DimensionValueWriter(
+            BATCH_SIZE,
+            MAX_KNOWN_VALUES
+    );
 
     /**
      * SqlDimensionValueLoader fetches data from Sql and adds it to the dimension cache.
@@ -106,18 +115,13 @@ public class SqlDimensionValueLoader implements DimensionValueLoader {
      */
     private SuccessCallback buildSuccessCallback(Dimension dimension) {
         return rootNode -> {
-            rootNode.forEach(row -> {
-                JsonNode eventRow = row.get("event");
-
-                String dimensionValue = eventRow.get(dimension.getApiName()).asText();
-
-                if (dimension.findDimensionRowByKeyValue(dimensionValue) == null) {
-                    DimensionRow dimensionRow = dimension.createEmptyDimensionRow(dimensionValue);
-                    updateDimensionWithValue(dimension, dimensionRow);
-                }
-            });
+            Iterable<String> values = () -> StreamSupport.stream(rootNode.spliterator(), false)
+                    .map(row -> row.get("event"))
+                    .map(eventRow -> eventRow.get(dimension.getApiName()).asText())
+                    .iterator();
+            dimensionValueWriter.write(dimension, values);
 
-            updateDimension(dimension);
+            dimensionValueWriter.update(dimension, () -> updateDimension(dimension));
         };
     }
 